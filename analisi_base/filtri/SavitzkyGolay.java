@@ -0,0 +1,109 @@
+package org.simulator.analisi_base.filtri;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtro di Savitzky–Golay: fit polinomiale ai minimi quadrati su una finestra mobile, applicato come
+ * convoluzione con coefficienti precalcolati (una volta per coppia finestra/grado). Ai bordi usa il fit
+ * della prima/ultima finestra completa valutato nella posizione del campione, senza accorciare la finestra.
+ */
+public final class SavitzkyGolay {
+
+    /** Coefficienti per finestra {@code 2m+1}: riga {@code t+m} = pesi per stimare il campione in posizione t. */
+    private record Kernel(int m, double[][] rows) {}
+
+    private static final Map<Long, Kernel> KERNELS = new ConcurrentHashMap<>();
+
+    private SavitzkyGolay(){}
+
+    /**
+     * Segnale smussato con finestra di {@code window} campioni (resa dispari, almeno {@code order+2})
+     * e polinomio di grado {@code order}. Con meno campioni della finestra restituisce una copia.
+     */
+    public static double[] smooth(double[] y, int window, int order) {
+        int n = y.length;
+        order = Math.max(0, order);
+        int m = Math.max(window / 2, (order + 2) / 2);
+        int w = 2 * m + 1;
+        if (n < w) return y.clone();
+        Kernel k = kernel(m, order);
+
+        double[] out = new double[n];
+        double[] c = k.rows[m];
+        for (int i = m; i < n - m; i++) {
+            double s = 0;
+            for (int j = 0; j < w; j++) s += c[j] * y[i - m + j];
+            out[i] = s;
+        }
+        for (int t = 0; t < m; t++) {
+            out[t] = dot(k.rows[t], y, 0);
+            out[n - 1 - t] = dot(k.rows[w - 1 - t], y, n - w);
+        }
+        return out;
+    }
+
+    /** Pesi della convoluzione centrale (lunghezza {@code 2m+1}); copia, modificabile. */
+    public static double[] coefficients(int window, int order) {
+        int m = Math.max(window / 2, (Math.max(0, order) + 2) / 2);
+        return kernel(m, Math.max(0, order)).rows[m].clone();
+    }
+
+    private static double dot(double[] c, double[] y, int from) {
+        double s = 0;
+        for (int j = 0; j < c.length; j++) s += c[j] * y[from + j];
+        return s;
+    }
+
+    private static Kernel kernel(int m, int order) {
+        return KERNELS.computeIfAbsent(((long) m << 32) | order, key -> build(m, order));
+    }
+
+    /** Righe di (A (AᵀA)⁻¹ Aᵀ) con A[z][p] = zᵖ, z ∈ [-m, m]: valore del fit in ogni posizione. */
+    private static Kernel build(int m, int order) {
+        int w = 2 * m + 1, p = order + 1;
+        double[][] a = new double[w][p];
+        for (int z = -m; z <= m; z++) {
+            double v = 1;
+            for (int k = 0; k < p; k++) { a[z + m][k] = v; v *= z; }
+        }
+        // AᵀA e sua inversa (Gauss-Jordan con pivot parziale; p è piccolo)
+        double[][] ata = new double[p][2 * p];
+        for (int r = 0; r < p; r++) {
+            for (int c = 0; c < p; c++) {
+                double s = 0;
+                for (int z = 0; z < w; z++) s += a[z][r] * a[z][c];
+                ata[r][c] = s;
+            }
+            ata[r][p + r] = 1;
+        }
+        for (int col = 0; col < p; col++) {
+            int piv = col;
+            for (int r = col + 1; r < p; r++) if (Math.abs(ata[r][col]) > Math.abs(ata[piv][col])) piv = r;
+            double[] tmp = ata[col]; ata[col] = ata[piv]; ata[piv] = tmp;
+            double d = ata[col][col];
+            for (int c = 0; c < 2 * p; c++) ata[col][c] /= d;
+            for (int r = 0; r < p; r++) {
+                if (r == col) continue;
+                double f = ata[r][col];
+                if (f != 0) for (int c = 0; c < 2 * p; c++) ata[r][c] -= f * ata[col][c];
+            }
+        }
+        // riga t: a[t] · (AᵀA)⁻¹ · Aᵀ
+        double[][] rows = new double[w][w];
+        for (int t = 0; t < w; t++) {
+            double[] g = new double[p];
+            for (int c = 0; c < p; c++) {
+                double s = 0;
+                for (int k = 0; k < p; k++) s += a[t][k] * ata[k][p + c];
+                g[c] = s;
+            }
+            for (int z = 0; z < w; z++) {
+                double s = 0;
+                for (int c = 0; c < p; c++) s += g[c] * a[z][c];
+                rows[t][z] = s;
+            }
+        }
+        return new Kernel(m, rows);
+    }
+}
@@ -0,0 +1,168 @@
+package org.simulator.analisi_base.filtri;
+
+/**
+ * Filtri a finestra mobile in O(n) (media) e O(n log w) (mediana), con la stessa semantica dei vecchi
+ * cicli che ricalcolavano la finestra per ogni campione: finestra centrata {@code [i-hw, i+hw]}, troncata
+ * ai bordi dell'array.
+ */
+public final class SlidingFilters {
+    private SlidingFilters(){}
+
+    /**
+     * Media mobile con finestra di {@code window} campioni (semi-ampiezza {@code max(1, window/2)}).
+     * Un NaN nella finestra dà NaN, come la somma diretta; gli infiniti si comportano come nella somma.
+     */
+    public static double[] movingAverage(double[] y, int window) {
+        return average(y, Math.max(1, window / 2), false);
+    }
+
+    /** Media mobile su {@code [i-halfWidth, i+halfWidth]} dei soli valori non NaN (NaN se nessuno). */
+    public static double[] movingAverageSkipNaN(double[] y, int halfWidth) {
+        return average(y, Math.max(0, halfWidth), true);
+    }
+
+    /**
+     * Mediana mobile con finestra di {@code window} campioni (semi-ampiezza {@code max(1, window/2)}):
+     * l'elemento di rango {@code c/2} della finestra ordinata come {@code Arrays.sort} (NaN in fondo).
+     * Due heap indicizzati: ogni passo inserisce e rimuove un campione in O(log w).
+     */
+    public static double[] runningMedian(double[] y, int window) {
+        int n = y.length, hw = Math.max(1, window / 2);
+        double[] out = new double[n];
+        if (n == 0) return out;
+        RunningMedian rm = new RunningMedian(y);
+        int hi = -1;
+        for (int i = 0; i < n; i++) {
+            int lo = i - hw - 1;
+            if (lo >= 0) rm.remove(lo);
+            while (hi < Math.min(n - 1, i + hw)) rm.add(++hi);
+            out[i] = rm.median();
+        }
+        return out;
+    }
+
+    private static double[] average(double[] y, int hw, boolean skipNaN) {
+        int n = y.length;
+        double[] out = new double[n];
+        // somma dei soli finiti + conteggi dei non finiti: un NaN/infinito non "avvelena" la somma corrente
+        double sum = 0;
+        int finite = 0, nan = 0, posInf = 0, negInf = 0;
+        int hi = -1;
+        for (int i = 0; i < n; i++) {
+            int lo = i - hw - 1;
+            if (lo >= 0) {
+                double v = y[lo];
+                if (Double.isFinite(v)) { sum -= v; finite--; }
+                else if (Double.isNaN(v)) nan--;
+                else if (v > 0) posInf--; else negInf--;
+            }
+            while (hi < Math.min(n - 1, i + hw)) {
+                double v = y[++hi];
+                if (Double.isFinite(v)) { sum += v; finite++; }
+                else if (Double.isNaN(v)) nan++;
+                else if (v > 0) posInf++; else negInf++;
+            }
+            if (finite == 0) sum = 0;   // azzera l'errore di arrotondamento accumulato
+            int count = finite + posInf + negInf + (skipNaN ? 0 : nan);
+            if (count == 0 || (!skipNaN && nan > 0) || (posInf > 0 && negInf > 0)) out[i] = Double.NaN;
+            else if (posInf > 0) out[i] = Double.POSITIVE_INFINITY;
+            else if (negInf > 0) out[i] = Double.NEGATIVE_INFINITY;
+            else out[i] = sum / count;
+        }
+        return out;
+    }
+
+    /**
+     * Finestra come due heap di indici nell'array: {@code low} (max-heap) tiene i {@code c/2+1} valori più
+     * piccoli, {@code high} (min-heap) il resto; la mediana è la cima di {@code low}. {@code pos} permette di
+     * togliere un campione qualsiasi in O(log w).
+     */
+    private static final class RunningMedian {
+        private final double[] y;
+        private final int[] low, high;
+        private final int[] pos;       // >= 0: posizione in low; < 0: -(posizione in high) - 1
+        private int nLow, nHigh;
+
+        RunningMedian(double[] y) {
+            this.y = y;
+            this.low = new int[y.length];
+            this.high = new int[y.length];
+            this.pos = new int[y.length];
+        }
+
+        void add(int idx) {
+            if (nLow == 0 || Double.compare(y[idx], y[low[0]]) <= 0) push(true, idx);
+            else push(false, idx);
+            rebalance();
+        }
+
+        void remove(int idx) {
+            int p = pos[idx];
+            if (p >= 0) removeAt(true, p);
+            else removeAt(false, -p - 1);
+            rebalance();
+        }
+
+        double median() { return y[low[0]]; }
+
+        private void rebalance() {
+            int target = (nLow + nHigh) / 2 + 1;
+            while (nLow > target) { int t = low[0]; removeAt(true, 0); push(false, t); }
+            while (nLow < target && nHigh > 0) { int t = high[0]; removeAt(false, 0); push(true, t); }
+        }
+
+        // ---- heap indicizzati (low: max-heap, high: min-heap) ----
+
+        private boolean above(boolean isLow, int a, int b) {
+            int c = Double.compare(y[a], y[b]);
+            return isLow ? c > 0 : c < 0;
+        }
+
+        private void set(boolean isLow, int p, int idx) {
+            if (isLow) { low[p] = idx; pos[idx] = p; }
+            else { high[p] = idx; pos[idx] = -p - 1; }
+        }
+
+        private void push(boolean isLow, int idx) {
+            int p = isLow ? nLow++ : nHigh++;
+            set(isLow, p, idx);
+            up(isLow, p);
+        }
+
+        private void removeAt(boolean isLow, int p) {
+            int[] h = isLow ? low : high;
+            int last = isLow ? --nLow : --nHigh;
+            if (p == last) return;
+            set(isLow, p, h[last]);
+            if (!up(isLow, p)) down(isLow, p);
+        }
+
+        private boolean up(boolean isLow, int p) {
+            int[] h = isLow ? low : high;
+            int idx = h[p], start = p;
+            while (p > 0) {
+                int parent = (p - 1) >>> 1;
+                if (!above(isLow, idx, h[parent])) break;
+                set(isLow, p, h[parent]);
+                p = parent;
+            }
+            set(isLow, p, idx);
+            return p != start;
+        }
+
+        private void down(boolean isLow, int p) {
+            int[] h = isLow ? low : high;
+            int size = isLow ? nLow : nHigh;
+            int idx = h[p];
+            while (true) {
+                int c = 2 * p + 1;
+                if (c >= size) break;
+                if (c + 1 < size && above(isLow, h[c + 1], h[c])) c++;
+                if (!above(isLow, h[c], idx)) break;
+                set(isLow, p, h[c]);
+                p = c;
+            }
+            set(isLow, p, idx);
+        }
+    }
+}
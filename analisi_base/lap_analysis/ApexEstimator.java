@@ -1,5 +1,6 @@
 package org.simulator.analisi_base.lap_analysis;
 
+import org.simulator.analisi_base.filtri.SlidingFilters;
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
 
@@ -16,26 +17,13 @@ final class ApexEstimator {
         if (lap == null || lap.samples == null || lap.samples.size() < 3) return out;
 
         int n = lap.samples.size();
-        double[] v = new double[n];
+        double[] v = lap.frame().column(Channel.SPEED);
+        if (v == null) return out;
         boolean any = false;
-        for (int i = 0; i < n; i++) {
-            Double s = lap.samples.get(i).values().get(Channel.SPEED);
-            v[i] = (s == null || s.isNaN()) ? Double.NaN : s;
-            if (!Double.isNaN(v[i])) any = true;
-        }
+        for (int i = 0; i < n && !any; i++) if (!Double.isNaN(v[i])) any = true;
         if (!any) return out;
 
-        int W = Math.max(1, smoothWindow);
-        double[] sm = new double[n];
-        for (int i = 0; i < n; i++) {
-            int a = Math.max(0, i - W);
-            int b = Math.min(n - 1, i + W);
-            double sum = 0; int cnt = 0;
-            for (int k = a; k <= b; k++) {
-                if (!Double.isNaN(v[k])) { sum += v[k]; cnt++; }
-            }
-            sm[i] = cnt > 0 ? sum / cnt : Double.NaN;
-        }
+        double[] sm = SlidingFilters.movingAverageSkipNaN(v, Math.max(1, smoothWindow));
 
         int minGap = Math.max(5, n / 100);
         int lastIdx = -minGap;
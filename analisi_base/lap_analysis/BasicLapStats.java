@@ -12,9 +12,16 @@ final class BasicLapStats {
 
     private BasicLapStats() {}
 
+    private static final Object KEY = new Object();
+
+    /** Statistiche del giro: calcolate una volta (su {@link LapMetrics}) e restituite come copia modificabile. */
     static Map<String, Double> compute(Lap lap) {
+        if (lap == null || lap.samples == null || lap.samples.isEmpty()) return new LinkedHashMap<>();
+        return new LinkedHashMap<>(lap.derived(KEY, BasicLapStats::computeUncached));
+    }
+
+    private static Map<String, Double> computeUncached(Lap lap) {
         Map<String, Double> st = new LinkedHashMap<>();
-        if (lap == null || lap.samples == null || lap.samples.isEmpty()) return st;
 
         // -------------------- GIRO --------------------
         double lapTime = !Double.isNaN(lap.lapTime) ? lap.lapTime : SampleMath.lastNonNaN(lap, Channel.LAP_TIME);
@@ -1,7 +1,7 @@
 package org.simulator.analisi_base.lap_analysis;
 
+import org.simulator.analisi_base.filtri.SlidingFilters;
 import org.simulator.canale.Lap;
-import org.simulator.canale.Sample;
 
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -60,18 +60,17 @@ public final class CornerDetector {
         double[] Sabs = new double[n];
 
         for (int i = 0; i < n; i++) {
-            Sample sm = lap.samples.get(i);
-            X[i]    = sm.distance();
-            double v = speedKmh(sm);
+            X[i]    = lap.frame().distance(i);
+            double v = speedKmh(lap, i);
             Vkmh[i] = v;
             Vms[i]  = v / 3.6;
-            Sabs[i] = Math.abs(steeringDeg(sm));
+            Sabs[i] = Math.abs(steeringDeg(lap, i));
         }
 
-        Vkmh = SavGol.median(Vkmh, MEDIAN_WIN_SAMPLES);
-        Vkmh = SavGol.smooth(Vkmh, SMOOTH_WINDOW_SAMPLES);
-        Vms  = SavGol.smooth(Vms,  SMOOTH_WINDOW_SAMPLES);
-        Sabs = SavGol.median(Sabs, MEDIAN_WIN_SAMPLES);
+        Vkmh = SlidingFilters.runningMedian(Vkmh, MEDIAN_WIN_SAMPLES);
+        Vkmh = SlidingFilters.movingAverage(Vkmh, SMOOTH_WINDOW_SAMPLES);
+        Vms  = SlidingFilters.movingAverage(Vms,  SMOOTH_WINDOW_SAMPLES);
+        Sabs = SlidingFilters.runningMedian(Sabs, MEDIAN_WIN_SAMPLES);
 
         int startIdx = findWarmupStart(Vkmh, WARMUP_SPEED_MIN_KMH, WARMUP_STABLE_SAMPLES);
         int endIdx   = findPitEntryStart(Vkmh, PIT_ENTRY_SPEED_MAX_KMH, PIT_STABLE_SAMPLES);
@@ -129,13 +128,12 @@ public final class CornerDetector {
         double[] Vkmh = new double[n];
 
         for (int i = 0; i < n; i++) {
-            Sample sm = lap.samples.get(i);
-            X[i]    = sm.distance();
-            Vkmh[i] = speedKmh(sm);
+            X[i]    = lap.frame().distance(i);
+            Vkmh[i] = speedKmh(lap, i);
         }
 
-        Vkmh = SavGol.median(Vkmh, Math.max(3, 5));
-        Vkmh = SavGol.smooth(Vkmh, Math.max(5, smoothWindow));
+        Vkmh = SlidingFilters.runningMedian(Vkmh, Math.max(3, 5));
+        Vkmh = SlidingFilters.movingAverage(Vkmh, Math.max(5, smoothWindow));
 
         List<Integer> mins = findLocalMinimaPlateauOnKmh(Vkmh, 3, 0, n - 1);
         mins.sort(Comparator.comparingDouble(i -> X[i]));
@@ -163,8 +161,8 @@ public final class CornerDetector {
     }
 
     private static boolean hasSteering(Lap lap) {
-        for (Sample s : lap.samples) {
-            double st = steeringDeg(s);
+        for (int i = 0, n = lap.size(); i < n; i++) {
+            double st = steeringDeg(lap, i);
             if (!Double.isNaN(st) && !Double.isInfinite(st)) return true;
         }
         return false;
@@ -304,31 +302,4 @@ public final class CornerDetector {
         return out;
     }
 
-    static final class SavGol {
-        static double[] smooth(double[] y, int window) {
-            int n = y.length, hw = Math.max(1, window / 2);
-            double[] out = new double[n];
-            for (int i = 0; i < n; i++) {
-                int lo = Math.max(0, i - hw), hi = Math.min(n - 1, i + hw);
-                double s = 0; int c = 0;
-                for (int j = lo; j <= hi; j++) { s += y[j]; c++; }
-                out[i] = s / c;
-            }
-            return out;
-        }
-        static double[] median(double[] y, int window) {
-            int n = y.length, hw = Math.max(1, window / 2);
-            double[] out = new double[n];
-            double[] buf = new double[2 * hw + 1];
-            for (int i = 0; i < n; i++) {
-                int lo = Math.max(0, i - hw), hi = Math.min(n - 1, i + hw);
-                int c = 0;
-                for (int j = lo; j <= hi; j++) buf[c++] = y[j];
-                java.util.Arrays.sort(buf, 0, c);
-                out[i] = buf[c / 2];
-            }
-            return out;
-        }
-    }
-
 }
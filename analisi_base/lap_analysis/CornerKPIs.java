@@ -2,6 +2,7 @@ package org.simulator.analisi_base.lap_analysis;
 
 import org.simulator.canale.Lap;
 import org.simulator.canale.Sample;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.simulator.analisi_base.lap_analysis.SampleMath.*;
@@ -30,8 +31,20 @@ public final class CornerKPIs {
 
 
     public KPIs compute(Lap lap, CornerDetector.CornerSegment c) {
+        double[] dist = lap.frame().distances();
+        return compute(lap, indexAtX(dist, c.xStart), indexAtX(dist, c.xEnd));
+    }
+
+    /** KPI di tutte le curve della mappa di sessione, nell'ordine della mappa (una passata per gli indici). */
+    public List<KPIs> computeAll(Lap lap, TrackCornerMap map) {
+        int[] idx = map.slice(lap);
+        List<KPIs> out = new ArrayList<>(map.size());
+        for (int k = 0; k < map.size(); k++) out.add(compute(lap, idx[2*k], idx[2*k+1]));
+        return out;
+    }
+
+    private KPIs compute(Lap lap, int i0, int i1) {
         List<Sample> s = lap.samples;
-        int i0 = indexAtX(s, c.xStart), i1 = indexAtX(s, c.xEnd);
         i0 = Math.max(0, Math.min(i0, s.size()-1));
         i1 = Math.max(i0, Math.min(i1, s.size()-1));
 
@@ -69,11 +82,12 @@ public final class CornerKPIs {
         return v;
     }
 
-    private static int indexAtX(List<Sample> s, double x){
-        int lo=0, hi=s.size()-1;
+    /** Primo indice con distanza >= x (ricerca sulla colonna, senza materializzare i Sample). */
+    private static int indexAtX(double[] dist, double x){
+        int lo=0, hi=dist.length-1;
         while (lo<hi){
             int mid=(lo+hi)/2;
-            if (s.get(mid).distance() < x) lo=mid+1; else hi=mid;
+            if (dist[mid] < x) lo=mid+1; else hi=mid;
         }
         return lo;
     }
@@ -1,6 +1,7 @@
 package org.simulator.analisi_base.lap_analysis;
 
 import org.simulator.canale.Lap;
+import org.simulator.diagnostica.Metrics;
 
 import java.util.List;
 import java.util.Map;
@@ -10,18 +11,22 @@ public final class LapAnalysis {
 
     private LapAnalysis() {}
 
+    private static final Metrics.Timer BASIC_STATS  = Metrics.timer("analysis.basicStats");
+    private static final Metrics.Timer BRAKE_EVENTS = Metrics.timer("analysis.brakeEvents");
+    private static final Metrics.Timer APEXES       = Metrics.timer("analysis.apexes");
+
     /** Statistiche sintetiche del giro. */
     public static Map<String, Double> basicStats(Lap lap) {
-        return BasicLapStats.compute(lap);
+        return BASIC_STATS.time(() -> BasicLapStats.compute(lap));
     }
 
     /** Rilevamento eventi di frenata. */
     public static List<Integer> brakeEvents(Lap lap, double thresholdPct, int minSamples) {
-        return BrakeEventDetector.detect(lap, thresholdPct, minSamples);
+        return BRAKE_EVENTS.time(() -> BrakeEventDetector.detect(lap, thresholdPct, minSamples));
     }
 
     /** Stima degli apex come minimi locali di Speed smussata. */
     public static List<Integer> apexes(Lap lap, int smoothWindow) {
-        return ApexEstimator.estimate(lap, smoothWindow);
+        return APEXES.time(() -> ApexEstimator.estimate(lap, smoothWindow));
     }
 }
@@ -0,0 +1,182 @@
+package org.simulator.analisi_base.lap_analysis;
+
+import org.simulator.canale.Channel;
+import org.simulator.canale.Lap;
+import org.simulator.canale.LapFrame;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Kernel di metriche "fuse" per giro: una sola passata per colonna calcola tutti gli accumulatori
+ * (somma, min/max, primo/ultimo, conteggi a soglia, % attivo, transizioni) e una passata per riga
+ * le metriche guida che combinano più canali (overlap gas/freno, coasting, stomp, inversioni sterzo).
+ * Il risultato è memorizzato sul giro ({@link Lap#derived}) e condiviso da Analysis, All Laps e Setup.
+ */
+public final class LapMetrics {
+
+    private static final Object KEY = new Object();
+
+    /** Soglie registrate per canale (conteggi "sopra soglia" calcolati nella stessa passata). */
+    private static final Map<Channel, double[]> THRESHOLDS = new EnumMap<>(Channel.class);
+    static {
+        THRESHOLDS.put(Channel.THROTTLE, new double[]{ 90.0 });
+        THRESHOLDS.put(Channel.BRAKE, new double[]{ 20.0 });
+        THRESHOLDS.put(Channel.NUM_TIRES_OFF_TRACK, new double[]{ 0.0 });
+        THRESHOLDS.put(Channel.KERS_DEPLOYED_ENERGY, new double[]{ 0.0 });
+    }
+
+    private final int samples;
+    private final Map<Channel, ChannelStats> stats = new EnumMap<>(Channel.class);
+
+    // metriche guida multi-canale (stesse regole di SetupMetrics)
+    private final double brakeStompPct, throttleBrakeOverlap, coastingPct, steeringReversalsPerMin;
+
+    private LapMetrics(Lap lap) {
+        LapFrame f = lap.frame();
+        this.samples = f.size();
+        for (Channel ch : f.channels()) stats.put(ch, new ChannelStats(f.column(ch), THRESHOLDS.get(ch)));
+
+        double[] thr = f.column(Channel.THROTTLE), brk = f.column(Channel.BRAKE), spd = f.column(Channel.SPEED);
+        double[] time = f.column(Channel.TIME), steer = f.column(Channel.STEER_ANGLE);
+
+        final double STOMP_TH = 0.65, STOMP_WIN_S = 0.20;
+        double tPrev = Double.NaN, bPrev = Double.NaN, stPrev = Double.NaN;
+        int stompEv = 0, stompBase = 0, ovlN = 0, ovlK = 0, coastN = 0, coastK = 0, reversals = 0;
+
+        for (int i = 0; i < samples; i++) {
+            double th = thr == null ? Double.NaN : thr[i];
+            double br = brk == null ? Double.NaN : brk[i];
+
+            // brake stomp: salto di freno > soglia entro la finestra temporale
+            if (!Double.isNaN(br)) {
+                double t = time == null ? Double.NaN : time[i];
+                if (Double.isNaN(t)) {
+                    if (!Double.isNaN(bPrev)) {
+                        if (br - bPrev > STOMP_TH) stompEv++;
+                        stompBase++;
+                    }
+                } else {
+                    if (!Double.isNaN(tPrev) && (t - tPrev) <= STOMP_WIN_S) {
+                        if (!Double.isNaN(bPrev) && br - bPrev > STOMP_TH) stompEv++;
+                    }
+                    stompBase++;
+                    tPrev = t;
+                }
+                bPrev = br;
+            }
+
+            // overlap gas/freno e coasting (esclude pit/partenze < 10 km/h)
+            if (!Double.isNaN(th) && !Double.isNaN(br)) {
+                ovlN++; if (th > 0.06 && br > 0.06) ovlK++;
+                double sp = spd == null ? Double.NaN : spd[i];
+                if (Double.isNaN(sp) || sp >= 10) { coastN++; if (th < 0.03 && br < 0.03) coastK++; }
+            }
+
+            // inversioni sterzo: cambio di segno con isteresi minima
+            double st = steer == null ? Double.NaN : steer[i];
+            if (!Double.isNaN(st)) {
+                if (!Double.isNaN(stPrev) && Math.signum(stPrev) != Math.signum(st) && Math.abs(stPrev - st) > 8.0) reversals++;
+                stPrev = st;
+            }
+        }
+
+        this.brakeStompPct = stompBase > 0 ? (double) stompEv / stompBase : 0.0;
+        this.throttleBrakeOverlap = ovlN > 0 ? (double) ovlK / ovlN : 0.0;
+        this.coastingPct = coastN > 0 ? (double) coastK / coastN : 0.0;
+        ChannelStats t = stats(Channel.TIME);
+        double durMin = (t.last > t.first) ? (t.last - t.first) / 60.0 : Math.max(1.0, samples / 60.0);
+        this.steeringReversalsPerMin = reversals / Math.max(0.5, durMin);
+    }
+
+    /** Metriche del giro (calcolate alla prima richiesta, poi riusate). */
+    public static LapMetrics of(Lap lap) { return lap.derived(KEY, LapMetrics::new); }
+
+    public int samples() { return samples; }
+
+    /** Accumulatori del canale (mai null: canale assente = count 0 e valori NaN). */
+    public ChannelStats stats(Channel ch) {
+        ChannelStats s = stats.get(ch);
+        return s != null ? s : ChannelStats.EMPTY;
+    }
+
+    public boolean has(Channel ch) { return stats.containsKey(ch); }
+
+    public double brakeStompPct() { return brakeStompPct; }
+    public double throttleBrakeOverlap() { return throttleBrakeOverlap; }
+    public double coastingPct() { return coastingPct; }
+    public double steeringReversalsPerMin() { return steeringReversalsPerMin; }
+
+    /** Accumulatori di un canale, calcolati in una sola passata sulla colonna (NaN ignorati). */
+    public static final class ChannelStats {
+        static final ChannelStats EMPTY = new ChannelStats(new double[0], null);
+
+        public final int count;
+        public final double sum, min, max, first, last;
+        /** Somma dei valori normalizzati a % (0..1 → ×100), per i danni. */
+        public final double pctSum;
+        /** Campioni "attivi": valore (0..1 o 0..100 riportato a 0..1) ≥ 0.5. */
+        public final int activeScaled;
+        /** Campioni con valore grezzo ≥ 0.5. */
+        public final int activeRaw;
+        /** Cambi di valore intero fra campioni validi consecutivi (es. cambi marcia). */
+        public final int transitions;
+
+        private final double[] thresholds;
+        private final int[] abovePct, aboveRaw;
+
+        private ChannelStats(double[] col, double[] thresholds) {
+            this.thresholds = thresholds == null ? new double[0] : thresholds;
+            int k = this.thresholds.length;
+            this.abovePct = new int[k];
+            this.aboveRaw = new int[k];
+
+            int n = 0, actS = 0, actR = 0, trans = 0, prevInt = 0;
+            double s = 0, ps = 0, mn = Double.NaN, mx = Double.NaN, fst = Double.NaN, lst = Double.NaN;
+            for (double v : col) {
+                if (Double.isNaN(v)) continue;
+                if (n == 0) { fst = v; mn = v; mx = v; }
+                else {
+                    if (v < mn) mn = v;
+                    if (v > mx) mx = v;
+                    if ((int) v != prevInt) trans++;
+                }
+                prevInt = (int) v;
+                lst = v;
+                s += v;
+                ps += v <= 1.0 ? v * 100.0 : v;
+                double scaled = v > 1.0001 ? v / 100.0 : v;
+                if (scaled >= 0.5) actS++;
+                if (v >= 0.5) actR++;
+                double pct = v <= 1.0001 ? v * 100.0 : v;
+                for (int j = 0; j < k; j++) {
+                    if (pct > this.thresholds[j]) abovePct[j]++;
+                    if (v > this.thresholds[j]) aboveRaw[j]++;
+                }
+                n++;
+            }
+            this.count = n; this.sum = s; this.pctSum = ps;
+            this.min = mn; this.max = mx; this.first = fst; this.last = lst;
+            this.activeScaled = actS; this.activeRaw = actR; this.transitions = trans;
+        }
+
+        public double mean() { return count > 0 ? sum / count : Double.NaN; }
+
+        /** Media dei valori normalizzati a % (danni), NaN se nessun valore. */
+        public double pctMean() { return count > 0 ? pctSum / count : Double.NaN; }
+
+        /** Frazione (0..1) di campioni "attivi" (0/1 o %), -1 se nessun valore. */
+        public double activeFraction() { return count > 0 ? (double) activeScaled / count : -1.0; }
+
+        /**
+         * Campioni sopra soglia: {@code pct=true} confronta il valore riportato a % (0..1 → ×100),
+         * altrimenti il valore grezzo. -1 se la soglia non è registrata per il canale.
+         */
+        public int countAbove(double thr, boolean pct) {
+            for (int j = 0; j < thresholds.length; j++) {
+                if (thresholds[j] == thr) return pct ? abovePct[j] : aboveRaw[j];
+            }
+            return -1;
+        }
+    }
+}
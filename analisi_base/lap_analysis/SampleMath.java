@@ -10,82 +10,46 @@ final class SampleMath {
     private SampleMath(){}
 
     static double avg(Lap lap, Channel ch){
-        double sum=0; int n=0;
-        for (Sample s: lap.samples){
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v!=null && !v.isNaN()){ sum+=v; n++; }
-        }
-        return n>0 ? sum/n : Double.NaN;
+        return LapMetrics.of(lap).stats(ch).mean();
     }
 
     static double max(Lap lap, Channel ch){
-        double best = Double.NaN;
-        for (Sample s: lap.samples){
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v==null || v.isNaN()) continue;
-            if (Double.isNaN(best) || v > best) best = v;
-        }
-        return best;
+        return LapMetrics.of(lap).stats(ch).max;
     }
 
     static double firstNonNaN(Lap lap, Channel ch){
-        for (Sample s: lap.samples){
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v!=null && !v.isNaN()) return v;
-        }
-        return Double.NaN;
+        return LapMetrics.of(lap).stats(ch).first;
     }
 
     static double lastNonNaN(Lap lap, Channel ch){
-        var ss = lap.samples;
-        for (int i=ss.size()-1; i>=0; i--){
-            Double v = ss.get(i).values().getOrDefault(ch, Double.NaN);
-            if (v!=null && !v.isNaN()) return v;
-        }
-        return Double.NaN;
+        return LapMetrics.of(lap).stats(ch).last;
     }
 
     /** percentuale di campioni sopra una soglia (0..1), NaN se canale mancante */
     static double fractionAbove(Lap lap, Channel ch, double thr){
-        int n=0, hit=0; boolean any=false;
-        for (Sample s: lap.samples){
-            Double v = s.values().get(ch);
-            if (v==null || v.isNaN()) continue;
-            any = true; n++;
-            double vv = v;
-            if (vv <= 1.0001) vv *= 100.0;   // adatta 0..1 -> %
-            if (vv > thr) hit++;
+        LapMetrics.ChannelStats st = LapMetrics.of(lap).stats(ch);
+        if (st.count==0) return Double.NaN;
+        int hit = st.countAbove(thr, true);
+        if (hit < 0) { // soglia non registrata nel kernel: scansione dedicata
+            hit = 0;
+            for (double v : lap.frame().column(ch)){
+                if (Double.isNaN(v)) continue;
+                double vv = v;
+                if (vv <= 1.0001) vv *= 100.0;   // adatta 0..1 -> %
+                if (vv > thr) hit++;
+            }
         }
-        if (!any || n==0) return Double.NaN;
-        return (double)hit/n;
+        return (double)hit/st.count;
     }
 
     /** percentuale di campioni "attivi": per TC/ABS accetta 0/1 o % (0..100). -1 se canale assente. */
     static double fractionActive(Lap lap, Channel flag){
-        int n=0, on=0; boolean found=false;
-        for (Sample s: lap.samples){
-            Double v = s.values().get(flag);
-            if (v == null || v.isNaN()) continue;
-            found = true; n++;
-            double vv = v;
-            if (vv > 1.0001) vv = vv / 100.0; // se è in % (0..100) → 0..1
-            if (vv >= 0.5) on++;
-        }
-        return found && n>0 ? (double)on/n : -1.0;
+        return LapMetrics.of(lap).stats(flag).activeFraction();
     }
 
     /** normalizza danno a % e fa media sul giro */
     static double damageAvg(Lap lap, Channel ch){
-        double sum=0; int n=0; boolean any=false;
-        for (Sample s: lap.samples){
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v==null || v.isNaN()) continue;
-            any = true; n++;
-            double vv = v <= 1.0 ? v*100.0 : v; // 0..1 -> %
-            sum += vv;
-        }
-        if (!any || n==0) return Double.NaN;
-        return sum/n;
+        return LapMetrics.of(lap).stats(ch).pctMean();
     }
 
     static boolean allNaN(double... arr){
@@ -104,6 +68,17 @@ final class SampleMath {
         return v == null ? Double.NaN : v;
     }
     public static double steeringDeg(Sample s){ return s.values().getOrDefault(Channel.STEER_ANGLE, 0.0); }
+
+    /** Velocità al campione i (GROUND_SPEED, fallback SPEED), lettura colonnare. */
+    static double speedKmh(Lap lap, int i){
+        double v = lap.value(Channel.GROUND_SPEED, i);
+        return Double.isNaN(v) ? lap.value(Channel.SPEED, i) : v;
+    }
+    /** Sterzo al campione i (0 se assente, come {@link #steeringDeg(Sample)}). */
+    static double steeringDeg(Lap lap, int i){
+        double v = lap.value(Channel.STEER_ANGLE, i);
+        return Double.isNaN(v) ? 0.0 : v;
+    }
     public static double throttlePct(Sample s){ return s.values().getOrDefault(Channel.THROTTLE, 0.0); }
     public static double brakePct(Sample s){ return s.values().getOrDefault(Channel.BRAKE, 0.0); }
 
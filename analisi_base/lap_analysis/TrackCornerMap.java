@@ -0,0 +1,235 @@
+package org.simulator.analisi_base.lap_analysis;
+
+import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
+import org.simulator.diagnostica.Metrics;
+import org.simulator.tracks.TrackInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Curve della pista per una sessione, in frazione di giro (0..1 dalla prima distanza valida del giro),
+ * costruite una volta e applicate a ogni giro con una passata O(n) sulle distanze. Tutti i giri usano
+ * gli stessi segmenti e la stessa numerazione, invece del {@link CornerDetector} rieseguito giro per giro.
+ *
+ * Sorgente: le curve del profilo pista ({@link TrackInfo#turns}) se presenti, con gli estremi presi dal
+ * consenso quando una curva rilevata cade vicino all'apex; altrimenti il consenso dei giri validi più
+ * veloci (curve presenti in almeno metà dei giri, estremi e apex mediani).
+ */
+public final class TrackCornerMap {
+
+    /** Curva in frazione di giro. */
+    public record Corner(int number, String name, double start, double apex, double end) {}
+
+    /** Giri su cui si fa il consenso. */
+    private static final int CONSENSUS_LAPS = 5;
+    /** Apex entro questa frazione di giro sono la stessa curva. */
+    private static final double APEX_TOLERANCE = 0.015;
+    /** Semi-ampiezza di una curva del profilo pista senza riscontro nei giri. */
+    private static final double DEFAULT_HALF_WIDTH = 0.01;
+
+    private static final Metrics.Timer BUILD = Metrics.timer("analysis.cornerMap");
+    /** Una mappa per sessione (chiave: l'indice della sessione, tenuto in vita dal DataController). */
+    private static final Map<SessionIndex, TrackCornerMap> MEMO = new WeakHashMap<>();
+
+    private final List<Corner> corners;
+    private final String trackId;
+
+    private TrackCornerMap(List<Corner> corners, String trackId) {
+        this.corners = List.copyOf(corners);
+        this.trackId = trackId;
+    }
+
+    /** Mappa della sessione dal consenso dei giri (riusata per la stessa lista di giri). */
+    public static TrackCornerMap of(List<Lap> laps) {
+        return of(laps, null);
+    }
+
+    /** Mappa della sessione; con un profilo pista con curve, numerazione e apex vengono dal profilo. */
+    public static TrackCornerMap of(List<Lap> laps, TrackInfo track) {
+        SessionIndex idx = SessionIndex.of(laps);
+        String id = (track == null || track.turns.isEmpty()) ? null : track.id;
+        synchronized (MEMO) {
+            TrackCornerMap m = MEMO.get(idx);
+            if (m != null && Objects.equals(m.trackId, id)) return m;
+        }
+        TrackCornerMap m;
+        try (Metrics.Span t = BUILD.start()) {
+            List<Corner> consensus = consensus(idx);
+            m = new TrackCornerMap(id == null ? consensus : fromTrack(track, consensus), id);
+            t.items(m.size());
+        }
+        synchronized (MEMO) {
+            MEMO.put(idx, m);
+        }
+        return m;
+    }
+
+    public List<Corner> corners() { return corners; }
+
+    public int size() { return corners.size(); }
+
+    /**
+     * Indici dei campioni del giro per ogni curva: {@code [i0, i1]} della curva k in {@code out[2k], out[2k+1]}
+     * (primo campione con frazione ≥ inizio / ≥ fine, come {@link CornerKPIs}). Una sola passata sul giro.
+     */
+    public int[] slice(Lap lap) {
+        int k = corners.size();
+        int[] out = new int[2 * k];
+        int n = lap.size();
+        if (n == 0) return out;
+        double[] dist = lap.frame().distances();
+        double[] span = span(dist);
+        double d0 = span[0], len = span[1];
+        int j = 0;
+        for (int c = 0; c < k; c++) {
+            Corner cr = corners.get(c);
+            double x0 = d0 + cr.start() * len, x1 = d0 + cr.end() * len;
+            while (j < n - 1 && !(dist[j] >= x0)) j++;
+            int i0 = j, i1 = j;
+            while (i1 < n - 1 && !(dist[i1] >= x1)) i1++;
+            out[2 * c] = i0;
+            out[2 * c + 1] = i1;
+        }
+        return out;
+    }
+
+    /** Le curve come segmenti nelle distanze del giro (id = numero di curva), per le API per segmento. */
+    public List<CornerDetector.CornerSegment> segments(Lap lap) {
+        List<CornerDetector.CornerSegment> out = new ArrayList<>(corners.size());
+        double[] span = span(lap.frame().distances());
+        double d0 = span[0], len = span[1];
+        if (!(len > 0)) return out;
+        for (Corner c : corners) {
+            out.add(new CornerDetector.CornerSegment(c.number(), d0 + c.start() * len, d0 + c.apex() * len, d0 + c.end() * len));
+        }
+        return out;
+    }
+
+    // ----------------- costruzione -----------------
+
+    private record Detected(int lap, double start, double apex, double end) {}
+
+    private static List<Corner> consensus(SessionIndex idx) {
+        List<Lap> pool = new ArrayList<>(idx.validLaps());
+        if (pool.isEmpty()) for (Lap l : idx.laps()) if (l != null && l.size() >= 3) pool.add(l);
+        pool.sort(Comparator.comparingDouble(l -> {
+            double t = idx.lapTimeSafe(l);
+            return Double.isNaN(t) ? Double.POSITIVE_INFINITY : t;
+        }));
+        if (pool.size() > CONSENSUS_LAPS) pool = pool.subList(0, CONSENSUS_LAPS);
+
+        CornerDetector detector = new CornerDetector();
+        List<Detected> all = new ArrayList<>();
+        int used = 0;
+        for (Lap lap : pool) {
+            double[] span = span(lap.frame().distances());
+            double d0 = span[0], len = span[1];
+            if (!(len > 0)) continue;
+            for (CornerDetector.CornerSegment s : detector.detect(lap)) {
+                all.add(new Detected(used, (s.xStart - d0) / len, (s.xApex - d0) / len, (s.xEnd - d0) / len));
+            }
+            used++;
+        }
+        if (used == 0) return List.of();
+
+        // raggruppa per apex; una curva vale se compare in almeno metà dei giri
+        all.sort(Comparator.comparingDouble(Detected::apex));
+        int quorum = (used + 1) / 2;
+        List<Corner> out = new ArrayList<>();
+        for (int a = 0; a < all.size(); ) {
+            int b = a + 1;
+            while (b < all.size() && all.get(b).apex() - all.get(a).apex() <= APEX_TOLERANCE) b++;
+            List<Detected> group = all.subList(a, b);
+            if (group.stream().mapToInt(Detected::lap).distinct().count() >= quorum) {
+                out.add(new Corner(0, null,
+                        median(group, Detected::start), median(group, Detected::apex), median(group, Detected::end)));
+            }
+            a = b;
+        }
+        return numbered(mergeOverlaps(out));
+    }
+
+    /** Curve del profilo pista; estremi dalla curva di consenso più vicina all'apex, se c'è. */
+    private static List<Corner> fromTrack(TrackInfo track, List<Corner> consensus) {
+        List<TrackInfo.Turn> turns = new ArrayList<>(track.turns);
+        turns.sort(Comparator.comparingDouble(t -> t.posNorm));
+        List<Corner> out = new ArrayList<>(turns.size());
+        for (int i = 0; i < turns.size(); i++) {
+            TrackInfo.Turn t = turns.get(i);
+            double apex = clamp01(t.posNorm);
+            Corner near = null;
+            for (Corner c : consensus) {
+                if (Math.abs(c.apex() - apex) <= 2 * APEX_TOLERANCE
+                        && (near == null || Math.abs(c.apex() - apex) < Math.abs(near.apex() - apex))) near = c;
+            }
+            double start, end;
+            if (near != null && near.start() <= apex && apex <= near.end()) {
+                start = near.start(); end = near.end();
+            } else {
+                double prev = i > 0 ? clamp01(turns.get(i - 1).posNorm) : 0.0;
+                double next = i + 1 < turns.size() ? clamp01(turns.get(i + 1).posNorm) : 1.0;
+                start = Math.max(apex - DEFAULT_HALF_WIDTH, (prev + apex) / 2);
+                end = Math.min(apex + DEFAULT_HALF_WIDTH, (apex + next) / 2);
+            }
+            out.add(new Corner(t.number, t.name, start, apex, end));
+        }
+        // curve vicine (chicane) con lo stesso riscontro: confine a metà fra gli apex
+        for (int i = 1; i < out.size(); i++) {
+            Corner p = out.get(i - 1), c = out.get(i);
+            if (c.start() < p.end()) {
+                double mid = (p.apex() + c.apex()) / 2;
+                out.set(i - 1, new Corner(p.number(), p.name(), p.start(), p.apex(), mid));
+                out.set(i, new Corner(c.number(), c.name(), mid, c.apex(), c.end()));
+            }
+        }
+        return out;
+    }
+
+    private static List<Corner> mergeOverlaps(List<Corner> in) {
+        List<Corner> out = new ArrayList<>();
+        in.sort(Comparator.comparingDouble(Corner::start));
+        for (Corner c : in) {
+            Corner last = out.isEmpty() ? null : out.get(out.size() - 1);
+            if (last != null && c.start() <= last.end()) {
+                out.set(out.size() - 1, new Corner(0, null, last.start(), (last.apex() + c.apex()) / 2, Math.max(last.end(), c.end())));
+            } else {
+                out.add(c);
+            }
+        }
+        return out;
+    }
+
+    private static List<Corner> numbered(List<Corner> in) {
+        List<Corner> out = new ArrayList<>(in.size());
+        for (int i = 0; i < in.size(); i++) {
+            Corner c = in.get(i);
+            out.add(new Corner(i + 1, "T" + (i + 1), c.start(), c.apex(), c.end()));
+        }
+        return out;
+    }
+
+    /** Prima distanza finita e lunghezza del giro (fino all'ultima distanza finita). */
+    private static double[] span(double[] dist) {
+        double d0 = Double.NaN, d1 = Double.NaN;
+        for (double d : dist) if (Double.isFinite(d)) { d0 = d; break; }
+        for (int i = dist.length - 1; i >= 0; i--) if (Double.isFinite(dist[i])) { d1 = dist[i]; break; }
+        return new double[]{ d0, d1 - d0 };
+    }
+
+    private static double median(List<Detected> g, ToDoubleFunction<Detected> f) {
+        double[] v = g.stream().mapToDouble(f).toArray();
+        Arrays.sort(v);
+        int n = v.length;
+        return (n % 2 == 1) ? v[n / 2] : (v[n / 2 - 1] + v[n / 2]) / 2.0;
+    }
+
+    private static double clamp01(double v) { return Math.max(0.0, Math.min(1.0, v)); }
+}
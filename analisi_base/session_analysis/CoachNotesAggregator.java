@@ -1,6 +1,7 @@
 package org.simulator.analisi_base.session_analysis;
 
 import org.simulator.canale.Lap;
+import org.simulator.canale.LapTasks;
 
 import java.util.*;
 
@@ -15,13 +16,14 @@ final class CoachNotesAggregator {
         // stem -> exemplar text + count
         Map<String, Counter> freq = new LinkedHashMap<>();
 
-        for (Lap lap : laps) {
-            if (lap == null) continue;
+        // Note del coach per giro in parallelo; il conteggio resta nell'ordine dei giri
+        for (List<String> notes : LapTasks.map(laps, org.simulator.coach.Coach::generateNotes)) {
+            if (notes == null) continue;
 
             // Evita doppi conteggi nello stesso giro (per varianti minime)
             Set<String> seenThisLap = new HashSet<>();
 
-            for (String note : org.simulator.coach.Coach.generateNotes(lap)) {
+            for (String note : notes) {
                 String stem = stemOf(note);
                 if (!seenThisLap.add(stem)) continue; // già contata su questo giro
 
@@ -1,8 +1,9 @@
 package org.simulator.analisi_base.session_analysis;
 
 import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
+import org.simulator.diagnostica.Metrics;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -11,34 +12,41 @@ public final class SessionAnalysis {
 
     private SessionAnalysis() {}
 
+    private static final Metrics.Timer AVERAGE_STATS = Metrics.timer("analysis.session.averageStats");
+    private static final Metrics.Timer COACH_NOTES   = Metrics.timer("analysis.session.coachNotes");
+    private static final Metrics.Timer TYRE_TEMP     = Metrics.timer("analysis.session.avgTyreTemp");
+
     /** Statistiche medie su tutta la sessione (solo giri completi/validi). */
     public static Map<String, Double> averageStats(List<Lap> laps) {
-        List<Lap> good = filterCompleteValidLaps(laps);
-        return SessionAverages.compute(good);
+        try (Metrics.Span t = AVERAGE_STATS.start()) {
+            List<Lap> good = filterCompleteValidLaps(laps);
+            t.items(good.size());
+            return SessionAverages.compute(good);
+        }
     }
 
     /** Note del coach aggregate e ordinate per frequenza (solo giri completi/validi). */
     public static List<String> aggregatedCoachNotes(List<Lap> laps) {
-        List<Lap> good = filterCompleteValidLaps(laps);
-        return CoachNotesAggregator.aggregate(good);
+        try (Metrics.Span t = COACH_NOTES.start()) {
+            List<Lap> good = filterCompleteValidLaps(laps);
+            t.items(good.size());
+            return CoachNotesAggregator.aggregate(good);
+        }
     }
 
     /** Media (semplice) delle temperature Middle per una ruota (FL/FR/RL/RR) su tutti i giri completi/validi. */
     public static double avgTyreTemp(List<Lap> laps, String wheel) {
-        List<Lap> good = filterCompleteValidLaps(laps);
-        return SessionMath.avgTyreTemp(good, wheel);
+        try (Metrics.Span t = TYRE_TEMP.start()) {
+            List<Lap> good = filterCompleteValidLaps(laps);
+            t.items(good.size());
+            return SessionMath.avgTyreTemp(good, wheel);
+        }
     }
 
     // -------------------- helper --------------------
 
-    /** Ritorna solo i giri "valido" secondo la logica di Lap.validityStatus(...) */
+    /** Ritorna solo i giri "valido" secondo la logica di Lap.validityStatus(...) (indice di sessione condiviso). */
     private static List<Lap> filterCompleteValidLaps(List<Lap> laps) {
-        if (laps == null || laps.isEmpty()) return List.of();
-        List<Lap> out = new ArrayList<>(laps.size());
-        for (Lap l : laps) {
-            if (l == null) continue;
-            if (l.isComplete(laps)) out.add(l);
-        }
-        return out;
+        return SessionIndex.of(laps).validLaps();
     }
 }
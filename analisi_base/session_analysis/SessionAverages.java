@@ -2,12 +2,14 @@ package org.simulator.analisi_base.session_analysis;
 
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
-import org.simulator.canale.Sample;
+import org.simulator.canale.LapTasks;
+import org.simulator.canale.SessionIndex;
 import org.simulator.analisi_base.force_stats.ForceStats;
 
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToDoubleFunction;
 
 /** Implementazione delle statistiche medie di sessione con le stesse voci del miglior giro (aggregate). */
 final class SessionAverages {
@@ -18,6 +20,9 @@ final class SessionAverages {
         Map<String, Double> st = new LinkedHashMap<>();
         if (laps == null || laps.isEmpty()) return st;
 
+        // Un parziale per giro (in parallelo), poi tutte le voci dai parziali: ogni giro è letto una volta
+        Parts agg = new Parts(LapTasks.map(laps, LapPart::of));
+
         // Considera solo giri "completi" (validi) per le medie di sessione
         // NB: Lap.isComplete usa mediana tempo/distanza e il flag LAP_INVALIDATED
         //     Se vuoi includere anche i giri non validi ma completi, cambia condizione.
@@ -26,29 +31,29 @@ final class SessionAverages {
 
         // ====== GIRO ======
         st.put("Lap time medio [s]", avgLapTimeSafe(laps));
-        st.put("Vmax [km/h]",       SessionMath.maxOverLaps(laps, Channel.SPEED));
-        st.put("Vmedia [km/h]",     SessionMath.avgOverLaps(laps, Channel.SPEED));
+        st.put("Vmax [km/h]",       agg.max(Channel.SPEED));
+        st.put("Vmedia [km/h]",     agg.avg(Channel.SPEED));
 
         // RPM medio
-        st.put("RPM medio", SessionMath.avgOverLaps(laps, Channel.ENGINE_RPM));
+        st.put("RPM medio", agg.avg(Channel.ENGINE_RPM));
 
         // % tempo pieno gas / frenata
-        st.put("Tempo pieno gas >90% [%]", SessionMath.fractionActiveOverLaps(laps, Channel.THROTTLE, 90.0) * 100.0);
-        st.put("Tempo in frenata >20% [%]", SessionMath.fractionActiveOverLaps(laps, Channel.BRAKE, 20.0) * 100.0);
+        st.put("Tempo pieno gas >90% [%]", agg.fractionActive(Channel.THROTTLE) * 100.0);
+        st.put("Tempo in frenata >20% [%]", agg.fractionActive(Channel.BRAKE) * 100.0);
 
         // TC / ABS attivi (percentuale campioni ON)
-        st.put("TC attivo [% campioni]",  SessionMath.pctTcActive(laps));
-        st.put("ABS attivo [% campioni]", SessionMath.pctAbsActive(laps));
+        st.put("TC attivo [% campioni]",  agg.fractionActive(Channel.TC_ACTIVE) * 100.0);
+        st.put("ABS attivo [% campioni]", agg.fractionActive(Channel.ABS_ACTIVE) * 100.0);
 
         // ====== CARBURANTE ======
-        double fuelStart = avgFuelFirst(laps);
-        double fuelEnd   = avgFuelLast(laps);
-        double fuelUsed  = SessionMath.avgOf(laps, SessionMath::fuelUsedLap);
+        double fuelStart = agg.avgOf(p -> p.fuelFirst);
+        double fuelEnd   = agg.avgOf(p -> p.fuelLast);
+        double fuelUsed  = agg.avgOf(p -> p.fuelUsed);
         st.put("Fuel start", fuelStart);
         st.put("Fuel end",   fuelEnd);
         st.put("Fuel used (lap)", fuelUsed);
         // ——— Carburante (stessa sezione "Fuel" dell’accordion) ———
-        st.put("Fuel consumo medio (L/giro)", SessionMath.avgOf(laps, SessionMath::fuelUsedLap));
+        st.put("Fuel consumo medio (L/giro)", agg.avgOf(p -> p.fuelUsed));
         st.put("Fuel residuo ultimo giro [L]", fuelEnd);
         if (!Double.isNaN(fuelUsed) && fuelUsed > 0 && !Double.isNaN(fuelEnd)) {
             st.put("Fuel giri rimanenti (stima)", fuelEnd / fuelUsed);
@@ -56,27 +61,27 @@ final class SessionAverages {
 
 
         // ====== SUPERFICIE / PISTA ======
-        double gripAvg = SessionMath.avgSurfaceGrip(laps);
+        double gripAvg = agg.avg(Channel.SURFACE_GRIP);
         if (!Double.isNaN(gripAvg)) st.put("Surface grip medio", gripAvg);
 
         // ====== GOMME: temperature (Mid), pressioni ======
         // Temperature Mid per ruota
-        st.put("Tyre temp FL (Mid) [°C]", SessionMath.avgTyreTempMiddleFL(laps));
-        st.put("Tyre temp FR (Mid) [°C]", SessionMath.avgTyreTempMiddleFR(laps));
-        st.put("Tyre temp RL (Mid) [°C]", SessionMath.avgTyreTempMiddleRL(laps));
-        st.put("Tyre temp RR (Mid) [°C]", SessionMath.avgTyreTempMiddleRR(laps));
+        st.put("Tyre temp FL (Mid) [°C]", agg.avg(Channel.TIRE_TEMP_MIDDLE_FL));
+        st.put("Tyre temp FR (Mid) [°C]", agg.avg(Channel.TIRE_TEMP_MIDDLE_FR));
+        st.put("Tyre temp RL (Mid) [°C]", agg.avg(Channel.TIRE_TEMP_MIDDLE_RL));
+        st.put("Tyre temp RR (Mid) [°C]", agg.avg(Channel.TIRE_TEMP_MIDDLE_RR));
         st.put("Tyre temp media (Mid) [°C]",
                 SessionMath.meanIgnoringNaN(
-                        SessionMath.avgTyreTempMiddleFL(laps),
-                        SessionMath.avgTyreTempMiddleFR(laps),
-                        SessionMath.avgTyreTempMiddleRL(laps),
-                        SessionMath.avgTyreTempMiddleRR(laps)));
+                        agg.avg(Channel.TIRE_TEMP_MIDDLE_FL),
+                        agg.avg(Channel.TIRE_TEMP_MIDDLE_FR),
+                        agg.avg(Channel.TIRE_TEMP_MIDDLE_RL),
+                        agg.avg(Channel.TIRE_TEMP_MIDDLE_RR)));
 
         // Pressioni gomme (psi)
-        double pFL = SessionMath.avgTyrePressureFL(laps);
-        double pFR = SessionMath.avgTyrePressureFR(laps);
-        double pRL = SessionMath.avgTyrePressureRL(laps);
-        double pRR = SessionMath.avgTyrePressureRR(laps);
+        double pFL = agg.avg(Channel.TIRE_PRESSURE_FL);
+        double pFR = agg.avg(Channel.TIRE_PRESSURE_FR);
+        double pRL = agg.avg(Channel.TIRE_PRESSURE_RL);
+        double pRR = agg.avg(Channel.TIRE_PRESSURE_RR);
         st.put("Tyre pressure FL [psi]", pFL);
         st.put("Tyre pressure FR [psi]", pFR);
         st.put("Tyre pressure RL [psi]", pRL);
@@ -84,10 +89,10 @@ final class SessionAverages {
         st.put("Tyre pressure media [psi]", SessionMath.meanIgnoringNaN(pFL, pFR, pRL, pRR));
 
         // ====== FRENI: temperature ======
-        double bFL = SessionMath.avgBrakeTempFL(laps);
-        double bFR = SessionMath.avgBrakeTempFR(laps);
-        double bRL = SessionMath.avgBrakeTempRL(laps);
-        double bRR = SessionMath.avgBrakeTempRR(laps);
+        double bFL = agg.avg(Channel.BRAKE_TEMP_FL);
+        double bFR = agg.avg(Channel.BRAKE_TEMP_FR);
+        double bRL = agg.avg(Channel.BRAKE_TEMP_RL);
+        double bRR = agg.avg(Channel.BRAKE_TEMP_RR);
         st.put("Brake temp FL [°C]", bFL);
         st.put("Brake temp FR [°C]", bFR);
         st.put("Brake temp RL [°C]", bRL);
@@ -95,10 +100,10 @@ final class SessionAverages {
         st.put("Brake temp media [°C]", SessionMath.meanIgnoringNaN(bFL, bFR, bRL, bRR));
 
         // ====== DANNI ======
-        double dF  = SessionMath.avgOverLaps(laps, Channel.CAR_DAMAGE_FRONT);
-        double dL  = SessionMath.avgOverLaps(laps, Channel.CAR_DAMAGE_LEFT);
-        double dR  = SessionMath.avgOverLaps(laps, Channel.CAR_DAMAGE_REAR);
-        double dRt = SessionMath.avgOverLaps(laps, Channel.CAR_DAMAGE_RIGHT);
+        double dF  = agg.avg(Channel.CAR_DAMAGE_FRONT);
+        double dL  = agg.avg(Channel.CAR_DAMAGE_LEFT);
+        double dR  = agg.avg(Channel.CAR_DAMAGE_REAR);
+        double dRt = agg.avg(Channel.CAR_DAMAGE_RIGHT);
         st.put("Danno Front [%]", dF);
         st.put("Danno Left  [%]", dL);
         st.put("Danno Rear  [%]", dR);
@@ -106,19 +111,19 @@ final class SessionAverages {
         st.put("Danno medio [%]", SessionMath.meanIgnoringNaN(dF, dL, dR, dRt));
 
         // ====== FORZE PEDALE / SEDILE ======
-        double pedalF = SessionMath.avgOverLaps(laps, Channel.PEDAL_FORCE);
-        double seatF  = SessionMath.avgOverLaps(laps, Channel.SEAT_FORCE);
+        double pedalF = agg.avg(Channel.PEDAL_FORCE);
+        double seatF  = agg.avg(Channel.SEAT_FORCE);
         if (!Double.isNaN(pedalF)) st.put("Pedal force media [N]", pedalF);
         if (!Double.isNaN(seatF))  st.put("Seat force media [N]",  seatF);
 
-        double pedalMax = SessionMath.maxOverLaps(laps, Channel.PEDAL_FORCE);
+        double pedalMax = agg.max(Channel.PEDAL_FORCE);
         if (!Double.isNaN(pedalMax)) st.put("Pedal force max [N]", pedalMax);
 
         // ====== (OPZIONALE) ROUGHNESS & DISTRIBUZIONE SEDILE ======
         // Commenta questo blocco se la tua build non include ForceStats
-        double roughPct = avgSeatRoughnessPct(laps) * 100.0;
+        double roughPct = agg.avgOf(p -> p.roughness) * 100.0;
         if (!Double.isNaN(roughPct)) st.put("Seat roughness [%]", roughPct);
-        ForceStats.SeatDistribution dist = avgSeatDistribution(laps);
+        ForceStats.SeatDistribution dist = agg.avgSeatDistribution();
         if (dist != null) {
             st.put("Seat dist SX [%]",   dist.left  * 100.0);
             st.put("Seat dist POST [%]", dist.rear  * 100.0);
@@ -126,115 +131,153 @@ final class SessionAverages {
         }
 
         // ====== SOSPENSIONI / ALTEZZE ======
-        st.put("Ride height FL [mm]", SessionMath.avgRideHeightFL(laps));
-        st.put("Ride height FR [mm]", SessionMath.avgRideHeightFR(laps));
-        st.put("Ride height RL [mm]", SessionMath.avgRideHeightRL(laps));
-        st.put("Ride height RR [mm]", SessionMath.avgRideHeightRR(laps));
+        st.put("Ride height FL [mm]", agg.avg(Channel.RIDE_HEIGHT_FL));
+        st.put("Ride height FR [mm]", agg.avg(Channel.RIDE_HEIGHT_FR));
+        st.put("Ride height RL [mm]", agg.avg(Channel.RIDE_HEIGHT_RL));
+        st.put("Ride height RR [mm]", agg.avg(Channel.RIDE_HEIGHT_RR));
 
-        st.put("Susp travel FL [mm]", SessionMath.avgSuspTravelFL(laps));
-        st.put("Susp travel FR [mm]", SessionMath.avgSuspTravelFR(laps));
-        st.put("Susp travel RL [mm]", SessionMath.avgSuspTravelRL(laps));
-        st.put("Susp travel RR [mm]", SessionMath.avgSuspTravelRR(laps));
+        st.put("Susp travel FL [mm]", agg.avg(Channel.SUSP_TRAVEL_FL));
+        st.put("Susp travel FR [mm]", agg.avg(Channel.SUSP_TRAVEL_FR));
+        st.put("Susp travel RL [mm]", agg.avg(Channel.SUSP_TRAVEL_RL));
+        st.put("Susp travel RR [mm]", agg.avg(Channel.SUSP_TRAVEL_RR));
 
-        st.put("Max susp travel FL [mm]", SessionMath.maxSuspTravelFL(laps));
-        st.put("Max susp travel FR [mm]", SessionMath.maxSuspTravelFR(laps));
-        st.put("Max susp travel RL [mm]", SessionMath.maxSuspTravelRL(laps));
-        st.put("Max susp travel RR [mm]", SessionMath.maxSuspTravelRR(laps));
+        st.put("Max susp travel FL [mm]", agg.max(Channel.MAX_SUS_TRAVEL_FL));
+        st.put("Max susp travel FR [mm]", agg.max(Channel.MAX_SUS_TRAVEL_FR));
+        st.put("Max susp travel RL [mm]", agg.max(Channel.MAX_SUS_TRAVEL_RL));
+        st.put("Max susp travel RR [mm]", agg.max(Channel.MAX_SUS_TRAVEL_RR));
 
         // ====== ASSETTO & DINAMICA ======
-        st.put("Brake bias [%]", SessionMath.avgBrakeBias(laps));
-        st.put("Steering angle [deg]", SessionMath.avgSteerAngle(laps));
-        st.put("Chassis pitch angle [deg]", SessionMath.avgPitchAngle(laps));
-        st.put("Chassis roll angle [deg]",  SessionMath.avgRollAngle(laps));
-        st.put("Chassis yaw rate [deg/s]",  SessionMath.avgYawRate(laps));
-        st.put("CG accel lateral [G]",      SessionMath.avgAccelLat(laps));
-        st.put("CG accel longitudinal [G]", SessionMath.avgAccelLong(laps));
-        st.put("CG accel vertical [G]",     SessionMath.avgAccelVert(laps));
+        st.put("Brake bias [%]", agg.avg(Channel.BRAKE_BIAS));
+        st.put("Steering angle [deg]", agg.avg(Channel.STEER_ANGLE));
+        st.put("Chassis pitch angle [deg]", agg.avg(Channel.CHASSIS_PITCH_ANGLE));
+        st.put("Chassis roll angle [deg]",  agg.avg(Channel.CHASSIS_ROLL_ANGLE));
+        st.put("Chassis yaw rate [deg/s]",  agg.avg(Channel.CHASSIS_YAW_RATE));
+        st.put("CG accel lateral [G]",      agg.avg(Channel.CG_ACCEL_LATERAL));
+        st.put("CG accel longitudinal [G]", agg.avg(Channel.CG_ACCEL_LONGITUDINAL));
+        st.put("CG accel vertical [G]",     agg.avg(Channel.CG_ACCEL_VERTICAL));
 
         // ====== METEO & PISTA ======
-        st.put("Air temp [°C]",  SessionMath.avgAirTemp(laps));
-        st.put("Road temp [°C]", SessionMath.avgRoadTemp(laps));
-        st.put("Wind speed [km/h]", SessionMath.avgWindSpeed(laps));
+        st.put("Air temp [°C]",  agg.avg(Channel.AIR_TEMP));
+        st.put("Road temp [°C]", agg.avg(Channel.ROAD_TEMP));
+        st.put("Wind speed [km/h]", agg.avg(Channel.WIND_SPEED));
 
         return st;
     }
 
-    // ---------------------- helper interni (solo per fuel e seat) ----------------------
+    // ---------------------- parziali per giro ----------------------
+
+    /** Canali di cui servono media/max per giro e soglie dei canali "attivo" (come le voci sopra). */
+    private static final Channel[] AVG = {
+            Channel.SPEED, Channel.ENGINE_RPM, Channel.SURFACE_GRIP,
+            Channel.TIRE_TEMP_MIDDLE_FL, Channel.TIRE_TEMP_MIDDLE_FR, Channel.TIRE_TEMP_MIDDLE_RL, Channel.TIRE_TEMP_MIDDLE_RR,
+            Channel.TIRE_PRESSURE_FL, Channel.TIRE_PRESSURE_FR, Channel.TIRE_PRESSURE_RL, Channel.TIRE_PRESSURE_RR,
+            Channel.BRAKE_TEMP_FL, Channel.BRAKE_TEMP_FR, Channel.BRAKE_TEMP_RL, Channel.BRAKE_TEMP_RR,
+            Channel.CAR_DAMAGE_FRONT, Channel.CAR_DAMAGE_LEFT, Channel.CAR_DAMAGE_REAR, Channel.CAR_DAMAGE_RIGHT,
+            Channel.PEDAL_FORCE, Channel.SEAT_FORCE,
+            Channel.RIDE_HEIGHT_FL, Channel.RIDE_HEIGHT_FR, Channel.RIDE_HEIGHT_RL, Channel.RIDE_HEIGHT_RR,
+            Channel.SUSP_TRAVEL_FL, Channel.SUSP_TRAVEL_FR, Channel.SUSP_TRAVEL_RL, Channel.SUSP_TRAVEL_RR,
+            Channel.BRAKE_BIAS, Channel.STEER_ANGLE, Channel.CHASSIS_PITCH_ANGLE, Channel.CHASSIS_ROLL_ANGLE,
+            Channel.CHASSIS_YAW_RATE, Channel.CG_ACCEL_LATERAL, Channel.CG_ACCEL_LONGITUDINAL, Channel.CG_ACCEL_VERTICAL,
+            Channel.AIR_TEMP, Channel.ROAD_TEMP, Channel.WIND_SPEED };
+    private static final Channel[] MAX = {
+            Channel.SPEED, Channel.PEDAL_FORCE,
+            Channel.MAX_SUS_TRAVEL_FL, Channel.MAX_SUS_TRAVEL_FR, Channel.MAX_SUS_TRAVEL_RL, Channel.MAX_SUS_TRAVEL_RR };
+    private static final Map<Channel, Double> ACTIVE = Map.of(
+            Channel.THROTTLE, 90.0, Channel.BRAKE, 20.0, Channel.TC_ACTIVE, 0.0, Channel.ABS_ACTIVE, 0.0);
+
+    /** Tutto ciò che le voci leggono da un giro (NaN = non disponibile). */
+    private static final class LapPart {
+        final boolean invalid;
+        final double[] avg = new double[Channel.values().length];
+        final double[] max = new double[Channel.values().length];
+        final double[] active = new double[Channel.values().length];
+        double fuelFirst = Double.NaN, fuelLast = Double.NaN, fuelUsed = Double.NaN, roughness = Double.NaN;
+        ForceStats.SeatDistribution dist;
+
+        private LapPart(Lap lap) {
+            this.invalid = Boolean.TRUE.equals(lap.isInvalid());
+        }
 
-    private static double avgFuelFirst(List<Lap> laps) {
-        double sum = 0; int n = 0;
-        for (Lap lap : laps) {
-            Double v = firstValid(lap, Channel.FUEL_LEVEL);
-            if (v != null && !v.isNaN() && !v.isInfinite()) { sum += v; n++; }
+        /** Null per giri vuoti (saltati da tutte le voci). */
+        static LapPart of(Lap lap) {
+            if (lap.samples == null || lap.samples.isEmpty()) return null;
+            LapPart p = new LapPart(lap);
+            for (Channel ch : AVG) p.avg[ch.ordinal()] = SessionMath.avgLapChannel(lap, ch);
+            for (Channel ch : MAX) p.max[ch.ordinal()] = SessionMath.maxLapChannel(lap, ch);
+            ACTIVE.forEach((ch, thr) -> p.active[ch.ordinal()] = SessionMath.fractionActiveLap(lap, ch, thr));
+            p.fuelFirst = lap.frame().firstFinite(Channel.FUEL_LEVEL);
+            p.fuelLast  = lap.frame().lastFinite(Channel.FUEL_LEVEL);
+            p.fuelUsed  = SessionMath.fuelUsedLap(lap);
+            double r = ForceStats.seatRoughnessPct(lap);
+            if (valid(r)) p.roughness = r;
+            p.dist = ForceStats.distribution(lap);
+            return p;
         }
-        return n > 0 ? sum / n : Double.NaN;
     }
 
-    private static double avgFuelLast(List<Lap> laps) {
-        double sum = 0; int n = 0;
-        for (Lap lap : laps) {
-            Double v = lastValid(lap, Channel.FUEL_LEVEL);
-            if (v != null && !v.isNaN() && !v.isInfinite()) { sum += v; n++; }
+    /**
+     * Voci di sessione dai parziali, nell'ordine dei giri (stesse regole di {@link SessionMath}: media/max/
+     * quota "attivo" solo sui giri non invalidati, media delle medie per giro ignorando i NaN).
+     */
+    private static final class Parts {
+        private final List<LapPart> parts;
+
+        Parts(List<LapPart> parts) { this.parts = parts; }
+
+        double avg(Channel ch) {
+            return avgOf(p -> p.invalid ? Double.NaN : p.avg[ch.ordinal()]);
         }
-        return n > 0 ? sum / n : Double.NaN;
-    }
 
-    private static Double firstValid(Lap lap, Channel ch) {
-        if (lap == null || lap.samples == null || lap.samples.isEmpty()) return null;
-        for (Sample s : lap.samples) {
-            Double v = s.values().get(ch);
-            if (v != null && !v.isNaN() && !v.isInfinite()) return v;
+        double fractionActive(Channel ch) {
+            return avgOf(p -> p.invalid ? Double.NaN : p.active[ch.ordinal()]);
         }
-        return null;
-    }
 
-    private static Double lastValid(Lap lap, Channel ch) {
-        if (lap == null || lap.samples == null || lap.samples.isEmpty()) return null;
-        for (int i = lap.samples.size() - 1; i >= 0; i--) {
-            Double v = lap.samples.get(i).values().get(ch);
-            if (v != null && !v.isNaN() && !v.isInfinite()) return v;
+        double max(Channel ch) {
+            double mx = Double.NEGATIVE_INFINITY; boolean any = false;
+            for (LapPart p : parts) {
+                if (p == null || p.invalid) continue;
+                double v = p.max[ch.ordinal()];
+                if (!Double.isNaN(v)) { mx = Math.max(mx, v); any = true; }
+            }
+            return any ? mx : Double.NaN;
         }
-        return null;
-    }
 
-    private static double avgLapTimeSafe(List<Lap> laps) {
-        double sum = 0; int n = 0;
-        for (Lap l : laps) {
-            if (l == null) continue;
-            if (!l.isComplete(laps)) continue;
-            double t = l.lapTimeSafe();
-            if (!Double.isNaN(t) && t > 0) { sum += t; n++; }
+        double avgOf(ToDoubleFunction<LapPart> f) {
+            double sum = 0; int n = 0;
+            for (LapPart p : parts) {
+                if (p == null) continue;
+                double v = f.applyAsDouble(p);
+                if (!Double.isNaN(v)) { sum += v; n++; }
+            }
+            return n > 0 ? sum / n : Double.NaN;
         }
-        return n > 0 ? sum / n : Double.NaN;
-    }
 
-    // ----- Seat roughness / distribuzione (media sui giri) -----
-    private static double avgSeatRoughnessPct(List<Lap> laps) {
-        double sum = 0; int n = 0;
-        for (Lap l : laps) {
-            if (l == null || l.samples == null || l.samples.isEmpty()) continue;
-            double r = ForceStats.seatRoughnessPct(l);
-            if (!Double.isNaN(r) && !Double.isInfinite(r)) { sum += r; n++; }
+        ForceStats.SeatDistribution avgSeatDistribution() {
+            double sL=0, sR=0, sB=0; int n=0;
+            for (LapPart p : parts) {
+                if (p == null || p.dist == null) continue;
+                ForceStats.SeatDistribution d = p.dist;
+                if (valid(d.left) && valid(d.right) && valid(d.rear)) {
+                    sL += d.left; sR += d.right; sB += d.rear; n++;
+                }
+            }
+            if (n == 0) return null;
+            ForceStats.SeatDistribution out = new ForceStats.SeatDistribution();
+            out.left  = sL / n;
+            out.right = sR / n;
+            out.rear  = sB / n;
+            return out;
         }
-        return n > 0 ? sum / n : Double.NaN;
     }
 
-    private static ForceStats.SeatDistribution avgSeatDistribution(List<Lap> laps) {
-        double sL=0, sR=0, sB=0; int n=0;
-        for (Lap l : laps) {
-            if (l == null || l.samples == null || l.samples.isEmpty()) continue;
-            ForceStats.SeatDistribution d = ForceStats.distribution(l);
-            if (d == null) continue;
-            if (valid(d.left) && valid(d.right) && valid(d.rear)) {
-                sL += d.left; sR += d.right; sB += d.rear; n++;
-            }
+    private static double avgLapTimeSafe(List<Lap> laps) {
+        SessionIndex idx = SessionIndex.of(laps);
+        double sum = 0; int n = 0;
+        for (Lap l : idx.validLaps()) {
+            double t = idx.lapTimeSafe(l);
+            if (!Double.isNaN(t) && t > 0) { sum += t; n++; }
         }
-        if (n == 0) return null;
-        ForceStats.SeatDistribution out = new ForceStats.SeatDistribution();
-        out.left  = sL / n;
-        out.right = sR / n;
-        out.rear  = sB / n;
-        return out;
+        return n > 0 ? sum / n : Double.NaN;
     }
 
     private static boolean valid(double v) { return !Double.isNaN(v) && !Double.isInfinite(v); }
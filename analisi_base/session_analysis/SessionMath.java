@@ -2,7 +2,6 @@ package org.simulator.analisi_base.session_analysis;
 
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
-import org.simulator.canale.Sample;
 
 import java.util.List;
 import java.util.function.ToDoubleFunction;
@@ -26,14 +25,9 @@ final class SessionMath {
 
     /** carburante usato in un giro = first(FUEL_LEVEL) - last(FUEL_LEVEL) (>=0) */
     static double fuelUsedLap(Lap lap) {
-        Double first = null, last = null;
-        for (Sample s : lap.samples) {
-            Double v = s.values().get(Channel.FUEL_LEVEL);
-            if (v == null || v.isNaN()) continue;
-            if (first == null) first = v;
-            last = v;
-        }
-        if (first == null || last == null) return Double.NaN;
+        double first = lap.frame().firstFinite(Channel.FUEL_LEVEL);
+        double last  = lap.frame().lastFinite(Channel.FUEL_LEVEL);
+        if (Double.isNaN(first) || Double.isNaN(last)) return Double.NaN;
         double used = first - last;
         return used >= 0 ? used : Double.NaN;
     }
@@ -66,23 +60,25 @@ final class SessionMath {
     // ===================== NUOVI HELPER GENERICI (SESSIONE) =====================
 
     /** Media di un canale sui campioni di un giro (helper interno). */
-    private static double avgLapChannel(Lap lap, Channel ch) {
+    static double avgLapChannel(Lap lap, Channel ch) {
         if (lap == null || lap.samples == null || lap.samples.isEmpty()) return Double.NaN;
+        double[] col = lap.frame().column(ch);
+        if (col == null) return Double.NaN;
         double sum = 0; int n = 0;
-        for (Sample s : lap.samples) {
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v != null && !v.isNaN() && !v.isInfinite()) { sum += v; n++; }
+        for (double v : col) {
+            if (Double.isFinite(v)) { sum += v; n++; }
         }
         return n > 0 ? sum / n : Double.NaN;
     }
 
     /** Max di un canale sui campioni di un giro. */
-    private static double maxLapChannel(Lap lap, Channel ch) {
+    static double maxLapChannel(Lap lap, Channel ch) {
         if (lap == null || lap.samples == null || lap.samples.isEmpty()) return Double.NaN;
+        double[] col = lap.frame().column(ch);
+        if (col == null) return Double.NaN;
         double mx = Double.NEGATIVE_INFINITY; boolean any = false;
-        for (Sample s : lap.samples) {
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v != null && !v.isNaN() && !v.isInfinite()) { mx = Math.max(mx, v); any = true; }
+        for (double v : col) {
+            if (Double.isFinite(v)) { mx = Math.max(mx, v); any = true; }
         }
         return any ? mx : Double.NaN;
     }
@@ -90,10 +86,11 @@ final class SessionMath {
     /** Min di un canale sui campioni di un giro. */
     private static double minLapChannel(Lap lap, Channel ch) {
         if (lap == null || lap.samples == null || lap.samples.isEmpty()) return Double.NaN;
+        double[] col = lap.frame().column(ch);
+        if (col == null) return Double.NaN;
         double mn = Double.POSITIVE_INFINITY; boolean any = false;
-        for (Sample s : lap.samples) {
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v != null && !v.isNaN() && !v.isInfinite()) { mn = Math.min(mn, v); any = true; }
+        for (double v : col) {
+            if (Double.isFinite(v)) { mn = Math.min(mn, v); any = true; }
         }
         return any ? mn : Double.NaN;
     }
@@ -147,18 +144,25 @@ final class SessionMath {
         for (Lap lap : laps) {
             if (lap == null || lap.samples == null || lap.samples.isEmpty()) continue;
             if (Boolean.TRUE.equals(lap.isInvalid())) continue;
-            int on = 0, tot = 0;
-            for (Sample s : lap.samples) {
-                Double v = s.values().getOrDefault(ch, Double.NaN);
-                if (v == null || v.isNaN() || v.isInfinite()) continue;
-                tot++;
-                if (v > threshold) on++;
-            }
-            if (tot > 0) { sumPct += (on * 1.0 / tot); nLaps++; }
+            double f = fractionActiveLap(lap, ch, threshold);
+            if (!Double.isNaN(f)) { sumPct += f; nLaps++; }
         }
         return nLaps > 0 ? (sumPct / nLaps) : Double.NaN;
     }
 
+    /** Quota dei campioni finiti di un giro con canale > soglia (NaN se canale assente o senza campioni). */
+    static double fractionActiveLap(Lap lap, Channel ch, double threshold) {
+        double[] col = lap.frame().column(ch);
+        if (col == null) return Double.NaN;
+        int on = 0, tot = 0;
+        for (double v : col) {
+            if (!Double.isFinite(v)) continue;
+            tot++;
+            if (v > threshold) on++;
+        }
+        return tot > 0 ? on * 1.0 / tot : Double.NaN;
+    }
+
     // ===================== CONVENIENCE PER GRUPPI (usabili da Session UI) =====================
 
     // --- Gomme
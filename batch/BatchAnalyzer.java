@@ -0,0 +1,238 @@
+package org.simulator.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.simulator.canale.Channel;
+import org.simulator.canale.Lap;
+import org.simulator.importCSVFW.CsvImporter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Analisi batch senza UI di cartelle di sessioni:
+ * <pre>
+ *   java -cp telemetry-coach.jar org.simulator.batch.BatchAnalyzer &lt;cartella|glob&gt;... [opzioni]
+ *     --out DIR        un report &lt;nome&gt;.report.json per CSV (default: JSON per riga su stdout)
+ *     --threads N      sessioni in parallelo (default: core disponibili)
+ *     --memory-mb M    memoria per le sessioni aperte insieme (default: 60% dell'heap)
+ *     --no-cache       non legge/scrive la cache .tcbin
+ * </pre>
+ * Una cartella è letta ricorsivamente ({@code *.csv}); un glob (es. {@code "runs/2025-*&#47;*.csv"}) è
+ * risolto dalla sua parte fissa. I file sono importati e analizzati in parallelo; ogni sessione occupa
+ * una stima della sua memoria (dimensione del CSV) nel budget, così i file grandi non si sovrappongono
+ * oltre l'heap. Ogni report è scritto appena pronto. Exit code: 0 ok, 1 se un file è fallito, 2 argomenti.
+ */
+public final class BatchAnalyzer {
+
+    /** Memoria stimata di una sessione caricata rispetto ai byte del CSV (colonne double ≈ testo). */
+    private static final double MEMORY_PER_CSV_BYTE = 1.2;
+
+    private final int threads;
+    private final long budgetMb;
+    private final boolean useCache;
+    private final Path outDir;
+    private final ObjectMapper json = new ObjectMapper();
+    private final PrintStream log = System.err;
+
+    private BatchAnalyzer(int threads, long budgetMb, boolean useCache, Path outDir) {
+        this.threads = threads;
+        this.budgetMb = budgetMb;
+        this.useCache = useCache;
+        this.outDir = outDir;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> inputs = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long budgetMb = (long) (Runtime.getRuntime().maxMemory() * 0.6 / (1 << 20));
+        boolean useCache = true;
+        Path outDir = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out"       -> outDir = Path.of(args[++i]);
+                    case "--threads"   -> threads = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--memory-mb" -> budgetMb = Math.max(1, Long.parseLong(args[++i]));
+                    case "--no-cache"  -> useCache = false;
+                    case "-h", "--help" -> { usage(); return; }
+                    default -> {
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("opzione sconosciuta: " + args[i]);
+                        inputs.add(args[i]);
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("[batch] " + (e.getMessage() == null ? e : e.getMessage()));
+            usage();
+            System.exit(2);
+        }
+        if (inputs.isEmpty()) { usage(); System.exit(2); }
+
+        List<Path> files = new ArrayList<>();
+        for (String in : inputs) {
+            for (Path f : resolve(in)) if (!files.contains(f)) files.add(f);
+        }
+        if (files.isEmpty()) {
+            System.err.println("[batch] nessun CSV trovato in " + inputs);
+            System.exit(2);
+        }
+        if (outDir != null) Files.createDirectories(outDir);
+
+        int failed = new BatchAnalyzer(threads, budgetMb, useCache, outDir).run(files);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    private static void usage() {
+        System.err.println("uso: BatchAnalyzer <cartella|glob>... [--out DIR] [--threads N] [--memory-mb M] [--no-cache]");
+    }
+
+    // ===================== file =====================
+
+    /** CSV di una cartella (ricorsivo), di un glob o il file stesso. */
+    static List<Path> resolve(String input) throws IOException {
+        Path p = Path.of(input);
+        if (Files.isDirectory(p)) return walk(p, null);
+        if (Files.isRegularFile(p)) return List.of(p);
+
+        // glob: la parte fissa (fino al primo segmento con caratteri jolly) è la radice della ricerca
+        String norm = input.replace('\\', '/');
+        int wild = indexOfWildcard(norm);
+        if (wild < 0) return List.of();
+        int cut = norm.lastIndexOf('/', wild);
+        Path root = cut < 0 ? Path.of(".") : Path.of(norm.substring(0, Math.max(cut, 1)));
+        String rel = norm.substring(cut + 1);
+        return walk(root, FileSystems.getDefault().getPathMatcher("glob:" + rel));
+    }
+
+    private static int indexOfWildcard(String s) {
+        for (int i = 0; i < s.length(); i++) if ("*?[{".indexOf(s.charAt(i)) >= 0) return i;
+        return -1;
+    }
+
+    /** CSV sotto {@code root}; con {@code m} solo quelli il cui percorso relativo corrisponde. */
+    private static List<Path> walk(Path root, PathMatcher m) throws IOException {
+        try (Stream<Path> s = Files.walk(root)) {
+            return s.filter(Files::isRegularFile)
+                    .filter(f -> f.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                    .filter(f -> m == null || m.matches(root.relativize(f)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // ===================== esecuzione =====================
+
+    private int run(List<Path> files) throws Exception {
+        int budget = (int) Math.min(Integer.MAX_VALUE, budgetMb);
+        Semaphore memory = new Semaphore(budget, true);
+        // i file sono già in parallelo fra loro: i core restanti vanno all'import a chunk del singolo file
+        int importThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+        AtomicInteger done = new AtomicInteger(), failed = new AtomicInteger(), seq = new AtomicInteger();
+        Map<Path, String> names = reportNames(files);
+        long t0 = System.nanoTime();
+
+        log.printf(Locale.ROOT, "[batch] %d file, %d thread, budget %d MB%n", files.size(), threads, budgetMb);
+        // System.out non va chiuso: alla fine lo scrittore viene solo svuotato
+        Writer stdout = outDir == null ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8) : null;
+        try {
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "batch-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> jobs = new ArrayList<>(files.size());
+                for (Path f : files) {
+                    jobs.add(pool.submit(() -> {
+                        long bytes = sizeOf(f);
+                        int permits = (int) Math.max(1, Math.min(budget, Math.ceil(bytes * MEMORY_PER_CSV_BYTE / (1 << 20))));
+                        memory.acquireUninterruptibly(permits);
+                        SessionReport report;
+                        try {
+                            report = analyze(f, bytes, importThreads);
+                        } finally {
+                            memory.release(permits);
+                        }
+                        if (report.error() != null) failed.incrementAndGet();
+                        write(report, names.get(f), stdout);
+                        log.printf(Locale.ROOT, "[batch] %d/%d %s: %s (%d ms)%n", done.incrementAndGet(), files.size(),
+                                f.getFileName(), report.error() == null ? report.laps() + " giri" : "ERRORE " + report.error(),
+                                report.durationMs());
+                        return null;
+                    }));
+                }
+                for (Future<?> j : jobs) j.get();
+            } finally {
+                pool.shutdownNow();
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            if (stdout != null) stdout.flush();
+        }
+        log.printf(Locale.ROOT, "[batch] completato: %d file, %d errori, %.1f s%n",
+                files.size(), failed.get(), (System.nanoTime() - t0) / 1e9);
+        return failed.get();
+    }
+
+    private SessionReport analyze(Path f, long bytes, int importThreads) {
+        long t0 = System.nanoTime();
+        try {
+            CsvImporter importer = new CsvImporter();
+            importer.setParallelism(importThreads);
+            if (!useCache) importer.setCacheDir(null);
+            List<Lap> laps = importer.importFile(f, Map.<String, Channel>of());
+            if (laps == null || laps.isEmpty()) throw new IllegalArgumentException("nessun giro nel file");
+            return SessionReport.of(f, bytes, laps, t0);
+        } catch (Exception | OutOfMemoryError e) {
+            return SessionReport.failed(f, bytes, e, t0);
+        }
+    }
+
+    private void write(SessionReport report, String name, Writer stdout) throws IOException {
+        if (stdout != null) {
+            String line = json.writeValueAsString(report); // JSONL: un report per riga, ognuna chiusa da \n
+            synchronized (stdout) { stdout.write(line); stdout.write('\n'); stdout.flush(); }
+            return;
+        }
+        json.writer(SerializationFeature.INDENT_OUTPUT).writeValue(outDir.resolve(name).toFile(), report);
+    }
+
+    /** Nome del report per file; omonimi in cartelle diverse prendono un suffisso -2, -3... */
+    private static Map<Path, String> reportNames(List<Path> files) {
+        Map<Path, String> names = new HashMap<>();
+        Set<String> used = new HashSet<>();
+        for (Path f : files) {
+            String base = f.getFileName().toString().replaceFirst("(?i)\\.csv$", "");
+            String name = base + ".report.json";
+            for (int k = 2; !used.add(name.toLowerCase(Locale.ROOT)); k++) name = base + "-" + k + ".report.json";
+            names.put(f, name);
+        }
+        return names;
+    }
+
+    private static long sizeOf(Path f) {
+        try { return Files.size(f); } catch (IOException e) { return 0; }
+    }
+}
@@ -0,0 +1,71 @@
+package org.simulator.batch;
+
+import org.simulator.analisi_base.session_analysis.SessionAnalysis;
+import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
+import org.simulator.coach.Coach;
+import org.simulator.setup.TyreCompoundAdvisor;
+import org.simulator.setup.setup_advisor.SetupAdvisor;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report JSON di una sessione (un CSV): stesse analisi dei pannelli di sessione dell'app
+ * (medie, note coach, stile, consigli setup, mescola). In caso di errore restano file ed {@code error}.
+ */
+record SessionReport(
+        String file,
+        long fileBytes,
+        int laps,
+        int validLaps,
+        Double bestLapTime,
+        Double medianLapTime,
+        Map<String, Double> averageStats,
+        List<String> coachNotes,
+        String driverStyle,
+        List<SetupAdvisor.Recommendation> setup,
+        Tyre tyreCompound,
+        long durationMs,
+        String error) {
+
+    record Tyre(String compound, String reason) {}
+
+    static SessionReport of(Path csv, long fileBytes, List<Lap> laps, long t0) {
+        SessionIndex idx = SessionIndex.of(laps);
+
+        // NaN non è JSON: le statistiche non calcolabili restano fuori
+        Map<String, Double> avg = new LinkedHashMap<>();
+        SessionAnalysis.averageStats(laps).forEach((k, v) -> { if (v != null && Double.isFinite(v)) avg.put(k, v); });
+
+        double best = Double.NaN;
+        for (Lap l : idx.validLaps()) {
+            double t = l.lapTimeSafe();
+            if (Double.isFinite(t) && !(t >= best)) best = t;
+        }
+
+        // come il pannello "Consigli setup (sessione)"
+        var assess = SetupAdvisor.analyzeStyleDetailed(laps);
+        var style = (assess == null) ? SetupAdvisor.DriverStyle.NEUTRAL : assess.primary();
+        var choice = TyreCompoundAdvisor.suggest(laps, style);
+
+        return new SessionReport(csv.toString(), fileBytes, laps.size(), idx.validLaps().size(),
+                finite(best), finite(idx.medianLapTime()), avg,
+                new ArrayList<>(Coach.generateSessionNotes(laps)), style.name(),
+                SetupAdvisor.forSession(laps, style), new Tyre(choice.compound(), choice.reason()),
+                elapsedMs(t0), null);
+    }
+
+    static SessionReport failed(Path csv, long fileBytes, Throwable error, long t0) {
+        String msg = error.getMessage() == null ? error.toString() : error.getMessage();
+        return new SessionReport(csv.toString(), fileBytes, 0, 0, null, null, Map.of(), List.of(),
+                null, List.of(), null, elapsedMs(t0), msg);
+    }
+
+    private static Double finite(double v) { return Double.isFinite(v) ? v : null; }
+
+    private static long elapsedMs(long t0) { return (System.nanoTime() - t0) / 1_000_000; }
+}
@@ -0,0 +1,55 @@
+package org.simulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simulator.analisi_base.lap_analysis.CornerDetector;
+import org.simulator.analisi_base.lap_analysis.LapAnalysis;
+import org.simulator.analisi_base.session_analysis.SessionAnalysis;
+import org.simulator.coach.Coach;
+import org.simulator.setup.setup_advisor.SetupAdvisor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analisi del giro e della sessione, su giri senza risultati in cache (vedi {@link SessionState#fresh}).
+ * {@code BasicLapStats} è package-private: si passa dalla facciata {@link LapAnalysis#basicStats}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class AnalysisBenchmark {
+
+    @Benchmark
+    public List<CornerDetector.CornerSegment> cornerDetect(SessionState s) {
+        return new CornerDetector().detect(SessionState.fresh(s.lap));
+    }
+
+    @Benchmark
+    public Map<String, Double> basicLapStats(SessionState s) {
+        return LapAnalysis.basicStats(SessionState.fresh(s.lap));
+    }
+
+    @Benchmark
+    public List<String> coachNotes(SessionState s) {
+        return Coach.generateNotes(SessionState.fresh(s.lap));
+    }
+
+    @Benchmark
+    public Map<String, Double> sessionAverageStats(SessionState s) {
+        return SessionAnalysis.averageStats(SessionState.fresh(s.session));
+    }
+
+    @Benchmark
+    public List<SetupAdvisor.Recommendation> setupForSession(SessionState s) {
+        return SetupAdvisor.forSession(SessionState.fresh(s.session));
+    }
+}
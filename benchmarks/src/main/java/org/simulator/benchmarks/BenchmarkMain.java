@@ -0,0 +1,29 @@
+package org.simulator.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point del jar: stesse opzioni di {@code org.openjdk.jmh.Main}, ma con il profiler gc attivo
+ * di default, così ogni risultato riporta anche l'allocazione ({@code gc.alloc.rate.norm}, B/op).
+ *
+ * Esempi: {@code java -jar benchmarks.jar Analysis -p rateHz=360 -p laps=36,108},
+ * {@code java -jar benchmarks.jar -rf json -rff before.json} per confrontare due versioni.
+ */
+public final class BenchmarkMain {
+    private BenchmarkMain(){}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder opts = new OptionsBuilder().parent(cmd);
+        if (cmd.getProfilers().isEmpty()) opts.addProfiler(GCProfiler.class);
+        new Runner(opts.build()).run();
+    }
+}
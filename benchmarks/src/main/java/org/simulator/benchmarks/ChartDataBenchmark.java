@@ -0,0 +1,68 @@
+package org.simulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simulator.ui.SeriesBundle;
+import org.simulator.ui.asix_pack.AxisChoice;
+import org.simulator.ui.time_line_view.DeltaAligner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dati dei grafici: serie per asse ({@link SeriesBundle#extract}) e Δt fra due giri ({@link DeltaAligner}).
+ * Ogni benchmark ha il suo parametro (stato separato), così le combinazioni non si moltiplicano a vuoto.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class ChartDataBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Align {
+        @Param({"DISTANCE", "PERCENT_LAP"})
+        public DeltaAligner.AlignMode alignMode;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Axis {
+        @Param({"distance", "lapTime"})
+        public String axis;
+
+        AxisChoice choice;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            choice = new AxisChoice();
+            choice.label = axis;
+            choice.useDist = "distance".equals(axis);
+            choice.useLapTime = "lapTime".equals(axis);
+            if (!choice.useDist && !choice.useLapTime) throw new IllegalArgumentException("axis: " + axis);
+        }
+    }
+
+    private final DeltaAligner aligner = new DeltaAligner();
+
+    @Benchmark
+    public List<DeltaAligner.SeriesPoint> deltaAlign(SessionState s, Align a) {
+        return aligner.compute(s.ref.samples, s.cmp.samples, a.alignMode);
+    }
+
+    @Benchmark
+    public SeriesBundle seriesBundle(SessionState s, Axis a) {
+        return SeriesBundle.extract(s.lap, a.choice);
+    }
+}
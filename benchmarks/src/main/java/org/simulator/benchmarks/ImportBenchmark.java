@@ -0,0 +1,116 @@
+package org.simulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simulator.canale.Lap;
+import org.simulator.importCSVFW.CsvImporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link CsvImporter#importFile}: parsing del CSV (sequenziale o memory-map parallelo secondo
+ * {@code parallelism}) e rilettura dalla cache .tcbin. Su versioni dell'app senza import parallelo o
+ * senza cache le combinazioni non supportate falliscono nel setup (JMH prosegue con le altre).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ImportBenchmark {
+
+    /** CSV sintetico da importare. */
+    @State(Scope.Benchmark)
+    public static class Source {
+        @Param({"60", "360"})
+        public int rateHz;
+
+        @Param({"60"})
+        public int channels;
+
+        @Param({"36"})
+        public int laps;
+
+        @Param({"5000"})
+        public double trackLengthM;
+
+        Path csv;
+
+        @Setup(Level.Trial)
+        public void generate() throws Exception {
+            csv = SyntheticCsv.ensure(SessionState.dataDir(), SessionState.config(rateHz, channels, laps, trackLengthM));
+        }
+    }
+
+    /** Import dal CSV, cache disattivata. */
+    @State(Scope.Benchmark)
+    public static class Parsing {
+        /** Thread di import (0 = tutti i core). */
+        @Param({"1", "0"})
+        public int parallelism;
+
+        CsvImporter importer;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+            importer = new CsvImporter();
+            if (!ImporterOptions.setParallelism(importer, threads) && threads > 1) {
+                throw new UnsupportedOperationException("import parallelo non disponibile in questa versione");
+            }
+            ImporterOptions.setCacheDir(importer, null);
+        }
+    }
+
+    /** Import dalla cache .tcbin, scritta nel setup. */
+    @State(Scope.Benchmark)
+    public static class Cached {
+        Path cacheDir;
+        CsvImporter importer;
+
+        @Setup(Level.Trial)
+        public void setup(Source src) throws Exception {
+            cacheDir = Files.createTempDirectory("tc-bench-cache");
+            importer = new CsvImporter();
+            if (!ImporterOptions.setCacheDir(importer, cacheDir)) {
+                throw new UnsupportedOperationException("cache .tcbin non disponibile in questa versione");
+            }
+            importer.importFile(src.csv, Map.of());   // scrive il .tcbin
+        }
+
+        @TearDown(Level.Trial)
+        public void cleanup() throws IOException {
+            try (Stream<Path> files = Files.walk(cacheDir)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Lap> csv(Source src, Parsing p) throws Exception {
+        return p.importer.importFile(src.csv, Map.of());
+    }
+
+    @Benchmark
+    public List<Lap> tcbin(Source src, Cached c) throws Exception {
+        return c.importer.importFile(src.csv, Map.of());
+    }
+}
@@ -0,0 +1,43 @@
+package org.simulator.benchmarks;
+
+import org.simulator.importCSVFW.CsvImporter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+
+/**
+ * Opzioni di {@link CsvImporter} impostate per riflessione: i benchmark compilano e girano anche contro
+ * versioni dell'app che non le hanno (import solo sequenziale, nessuna cache .tcbin), per il confronto
+ * prima/dopo sullo stesso codice di benchmark.
+ */
+final class ImporterOptions {
+    private ImporterOptions(){}
+
+    /** Cartella della cache .tcbin (null = disattivata); false se l'importer non ha la cache. */
+    static boolean setCacheDir(CsvImporter importer, Path dir) {
+        return invoke(importer, "setCacheDir", Path.class, dir);
+    }
+
+    /** Thread di import; false se l'importer è solo sequenziale. */
+    static boolean setParallelism(CsvImporter importer, int threads) {
+        return invoke(importer, "setParallelism", int.class, threads);
+    }
+
+    private static boolean invoke(CsvImporter importer, String name, Class<?> type, Object value) {
+        Method m;
+        try {
+            m = CsvImporter.class.getMethod(name, type);
+        } catch (NoSuchMethodException absent) {
+            return false;
+        }
+        try {
+            m.invoke(importer, value);
+            return true;
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(name + ": " + e.getCause(), e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(name, e);
+        }
+    }
+}
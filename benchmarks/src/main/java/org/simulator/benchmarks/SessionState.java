@@ -0,0 +1,78 @@
+package org.simulator.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.simulator.canale.Lap;
+import org.simulator.importCSVFW.CsvImporter;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sessione sintetica importata una volta per trial. Le dimensioni di default coprono le nostre sessioni
+ * (circa un'ora a 60 e 360 Hz); per 1–3 ore basta variare {@code laps}, es. {@code -p laps=36,108}.
+ *
+ * I risultati di analisi sono memorizzati sul giro (cache per giro): i benchmark lavorano su copie
+ * fresche dei giri ({@link #fresh}), che condividono i dati ma non le cache, così si misura il calcolo.
+ * Solo API presenti anche nelle versioni precedenti dell'app, per poter misurare il "prima".
+ */
+@State(Scope.Benchmark)
+public class SessionState {
+
+    @Param({"60", "360"})
+    public int rateHz;
+
+    @Param({"60"})
+    public int channels;
+
+    @Param({"36"})
+    public int laps;
+
+    @Param({"5000"})
+    public double trackLengthM;
+
+    /** Giri importati (cache .tcbin disattivata). */
+    public List<Lap> session;
+    /** Giro centrale della sessione (quelli agli estremi non hanno niente di speciale, ma così è stabile). */
+    public Lap lap;
+    /** Coppia di giri per il Δt. */
+    public Lap ref, cmp;
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        Path csv = SyntheticCsv.ensure(dataDir(), config(rateHz, channels, laps, trackLengthM));
+        CsvImporter importer = new CsvImporter();
+        ImporterOptions.setCacheDir(importer, null);
+        session = importer.importFile(csv, Map.of());
+        if (session == null || session.size() < 2) throw new IllegalStateException("sessione sintetica vuota: " + csv);
+        lap = session.get(session.size() / 2);
+        ref = session.get(1);
+        cmp = session.get(session.size() - 1);
+    }
+
+    /** Copia del giro senza risultati derivati (stessi campioni, nessuna copia dei dati). */
+    public static Lap fresh(Lap l) {
+        return new Lap(l.index, l.samples);
+    }
+
+    public static List<Lap> fresh(List<Lap> laps) {
+        List<Lap> out = new ArrayList<>(laps.size());
+        for (Lap l : laps) out.add(fresh(l));
+        return out;
+    }
+
+    static SyntheticCsv.Config config(int rateHz, int channels, int laps, double trackLengthM) {
+        return new SyntheticCsv.Config(rateHz, channels, laps, trackLengthM);
+    }
+
+    /** Cartella dei CSV generati ({@code -Dtc.bench.dir}), riusati fra le esecuzioni. */
+    static Path dataDir() {
+        String dir = System.getProperty("tc.bench.dir");
+        return dir != null ? Path.of(dir) : Path.of(System.getProperty("java.io.tmpdir"), "telemetry-coach-bench");
+    }
+}
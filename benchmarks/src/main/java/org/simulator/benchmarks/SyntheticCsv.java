@@ -0,0 +1,315 @@
+package org.simulator.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generatore deterministico di CSV in stile export MoTeC i2 (preambolo, header canali, riga unità, valori
+ * tra virgolette) per i benchmark: stessa {@link Config} → stesso file, byte per byte.
+ *
+ * La pista è un profilo di velocità su griglia di 1 m (curve con velocità minima, frenata e trazione a
+ * decelerazione costante); ogni giro lo percorre con una piccola variazione di passo. Pedali, sterzo,
+ * marcia, giri motore e accelerazioni derivano dal profilo; i canali oltre i principali sono segnali lenti
+ * (gomme, sospensioni, freni...) e, finiti quelli noti, colonne "Aux N" non mappate.
+ */
+public final class SyntheticCsv {
+    private SyntheticCsv(){}
+
+    /** Parametri della sessione sintetica. */
+    public record Config(int rateHz, int channels, int laps, double trackLengthM, long seed) {
+        public Config {
+            if (rateHz <= 0) throw new IllegalArgumentException("rateHz must be > 0: " + rateHz);
+            if (laps <= 0) throw new IllegalArgumentException("laps must be > 0: " + laps);
+            if (!(trackLengthM >= 500)) throw new IllegalArgumentException("trackLengthM must be >= 500: " + trackLengthM);
+        }
+
+        public Config(int rateHz, int channels, int laps, double trackLengthM) {
+            this(rateHz, channels, laps, trackLengthM, 42L);
+        }
+
+        /** Nome file stabile per la configurazione (per riusare il CSV fra le esecuzioni). */
+        String fileName() {
+            return String.format(Locale.ROOT, "synthetic_%dhz_%dch_%dlaps_%.0fm_%d.csv",
+                    rateHz, channels, laps, trackLengthM, seed);
+        }
+    }
+
+    private static final double VMAX_KMH   = 265.0;
+    private static final double BRAKE_MS2  = 13.0;
+    private static final double ACCEL_MS2  = 5.5;
+    private static final double[] GEAR_TOP_KMH = { 75, 115, 150, 185, 220, 300 };
+
+    // ===================== API =====================
+
+    /** CSV della configurazione in {@code dir}, generato solo se non esiste già. */
+    public static Path ensure(Path dir, Config cfg) throws IOException {
+        Files.createDirectories(dir);
+        Path p = dir.resolve(cfg.fileName());
+        if (Files.exists(p)) return p;
+        Path tmp = Files.createTempFile(dir, "synthetic", ".part");
+        try {
+            write(tmp, cfg);
+            Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return p;
+    }
+
+    public static void write(Path out, Config cfg) throws IOException {
+        try (Writer w = new BufferedWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8), 1 << 20)) {
+            write(w, cfg);
+        }
+    }
+
+    public static void write(Writer w, Config cfg) throws IOException {
+        Track track = new Track(cfg.trackLengthM(), new Random(cfg.seed()));
+        List<Col> cols = columns(cfg.channels(), new Random(cfg.seed() ^ 0x5DEECE66DL));
+        Random noise = new Random(cfg.seed() * 31 + 7);
+
+        // ---- preambolo (giri a passo nominale, per la durata indicativa) ----
+        double dt = 1.0 / cfg.rateHz();
+        double lapEst = track.lapTime();
+        line(w, "Format", "MoTeC CSV File");
+        line(w, "Venue", "Synthetic " + (long) cfg.trackLengthM() + "m");
+        line(w, "Vehicle", "bench_car");
+        line(w, "Driver", "");
+        line(w, "Device", "ACTI");
+        line(w, "Comment", "seed " + cfg.seed());
+        line(w, "Log Date", "01/01/2025", "Origin Time", "0.000", "s");
+        line(w, "Log Time", "12:00:00", "Start Time", "0.000", "s");
+        line(w, "Sample Rate", Integer.toString(cfg.rateHz()), "End Time", fmt(lapEst * cfg.laps(), 3), "s");
+        line(w, "Duration", fmt(lapEst * cfg.laps(), 3), "Start Distance", "0", "m");
+        line(w, "Range", "entire outing", "End Distance", fmt(cfg.trackLengthM() * cfg.laps(), 0), "m");
+        w.write("\n\n");
+
+        String[] names = new String[cols.size()], units = new String[cols.size()];
+        for (int c = 0; c < cols.size(); c++) { names[c] = cols.get(c).name; units[c] = cols.get(c).unit; }
+        line(w, names);
+        line(w, units);
+        w.write("\n");
+
+        // ---- campioni ----
+        Dyn d = new Dyn();
+        d.length = cfg.trackLengthM();
+        StringBuilder row = new StringBuilder(cols.size() * 12);
+        double time = 0.0;
+        for (int lap = 0; lap < cfg.laps(); lap++) {
+            double pace = 1.0 - 0.012 * noise.nextDouble();   // variazione di passo per giro
+            double s = 0.0, lapTime = 0.0;
+            while (s < cfg.trackLengthM()) {
+                d.time = time; d.lapTime = lapTime; d.lap = lap; d.s = s;
+                track.fill(d, s, pace);
+                d.noise = noise.nextDouble() * 2 - 1;
+
+                row.setLength(0);
+                for (int c = 0; c < cols.size(); c++) {
+                    if (c > 0) row.append(',');
+                    Col col = cols.get(c);
+                    row.append('"');
+                    appendFixed(row, col.fn.value(d), col.decimals);
+                    row.append('"');
+                }
+                row.append('\n');
+                w.append(row);
+
+                s += d.speed / 3.6 * dt;
+                time += dt;
+                lapTime += dt;
+            }
+        }
+    }
+
+    // ===================== pista =====================
+
+    /** Profilo di velocità della pista su griglia di 1 m, con le curve che lo generano. */
+    private static final class Track {
+        final int n;
+        final float[] v;      // km/h
+        final float[] dv;     // derivata dv/ds (segno → gas/freno)
+        final float[] steer;  // gradi volante, con segno
+        final float[] radius; // m (0 = rettilineo)
+
+        Track(double length, Random rnd) {
+            n = (int) Math.ceil(length) + 1;
+            int corners = Math.max(4, (int) (length / 450));
+            double[] pos = new double[corners], vmin = new double[corners], sign = new double[corners];
+            for (int k = 0; k < corners; k++) {
+                pos[k] = (k + 0.25 + 0.5 * rnd.nextDouble()) * length / corners;
+                vmin[k] = 60 + 110 * rnd.nextDouble();
+                sign[k] = rnd.nextBoolean() ? 1 : -1;
+            }
+
+            v = new float[n]; dv = new float[n]; steer = new float[n]; radius = new float[n];
+            for (int i = 0; i < n; i++) {
+                double best = VMAX_KMH / 3.6, st = 0, r = 0;
+                for (int k = 0; k < corners; k++) {
+                    // distanza con segno dall'apex, sulla pista chiusa
+                    double off = i - pos[k];
+                    if (off > length / 2) off -= length; else if (off < -length / 2) off += length;
+                    double vc = vmin[k] / 3.6;
+                    double a = off < 0 ? BRAKE_MS2 : ACCEL_MS2;
+                    double vk = Math.sqrt(vc * vc + 2 * a * Math.abs(off));
+                    if (vk < best) best = vk;
+                    // sterzo: campana attorno all'apex, più ampia per le curve lente
+                    double width = 25 + vmin[k] * 0.4;
+                    double bell = Math.exp(-(off * off) / (width * width));
+                    if (bell > 0.01) {
+                        st += sign[k] * bell * 9000.0 / vmin[k];
+                        r = vc * vc / (1.6 * 9.81);
+                    }
+                }
+                v[i] = (float) (best * 3.6);
+                steer[i] = (float) st;
+                radius[i] = (float) r;
+            }
+            for (int i = 0; i < n; i++) dv[i] = v[Math.min(n - 1, i + 1)] - v[Math.max(0, i - 1)];
+        }
+
+        double lapTime() {
+            double t = 0;
+            for (int i = 0; i < n - 1; i++) t += 1.0 / Math.max(1.0, v[i] / 3.6);
+            return t;
+        }
+
+        void fill(Dyn d, double s, double pace) {
+            int i = Math.min(n - 2, (int) s);
+            double u = s - i;
+            double vk = (v[i] + u * (v[i + 1] - v[i])) * pace;
+            d.speed = Math.max(5.0, vk);
+            double slope = dv[i];
+            d.throttle = slope > 0.02 ? 100.0 : slope < -0.05 ? 0.0 : 35.0;
+            d.brake = slope < -0.05 ? Math.min(100.0, 40.0 - slope * 60.0) : 0.0;
+            d.steer = steer[i];
+            double ms = d.speed / 3.6;
+            d.latG = radius[i] > 0 ? Math.signum(steer[i]) * ms * ms / radius[i] / 9.81 : 0.0;
+            d.longG = slope > 0 ? ACCEL_MS2 / 9.81 * Math.min(1.0, slope) : slope < 0 ? -BRAKE_MS2 / 9.81 * Math.min(1.0, -slope) : 0.0;
+            int g = 0;
+            while (g < GEAR_TOP_KMH.length - 1 && d.speed > GEAR_TOP_KMH[g]) g++;
+            double lo = g == 0 ? 0 : GEAR_TOP_KMH[g - 1];
+            d.gear = g + 1;
+            d.rpm = 3500 + 5000 * Math.min(1.0, (d.speed - lo) / (GEAR_TOP_KMH[g] - lo));
+        }
+    }
+
+    /** Stato del campione corrente, letto dalle colonne. */
+    private static final class Dyn {
+        double length, time, lapTime, s, speed, throttle, brake, steer, latG, longG, rpm, noise;
+        int lap, gear;
+    }
+
+    // ===================== colonne =====================
+
+    @FunctionalInterface
+    private interface ValueFn { double value(Dyn d); }
+
+    private record Col(String name, String unit, int decimals, ValueFn fn) {}
+
+    private static final String[] WHEELS = { "FL", "FR", "RL", "RR" };
+
+    /** Canali principali sempre presenti, poi i canali lenti fino a {@code channels}. */
+    private static List<Col> columns(int channels, Random rnd) {
+        List<Col> cols = new ArrayList<>();
+        cols.add(new Col("Time", "s", 3, d -> d.time));
+        cols.add(new Col("Distance", "m", 1, d -> d.s));
+        cols.add(new Col("Session Lap Count", "", 0, d -> d.lap));
+        cols.add(new Col("Lap Time", "s", 3, d -> d.lapTime));
+        cols.add(new Col("Speed", "km/h", 2, d -> d.speed));
+        cols.add(new Col("Engine RPM", "rpm", 0, d -> d.rpm));
+        cols.add(new Col("Gear", "", 0, d -> d.gear));
+        cols.add(new Col("Throttle Pos", "%", 1, d -> d.throttle));
+        cols.add(new Col("Brake Pos", "%", 1, d -> d.brake));
+        cols.add(new Col("Clutch Pos", "%", 1, d -> d.speed < 20 ? 100.0 : 0.0));
+        cols.add(new Col("Steer Angle", "deg", 2, d -> d.steer));
+        cols.add(new Col("CG Accel Lateral", "G", 3, d -> d.latG));
+        cols.add(new Col("CG Accel Longitudinal", "G", 3, d -> d.longG));
+        cols.add(new Col("FFB", "", 3, d -> Math.min(1.0, Math.abs(d.steer) / 200.0)));
+        cols.add(new Col("Flags", "", 0, d -> 0));
+        cols.add(new Col("In Pit", "", 0, d -> 0));
+        cols.add(new Col("Num Tires Off Track", "", 0, d -> 0));
+
+        List<Col> slow = new ArrayList<>();
+        for (String w : WHEELS) {
+            slow.add(wave("Tire Temp Inner " + w, "C", 85, 8, rnd));
+            slow.add(wave("Tire Temp Middle " + w, "C", 82, 7, rnd));
+            slow.add(wave("Tire Temp Outer " + w, "C", 78, 6, rnd));
+        }
+        for (String w : WHEELS) slow.add(wave("Tire Pressure " + w, "psi", 27.5, 0.6, rnd));
+        for (String w : WHEELS) slow.add(new Col("Tire Load " + w, "N", 0, d -> 3500 + 1800 * d.longG + 900 * Math.abs(d.latG) + 50 * d.noise));
+        for (String w : WHEELS) slow.add(wave("Suspension Travel " + w, "mm", 45, 15, rnd));
+        for (String w : WHEELS) slow.add(new Col("Max Sus Travel " + w, "mm", 0, d -> 120));
+        for (String w : WHEELS) slow.add(wave("Ride Height " + w, "mm", 55, 8, rnd));
+        for (String w : WHEELS) slow.add(new Col("Brake Temp " + w, "C", 1, d -> 350 + 3 * d.brake + 80 * Math.sin(d.s / d.length * 6.283)));
+        for (String w : WHEELS) slow.add(wave("Tire Rubber Grip " + w, "", 1.0, 0.02, rnd));
+        for (String w : WHEELS) slow.add(new Col("Wheel Angular Speed " + w, "rad/s", 2, d -> d.speed / 3.6 / 0.33));
+        for (String w : WHEELS) slow.add(wave("Tire Slip Ratio " + w, "", 0.0, 0.04, rnd));
+        for (String w : WHEELS) slow.add(wave("Tire Slip Angle " + w, "deg", 0.0, 3.0, rnd));
+        for (String w : WHEELS) slow.add(wave("Camber " + w, "deg", -2.5, 0.3, rnd));
+        slow.add(wave("Chassis Pitch Angle", "deg", 0.0, 0.8, rnd));
+        slow.add(wave("Chassis Roll Angle", "deg", 0.0, 1.5, rnd));
+        slow.add(new Col("Chassis Yaw Rate", "deg/s", 2, d -> d.latG * 9.81 / Math.max(1.0, d.speed / 3.6) * 57.3));
+        slow.add(new Col("Car Coord X", "m", 2, d -> 600 * Math.cos(d.s / d.length * 6.283)));
+        slow.add(new Col("Car Coord Y", "m", 2, d -> 0.0));
+        slow.add(new Col("Car Coord Z", "m", 2, d -> 400 * Math.sin(d.s / d.length * 6.283)));
+        slow.add(new Col("Car Pos Norm", "", 4, d -> d.s / d.length));
+        slow.add(new Col("Air Temp", "C", 1, d -> 24.0));
+        slow.add(new Col("Road Temp", "C", 1, d -> 31.0));
+        slow.add(new Col("Fuel Level", "l", 2, d -> Math.max(0.0, 80.0 - d.time * 0.02)));
+
+        for (int k = 0; cols.size() < channels; k++) {
+            if (k < slow.size()) cols.add(slow.get(k));
+            else cols.add(wave("Aux " + (k - slow.size() + 1), "", 0.0, 1.0, rnd));
+        }
+        return cols;
+    }
+
+    /** Segnale lento: sinusoide sulla posizione in pista (fase casuale) più rumore. */
+    private static Col wave(String name, String unit, double base, double amp, Random rnd) {
+        double phase = rnd.nextDouble() * 6.283, k = 1 + rnd.nextInt(4);
+        int dec = amp < 0.1 ? 4 : amp < 2 ? 3 : 1;
+        return new Col(name, unit, dec, d -> base + amp * Math.sin(phase + k * 6.283 * d.s / d.length) + amp * 0.05 * d.noise);
+    }
+
+    // ===================== formattazione =====================
+
+    private static void line(Writer w, String... cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) w.write(',');
+            w.write('"');
+            w.write(cells[i]);
+            w.write('"');
+        }
+        w.write('\n');
+    }
+
+    private static String fmt(double v, int decimals) {
+        StringBuilder sb = new StringBuilder();
+        appendFixed(sb, v, decimals);
+        return sb.toString();
+    }
+
+    private static final long[] POW10 = { 1, 10, 100, 1_000, 10_000, 100_000 };
+
+    /** Virgola fissa senza {@code String.format} (i file grandi hanno centinaia di milioni di celle). */
+    static void appendFixed(StringBuilder sb, double v, int decimals) {
+        if (!Double.isFinite(v)) { sb.append("NaN"); return; }
+        long scale = POW10[decimals];
+        long r = Math.round(Math.abs(v) * scale);
+        if (v < 0 && r != 0) sb.append('-');
+        sb.append(r / scale);
+        if (decimals == 0) return;
+        sb.append('.');
+        long frac = r % scale;
+        for (long p = scale / 10; p > frac && p > 1; p /= 10) sb.append('0');
+        sb.append(frac);
+    }
+}
@@ -1,17 +1,27 @@
 package org.simulator.canale;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import org.simulator.diagnostica.Metrics;
+
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class Lap {
     public final int index;
+    /** Vista per-campione (compatibilità UI); i dati veri stanno in {@link #frame()}. */
     public final List<Sample> samples;
+    /** Dati colonnari del giro. */
+    private final LapFrame frame;
     /** LAP_TIME letto dal CSV (può essere NaN). */
     public final double lapTime;
 
     // cache invalid flag (lazy)
     private Boolean invalidCached = null;
+    /** Risultati derivati (metriche, statistiche) calcolati una volta per giro; vedi {@link #derived}. */
+    private final Map<Object, Object> derived = new ConcurrentHashMap<>();
+    private static final Metrics.Counter DERIVED_HIT  = Metrics.counter("cache.derived.hit");
+    private static final Metrics.Counter DERIVED_MISS = Metrics.counter("cache.derived.miss");
 
     // ----------------- Soglie/euristiche per invalidazione -----------------
     /** Min. campioni consecutivi con >=3 gomme fuori pista per invalidare. */
@@ -26,30 +36,72 @@ public class Lap {
     private static final double PIT_IGNORE_EDGE_FRACTION = 0.10;
 
     public Lap(int index, List<Sample> samples) {
+        this(index, LapFrame.of(samples), samples);
+    }
+
+    /** Giro costruito direttamente da colonne (import CSV): {@link #samples} è una vista lazy sul frame. */
+    public Lap(int index, LapFrame frame) {
+        this(index, frame, frame.samples());
+    }
+
+    private Lap(int index, LapFrame frame, List<Sample> samples) {
         this.index = index;
+        this.frame = frame;
         this.samples = samples;
-        this.lapTime = (samples == null || samples.isEmpty())
-                ? Double.NaN
-                : samples.get(samples.size() - 1).values().getOrDefault(Channel.LAP_TIME, Double.NaN);
+        this.lapTime = frame.isEmpty() ? Double.NaN : frame.get(Channel.LAP_TIME, frame.size() - 1);
+    }
+
+    /** Storage colonnare del giro (mai null). */
+    public LapFrame frame() { return frame; }
+
+    /** Numero di campioni del giro. */
+    public int size() { return frame.size(); }
+
+    /** Valore del canale al campione i (NaN se assente). */
+    public double value(Channel ch, int i) { return frame.get(ch, i); }
+
+    /**
+     * Risultato derivato memorizzato sul giro: al primo accesso con {@code key} viene calcolato,
+     * poi riusato (il giro è immutabile). Thread-safe; in caso di corsa vince il primo valore salvato.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T derived(Object key, Function<? super Lap, ? extends T> compute) {
+        Object v = derived.get(key);
+        if (v == null) {
+            DERIVED_MISS.increment();
+            v = compute.apply(this);
+            if (v == null) return null;
+            Object prev = derived.putIfAbsent(key, v);
+            if (prev != null) v = prev;
+        } else {
+            DERIVED_HIT.increment();
+        }
+        return (T) v;
+    }
+
+    /** Risultato derivato già calcolato per la chiave, oppure null (non calcola nulla). */
+    @SuppressWarnings("unchecked")
+    public <T> T derivedIfPresent(Object key) {
+        return (T) derived.get(key);
     }
 
     /** Lap time "safe": usa LAP_TIME se presente, altrimenti TIME(last)-TIME(first). */
     public double lapTimeSafe() {
         if (!Double.isNaN(lapTime) && lapTime > 0) return lapTime;
-        if (samples == null || samples.size() < 2) return Double.NaN;
-        Double t0 = firstValid(samples, Channel.TIME);
-        Double t1 = lastValid(samples, Channel.TIME);
-        if (t0 == null || t1 == null) return Double.NaN;
+        if (frame.size() < 2) return Double.NaN;
+        double t0 = frame.firstFinite(Channel.TIME);
+        double t1 = frame.lastFinite(Channel.TIME);
+        if (Double.isNaN(t0) || Double.isNaN(t1)) return Double.NaN;
         double dt = t1 - t0;
         return (dt > 0) ? dt : Double.NaN;
     }
 
     /** Distanza percorsa nel giro (se presente) = DISTANCE(last)-DISTANCE(first). */
     public double distanceDelta() {
-        if (samples == null || samples.size() < 2) return Double.NaN;
-        Double d0 = firstValid(samples, Channel.DISTANCE);
-        Double d1 = lastValid(samples, Channel.DISTANCE);
-        if (d0 == null || d1 == null) return Double.NaN;
+        if (frame.size() < 2) return Double.NaN;
+        double d0 = frame.firstFinite(Channel.DISTANCE);
+        double d1 = frame.lastFinite(Channel.DISTANCE);
+        if (Double.isNaN(d0) || Double.isNaN(d1)) return Double.NaN;
         double dd = d1 - d0;
         return (dd >= 0) ? dd : Double.NaN;
     }
@@ -75,35 +127,37 @@ public class Lap {
      * - "valido"
      * - "non valido" (invalidato)
      * - "giro non terminato" (tempo/distanza troppo bassi rispetto alla sessione, o dati insufficienti)
+     * Le mediane di sessione vengono dal {@link SessionIndex} della lista (calcolato una volta).
      */
     public String validityStatus(List<Lap> allLaps) {
+        return SessionIndex.of(allLaps).status(this);
+    }
+
+    /** Classificazione del giro date le mediane di sessione (calcolate una volta in {@link SessionIndex}). */
+    String validityStatus(double tMed, double dMed) {
         // dati minimi
-        if (samples == null || samples.size() < 2) return "giro non terminato";
+        if (frame.size() < 2) return SessionIndex.NOT_FINISHED;
 
         // tempo e distanza del giro
         double t = lapTimeSafe();
         double d = distanceDelta();
 
         // se non abbiamo né tempo né distanza affidabili -> non terminato
-        if (Double.isNaN(t) && Double.isNaN(d)) return "giro non terminato";
+        if (Double.isNaN(t) && Double.isNaN(d)) return SessionIndex.NOT_FINISHED;
 
         // soglie assolute minime (robuste contro sessioni corte)
-        if (!Double.isNaN(t) && t < 5.0) return "giro non terminato";   // < 5s: sicuramente incompleto
-        if (!Double.isNaN(d) && d < 50.0) return "giro non terminato";  // < 50 m: sicuramente incompleto
+        if (!Double.isNaN(t) && t < 5.0) return SessionIndex.NOT_FINISHED;   // < 5s: sicuramente incompleto
+        if (!Double.isNaN(d) && d < 50.0) return SessionIndex.NOT_FINISHED;  // < 50 m: sicuramente incompleto
 
-        // confronta con la MEDIANA di sessione (più robusta della media)
-        double tMed = medianLapTime(allLaps);
-        double dMed = medianLapDistance(allLaps);
-
-        // se il giro è troppo corto rispetto alla sessione → non terminato
+        // se il giro è troppo corto rispetto alla MEDIANA di sessione → non terminato
         // soglie conservative: 0.7 su tempo, 0.6 su distanza
-        if (!Double.isNaN(tMed) && !Double.isNaN(t) && t < tMed * 0.7) return "giro non terminato";
-        if (!Double.isNaN(dMed) && !Double.isNaN(d) && d < dMed * 0.6) return "giro non terminato";
+        if (!Double.isNaN(tMed) && !Double.isNaN(t) && t < tMed * 0.7) return SessionIndex.NOT_FINISHED;
+        if (!Double.isNaN(dMed) && !Double.isNaN(d) && d < dMed * 0.6) return SessionIndex.NOT_FINISHED;
 
         // invalidazione esplicita/euristica
-        if (isInvalid()) return "non valido";
+        if (isInvalid()) return SessionIndex.INVALID;
 
-        return "valido";
+        return SessionIndex.VALID;
     }
 
     /** Restituisce true se il giro è valido e completo. */
@@ -114,100 +168,57 @@ public class Lap {
     // ----------------- helper interni -----------------
 
     private boolean computeInvalid() {
-        if (samples == null || samples.isEmpty()) return false;
+        int n = frame.size();
+        if (n == 0) return false;
 
         // 1) Segnale nativo di invalidazione (come prima)
-        for (Sample s : samples) {
-            Double v = s.values().getOrDefault(Channel.LAP_INVALIDATED, 0.0);
-            if (v != null && Math.abs(v) > 0.001) return true;
+        double[] inv = frame.column(Channel.LAP_INVALIDATED);
+        if (inv != null) {
+            for (int i = 0; i < n; i++) if (Math.abs(inv[i]) > 0.001) return true;
         }
 
         // 2) Uscita pista: >=3 gomme fuori per MIN_CONSEC_OFFTRACK_SAMPLES consecutivi
-        int consecOff = 0;
-        for (Sample s : samples) {
-            Double off = s.values().getOrDefault(Channel.NUM_TIRES_OFF_TRACK, 0.0);
-            if (off != null && off >= OFFTRACK_TIRES_THRESHOLD) {
-                consecOff++;
-                if (consecOff >= MIN_CONSEC_OFFTRACK_SAMPLES) return true;
-            } else {
-                consecOff = 0;
+        double[] off = frame.column(Channel.NUM_TIRES_OFF_TRACK);
+        if (off != null) {
+            int consecOff = 0;
+            for (int i = 0; i < n; i++) {
+                if (off[i] >= OFFTRACK_TIRES_THRESHOLD) {
+                    consecOff++;
+                    if (consecOff >= MIN_CONSEC_OFFTRACK_SAMPLES) return true;
+                } else {
+                    consecOff = 0;
+                }
             }
         }
 
         // 3) FLAGS euristico: FLAGS != 0 per un certo numero di campioni consecutivi
-        int consecFlags = 0;
-        for (Sample s : samples) {
-            Double f = s.values().get(Channel.FLAGS);
-            // Se FLAGS non esiste, skip; se esiste e diverso da 0 → possibile infrazione/taglio/penalità
-            if (f != null && Math.abs(f) > 0.0001) {
-                consecFlags++;
-                if (consecFlags >= MIN_CONSEC_FLAGS_SAMPLES) return true;
-            } else {
-                consecFlags = 0;
+        double[] flags = frame.column(Channel.FLAGS);
+        if (flags != null) {
+            int consecFlags = 0;
+            for (int i = 0; i < n; i++) {
+                // Se FLAGS manca (NaN), skip; se diverso da 0 → possibile infrazione/taglio/penalità
+                if (Math.abs(flags[i]) > 0.0001) {
+                    consecFlags++;
+                    if (consecFlags >= MIN_CONSEC_FLAGS_SAMPLES) return true;
+                } else {
+                    consecFlags = 0;
+                }
             }
         }
 
         // 4) Pit in mezzo al giro (evita falsi positivi su outlap/inlap)
-        int n = samples.size();
-        int startIdx = (int) Math.floor(n * PIT_IGNORE_EDGE_FRACTION);
-        int endIdx   = (int) Math.ceil(n * (1.0 - PIT_IGNORE_EDGE_FRACTION));
-        startIdx = Math.max(0, Math.min(startIdx, n - 1));
-        endIdx   = Math.max(startIdx, Math.min(endIdx, n)); // end esclusivo
-
-        for (int i = startIdx; i < endIdx; i++) {
-            Sample s = samples.get(i);
-            Double inPit = s.values().get(Channel.IN_PIT);
-            if (inPit != null && inPit > IN_PIT_THRESHOLD) {
-                return true;
+        double[] inPit = frame.column(Channel.IN_PIT);
+        if (inPit != null) {
+            int startIdx = (int) Math.floor(n * PIT_IGNORE_EDGE_FRACTION);
+            int endIdx   = (int) Math.ceil(n * (1.0 - PIT_IGNORE_EDGE_FRACTION));
+            startIdx = Math.max(0, Math.min(startIdx, n - 1));
+            endIdx   = Math.max(startIdx, Math.min(endIdx, n)); // end esclusivo
+
+            for (int i = startIdx; i < endIdx; i++) {
+                if (inPit[i] > IN_PIT_THRESHOLD) return true;
             }
         }
 
         return false;
     }
-
-    private static Double firstValid(List<Sample> samples, Channel ch) {
-        for (Sample s : samples) {
-            Double v = s.values().get(ch);
-            if (v != null && !v.isNaN() && !v.isInfinite()) return v;
-        }
-        return null;
-    }
-
-    private static Double lastValid(List<Sample> samples, Channel ch) {
-        for (int i = samples.size() - 1; i >= 0; i--) {
-            Double v = samples.get(i).values().get(ch);
-            if (v != null && !v.isNaN() && !v.isInfinite()) return v;
-        }
-        return null;
-    }
-
-    /** Mediana dei lap time "safe" (>0) nella sessione. */
-    private static double medianLapTime(List<Lap> all) {
-        if (all == null || all.isEmpty()) return Double.NaN;
-        List<Double> v = new ArrayList<>();
-        for (Lap l : all) {
-            if (l == null || l.samples == null || l.samples.size() < 2) continue;
-            double t = l.lapTimeSafe();
-            if (!Double.isNaN(t) && t > 0) v.add(t);
-        }
-        if (v.isEmpty()) return Double.NaN;
-        Collections.sort(v);
-        int n = v.size();
-        return (n % 2 == 1) ? v.get(n / 2) : (v.get(n / 2 - 1) + v.get(n / 2)) / 2.0;
-    }
-
-    /** Mediana della distanza percorsa nel giro (>0) nella sessione. */
-    private static double medianLapDistance(List<Lap> all) {
-        if (all == null || all.isEmpty()) return Double.NaN;
-        List<Double> v = new ArrayList<>();
-        for (Lap l : all) {
-            if (l == null || l.samples == null || l.samples.size() < 2) continue;
-            double d = l.distanceDelta();
-            if (!Double.isNaN(d) && d > 0) v.add(d);
-        }
-        if (v.isEmpty()) return Double.NaN;
-        Collections.sort(v);
-        int n = v.size();
-        return (n % 2 == 1) ? v.get(n / 2) : (v.get(n / 2 - 1) + v.get(n / 2)) / 2.0;
-    }
 }
@@ -0,0 +1,256 @@
+package org.simulator.canale;
+
+import java.lang.ref.SoftReference;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Storage colonnare di un giro: un {@code double[]} per ogni canale presente (NaN = valore mancante),
+ * più le colonne timestamp/distanza dei campioni e un bitset dei canali presenti.
+ * Le analisi leggono direttamente le colonne; la vista {@link #samples()} esiste solo per compatibilità.
+ */
+public final class LapFrame {
+
+    private static final Channel[] CHANNELS = Channel.values();
+
+    private final int size;
+    private final double[] timestamps;
+    private final double[] distances;
+    /** Colonne indicizzate per {@link Channel#ordinal()}; null se il canale non ha valori. */
+    private final double[][] columns;
+    private final BitSet present;
+
+    private final List<Sample> sampleView = new SampleView();
+
+    private LapFrame(int size, double[] timestamps, double[] distances, double[][] columns) {
+        this.size = size;
+        this.timestamps = timestamps;
+        this.distances = distances;
+        this.columns = columns;
+        this.present = new BitSet(CHANNELS.length);
+        for (int c = 0; c < columns.length; c++) if (columns[c] != null) present.set(c);
+    }
+
+    // ----------------- accesso -----------------
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    /** Vero se il canale ha almeno un valore non-NaN nel giro. */
+    public boolean has(Channel ch) { return ch != null && present.get(ch.ordinal()); }
+
+    /** Canali presenti nel giro (copia). */
+    public EnumSet<Channel> channels() {
+        EnumSet<Channel> out = EnumSet.noneOf(Channel.class);
+        for (int c = present.nextSetBit(0); c >= 0; c = present.nextSetBit(c + 1)) out.add(CHANNELS[c]);
+        return out;
+    }
+
+    /** Valore del canale al campione i (NaN se assente). */
+    public double get(Channel ch, int i) {
+        double[] col = columns[ch.ordinal()];
+        return col == null ? Double.NaN : col[i];
+    }
+
+    /** Colonna grezza del canale (null se assente). Array condiviso: non modificarlo. */
+    public double[] column(Channel ch) { return columns[ch.ordinal()]; }
+
+    public double timestamp(int i) { return timestamps[i]; }
+
+    public double distance(int i) { return distances[i]; }
+
+    /** Colonna timestamp (Sample.timestamp). Array condiviso: non modificarlo. */
+    public double[] timestamps() { return timestamps; }
+
+    /** Colonna distanza (Sample.distance). Array condiviso: non modificarlo. */
+    public double[] distances() { return distances; }
+
+    /** Primo valore finito del canale, NaN se non esiste. */
+    public double firstFinite(Channel ch) {
+        double[] col = columns[ch.ordinal()];
+        if (col == null) return Double.NaN;
+        for (int i = 0; i < size; i++) if (Double.isFinite(col[i])) return col[i];
+        return Double.NaN;
+    }
+
+    /** Ultimo valore finito del canale, NaN se non esiste. */
+    public double lastFinite(Channel ch) {
+        double[] col = columns[ch.ordinal()];
+        if (col == null) return Double.NaN;
+        for (int i = size - 1; i >= 0; i--) if (Double.isFinite(col[i])) return col[i];
+        return Double.NaN;
+    }
+
+    /** Stima della memoria occupata dalle colonne (byte). */
+    public long estimatedBytes() {
+        long cols = 2L + present.cardinality();
+        return cols * (16L + 8L * size);
+    }
+
+    // ----------------- vista Sample (compatibilità) -----------------
+
+    /** Materializza il campione i come {@link Sample} (EnumMap con i soli valori non-NaN). */
+    public Sample sample(int i) {
+        EnumMap<Channel, Double> values = new EnumMap<>(Channel.class);
+        for (int c = present.nextSetBit(0); c >= 0; c = present.nextSetBit(c + 1)) {
+            double v = columns[c][i];
+            if (!Double.isNaN(v)) values.put(CHANNELS[c], v);
+        }
+        return new Sample(timestamps[i], distances[i], values);
+    }
+
+    /**
+     * Vista {@code List<Sample>} in sola lettura: i Sample sono creati alla prima richiesta e tenuti
+     * in una cache soft, così la UI legacy continua a funzionare senza fissare in heap le mappe.
+     */
+    public List<Sample> samples() { return sampleView; }
+
+    private final class SampleView extends AbstractList<Sample> implements RandomAccess {
+        private SoftReference<Sample[]> cache = new SoftReference<>(null);
+
+        @Override public Sample get(int i) {
+            if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+            Sample[] arr = cache.get();
+            if (arr == null) {
+                arr = new Sample[size];
+                cache = new SoftReference<>(arr);
+            }
+            Sample s = arr[i];
+            if (s == null) { s = sample(i); arr[i] = s; }
+            return s;
+        }
+
+        @Override public int size() { return size; }
+
+        LapFrame frame() { return LapFrame.this; }
+    }
+
+    // ----------------- costruzione -----------------
+
+    /** Converte una lista di Sample (API storica) in frame colonnare. */
+    public static LapFrame of(List<Sample> samples) {
+        if (samples instanceof SampleView v) return v.frame(); // vista di un frame: stesse colonne, nessuna copia
+        int n = samples == null ? 0 : samples.size();
+        Builder b = new Builder(Math.max(16, n));
+        for (int i = 0; i < n; i++) {
+            Sample s = samples.get(i);
+            int row = b.addRow(s.timestamp(), s.distance());
+            if (s.values() == null) continue;
+            for (var e : s.values().entrySet()) {
+                Double v = e.getValue();
+                if (v != null) b.set(row, e.getKey(), v);
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * Frame da colonne già pronte (es. cache binaria): gli array sono adottati senza copia e devono
+     * avere tutti la lunghezza di {@code timestamps}. Colonne null o tutte NaN risultano assenti.
+     */
+    public static LapFrame ofColumns(double[] timestamps, double[] distances, Map<Channel, double[]> columns) {
+        int n = timestamps.length;
+        if (distances.length != n) throw new IllegalArgumentException("Colonne di lunghezza diversa");
+        double[][] cols = new double[CHANNELS.length][];
+        for (Map.Entry<Channel, double[]> e : columns.entrySet()) {
+            double[] col = e.getValue();
+            if (col == null || Builder.allNaN(col, 0, col.length)) continue;
+            if (col.length != n) throw new IllegalArgumentException("Colonna " + e.getKey() + " di lunghezza diversa");
+            cols[e.getKey().ordinal()] = col;
+        }
+        return new LapFrame(n, timestamps, distances, cols);
+    }
+
+    /** Builder con colonne a crescita geometrica; le colonne sono allocate al primo valore non-NaN. */
+    public static final class Builder {
+        private int size;
+        private int capacity;
+        private double[] timestamps;
+        private double[] distances;
+        private final double[][] columns = new double[CHANNELS.length][];
+
+        public Builder() { this(1024); }
+
+        public Builder(int initialCapacity) {
+            this.capacity = Math.max(1, initialCapacity);
+            this.timestamps = new double[capacity];
+            this.distances = new double[capacity];
+        }
+
+        public int size() { return size; }
+
+        /** Aggiunge una riga vuota (tutti i canali NaN) e ne restituisce l'indice. */
+        public int addRow(double timestamp, double distance) {
+            if (size == capacity) grow();
+            timestamps[size] = timestamp;
+            distances[size] = distance;
+            return size++;
+        }
+
+        /** Imposta il valore di un canale sulla riga indicata (NaN = ignora). */
+        public void set(int row, Channel ch, double v) {
+            if (Double.isNaN(v)) return;
+            double[] col = columns[ch.ordinal()];
+            if (col == null) {
+                col = new double[capacity];
+                Arrays.fill(col, Double.NaN);
+                columns[ch.ordinal()] = col;
+            }
+            col[row] = v;
+        }
+
+        /** Copia in coda le righe [from, to) di un altro frame (copia per colonna, niente boxing). */
+        public void addRows(LapFrame src, int from, int to) {
+            int count = to - from;
+            if (count <= 0) return;
+            while (size + count > capacity) grow();
+            System.arraycopy(src.timestamps, from, timestamps, size, count);
+            System.arraycopy(src.distances, from, distances, size, count);
+            for (int c = src.present.nextSetBit(0); c >= 0; c = src.present.nextSetBit(c + 1)) {
+                double[] col = columns[c];
+                if (col == null) {
+                    if (allNaN(src.columns[c], from, to)) continue; // resta "assente"
+                    col = new double[capacity];
+                    Arrays.fill(col, Double.NaN);
+                    columns[c] = col;
+                }
+                System.arraycopy(src.columns[c], from, col, size, count);
+            }
+            size += count;
+        }
+
+        private static boolean allNaN(double[] a, int from, int to) {
+            for (int i = from; i < to; i++) if (!Double.isNaN(a[i])) return false;
+            return true;
+        }
+
+        private void grow() {
+            int newCap = Math.max(16, capacity + (capacity >> 1));
+            timestamps = Arrays.copyOf(timestamps, newCap);
+            distances = Arrays.copyOf(distances, newCap);
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c] == null) continue;
+                double[] col = Arrays.copyOf(columns[c], newCap);
+                Arrays.fill(col, capacity, newCap, Double.NaN);
+                columns[c] = col;
+            }
+            capacity = newCap;
+        }
+
+        /** Crea il frame (colonne rifilate alla dimensione effettiva). */
+        public LapFrame build() {
+            double[][] cols = new double[columns.length][];
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c] != null) cols[c] = Arrays.copyOf(columns[c], size);
+            }
+            return new LapFrame(size, Arrays.copyOf(timestamps, size), Arrays.copyOf(distances, size), cols);
+        }
+    }
+}
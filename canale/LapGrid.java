@@ -0,0 +1,246 @@
+package org.simulator.canale;
+
+import org.simulator.diagnostica.Metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Giro ricampionato su una griglia fissa di distanza (passo in metri o in frazione di giro), con le
+ * colonne dei canali come {@code double[]}. Giri diversi condividono lo stesso spazio di indici:
+ * confronti, medie e inviluppi diventano operazioni su array, senza ricerche binarie né interpolazioni
+ * ripetute.
+ *
+ * La griglia parte dal primo campione con distanza valida e usa solo i campioni con distanza crescente.
+ * I pesi di interpolazione sono calcolati una volta; ogni colonna viene ricampionata alla prima richiesta.
+ * Le griglie stanno in una cache LRU limitata in byte ({@link #setBudgetBytes}).
+ */
+public final class LapGrid {
+
+    /** Passo della griglia: metri, oppure frazione del giro (0..1) se {@code percent}. */
+    public record Spec(double step, boolean percent) {
+        public Spec {
+            if (!(step > 0)) throw new IllegalArgumentException("step must be > 0: " + step);
+        }
+        public static Spec meters(double m) { return new Spec(m, false); }
+        public static Spec percent(double fraction) { return new Spec(fraction, true); }
+    }
+
+    private static final int MAX_POINTS = 1_000_000;
+
+    private final Spec spec;
+    private final LapFrame frame;
+    private final double start;   // distanza (colonna DISTANCE) del primo punto
+    private final double length;  // m, dal primo all'ultimo campione usato
+    private final double stepM;   // passo in metri
+    private final int n;
+    /** Per punto: campione sorgente a sinistra/destra e peso del destro. */
+    private final int[] left, right;
+    private final double[] w;
+    private final Map<Channel, double[]> columns = new EnumMap<>(Channel.class);
+    private double[] time;
+
+    private LapGrid(LapFrame f, Spec spec) {
+        this.spec = spec;
+        this.frame = f;
+
+        // campioni usabili: distanza finita e strettamente crescente
+        double[] dist = f.distances();
+        int[] src = new int[f.size()];
+        int k = 0;
+        double d0 = Double.NaN, last = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < f.size(); i++) {
+            double d = dist[i];
+            if (!Double.isFinite(d) || d <= last) continue;
+            if (k == 0) d0 = d;
+            src[k++] = i;
+            last = d;
+        }
+        this.start = d0;
+        this.length = (k >= 2) ? last - d0 : 0.0;
+
+        int points;
+        if (!(length > 0)) points = 0;
+        else if (spec.percent()) points = (int) Math.min(MAX_POINTS, Math.round(1.0 / spec.step()) + 1);
+        else points = (int) Math.min(MAX_POINTS, Math.floor(length / spec.step()) + 1);
+        this.n = points;
+        this.stepM = (points > 1) ? (spec.percent() ? length / (points - 1) : spec.step()) : 0.0;
+
+        this.left = new int[n];
+        this.right = new int[n];
+        this.w = new double[n];
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            double x = d0 + i * stepM;
+            while (j + 2 < k && dist[src[j + 1]] < x) j++;
+            int a = src[j], b = src[Math.min(j + 1, k - 1)];
+            double xa = dist[a], xb = dist[b];
+            double u = (xb > xa) ? (x - xa) / (xb - xa) : 0.0;
+            left[i] = a; right[i] = b;
+            w[i] = Math.max(0.0, Math.min(1.0, u));
+        }
+    }
+
+    /** Griglia del giro con il passo dato (dalla cache, costruita alla prima richiesta). */
+    public static LapGrid of(Lap lap, Spec spec) {
+        return Cache.get(lap, spec);
+    }
+
+    public Spec spec() { return spec; }
+
+    /** Numero di punti (0 se il giro non ha almeno due distanze valide). */
+    public int size() { return n; }
+
+    /** Distanza del giro (come nei campioni) al primo punto della griglia, NaN se vuota. */
+    public double start() { return start; }
+
+    /** Lunghezza del giro coperta dalla griglia (m). */
+    public double length() { return length; }
+
+    /** Distanza dal via del punto i (m). */
+    public double distance(int i) { return i * stepM; }
+
+    /** Punto più vicino alla distanza dal via (O(1), fuori range → primo/ultimo). */
+    public int indexAt(double distanceFromStart) {
+        if (n == 0) return -1;
+        if (!(stepM > 0)) return 0;
+        long i = Math.round(distanceFromStart / stepM);
+        return (int) Math.max(0, Math.min(n - 1, i));
+    }
+
+    /** Punto più vicino alla frazione di giro (0..1). */
+    public int indexAtFraction(double p) {
+        return indexAt(p * length);
+    }
+
+    /** Colonna ricampionata del canale, null se assente nel giro. Non modificare l'array. */
+    public double[] column(Channel ch) {
+        if (!frame.has(ch)) return null;
+        double[] col;
+        synchronized (this) {
+            col = columns.get(ch);
+            if (col != null) return col;
+            col = resample(frame.column(ch));
+            columns.put(ch, col);
+        }
+        Cache.trim();
+        return col;
+    }
+
+    /** Tempo (s) dal primo punto della griglia. */
+    public double[] time() {
+        double[] t;
+        synchronized (this) {
+            if (time != null) return time;
+            t = resample(frame.timestamps());
+            if (n > 0) { double t0 = t[0]; for (int i = 0; i < n; i++) t[i] -= t0; }
+            time = t;
+        }
+        Cache.trim();
+        return t;
+    }
+
+    /** Memoria occupata (indici, pesi e colonne già ricampionate). */
+    public synchronized long bytes() {
+        long b = 96L + n * (4L + 4L + 8L);
+        if (time != null) b += 8L * n;
+        b += columns.size() * (8L * n + 16L);
+        return b;
+    }
+
+    private double[] resample(double[] y) {
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) {
+            double ya = y[left[i]], yb = y[right[i]];
+            out[i] = ya + w[i] * (yb - ya);
+        }
+        return out;
+    }
+
+    // ===================== cache LRU =====================
+
+    /** Budget della cache in byte (default 64 MB); oltre, le griglie usate meno di recente escono. */
+    public static void setBudgetBytes(long bytes) {
+        Cache.budget = Math.max(0, bytes);
+        Cache.trim();
+    }
+
+    /** Byte attualmente occupati dalle griglie in cache. */
+    public static long cachedBytes() {
+        synchronized (Cache.MAP) { return Cache.total(); }
+    }
+
+    private static final class Cache {
+        static final Metrics.Counter HIT  = Metrics.counter("cache.lapgrid.hit");
+        static final Metrics.Counter MISS = Metrics.counter("cache.lapgrid.miss");
+        static { Metrics.gauge("cache.lapgrid.mb", () -> cachedBytes() / (1024.0 * 1024.0)); }
+
+        static volatile long budget = 64L << 20;
+        /** Ordine di accesso: la testa è la griglia usata meno di recente. */
+        static final LinkedHashMap<Key, LapGrid> MAP = new LinkedHashMap<>(16, 0.75f, true);
+
+        static LapGrid get(Lap lap, Spec spec) {
+            Key key = new Key(lap, spec);
+            synchronized (MAP) {
+                LapGrid g = MAP.get(key);
+                if (g != null) { HIT.increment(); return g; }
+            }
+            MISS.increment();
+            LapGrid g = new LapGrid(lap.frame(), spec);
+            synchronized (MAP) {
+                LapGrid prev = MAP.putIfAbsent(key, g);
+                if (prev != null) return prev;
+            }
+            trim();
+            return g;
+        }
+
+        /** Elimina le griglie di giri non più raggiungibili e poi le meno recenti oltre il budget. */
+        static void trim() {
+            synchronized (MAP) {
+                long total = 0;
+                for (Iterator<Map.Entry<Key, LapGrid>> it = MAP.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Key, LapGrid> e = it.next();
+                    if (e.getKey().lap.get() == null) it.remove();
+                    else total += e.getValue().bytes();
+                }
+                // tiene sempre l'ultima griglia usata, anche se da sola supera il budget
+                for (Iterator<Map.Entry<Key, LapGrid>> it = MAP.entrySet().iterator(); total > budget && MAP.size() > 1 && it.hasNext(); ) {
+                    total -= it.next().getValue().bytes();
+                    it.remove();
+                }
+            }
+        }
+
+        static long total() {
+            long t = 0;
+            for (LapGrid g : MAP.values()) t += g.bytes();
+            return t;
+        }
+    }
+
+    /** Chiave per identità del giro (riferimento debole: la cache non tiene in vita le sessioni chiuse). */
+    private static final class Key {
+        final WeakReference<Lap> lap;
+        final int hash;
+        final Spec spec;
+
+        Key(Lap lap, Spec spec) {
+            this.lap = new WeakReference<>(lap);
+            this.hash = System.identityHashCode(lap) * 31 + spec.hashCode();
+            this.spec = spec;
+        }
+
+        @Override public int hashCode() { return hash; }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            Lap a = lap.get();
+            return a != null && a == k.lap.get() && spec.equals(k.spec);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.simulator.canale;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Aggregazioni di sessione in parallelo: ogni giro produce un parziale su un task del
+ * {@link ForkJoinPool} comune (divisione ricorsiva dell'intervallo, un giro per foglia: i giri sono
+ * già lavoro grosso), poi i parziali si fondono nell'ordine dei giri. La fusione in ordine dà lo stesso
+ * risultato del ciclo sequenziale, anche sulle somme in virgola mobile.
+ *
+ * Le funzioni per giro girano su thread diversi: devono leggere solo il giro (e cache thread-safe
+ * come {@link Lap#derived}).
+ */
+public final class LapTasks {
+    private LapTasks(){}
+
+    /** Sotto questa soglia di giri si resta sul thread chiamante. */
+    private static final int MIN_PARALLEL_LAPS = 2;
+
+    /** Parziale per giro, nell'ordine della lista (null per i giri null). */
+    public static <P> List<P> map(List<Lap> laps, Function<? super Lap, ? extends P> perLap) {
+        Lap[] in = laps.toArray(new Lap[0]);
+        Object[] out = new Object[in.length];
+        if (in.length < MIN_PARALLEL_LAPS || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for (int i = 0; i < in.length; i++) out[i] = in[i] == null ? null : perLap.apply(in[i]);
+        } else {
+            ForkJoinPool.commonPool().invoke(new Range<>(in, out, perLap, 0, in.length));
+        }
+        @SuppressWarnings("unchecked")
+        List<P> parts = (List<P>) Arrays.asList(out);
+        return parts;
+    }
+
+    /** Parziali calcolati in parallelo e fusi in {@code acc} nell'ordine dei giri (i giri null sono saltati). */
+    public static <P, R> R fold(List<Lap> laps, Function<? super Lap, ? extends P> perLap, R acc, BiConsumer<? super R, ? super P> merge) {
+        for (P p : LapTasks.<P>map(laps, perLap)) if (p != null) merge.accept(acc, p);
+        return acc;
+    }
+
+    @SuppressWarnings("serial") // task del fork/join, mai serializzato
+    private static final class Range<P> extends RecursiveAction {
+        private final Lap[] in;
+        private final Object[] out;
+        private final Function<? super Lap, ? extends P> perLap;
+        private final int lo, hi;
+
+        Range(Lap[] in, Object[] out, Function<? super Lap, ? extends P> perLap, int lo, int hi) {
+            this.in = in; this.out = out; this.perLap = perLap; this.lo = lo; this.hi = hi;
+        }
+
+        @Override protected void compute() {
+            if (hi - lo == 1) {
+                if (in[lo] != null) out[lo] = perLap.apply(in[lo]);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Range<>(in, out, perLap, lo, mid), new Range<>(in, out, perLap, mid, hi));
+        }
+    }
+}
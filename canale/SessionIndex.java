@@ -0,0 +1,140 @@
+package org.simulator.canale;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validità dei giri di una sessione calcolata una volta sola: mediane di tempo/distanza,
+ * {@link Lap#lapTimeSafe()}/{@link Lap#distanceDelta()} per giro, flag di invalidazione e stato
+ * ("valido", "non valido", "giro non terminato"). Prima ogni {@link Lap#validityStatus(List)}
+ * ricalcolava le mediane sull'intera sessione (O(L² log L) per classificare tutti i giri).
+ *
+ * {@link #of(List)} riusa l'indice già costruito per la stessa lista di giri (stesse istanze,
+ * stesso ordine), così anche i chiamanti che passano ancora {@code List<Lap>} non ricalcolano.
+ */
+public final class SessionIndex {
+
+    public static final String VALID = "valido";
+    public static final String INVALID = "non valido";
+    public static final String NOT_FINISHED = "giro non terminato";
+
+    private static final SessionIndex EMPTY = new SessionIndex(List.of());
+    /** Ultimi indici costruiti (riferimenti deboli: la sessione viva è tenuta dal DataController). */
+    private static final int MEMO_SIZE = 8;
+    private static final List<WeakReference<SessionIndex>> MEMO = new ArrayList<>(MEMO_SIZE);
+
+    private final List<Lap> laps;
+    private final Map<Lap, Integer> pos;
+    private final double[] lapTimes;
+    private final double[] distances;
+    private final String[] status;
+    private final double medianLapTime;
+    private final double medianLapDistance;
+    private final List<Lap> validLaps;
+
+    private SessionIndex(List<Lap> source) {
+        int n = source.size();
+        this.laps = Collections.unmodifiableList(new ArrayList<>(source));
+        this.pos = new IdentityHashMap<>(n * 2);
+        this.lapTimes = new double[n];
+        this.distances = new double[n];
+        this.status = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            Lap l = laps.get(i);
+            lapTimes[i] = distances[i] = Double.NaN;
+            if (l == null) continue;
+            pos.putIfAbsent(l, i);
+            lapTimes[i] = l.lapTimeSafe();
+            distances[i] = l.distanceDelta();
+        }
+        this.medianLapTime = median(lapTimes);
+        this.medianLapDistance = median(distances);
+
+        List<Lap> valid = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Lap l = laps.get(i);
+            if (l == null) continue;
+            status[i] = l.validityStatus(medianLapTime, medianLapDistance);
+            if (VALID.equals(status[i])) valid.add(l);
+        }
+        this.validLaps = Collections.unmodifiableList(valid);
+    }
+
+    /** Indice della sessione (riusato se la stessa lista è già stata indicizzata). */
+    public static SessionIndex of(List<Lap> laps) {
+        if (laps == null || laps.isEmpty()) return EMPTY;
+        synchronized (MEMO) {
+            for (Iterator<WeakReference<SessionIndex>> it = MEMO.iterator(); it.hasNext(); ) {
+                SessionIndex idx = it.next().get();
+                if (idx == null) { it.remove(); continue; }
+                if (idx.sameLaps(laps)) return idx;
+            }
+        }
+        SessionIndex idx = new SessionIndex(laps);
+        synchronized (MEMO) {
+            if (MEMO.size() == MEMO_SIZE) MEMO.remove(0);
+            MEMO.add(new WeakReference<>(idx));
+        }
+        return idx;
+    }
+
+    // ----------------- accesso -----------------
+
+    public List<Lap> laps() { return laps; }
+
+    /** Giri con stato "valido", nell'ordine della sessione. */
+    public List<Lap> validLaps() { return validLaps; }
+
+    public double medianLapTime() { return medianLapTime; }
+
+    public double medianLapDistance() { return medianLapDistance; }
+
+    /** Stato del giro; per giri non appartenenti alla sessione usa comunque le mediane di sessione. */
+    public String status(Lap lap) {
+        Integer i = pos.get(lap);
+        if (i != null) return status[i];
+        return lap.validityStatus(medianLapTime, medianLapDistance);
+    }
+
+    public boolean isComplete(Lap lap) { return VALID.equals(status(lap)); }
+
+    public double lapTimeSafe(Lap lap) {
+        Integer i = pos.get(lap);
+        return i != null ? lapTimes[i] : lap.lapTimeSafe();
+    }
+
+    public double distanceDelta(Lap lap) {
+        Integer i = pos.get(lap);
+        return i != null ? distances[i] : lap.distanceDelta();
+    }
+
+    // ----------------- helper -----------------
+
+    private boolean sameLaps(List<Lap> other) {
+        if (other.size() != laps.size()) return false;
+        for (int i = 0; i < laps.size(); i++) if (other.get(i) != laps.get(i)) return false;
+        return true;
+    }
+
+    /** Mediana dei valori > 0 dei giri con almeno 2 campioni (stessa regola delle vecchie mediane di Lap). */
+    private double median(double[] perLap) {
+        double[] v = new double[perLap.length];
+        int n = 0;
+        for (int i = 0; i < perLap.length; i++) {
+            Lap l = laps.get(i);
+            if (l == null || l.size() < 2) continue;
+            double x = perLap[i];
+            if (!Double.isNaN(x) && x > 0) v[n++] = x;
+        }
+        if (n == 0) return Double.NaN;
+        Arrays.sort(v, 0, n);
+        return (n % 2 == 1) ? v[n / 2] : (v[n / 2 - 1] + v[n / 2]) / 2.0;
+    }
+}
@@ -1,6 +1,7 @@
 package org.simulator.coach;
 
 import org.simulator.canale.Lap;
+import org.simulator.diagnostica.Metrics;
 
 import java.util.*;
 
@@ -11,10 +12,22 @@ public final class Coach {
 
     private Coach(){}
 
+    private static final Metrics.Timer LAP_NOTES     = Metrics.timer("analysis.coach.lapNotes");
+    private static final Metrics.Timer SESSION_NOTES = Metrics.timer("analysis.coach.sessionNotes");
+
     // ====================== API ======================
 
     /** Note per un singolo giro (guida), con merge anti-duplicati. */
     public static List<String> generateNotes(Lap lap){
+        return LAP_NOTES.time(() -> lapNotes(lap));
+    }
+
+    /** Riepilogo sessione con dedup (CoachSession) e regole extra già incluse lì. */
+    public static List<String> generateSessionNotes(List<org.simulator.canale.Lap> laps){
+        return SESSION_NOTES.time(() -> sessionNotes(laps));
+    }
+
+    private static List<String> lapNotes(Lap lap){
         List<Note> notes = new ArrayList<>();
         if (lap == null) return List.of();
 
@@ -36,8 +49,7 @@ public final class Coach {
         return dedupByStem(out);
     }
 
-    /** Riepilogo sessione con dedup (CoachSession) e regole extra già incluse lì. */
-    public static List<String> generateSessionNotes(List<org.simulator.canale.Lap> laps){
+    private static List<String> sessionNotes(List<org.simulator.canale.Lap> laps){
         if (laps == null || laps.isEmpty()) return List.of();
 
         // Riconoscimento mezzo (invisibile alla UI)
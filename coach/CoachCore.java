@@ -67,13 +67,10 @@ public final class CoachCore {
 
     // =================== UTILS CANALI/STAT ===================
     public static double val(Sample s, Channel c) { return s.values().getOrDefault(c, Double.NaN); }
+    /** Lettura colonnare: valore del canale al campione i del giro (NaN se assente). */
+    public static double val(Lap lap, int i, Channel c) { return lap.value(c, i); }
     public static boolean has(Lap lap, Channel c) {
-        if (lap == null || lap.samples == null) return false;
-        for (Sample s : lap.samples) {
-            Double v = s.values().get(c);
-            if (v != null && !v.isNaN()) return true;
-        }
-        return false;
+        return lap != null && lap.frame().has(c);
     }
     public static boolean nearZero(double v, double thr){ return !Double.isNaN(v) && v < thr*100.0; }
     public static double fraction(Lap lap, java.util.function.Predicate<Sample> pred){
@@ -82,13 +79,20 @@ public final class CoachCore {
         return n>0 ? (double)m/n : 0.0;
     }
     public static double fractionActive(Lap lap, Channel flag){
-        return fraction(lap, s -> { double v = val(s, flag); return !Double.isNaN(v) && v >= 0.5; });
+        if (lap == null || lap.samples == null) return 0.0;
+        int n = lap.size();
+        double[] col = lap.frame().column(flag);
+        if (col == null || n == 0) return 0.0;
+        int m=0; for (double v : col){ if (v >= 0.5) m++; }
+        return (double)m/n;
     }
     public static String pctFmt(double p){ return String.format("%.0f%%", p*100.0); }
     public static Integer toInt(double d){ if (Double.isNaN(d) || Double.isInfinite(d)) return null; return (int)Math.round(d); }
     public static double firstNonNaN(Lap lap, Channel ch){
         if (lap == null || lap.samples == null) return Double.NaN;
-        for (Sample s: lap.samples){ Double v = s.values().getOrDefault(ch, Double.NaN); if (v!=null && !v.isNaN()) return v; }
+        double[] col = lap.frame().column(ch);
+        if (col == null) return Double.NaN;
+        for (double v : col){ if (!Double.isNaN(v)) return v; }
         return Double.NaN;
     }
     public static String fmt1(double d){ return Double.isNaN(d) ? "--" : String.format("%.1f", d); }
@@ -110,11 +114,11 @@ public final class CoachCore {
     // ------- analisi riusabili -------
     public static boolean suspectedOversteer(Lap lap){
         int sus=0;
-        for (int i = 1; i < lap.samples.size(); i++) {
-            double steer = val(lap.samples.get(i), Channel.STEER_ANGLE);
-            double latG  = val(lap.samples.get(i), Channel.CG_ACCEL_LATERAL);
-            double vNow  = val(lap.samples.get(i), Channel.SPEED);
-            double vPrev = val(lap.samples.get(i-1), Channel.SPEED);
+        for (int i = 1; i < lap.size(); i++) {
+            double steer = val(lap, i, Channel.STEER_ANGLE);
+            double latG  = val(lap, i, Channel.CG_ACCEL_LATERAL);
+            double vNow  = val(lap, i, Channel.SPEED);
+            double vPrev = val(lap, i-1, Channel.SPEED);
             if (Double.isNaN(steer) || Double.isNaN(latG) || Double.isNaN(vNow) || Double.isNaN(vPrev)) continue;
             boolean steerBigDeg = Math.abs(steer) > STEER_DEG;
             if (steerBigDeg && Math.abs(latG) > LATG_HIGH && (vPrev - vNow) > 5) sus++;
@@ -125,20 +129,19 @@ public final class CoachCore {
         if (apexes == null || apexes.isEmpty()) return Double.NaN;
         double vMin = Double.POSITIVE_INFINITY; boolean ok=false;
         for (int idx : apexes){
-            if (idx<0 || idx>=lap.samples.size()) continue;
-            double v = val(lap.samples.get(idx), Channel.SPEED);
+            if (idx<0 || idx>=lap.size()) continue;
+            double v = val(lap, idx, Channel.SPEED);
             if (!Double.isNaN(v)) { vMin = Math.min(vMin, v); ok=true; }
         }
         return ok ? vMin : Double.NaN;
     }
     public static int downshiftsWithHighThrottle(Lap lap){
         int bad=0;
-        for (int i=1;i<lap.samples.size();i++){
-            Sample a=lap.samples.get(i-1), b=lap.samples.get(i);
-            Integer gA=toInt(val(a, Channel.GEAR)), gB=toInt(val(b, Channel.GEAR));
+        for (int i=1;i<lap.size();i++){
+            Integer gA=toInt(val(lap, i-1, Channel.GEAR)), gB=toInt(val(lap, i, Channel.GEAR));
             if (gA==null || gB==null) continue;
             if (gB < gA) {
-                double thr=val(b, Channel.THROTTLE), brk=val(b, Channel.BRAKE), st=Math.abs(val(b, Channel.STEER_ANGLE));
+                double thr=val(lap, i, Channel.THROTTLE), brk=val(lap, i, Channel.BRAKE), st=Math.abs(val(lap, i, Channel.STEER_ANGLE));
                 if (thr > 70 && brk < 5 && st < 5) bad++;
             }
         }
@@ -147,19 +150,17 @@ public final class CoachCore {
     public static boolean lateLiftBeforeBrake(Lap lap, double liftWindowSec){
         if (!has(lap, Channel.THROTTLE) || !has(lap, Channel.BRAKE) || !has(lap, Channel.TIME)) return false;
         int cases=0, bad=0;
-        for (int i=1;i<lap.samples.size();i++){
-            Sample s = lap.samples.get(i);
-            double br = val(s, Channel.BRAKE);
+        for (int i=1;i<lap.size();i++){
+            double br = val(lap, i, Channel.BRAKE);
             if (Double.isNaN(br) || br < BRK_ON*100) continue;
             cases++;
-            double tNow = val(s, Channel.TIME);
+            double tNow = val(lap, i, Channel.TIME);
             boolean lifted = false;
             for (int j=i-1;j>=0;j--){
-                Sample p = lap.samples.get(j);
-                double tp = val(p, Channel.TIME);
+                double tp = val(lap, j, Channel.TIME);
                 if (Double.isNaN(tp) || Double.isNaN(tNow)) break;
                 if (tNow - tp > liftWindowSec) break;
-                double th = val(p, Channel.THROTTLE);
+                double th = val(lap, j, Channel.THROTTLE);
                 if (!Double.isNaN(th) && th < 10) { lifted = true; break; }
             }
             if (!lifted) bad++;
@@ -168,10 +169,9 @@ public final class CoachCore {
     }
     public static double throttleOscillationPct(Lap lap, double thrPercPerSec){
         int n=0, harsh=0;
-        for (int i=1;i<lap.samples.size();i++){
-            Sample a=lap.samples.get(i-1), b=lap.samples.get(i);
-            double ta=val(a, Channel.TIME), tb=val(b, Channel.TIME);
-            double pa=val(a, Channel.THROTTLE), pb=val(b, Channel.THROTTLE);
+        for (int i=1;i<lap.size();i++){
+            double ta=val(lap, i-1, Channel.TIME), tb=val(lap, i, Channel.TIME);
+            double pa=val(lap, i-1, Channel.THROTTLE), pb=val(lap, i, Channel.THROTTLE);
             if (Double.isNaN(ta)||Double.isNaN(tb)||Double.isNaN(pa)||Double.isNaN(pb)) continue;
             double dt = Math.max(1e-3, tb-ta);
             double rate = Math.abs((pb-pa)/dt);
@@ -183,10 +183,9 @@ public final class CoachCore {
     }
     public static double steeringHarshPct(Lap lap, double degPerSec){
         int n=0, harsh=0;
-        for (int i=1;i<lap.samples.size();i++){
-            Sample a=lap.samples.get(i-1), b=lap.samples.get(i);
-            double ta=val(a, Channel.TIME), tb=val(b, Channel.TIME);
-            double sa=val(a, Channel.STEER_ANGLE), sb=val(b, Channel.STEER_ANGLE);
+        for (int i=1;i<lap.size();i++){
+            double ta=val(lap, i-1, Channel.TIME), tb=val(lap, i, Channel.TIME);
+            double sa=val(lap, i-1, Channel.STEER_ANGLE), sb=val(lap, i, Channel.STEER_ANGLE);
             if (Double.isNaN(ta)||Double.isNaN(tb)||Double.isNaN(sa)||Double.isNaN(sb)) continue;
             double dt = Math.max(1e-3, tb-ta);
             double rate = Math.abs((sb-sa)/dt);
@@ -196,26 +195,27 @@ public final class CoachCore {
         return n>0 ? (double)harsh/n : 0.0;
     }
     public static double rpmQuantile(Lap lap, double q){
-        List<Double> v = new ArrayList<>();
-        for (Sample s: lap.samples){ double r = val(s, Channel.ENGINE_RPM); if (!Double.isNaN(r)) v.add(r); }
-        if (v.isEmpty()) return Double.NaN;
-        v.sort(Double::compareTo);
-        int idx = Math.min(v.size()-1, Math.max(0, (int)Math.floor(q*(v.size()-1))));
-        return v.get(idx);
+        double[] col = lap.frame().column(Channel.ENGINE_RPM);
+        if (col == null) return Double.NaN;
+        double[] v = new double[col.length]; int n = 0;
+        for (double r : col){ if (!Double.isNaN(r)) v[n++] = r; }
+        if (n == 0) return Double.NaN;
+        Arrays.sort(v, 0, n);
+        int idx = Math.min(n-1, Math.max(0, (int)Math.floor(q*(n-1))));
+        return v[idx];
     }
     public static final class DelayStats { public boolean valid=false; public double avg=Double.NaN, min=Double.NaN, max=Double.NaN; public final List<Double> all=new ArrayList<>(); }
     public static DelayStats apexToThrottleStats(Lap lap, List<Integer> apexIdx, double thrPct){
         DelayStats ds = new DelayStats();
         if (lap==null || lap.samples==null || lap.samples.isEmpty() || apexIdx==null || apexIdx.isEmpty() || !has(lap, Channel.TIME) || !has(lap, Channel.THROTTLE)) return ds;
         for (int idx: apexIdx){
-            if (idx<0 || idx>=lap.samples.size()) continue;
-            Sample a = lap.samples.get(idx);
-            double tA = val(a, Channel.TIME);
+            if (idx<0 || idx>=lap.size()) continue;
+            double tA = val(lap, idx, Channel.TIME);
             if (Double.isNaN(tA)) continue;
             double hit = Double.NaN;
-            for (int k=idx; k<lap.samples.size(); k++){
-                double thr = val(lap.samples.get(k), Channel.THROTTLE);
-                double tk  = val(lap.samples.get(k), Channel.TIME);
+            for (int k=idx; k<lap.size(); k++){
+                double thr = val(lap, k, Channel.THROTTLE);
+                double tk  = val(lap, k, Channel.TIME);
                 if (Double.isNaN(thr) || Double.isNaN(tk)) continue;
                 double thrNorm = (thr > 1.001) ? thr/100.0 : thr;
                 if (thrNorm >= thrPct) { hit = tk; break; }
@@ -233,8 +233,7 @@ public final class CoachCore {
     public static double meanChannel(Lap lap, Channel ch){
         if (!has(lap, ch)) return Double.NaN;
         double sum=0; int n=0;
-        for (Sample s: lap.samples){
-            double v = val(s, ch);
+        for (double v : lap.frame().column(ch)){
             if (!Double.isNaN(v)) { sum+=v; n++; }
         }
         return n>0 ? (sum/n) : Double.NaN;
@@ -254,10 +253,11 @@ public final class CoachCore {
     }
     public static double ffbClipFraction(Lap lap){
         if (lap==null || lap.samples==null || lap.samples.isEmpty()) return 0.0;
+        double[] col = lap.frame().column(Channel.FFB);
+        if (col == null) return 0.0;
         int n=0,m=0;
-        for (var s: lap.samples){
-            Double v = s.values().getOrDefault(Channel.FFB, Double.NaN);
-            if (v==null || v.isNaN()) continue;
+        for (double v : col){
+            if (Double.isNaN(v)) continue;
             n++; if (v >= FFB_CLIP) m++;
         }
         return n>0 ? (double)m/n : 0.0;
@@ -265,13 +265,13 @@ public final class CoachCore {
     public static int pedalSpikeCount(Lap lap, double spikeN, double windowS){
         if (lap==null || lap.samples==null || lap.samples.size()<2) return 0;
         int spikes=0;
-        for (int i=1;i<lap.samples.size();i++){
-            var a=lap.samples.get(i-1); var b=lap.samples.get(i);
-            double p0=val(a, Channel.PEDAL_FORCE), p1=val(b, Channel.PEDAL_FORCE);
+        boolean hasTime = has(lap, Channel.TIME);
+        for (int i=1;i<lap.size();i++){
+            double p0=val(lap, i-1, Channel.PEDAL_FORCE), p1=val(lap, i, Channel.PEDAL_FORCE);
             if (Double.isNaN(p0) || Double.isNaN(p1)) continue;
             double dt = Double.NaN;
-            if (has(lap, Channel.TIME)){
-                double t0=val(a, Channel.TIME), t1=val(b, Channel.TIME);
+            if (hasTime){
+                double t0=val(lap, i-1, Channel.TIME), t1=val(lap, i, Channel.TIME);
                 if (!Double.isNaN(t0) && !Double.isNaN(t1)) dt=Math.max(1e-3, t1-t0);
             }
             if (p1 - p0 > spikeN && (Double.isNaN(dt) || dt <= windowS)) spikes++;
@@ -281,13 +281,13 @@ public final class CoachCore {
     public static double seatKerbPct(Lap lap){
         if (lap==null || lap.samples==null || lap.samples.size()<2) return 0.0;
         int hit=0, base=0;
-        for (int i=1;i<lap.samples.size();i++){
-            var a=lap.samples.get(i-1); var b=lap.samples.get(i);
-            double s0=val(a, Channel.SEAT_FORCE), s1=val(b, Channel.SEAT_FORCE);
+        boolean hasTime = has(lap, Channel.TIME);
+        for (int i=1;i<lap.size();i++){
+            double s0=val(lap, i-1, Channel.SEAT_FORCE), s1=val(lap, i, Channel.SEAT_FORCE);
             if (Double.isNaN(s0) || Double.isNaN(s1)) continue;
             double dt = Double.NaN;
-            if (has(lap, Channel.TIME)){
-                double t0=val(a, Channel.TIME), t1=val(b, Channel.TIME);
+            if (hasTime){
+                double t0=val(lap, i-1, Channel.TIME), t1=val(lap, i, Channel.TIME);
                 if (!Double.isNaN(t0) && !Double.isNaN(t1)) dt=Math.max(1e-3, t1-t0);
             }
             boolean fast = (Double.isNaN(dt) || dt <= 0.04);
@@ -300,11 +300,11 @@ public final class CoachCore {
     public static double[] slipRatioFrontRearPct(Lap lap){
         if (lap==null || lap.samples==null) return new double[]{0,0};
         int n=0, f=0, r=0;
-        for (var s: lap.samples){
-            double fl = val(s, Channel.TIRE_SLIP_RATIO_FL);
-            double fr = val(s, Channel.TIRE_SLIP_RATIO_FR);
-            double rl = val(s, Channel.TIRE_SLIP_RATIO_RL);
-            double rr = val(s, Channel.TIRE_SLIP_RATIO_RR);
+        for (int i=0;i<lap.size();i++){
+            double fl = val(lap, i, Channel.TIRE_SLIP_RATIO_FL);
+            double fr = val(lap, i, Channel.TIRE_SLIP_RATIO_FR);
+            double rl = val(lap, i, Channel.TIRE_SLIP_RATIO_RL);
+            double rr = val(lap, i, Channel.TIRE_SLIP_RATIO_RR);
             if (Double.isNaN(fl) && Double.isNaN(fr) && Double.isNaN(rl) && Double.isNaN(rr)) continue;
             boolean fh = (abs(fl)>SLIPR_HIGH) || (abs(fr)>SLIPR_HIGH);
             boolean rh = (abs(rl)>SLIPR_HIGH) || (abs(rr)>SLIPR_HIGH);
@@ -315,11 +315,11 @@ public final class CoachCore {
     public static double[] slipAngleFrontRearPct(Lap lap){
         if (lap==null || lap.samples==null) return new double[]{0,0};
         int n=0, f=0, r=0;
-        for (var s: lap.samples){
-            double fl = val(s, Channel.TIRE_SLIP_ANGLE_FL);
-            double fr = val(s, Channel.TIRE_SLIP_ANGLE_FR);
-            double rl = val(s, Channel.TIRE_SLIP_ANGLE_RL);
-            double rr = val(s, Channel.TIRE_SLIP_ANGLE_RR);
+        for (int i=0;i<lap.size();i++){
+            double fl = val(lap, i, Channel.TIRE_SLIP_ANGLE_FL);
+            double fr = val(lap, i, Channel.TIRE_SLIP_ANGLE_FR);
+            double rl = val(lap, i, Channel.TIRE_SLIP_ANGLE_RL);
+            double rr = val(lap, i, Channel.TIRE_SLIP_ANGLE_RR);
             if (Double.isNaN(fl) && Double.isNaN(fr) && Double.isNaN(rl) && Double.isNaN(rr)) continue;
             boolean fh = (abs(fl)>SLIPA_HIGH_DEG) || (abs(fr)>SLIPA_HIGH_DEG);
             boolean rh = (abs(rl)>SLIPA_HIGH_DEG) || (abs(rr)>SLIPA_HIGH_DEG);
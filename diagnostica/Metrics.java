@@ -0,0 +1,197 @@
+package org.simulator.diagnostica;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Metriche in-process per fase (import, analisi, grafici, cache): timer, contatori e gauge registrati per
+ * nome, leggibili in blocco con {@link #snapshot()} (pannello diagnostica nelle impostazioni).
+ *
+ * Ogni fase misurata con {@link Timer#start()} o {@link Timer#time} emette anche un evento JFR ({@link StageEvent}) con durata,
+ * elementi elaborati e byte allocati dal thread, così una registrazione {@code .jfr} mostra dove vanno
+ * tempo e memoria. Il costo a registrazione spenta è qualche lettura di contatore per fase.
+ */
+public final class Metrics {
+    private Metrics(){}
+
+    public enum Kind { TIMER, COUNTER, GAUGE }
+
+    private static final Map<String, Object> REGISTRY = new ConcurrentHashMap<>();
+
+    static {
+        gauge("heap.used.mb", () -> {
+            Runtime rt = Runtime.getRuntime();
+            return (rt.totalMemory() - rt.freeMemory()) / (1024.0 * 1024.0);
+        });
+        MetricsEvent.register();
+    }
+
+    // ===================== registrazione =====================
+
+    /** Timer della fase (creato al primo uso; tenerlo in un campo statico). */
+    public static Timer timer(String name) {
+        return (Timer) REGISTRY.computeIfAbsent(name, Timer::new);
+    }
+
+    public static Counter counter(String name) {
+        return (Counter) REGISTRY.computeIfAbsent(name, Counter::new);
+    }
+
+    /** Gauge letto solo negli snapshot (il supplier deve essere economico e thread-safe). */
+    public static void gauge(String name, DoubleSupplier value) {
+        REGISTRY.put(name, new Gauge(name, value));
+    }
+
+    // ===================== tipi =====================
+
+    public static final class Timer {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private volatile long lastNanos;
+
+        private Timer(String name) { this.name = name; }
+
+        public String name() { return name; }
+
+        /** Apre la fase: da chiudere con try-with-resources (serve per riportare {@link Span#items}). */
+        public Span start() { return new Span(this); }
+
+        /** Esegue {@code work} come una fase e ne restituisce il risultato. */
+        public <T, E extends Exception> T time(Stage<T, E> work) throws E {
+            Span s = start();
+            try { return work.run(); } finally { s.close(); }
+        }
+
+        /** Come {@link #time(Stage)} per una fase senza risultato. */
+        public void time(Runnable work) {
+            Span s = start();
+            try { work.run(); } finally { s.close(); }
+        }
+
+        void record(long nanos, long bytes) {
+            count.increment();
+            totalNanos.add(nanos);
+            if (bytes > 0) allocated.add(bytes);
+            maxNanos.accumulate(nanos);
+            lastNanos = nanos;
+        }
+
+        private void reset() { count.reset(); totalNanos.reset(); allocated.reset(); maxNanos.reset(); lastNanos = 0; }
+    }
+
+    /** Corpo di una fase misurata con {@link Timer#time(Stage)}. */
+    @FunctionalInterface
+    public interface Stage<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /** Fase in corso: durata e allocazione del thread che l'ha aperta. */
+    public static final class Span implements AutoCloseable {
+        private final Timer timer;
+        private final StageEvent event = new StageEvent();
+        private final long t0, a0;
+        private long items;
+
+        private Span(Timer timer) {
+            this.timer = timer;
+            this.a0 = allocatedBytes();
+            event.begin();
+            this.t0 = System.nanoTime();
+        }
+
+        /** Elementi elaborati dalla fase (righe, giri, punti...), riportati nell'evento JFR. */
+        public Span items(long n) { items = n; return this; }
+
+        @Override public void close() {
+            long dt = System.nanoTime() - t0;
+            long bytes = a0 < 0 ? -1 : allocatedBytes() - a0;
+            timer.record(dt, bytes);
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = timer.name;
+                event.items = items;
+                event.allocated = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name) { this.name = name; }
+
+        public String name() { return name; }
+        public void increment() { value.increment(); }
+        public void add(long n) { value.add(n); }
+        public long get() { return value.sum(); }
+    }
+
+    private record Gauge(String name, DoubleSupplier value) {}
+
+    // ===================== lettura =====================
+
+    /** Valori correnti: per i timer {@code value} è il tempo totale (ms), per contatori/gauge il valore. */
+    public record Snapshot(String name, Kind kind, long count, double value,
+                           double meanMs, double maxMs, double lastMs, long allocatedBytes) {}
+
+    /** Tutte le metriche, ordinate per nome. */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> out = new ArrayList<>(REGISTRY.size());
+        for (Object m : REGISTRY.values()) {
+            if (m instanceof Timer t) {
+                long n = t.count.sum();
+                double total = t.totalNanos.sum() / 1e6;
+                out.add(n == 0
+                        ? new Snapshot(t.name, Kind.TIMER, 0, 0, Double.NaN, Double.NaN, Double.NaN, 0)
+                        : new Snapshot(t.name, Kind.TIMER, n, total, total / n,
+                                       t.maxNanos.get() / 1e6, t.lastNanos / 1e6, t.allocated.sum()));
+            } else if (m instanceof Counter c) {
+                long v = c.get();
+                out.add(new Snapshot(c.name, Kind.COUNTER, v, v, Double.NaN, Double.NaN, Double.NaN, 0));
+            } else if (m instanceof Gauge g) {
+                double v;
+                try { v = g.value.getAsDouble(); } catch (RuntimeException e) { v = Double.NaN; }
+                out.add(new Snapshot(g.name, Kind.GAUGE, 0, v, Double.NaN, Double.NaN, Double.NaN, 0));
+            }
+        }
+        out.sort(Comparator.comparing(Snapshot::name));
+        return out;
+    }
+
+    /** Azzera timer e contatori (i gauge restano). */
+    public static void reset() {
+        for (Object m : REGISTRY.values()) {
+            if (m instanceof Timer t) t.reset();
+            else if (m instanceof Counter c) c.value.reset();
+        }
+    }
+
+    // ===================== allocazione per thread =====================
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean b
+                    && b.isThreadAllocatedMemorySupported() && b.isThreadAllocatedMemoryEnabled()) return b;
+        } catch (RuntimeException | LinkageError ignored) { }
+        return null;
+    }
+
+    /** Byte allocati finora dal thread corrente, -1 se la JVM non lo supporta. */
+    static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+}
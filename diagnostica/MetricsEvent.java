@@ -0,0 +1,45 @@
+package org.simulator.diagnostica;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/** Evento JFR periodico con il valore di contatori e gauge (i timer hanno già {@link StageEvent}). */
+@Name("org.simulator.Metric")
+@Label("Telemetry Coach metric")
+@Category({"Telemetry Coach"})
+@Description("Valore periodico di contatori (cache hit/miss, righe, giri) e gauge")
+@Period("1 s")
+@StackTrace(false)
+final class MetricsEvent extends Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Value")
+    double value;
+
+    private static final Runnable HOOK = () -> {
+        for (Metrics.Snapshot s : Metrics.snapshot()) {
+            if (s.kind() == Metrics.Kind.TIMER) continue;
+            MetricsEvent e = new MetricsEvent();
+            e.name = s.name();
+            e.value = s.value();
+            e.commit();
+        }
+    };
+
+    /** Registra l'hook periodico (una volta, dall'inizializzazione di {@link Metrics}). */
+    static void register() {
+        try {
+            FlightRecorder.addPeriodicEvent(MetricsEvent.class, HOOK);
+        } catch (RuntimeException | LinkageError ignored) {
+            // JFR non disponibile: restano le metriche in-process
+        }
+    }
+}
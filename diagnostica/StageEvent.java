@@ -0,0 +1,28 @@
+package org.simulator.diagnostica;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Evento JFR di una fase misurata da {@link Metrics.Timer#start()}. */
+@Name("org.simulator.Stage")
+@Label("Telemetry Coach stage")
+@Category({"Telemetry Coach"})
+@Description("Fase di import, analisi o preparazione grafici, con i byte allocati dal thread")
+@StackTrace(false)
+final class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Items")
+    long items;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,126 @@
+package org.simulator.importCSVFW;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Automa Aho-Corasick su un insieme di chiavi (già normalizzate con {@link ChannelAliases#norm}):
+ * una sola passata sul testo dice quali chiavi vi compaiono come sottostringa, invece di un
+ * {@code contains} per chiave. Le transizioni sono una tabella densa sull'alfabeto delle chiavi
+ * (i caratteri che non vi compaiono riportano alla radice).
+ */
+final class AliasMatcher {
+
+    private final String[] keys;
+    private final int[] classOf;     // char → colonna della tabella (0 = carattere assente dalle chiavi)
+    private final int width;
+    private final int[] next;        // stato * width + classe → stato
+    private final long[][] out;      // per stato: bit delle chiavi che terminano qui (anche via failure)
+
+    AliasMatcher(List<String> patterns) {
+        // chiavi distinte nell'ordine dato; l'indice di una chiave è il suo bit
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (String p : patterns) if (!p.isEmpty()) ids.putIfAbsent(p, ids.size());
+        this.keys = ids.keySet().toArray(new String[0]);
+
+        int maxChar = 0;
+        for (String k : keys) for (int i = 0; i < k.length(); i++) maxChar = Math.max(maxChar, k.charAt(i));
+        this.classOf = new int[maxChar + 1];
+        int w = 1;
+        for (String k : keys) for (int i = 0; i < k.length(); i++) if (classOf[k.charAt(i)] == 0) classOf[k.charAt(i)] = w++;
+        this.width = w;
+
+        // trie
+        int words = (keys.length + 63) >>> 6;
+        List<int[]> rows = new ArrayList<>();
+        List<long[]> outs = new ArrayList<>();
+        rows.add(new int[width]); outs.add(new long[words]);
+        for (int id = 0; id < keys.length; id++) {
+            int s = 0;
+            for (int i = 0; i < keys[id].length(); i++) {
+                int c = classOf[keys[id].charAt(i)];
+                if (rows.get(s)[c] == 0) {
+                    rows.get(s)[c] = rows.size();
+                    rows.add(new int[width]); outs.add(new long[words]);
+                }
+                s = rows.get(s)[c];
+            }
+            outs.get(s)[id >>> 6] |= 1L << id;
+        }
+
+        // failure in BFS, trasformate direttamente in transizioni (automa deterministico)
+        int n = rows.size();
+        int[] fail = new int[n];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 1; c < width; c++) {
+            int t = rows.get(0)[c];
+            if (t != 0) queue.add(t);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            long[] o = outs.get(s), fo = outs.get(fail[s]);
+            for (int k = 0; k < words; k++) o[k] |= fo[k];
+            for (int c = 1; c < width; c++) {
+                int t = rows.get(s)[c];
+                if (t != 0) {
+                    fail[t] = rows.get(fail[s])[c];
+                    queue.add(t);
+                } else {
+                    rows.get(s)[c] = rows.get(fail[s])[c];
+                }
+            }
+        }
+
+        this.next = new int[n * width];
+        for (int s = 0; s < n; s++) System.arraycopy(rows.get(s), 0, next, s * width, width);
+        this.out = outs.toArray(new long[0][]);
+    }
+
+    int size() { return keys.length; }
+
+    String key(int id) { return keys[id]; }
+
+    /** Indice della chiave, -1 se non presente. */
+    int idOf(String key) {
+        for (int i = 0; i < keys.length; i++) if (keys[i].equals(key)) return i;
+        return -1;
+    }
+
+    /** true se almeno una chiave compare nel testo (si ferma al primo match). */
+    boolean containsAny(String text) {
+        int s = 0;
+        for (int i = 0; i < text.length(); i++) {
+            s = next[s * width + cls(text.charAt(i))];
+            if (nonEmpty(out[s])) return true;
+        }
+        return false;
+    }
+
+    /** Bit (per indice di chiave) delle chiavi contenute nel testo. */
+    long[] matches(String text) {
+        long[] found = new long[(keys.length + 63) >>> 6];
+        int s = 0;
+        for (int i = 0; i < text.length(); i++) {
+            s = next[s * width + cls(text.charAt(i))];
+            long[] o = out[s];
+            for (int k = 0; k < o.length; k++) found[k] |= o[k];
+        }
+        return found;
+    }
+
+    static boolean has(long[] bits, int id) {
+        return id >= 0 && (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private int cls(char ch) {
+        return ch < classOf.length ? classOf[ch] : 0;
+    }
+
+    private static boolean nonEmpty(long[] bits) {
+        for (long b : bits) if (b != 0) return true;
+        return false;
+    }
+}
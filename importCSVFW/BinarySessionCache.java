@@ -0,0 +1,380 @@
+package org.simulator.importCSVFW;
+
+import org.simulator.canale.Channel;
+import org.simulator.canale.Lap;
+import org.simulator.canale.LapFrame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Cache binaria di sessione ({@code .tcbin}) scritta dopo il primo import di un CSV e
+ * caricata (memory-mapped) alle aperture successive, saltando header detection e alias.
+ *
+ * Formato (little-endian):
+ * <pre>
+ *  magic "TCBN" | versione | size/mtime/hash del CSV | hash del mapping utente | impronta alias
+ *  tabella canali: n, nomi {@link Channel} (il file non dipende dagli ordinal)
+ *  indice giri:    n, per giro {lapIndex, righe, offset dati, n colonne}
+ *  dati per giro:  timestamp, distanza, poi {id canale, colonna} per ogni canale presente
+ * </pre>
+ * Ogni colonna è tipizzata: costante, decimale delta-encoded (varint zig-zag su interi scalati
+ * 10^k), float32 o double, scegliendo la forma più compatta che ricostruisce i valori bit a bit.
+ * Qualsiasi incongruenza (sorgente cambiata, versione, alias o matching cambiati, canale sconosciuto)
+ * invalida la cache. La cartella è limitata in dimensione ed età ({@link #prune}).
+ */
+final class BinarySessionCache {
+
+    static final String EXT = ".tcbin";
+    private static final int MAGIC = 0x4E424354; // "TCBN"
+    private static final int VERSION = 2;
+    /** Byte letti in testa e in coda al CSV per l'hash di controllo (oltre a size/mtime). */
+    private static final int HASH_PROBE = 64 * 1024;
+    /** Oltre questa dimensione complessiva escono i .tcbin usati meno di recente. */
+    private static final long MAX_DIR_BYTES = 2L << 30;
+    /** I .tcbin non usati da più di 30 giorni vengono rimossi. */
+    private static final long MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+
+    private static final byte ENC_CONST = 0, ENC_DELTA = 1, ENC_F32 = 2, ENC_F64 = 3;
+    private static final int MAX_DECIMALS = 6;
+    private static final double[] POW10 = { 1, 10, 100, 1e3, 1e4, 1e5, 1e6 };
+
+    private BinarySessionCache() {}
+
+    /** Identità del CSV sorgente: size, mtime e hash di testa/coda. */
+    record Stamp(long size, long mtime, long hash) {}
+
+    /** Da calcolare PRIMA dell'import: se il CSV cambia nel frattempo la cache risulterà scaduta. */
+    static Stamp stamp(Path csv) throws IOException {
+        return new Stamp(Files.size(csv), Files.getLastModifiedTime(csv).toMillis(), sourceHash(csv));
+    }
+
+    /** Cartella di default: {@code ~/.telemetrycoach/cache}. */
+    static Path defaultDir() {
+        return Paths.get(System.getProperty("user.home"), ".telemetrycoach", "cache");
+    }
+
+    /** File di cache per un CSV: nome leggibile + hash del percorso assoluto (evita collisioni). */
+    static Path cacheFileFor(Path csv, Path dir) {
+        Path abs = csv.toAbsolutePath().normalize();
+        String name = abs.getFileName().toString();
+        return dir.resolve(name + "-" + Integer.toHexString(abs.toString().hashCode()) + EXT);
+    }
+
+    // ----------------- lettura -----------------
+
+    /** Giri dalla cache, oppure null se assente/non valida (il chiamante ricade sul CSV); {@code src} = {@link #stamp}. */
+    static List<Lap> load(Path csv, Stamp src, Map<String, Channel> userMapping, Path dir) {
+        Path file = cacheFileFor(csv, dir);
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) return null;
+            if (!src.equals(new Stamp(buf.getLong(), buf.getLong(), buf.getLong()))) return null;
+            if (buf.getInt() != mappingHash(userMapping)) return null;
+            if (buf.getLong() != ChannelAliases.FINGERPRINT) return null;
+
+            Channel[] table = new Channel[buf.getInt()];
+            for (int c = 0; c < table.length; c++) {
+                byte[] name = new byte[buf.getShort() & 0xFFFF];
+                buf.get(name);
+                try { table[c] = Channel.valueOf(new String(name, StandardCharsets.UTF_8)); }
+                catch (IllegalArgumentException unknown) { return null; } // enum cambiato
+            }
+
+            int nLaps = buf.getInt();
+            int[] idx = new int[nLaps], rows = new int[nLaps], cols = new int[nLaps];
+            long[] offs = new long[nLaps];
+            for (int l = 0; l < nLaps; l++) {
+                idx[l] = buf.getInt(); rows[l] = buf.getInt(); offs[l] = buf.getLong(); cols[l] = buf.getInt();
+            }
+
+            List<Lap> laps = new ArrayList<>(nLaps);
+            for (int l = 0; l < nLaps; l++) {
+                buf.position(Math.toIntExact(offs[l]));
+                double[] ts = readColumn(buf, rows[l]);
+                double[] ds = readColumn(buf, rows[l]);
+                EnumMap<Channel, double[]> byCh = new EnumMap<>(Channel.class);
+                for (int c = 0; c < cols[l]; c++) {
+                    Channel ch = table[buf.getShort() & 0xFFFF];
+                    byCh.put(ch, readColumn(buf, rows[l]));
+                }
+                laps.add(new Lap(idx[l], LapFrame.ofColumns(ts, ds, byCh)));
+            }
+            touch(file);
+            return laps;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[CSV] cache " + file.getFileName() + " ignorata: " + e);
+            return null;
+        }
+    }
+
+    private static double[] readColumn(ByteBuffer buf, int n) {
+        double[] out = new double[n];
+        byte enc = buf.get();
+        switch (enc) {
+            case ENC_CONST -> Arrays.fill(out, buf.getDouble());
+            case ENC_F64 -> {
+                buf.asDoubleBuffer().get(out);
+                buf.position(buf.position() + 8 * n);
+            }
+            case ENC_F32 -> {
+                for (int i = 0; i < n; i++) out[i] = buf.getFloat();
+            }
+            case ENC_DELTA -> {
+                double p = POW10[buf.get()];
+                long m = 0;
+                for (int i = 0; i < n; i++) {
+                    m += unzigzag(readVarLong(buf));
+                    out[i] = m / p;
+                }
+            }
+            default -> throw new IllegalStateException("Codifica colonna sconosciuta: " + enc);
+        }
+        return out;
+    }
+
+    // ----------------- scrittura -----------------
+
+    /** Scrive la cache (file temporaneo + rename atomico); errori solo loggati. */
+    static void store(Path csv, Stamp src, Map<String, Channel> userMapping, Path dir, List<Lap> laps) {
+        Path file = cacheFileFor(csv, dir);
+        try {
+            Files.createDirectories(dir);
+            Channel[] table = channelTable(laps);
+            int[] slot = new int[Channel.values().length];
+            for (int c = 0; c < table.length; c++) slot[table[c].ordinal()] = c;
+
+            // blocchi dati per giro (encodati prima, così l'indice conosce gli offset)
+            List<ByteBuffer> blocks = new ArrayList<>(laps.size());
+            for (Lap lap : laps) {
+                LapFrame f = lap.frame();
+                Out o = new Out(64 + f.size() * 8);
+                writeColumn(o, f.timestamps(), f.size());
+                writeColumn(o, f.distances(), f.size());
+                for (Channel ch : f.channels()) {
+                    o.ensure(2).putShort((short) slot[ch.ordinal()]);
+                    writeColumn(o, f.column(ch), f.size());
+                }
+                blocks.add(o.flip());
+            }
+
+            Out h = new Out(256);
+            h.ensure(44).putInt(MAGIC).putInt(VERSION)
+                    .putLong(src.size()).putLong(src.mtime()).putLong(src.hash()).putInt(mappingHash(userMapping))
+                    .putLong(ChannelAliases.FINGERPRINT);
+            h.ensure(4).putInt(table.length);
+            for (Channel ch : table) {
+                byte[] name = ch.name().getBytes(StandardCharsets.UTF_8);
+                h.ensure(2 + name.length).putShort((short) name.length).put(name);
+            }
+            int indexBytes = 4 + laps.size() * 20;
+            long off = h.buf.position() + indexBytes;
+            h.ensure(indexBytes).putInt(laps.size());
+            for (int l = 0; l < laps.size(); l++) {
+                Lap lap = laps.get(l);
+                h.buf.putInt(lap.index).putInt(lap.size()).putLong(off).putInt(lap.frame().channels().size());
+                off += blocks.get(l).remaining();
+            }
+
+            ByteBuffer[] all = new ByteBuffer[blocks.size() + 1];
+            all[0] = h.flip();
+            for (int l = 0; l < blocks.size(); l++) all[l + 1] = blocks.get(l);
+
+            Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    while (all[all.length - 1].hasRemaining()) fc.write(all);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[CSV] impossibile scrivere la cache " + file.getFileName() + ": " + e);
+        }
+        prune(dir, file);
+    }
+
+    // ----------------- pulizia cartella -----------------
+
+    /** La data di modifica del .tcbin fa da "ultimo uso" per {@link #prune}. */
+    private static void touch(Path file) {
+        try { Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); }
+        catch (IOException ignored) { /* solo l'ordine di pulizia ne risente */ }
+    }
+
+    /** Rimuove i .tcbin più vecchi di {@link #MAX_AGE_MS} e, dal meno usato, quelli oltre {@link #MAX_DIR_BYTES}. */
+    static void prune(Path dir, Path keep) {
+        record CacheFile(Path path, long size, long used) {}
+        List<CacheFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*" + EXT)) {
+            for (Path p : ds) {
+                BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+                files.add(new CacheFile(p, a.size(), a.lastModifiedTime().toMillis()));
+            }
+        } catch (IOException e) {
+            System.err.println("[CSV] pulizia cache non riuscita: " + e);
+            return;
+        }
+        files.sort(Comparator.comparingLong(CacheFile::used));
+        long total = 0;
+        for (CacheFile f : files) total += f.size();
+        long now = System.currentTimeMillis();
+        for (CacheFile f : files) {
+            if (f.path().equals(keep)) continue;
+            if (total <= MAX_DIR_BYTES && now - f.used() <= MAX_AGE_MS) continue;
+            try {
+                Files.deleteIfExists(f.path());
+                total -= f.size();
+            } catch (IOException inUse) {
+                // es. mappato da un'altra istanza: si riprova al prossimo salvataggio
+            }
+        }
+    }
+
+    private static Channel[] channelTable(List<Lap> laps) {
+        EnumSet<Channel> all = EnumSet.noneOf(Channel.class);
+        for (Lap lap : laps) all.addAll(lap.frame().channels());
+        return all.toArray(new Channel[0]);
+    }
+
+    /** Sceglie la codifica più compatta fra quelle esatte (bit a bit) per la colonna. */
+    private static void writeColumn(Out o, double[] col, int n) {
+        if (isConstant(col, n)) {
+            o.ensure(9).put(ENC_CONST).putDouble(n == 0 ? Double.NaN : col[0]);
+            return;
+        }
+        int k = decimalScale(col, n);
+        boolean f32 = fitsFloat(col, n);
+        if (k >= 0) {
+            int mark = o.buf.position();
+            o.ensure(2).put(ENC_DELTA).put((byte) k);
+            double p = POW10[k];
+            long prev = 0;
+            for (int i = 0; i < n; i++) {
+                long m = Math.round(col[i] * p);
+                writeVarLong(o, zigzag(m - prev));
+                prev = m;
+            }
+            if (o.buf.position() - mark <= (f32 ? 4L : 8L) * n) return;
+            o.buf.position(mark); // delta non conveniente: riscrive come float/double
+        }
+        if (f32) {
+            o.ensure(1 + 4 * n).put(ENC_F32);
+            for (int i = 0; i < n; i++) o.buf.putFloat((float) col[i]);
+        } else {
+            o.ensure(1 + 8 * n).put(ENC_F64);
+            for (int i = 0; i < n; i++) o.buf.putDouble(col[i]);
+        }
+    }
+
+    private static boolean isConstant(double[] col, int n) {
+        for (int i = 1; i < n; i++) {
+            if (Double.doubleToRawLongBits(col[i]) != Double.doubleToRawLongBits(col[0])) return false;
+        }
+        return true;
+    }
+
+    /** Minimo k tale che ogni valore sia esattamente m/10^k con m intero "piccolo"; -1 se nessuno. */
+    private static int decimalScale(double[] col, int n) {
+        outer:
+        for (int k = 0; k <= MAX_DECIMALS; k++) {
+            double p = POW10[k];
+            for (int i = 0; i < n; i++) {
+                double v = col[i];
+                if (!Double.isFinite(v) || Math.abs(v * p) > (1L << 52)) return -1;
+                long m = Math.round(v * p);
+                if (Double.doubleToRawLongBits(m / p) != Double.doubleToRawLongBits(v)) continue outer;
+            }
+            return k;
+        }
+        return -1;
+    }
+
+    private static boolean fitsFloat(double[] col, int n) {
+        for (int i = 0; i < n; i++) {
+            double v = col[i];
+            if (!Double.isNaN(v) && (double) (float) v != v) return false;
+        }
+        return true;
+    }
+
+    // ----------------- hash sorgente / mapping -----------------
+
+    /** CRC32C di testa e coda del CSV: con size e mtime basta a riconoscere un file riscritto. */
+    private static long sourceHash(Path csv) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel fc = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = fc.size();
+            ByteBuffer b = ByteBuffer.allocate((int) Math.min(size, HASH_PROBE));
+            fc.read(b, 0);
+            crc.update(b.flip());
+            if (size > HASH_PROBE) {
+                b.clear();
+                fc.read(b, Math.max(HASH_PROBE, size - HASH_PROBE));
+                crc.update(b.flip());
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static int mappingHash(Map<String, Channel> userMapping) {
+        if (userMapping == null || userMapping.isEmpty()) return 0;
+        return new TreeMap<>(userMapping).toString().hashCode();
+    }
+
+    // ----------------- varint / buffer -----------------
+
+    private static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+
+    private static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    private static void writeVarLong(Out o, long v) {
+        ByteBuffer b = o.ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            b.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        b.put((byte) v);
+    }
+
+    private static long readVarLong(ByteBuffer buf) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+
+    /** ByteBuffer little-endian a crescita geometrica. */
+    private static final class Out {
+        ByteBuffer buf;
+
+        Out(int capacity) { buf = ByteBuffer.allocate(Math.max(64, capacity)).order(ByteOrder.LITTLE_ENDIAN); }
+
+        ByteBuffer ensure(int extra) {
+            if (buf.remaining() < extra) {
+                int cap = Math.max(buf.position() + extra, buf.capacity() + (buf.capacity() >> 1));
+                ByteBuffer nb = ByteBuffer.allocate(cap).order(ByteOrder.LITTLE_ENDIAN);
+                nb.put(buf.flip());
+                buf = nb;
+            }
+            return buf;
+        }
+
+        ByteBuffer flip() { return buf.flip(); }
+    }
+}
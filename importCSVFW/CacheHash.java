@@ -0,0 +1,21 @@
+package org.simulator.importCSVFW;
+
+/**
+ * Hash a 64 bit per le chiavi delle cache di import (firme header, impronta alias).
+ * Nessuna dipendenza: usabile negli inizializzatori statici senza cicli fra classi.
+ */
+final class CacheHash {
+    private CacheHash() {}
+
+    /** FNV-1a sulle celle, separatore incluso (null come cella vuota). */
+    static long of(String[] cells) {
+        long h = 0xcbf29ce484222325L;
+        for (String cell : cells) {
+            if (cell != null) {
+                for (int i = 0; i < cell.length(); i++) { h ^= cell.charAt(i); h *= 0x100000001b3L; }
+            }
+            h ^= 0x1F; h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -10,12 +10,26 @@ public final class ChannelAliases {
     private ChannelAliases(){}
 
     // ---- Normalizzazione testo
+    /**
+     * trim, minuscolo, '_' e '-' come spazio, spazi consecutivi compattati in uno.
+     * Una passata sui caratteri (stesso risultato del vecchio {@code replaceAll("\\s+", " ")}).
+     */
     public static String norm(String s) {
         if (s == null) return "";
         String t = s.trim().toLowerCase(Locale.ROOT);
-        t = t.replace('_', ' ').replace('-', ' ');
-        t = t.replaceAll("\\s+", " ").trim();
-        return t;
+        StringBuilder sb = new StringBuilder(t.length());
+        boolean space = false;
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            if (c == ' ' || c == '_' || c == '-' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                space = true;
+                continue;
+            }
+            if (space && sb.length() > 0) sb.append(' ');
+            space = false;
+            sb.append(c);
+        }
+        return sb.toString().trim();
     }
 
     // ---- Ricerca indice header per alias (match esatto poi contains)
@@ -106,6 +120,17 @@ public final class ChannelAliases {
             "force","seat","left","right","rear","post","tire","wheel","susp","ride","temp","torque","pressure","radius","load","grip"
     );
 
+    // ---- Automi compilati una volta (una passata per cella invece di un contains per chiave)
+    static final AliasMatcher PARTIAL_MATCHER = new AliasMatcher(PARTIAL_KEYS);
+    static final AliasMatcher KEY_MATCHER = new AliasMatcher(concat(TIME_ALIASES, DIST_ALIASES, LAP_ALIASES, LAPTIME_ALIASES));
+
+    @SafeVarargs
+    private static List<String> concat(List<String>... lists) {
+        List<String> out = new ArrayList<>();
+        for (List<String> l : lists) out.addAll(l);
+        return out;
+    }
+
     // ---- Mappa alias → Channel
     static final Map<String, Channel> ALIAS_MAP = buildAliasMap();
 
@@ -405,6 +430,25 @@ public final class ChannelAliases {
         m.put(norm(key), ch);
     }
 
+    // ---- Impronta per le cache di import (.tcbin, header-mappings.bin)
+    /**
+     * Versione della logica che assegna le colonne ai canali ({@link CsvMappingBuilder}, {@link CsvLayout#resolve}):
+     * va incrementata a ogni modifica che cambia l'assegnazione, così le cache su disco scadono.
+     */
+    static final int MATCHER_VERSION = 1;
+
+    /** Impronta di alias, colonne chiave e {@link #MATCHER_VERSION}: cambia se cambia il risultato del matching. */
+    static final long FINGERPRINT = fingerprint();
+
+    private static long fingerprint() {
+        List<String> parts = new ArrayList<>();
+        ALIAS_MAP.forEach((k, v) -> parts.add(k + "=" + v.name()));
+        parts.sort(null);
+        parts.add("|" + TIME_ALIASES + DIST_ALIASES + LAP_ALIASES + LAPTIME_ALIASES + PARTIAL_KEYS);
+        parts.add("|v" + MATCHER_VERSION);
+        return CacheHash.of(parts.toArray(new String[0]));
+    }
+
     // ======== GETTER PUBBLICI (read-only, per GuideGlossaryView) ========
     /** Insieme completo degli header candidati (immutabile). */
     public static Set<String> headerCandidates() {
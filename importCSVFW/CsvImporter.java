@@ -1,93 +1,121 @@
 package org.simulator.importCSVFW;
 
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
 import java.nio.charset.StandardCharsets;
-import java.io.BufferedReader;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVParser;
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
-import org.simulator.canale.Sample;
+import org.simulator.diagnostica.Metrics;
 
-import java.io.FileReader;
+import java.io.InputStreamReader;
 import java.nio.file.*;
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /** Facade pubblico (API invariata). */
 public class CsvImporter {
 
+    /** Thread usati per i file grandi (1 = sempre sequenziale). */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    public void setParallelism(int threads) { this.parallelism = Math.max(1, threads); }
+
+    /** Cache binaria .tcbin dei CSV già importati e dei mapping header (null = disattivata). */
+    private Path cacheDir = BinarySessionCache.defaultDir();
+
+    public void setCacheDir(Path dir) { this.cacheDir = dir; }
+
+    // metriche per fase (pannello diagnostica / eventi JFR)
+    private static final Metrics.Timer IMPORT      = Metrics.timer("csv.import");
+    static final Metrics.Timer HEADER              = Metrics.timer("csv.header");
+    static final Metrics.Timer MAPPING             = Metrics.timer("csv.mapping");
+    static final Metrics.Timer PARSE               = Metrics.timer("csv.parse");
+    static final Metrics.Timer LAP_SPLIT           = Metrics.timer("csv.lapSplit");
+    private static final Metrics.Timer CACHE_LOAD  = Metrics.timer("cache.tcbin.load");
+    private static final Metrics.Timer CACHE_STORE = Metrics.timer("cache.tcbin.store");
+    private static final Metrics.Counter CACHE_HIT  = Metrics.counter("cache.tcbin.hit");
+    private static final Metrics.Counter CACHE_MISS = Metrics.counter("cache.tcbin.miss");
+    static final Metrics.Counter ROWS = Metrics.counter("csv.rows");
+    static final Metrics.Counter LAPS = Metrics.counter("csv.laps");
+
     /** Importa un CSV MoTeC/ACTI e restituisce la lista di Lap separati. */
     public List<Lap> importFile(Path csvPath, Map<String, Channel> userMapping) throws Exception {
-        long T0=System.nanoTime();
-        try (CSVReader reader = new CSVReaderBuilder(new FileReader(csvPath.toFile())).build()) {
-
-            // 1) Header canali
-            String[] header = HeaderDetector.findHeaderRow(reader);
-            if (header == null) {
-                throw new IllegalArgumentException("Intestazione canali non trovata in: " + csvPath);
-            }
+        try (Metrics.Span total = IMPORT.start()) {
+            List<Lap> laps = (cacheDir == null) ? importCsv(csvPath, userMapping) : importCached(csvPath, userMapping);
+            if (laps != null) total.items(laps.size());
+            return laps;
+        }
+    }
 
-            // 2) Salta eventuale riga unità
-            String[] row = reader.readNext();
-            if (!CsvParsers.looksLikeUnitsRow(row)) {
-                // non era la riga unità: la tratteremo come prima riga di dati
-            } else {
-                row = reader.readNext();
-            }
+    private List<Lap> importCached(Path csvPath, Map<String, Channel> userMapping) throws Exception {
+        BinarySessionCache.Stamp stamp = BinarySessionCache.stamp(csvPath);
+        List<Lap> cached = CACHE_LOAD.time(() -> BinarySessionCache.load(csvPath, stamp, userMapping, cacheDir));
+        if (cached != null) {
+            CACHE_HIT.increment();
+            return cached.isEmpty() ? null : cached;
+        }
+        CACHE_MISS.increment();
+        List<Lap> laps = importCsv(csvPath, userMapping);
+        if (laps != null) {
+            CACHE_STORE.time(() -> BinarySessionCache.store(csvPath, stamp, userMapping, cacheDir, laps));
+        }
+        return laps;
+    }
 
-            // 3) Mapping colonna -> Channel
-            Map<Integer, Channel> idx2ch = CsvMappingBuilder.buildIndexMapping(header, userMapping);
-
-            // 3.b) Mappa rapida header normalizzati
-            Map<String,Integer> normIndex = buildHeaderIndex(header);
-            long T1=System.nanoTime();
-
-            // 4) Indici chiave
-            int timeIdx    = findWithAliases(normIndex, ChannelAliases.TIME_ALIASES);
-            int distIdx    = findWithAliases(normIndex, ChannelAliases.DIST_ALIASES);
-            int lapIdx     = findWithAliases(normIndex, ChannelAliases.LAP_ALIASES);
-            int lapTimeIdx = findWithAliases(normIndex, ChannelAliases.LAPTIME_ALIASES);
-
-            // 5) Loop righe, split per giro
-            Map<Integer, List<Sample>> byLap = new LinkedHashMap<>();
-            int currLap = 1;
-            double prevDist = Double.NaN;
-            double prevLapT = Double.NaN;
-
-            // prima riga (se presente)
-            if (row != null && !CsvParsers.rowIsEmpty(row)) {
-                currLap  = CsvLapBuilder.computeLap(row, lapIdx, lapTimeIdx, distIdx, currLap, prevDist, prevLapT, true);
-                prevDist = CsvParsers.getDouble(row, distIdx);
-                prevLapT = CsvParsers.getDouble(row, lapTimeIdx);
-                byLap.computeIfAbsent(currLap, k -> new ArrayList<>())
-                        .add(CsvLapBuilder.buildSample(row, timeIdx, distIdx, idx2ch));
-            }
+    private List<Lap> importCsv(Path csvPath, Map<String, Channel> userMapping) throws Exception {
+        // File grandi: memory-map + parsing parallelo a chunk (stesso risultato del percorso sequenziale)
+        if (parallelism > 1 && Files.size(csvPath) >= MappedCsvImport.PARALLEL_MIN_BYTES) {
+            List<Lap> laps = MappedCsvImport.tryImport(csvPath, userMapping, cacheDir, parallelism);
+            if (laps != null) return laps.isEmpty() ? null : laps;
+        }
 
-            while ((row = reader.readNext()) != null) {
-                if (CsvParsers.rowIsEmpty(row)) continue;
+        try (CsvTokenizer tok = new CsvTokenizer(
+                new InputStreamReader(Files.newInputStream(csvPath), StandardCharsets.UTF_8))) {
 
-                currLap  = CsvLapBuilder.computeLap(row, lapIdx, lapTimeIdx, distIdx, currLap, prevDist, prevLapT, false);
-                Double d  = CsvParsers.getDouble(row, distIdx);
-                Double lt = CsvParsers.getDouble(row, lapTimeIdx);
-                if (!CsvParsers.isNaN(d))  prevDist = d;
-                if (!CsvParsers.isNaN(lt)) prevLapT = lt;
+            // 1) Header canali + eventuale riga unità
+            String[] header;
+            boolean hasRow;
+            try (Metrics.Span t = HEADER.start()) {
+                header = HeaderDetector.findHeaderRow(tok);
+                if (header == null) {
+                    throw new IllegalArgumentException("Intestazione canali non trovata in: " + csvPath);
+                }
+                t.items(header.length);
+                hasRow = tok.nextRow();
+                if (hasRow && CsvParsers.looksLikeUnitsRow(tok.fields())) {
+                    hasRow = tok.nextRow();
+                }
+                // altrimenti non era la riga unità: la tratteremo come prima riga di dati
+            }
 
-                byLap.computeIfAbsent(currLap, k -> new ArrayList<>())
-                        .add(CsvLapBuilder.buildSample(row, timeIdx, distIdx, idx2ch));
+            // 2) Mapping colonna -> Channel + indici chiave
+            CsvLayout layout = MAPPING.time(() -> CsvLayout.of(header, userMapping, cacheDir));
+
+            // 3) Loop righe, split per giro (parsing diretto nelle colonne del giro)
+            LapSplitter splitter = new LapSplitter();
+            try (Metrics.Span t = PARSE.start()) {
+                long rows = 0;
+                while (hasRow) {
+                    if (!tok.rowIsEmpty()) {
+                        int lap = splitter.next(layout.lapIdx >= 0 ? tok.lapNumber(layout.lapIdx) : -1, // accetta "0.0"
+                                tok.number(layout.distIdx), tok.number(layout.lapTimeIdx));
+                        CsvLapBuilder.appendRow(splitter.builder(lap), tok, layout.timeIdx, layout.distIdx, layout.plan);
+                        rows++;
+                    }
+                    hasRow = tok.nextRow();
+                }
+                t.items(rows);
+                ROWS.add(rows);
             }
 
-            // 6) Converte in lista ordinata (log identico)
-            List<Lap> laps = new ArrayList<>();
-            for (Map.Entry<Integer, List<Sample>> e : byLap.entrySet()) {
-                laps.add(new Lap(e.getKey(), e.getValue()));
+            // 4) Converte in lista ordinata
+            List<Lap> laps;
+            try (Metrics.Span t = LAP_SPLIT.start()) {
+                laps = splitter.laps();
+                t.items(laps.size());
             }
-            for (Lap l : laps){ long T2 =System.nanoTime();
-            System.err.println("[CSV] header+mapping: "+((T1-T0)/1_000_000)+" ms, parse+build: "+((T2-T1)/1_000_000)+" ms, total: "+((T2-T0)/1_000_000)+" ms");
-            return laps;}
+            LAPS.add(laps.size());
+            return laps.isEmpty() ? null : laps;
         }
-        return null;
     }
 
     /** Watcher su cartella per nuovi CSV (API invariata). */
@@ -107,20 +135,6 @@ private static char detectDelimiter(java.nio.file.Path csvPath) throws java.io.I
 }
 private static int count(String s, char ch){int n=0; for(int i=0;i<s.length();i++) if(s.charAt(i)==ch) n++; return n;}
 
-private static java.util.Map<String,Integer> buildHeaderIndex(String[] header){
-    java.util.Map<String,Integer> m = new java.util.HashMap<>(header.length*2);
-    for(int i=0;i<header.length;i++){
-        String h = org.simulator.importCSVFW.ChannelAliases.norm(header[i]);
-        if(!h.isEmpty() && !m.containsKey(h)) m.put(h,i);
-    }
-    return m;
-}
-private static int findWithAliases(java.util.Map<String,Integer> normIndex, java.util.List<String> aliases){
-    for(String a: aliases){ Integer idx = normIndex.get(a); if(idx!=null) return idx; }
-    for(String a: aliases){ if(a.isEmpty()) continue; for(var e: normIndex.entrySet()){ if(e.getKey().contains(a)) return e.getValue(); } }
-    return -1;
-}
-
     public static void watchFolder(Path folder, Consumer<Path> onNewFile) throws Exception {
         try (WatchService ws = FileSystems.getDefault().newWatchService()) {
             folder.register(ws, StandardWatchEventKinds.ENTRY_CREATE);
@@ -136,4 +150,78 @@ private static int findWithAliases(java.util.Map<String,Integer> normIndex, java
             }
         }
     }
+
+    /** Un CSV seguito che non cambia per questo tempo è considerato chiuso: il suo ultimo giro viene pubblicato. */
+    private static final long TAIL_IDLE_MS = 30_000;
+
+    /**
+     * Watcher "tail-follow" per sessioni live: segue i CSV della cartella mentre vengono scritti
+     * (ENTRY_CREATE/ENTRY_MODIFY), parsando solo i byte aggiunti, e notifica ogni giro appena chiuso.
+     * L'ultimo giro di una sessione ({@link CsvTailFollower#flush}) arriva quando il file viene cancellato
+     * o sostituito, oppure dopo {@link #TAIL_IDLE_MS} senza modifiche.
+     */
+    public static void watchFolder(Path folder, Map<String, Channel> userMapping,
+                                   BiConsumer<Path, Lap> onLapCompleted) throws Exception {
+        watchFolder(folder, userMapping, BinarySessionCache.defaultDir(), onLapCompleted);
+    }
+
+    /** Come sopra, con i mapping header in cache in {@code cacheDir} (null = cache disattivata). */
+    public static void watchFolder(Path folder, Map<String, Channel> userMapping, Path cacheDir,
+                                   BiConsumer<Path, Lap> onLapCompleted) throws Exception {
+        Map<Path, CsvTailFollower> followers = new HashMap<>();
+        Map<Path, Long> lastChange = new HashMap<>();   // file con un giro ancora da chiudere
+        try (WatchService ws = FileSystems.getDefault().newWatchService()) {
+            folder.register(ws, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            for (;;) {
+                WatchKey key = ws.poll(TAIL_IDLE_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+                long now = System.currentTimeMillis();
+                if (key != null) {
+                    for (WatchEvent<?> ev : key.pollEvents()) {
+                        if (ev.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            for (Map.Entry<Path, CsvTailFollower> e : followers.entrySet()) { // eventi persi: ricontrolla tutto
+                                poll(e.getValue());
+                                lastChange.put(e.getKey(), now);
+                            }
+                            continue;
+                        }
+                        Path p = folder.resolve((Path) ev.context());
+                        if (!p.toString().toLowerCase(Locale.ROOT).endsWith(".csv")) continue;
+                        CsvTailFollower f = followers.get(p);
+                        if (ev.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                            if (f != null) f.flush();
+                            followers.remove(p);
+                            lastChange.remove(p);
+                            continue;
+                        }
+                        if (ev.kind() == StandardWatchEventKinds.ENTRY_CREATE && f != null) {
+                            f.flush(); // file sostituito: nuova sessione
+                            f = null;
+                        }
+                        if (f == null) {
+                            f = new CsvTailFollower(p, userMapping, cacheDir);
+                            f.subscribe(lap -> onLapCompleted.accept(p, lap));
+                            followers.put(p, f);
+                        }
+                        poll(f);
+                        lastChange.put(p, now);
+                    }
+                    key.reset();
+                }
+                // file fermi: sessione finita
+                for (Iterator<Map.Entry<Path, Long>> it = lastChange.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Path, Long> e = it.next();
+                    if (now - e.getValue() < TAIL_IDLE_MS) continue;
+                    CsvTailFollower f = followers.get(e.getKey());
+                    if (f != null) f.flush();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static void poll(CsvTailFollower f) {
+        try { f.poll(); }
+        catch (java.io.IOException e) { System.err.println("[CSV] tail " + f.path().getFileName() + ": " + e); }
+    }
 }
@@ -0,0 +1,82 @@
+package org.simulator.importCSVFW;
+
+import org.simulator.canale.Channel;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Header risolto di un CSV: mapping colonna→canale e indici delle colonne chiave (tempo, distanza, giro). */
+final class CsvLayout {
+
+    final String[] header;
+    final Map<Integer, Channel> idx2ch;
+    final CsvLapBuilder.ColumnPlan plan;
+    final int timeIdx, distIdx, lapIdx, lapTimeIdx;
+
+    private CsvLayout(String[] header, Map<Integer, Channel> idx2ch,
+                      int timeIdx, int distIdx, int lapIdx, int lapTimeIdx) {
+        this.header = header;
+        this.idx2ch = idx2ch;
+        this.plan = new CsvLapBuilder.ColumnPlan(idx2ch);
+        this.timeIdx = timeIdx;
+        this.distIdx = distIdx;
+        this.lapIdx = lapIdx;
+        this.lapTimeIdx = lapTimeIdx;
+    }
+
+    /** Layout con i mapping header in cache in {@code cacheDir} (null = matching sempre da capo). */
+    static CsvLayout of(String[] header, Map<String, Channel> userMapping, Path cacheDir) {
+        // matching alias solo per header mai visti (cache per firma dell'header)
+        HeaderMappings.Resolved r = HeaderMappings.resolve(cacheDir, header, CsvLayout::resolve);
+
+        // override espliciti dall'utente
+        Map<Integer, Channel> idx2ch = new HashMap<>(r.aliases());
+        CsvMappingBuilder.applyUserMapping(idx2ch, header, userMapping);
+        return new CsvLayout(header, idx2ch, r.timeIdx(), r.distIdx(), r.lapIdx(), r.lapTimeIdx());
+    }
+
+    /** Matching completo: ogni cella normalizzata una volta e scandita una volta dall'automa delle colonne chiave. */
+    static HeaderMappings.Resolved resolve(String[] header) {
+        String[] norm = new String[header.length];
+        for (int i = 0; i < header.length; i++) norm[i] = ChannelAliases.norm(header[i]);
+
+        // Mapping colonna -> Channel
+        Map<Integer, Channel> idx2ch = CsvMappingBuilder.aliasMapping(norm);
+
+        // Mappa rapida header normalizzati + chiavi contenute in ciascuno (stesso ordine di iterazione)
+        Map<String, Integer> normIndex = buildHeaderIndex(norm);
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(normIndex.entrySet());
+        long[][] found = new long[entries.size()][];
+        for (int k = 0; k < found.length; k++) found[k] = ChannelAliases.KEY_MATCHER.matches(entries.get(k).getKey());
+
+        return new HeaderMappings.Resolved(idx2ch,
+                findWithAliases(normIndex, entries, found, ChannelAliases.TIME_ALIASES),
+                findWithAliases(normIndex, entries, found, ChannelAliases.DIST_ALIASES),
+                findWithAliases(normIndex, entries, found, ChannelAliases.LAP_ALIASES),
+                findWithAliases(normIndex, entries, found, ChannelAliases.LAPTIME_ALIASES));
+    }
+
+    private static Map<String, Integer> buildHeaderIndex(String[] norm) {
+        Map<String, Integer> m = new HashMap<>(norm.length * 2);
+        for (int i = 0; i < norm.length; i++) {
+            String h = norm[i];
+            if (!h.isEmpty() && !m.containsKey(h)) m.put(h, i);
+        }
+        return m;
+    }
+
+    /** Match esatto per alias, poi il primo header (in ordine di mappa) che contiene l'alias. */
+    private static int findWithAliases(Map<String, Integer> normIndex, List<Map.Entry<String, Integer>> entries,
+                                       long[][] found, List<String> aliases) {
+        for (String a : aliases) { Integer idx = normIndex.get(a); if (idx != null) return idx; }
+        for (String a : aliases) {
+            int id = ChannelAliases.KEY_MATCHER.idOf(a);
+            if (id < 0) continue;
+            for (int k = 0; k < found.length; k++) { if (AliasMatcher.has(found[k], id)) return entries.get(k).getValue(); }
+        }
+        return -1;
+    }
+}
@@ -9,22 +9,29 @@ class CsvMappingBuilder {
 
     /** Costruisce il mapping indice-colonna → Channel (rispetta eventuale userMapping). */
     static Map<Integer, Channel> buildIndexMapping(String[] header, Map<String, Channel> userMapping) {
-        Map<Integer, Channel> map = new HashMap<>();
+        String[] norm = new String[header.length];
+        for (int i = 0; i < header.length; i++) norm[i] = ChannelAliases.norm(header[i]);
+        Map<Integer, Channel> map = aliasMapping(norm);
+        applyUserMapping(map, header, userMapping);
+        return map;
+    }
 
-        // dizionario alias
-        for (int i = 0; i < header.length; i++) {
-            String h = header[i] == null ? "" : header[i].trim();
-            Channel ch = ChannelAliases.ALIAS_MAP.get(ChannelAliases.norm(h));
+    /** Mapping dal dizionario alias su header già normalizzati ({@link ChannelAliases#norm}). */
+    static Map<Integer, Channel> aliasMapping(String[] normHeader) {
+        Map<Integer, Channel> map = new HashMap<>();
+        for (int i = 0; i < normHeader.length; i++) {
+            Channel ch = ChannelAliases.ALIAS_MAP.get(normHeader[i]);
             if (ch != null) map.put(i, ch);
         }
+        return map;
+    }
 
-        // override espliciti dall'utente (se forniti)
-        if (userMapping != null) {
-            for (int i = 0; i < header.length; i++) {
-                Channel ch = userMapping.get(header[i]);
-                if (ch != null) map.put(i, ch);
-            }
+    /** Override espliciti dall'utente (se forniti), per nome di colonna esatto. */
+    static void applyUserMapping(Map<Integer, Channel> map, String[] header, Map<String, Channel> userMapping) {
+        if (userMapping == null || userMapping.isEmpty()) return;
+        for (int i = 0; i < header.length; i++) {
+            Channel ch = userMapping.get(header[i]);
+            if (ch != null) map.put(i, ch);
         }
-        return map;
     }
 }
@@ -0,0 +1,191 @@
+package org.simulator.importCSVFW;
+
+import org.simulator.canale.Channel;
+import org.simulator.canale.Lap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Import incrementale di un CSV in scrittura (sessione live): a ogni {@link #poll()} parsa solo i
+ * byte aggiunti dall'ultima volta, mantenendo offset, layout dell'header e stato dello split per giro
+ * ({@link LapSplitter}: giro corrente, {@code prevDist}/{@code prevLapT}).
+ * Quando il giro cambia, il giro appena chiuso è pubblicato ai subscriber.
+ *
+ * Si consumano solo righe complete ({@code \n}, {@code \r\n} o {@code \r}): una riga ancora a metà
+ * (senza fine riga o con virgolette aperte) viene riletta al poll successivo. Se il file si accorcia
+ * (riscritto) il giro aperto viene pubblicato e lo stato riparte da zero.
+ *
+ * Il file si legge con {@link FileChannel#read} dall'ultimo offset, senza mapparlo: su Windows una
+ * regione mappata bloccherebbe il file che il simulatore sta ancora scrivendo.
+ */
+public final class CsvTailFollower {
+
+    /** Byte letti al massimo per blocco (il primo poll su un file già lungo procede a blocchi). */
+    private static final int WINDOW_BYTES = 8 << 20;
+
+    private final Path csvPath;
+    private final Map<String, Channel> userMapping;
+    private final Path cacheDir;
+    private final List<Consumer<Lap>> subscribers = new CopyOnWriteArrayList<>();
+
+    private long offset;
+    private CsvLayout layout;      // null finché l'header non è arrivato
+    private boolean unitsChecked;
+    private LapSplitter splitter = new LapSplitter();
+    private int openLap = Integer.MIN_VALUE;
+    private final Set<Integer> published = new HashSet<>();
+    /** Buffer di lettura riusato fra i poll. */
+    private ByteBuffer window = ByteBuffer.allocate(0);
+    /** Il blocco precedente finiva con '\r': un '\n' in testa al successivo chiude la stessa riga. */
+    private boolean skipLf;
+
+    public CsvTailFollower(Path csvPath, Map<String, Channel> userMapping) {
+        this(csvPath, userMapping, BinarySessionCache.defaultDir());
+    }
+
+    /** Come sopra, con i mapping header in cache in {@code cacheDir} (null = nessuna cache, come {@link CsvImporter#setCacheDir}). */
+    public CsvTailFollower(Path csvPath, Map<String, Channel> userMapping, Path cacheDir) {
+        this.csvPath = csvPath;
+        this.userMapping = userMapping;
+        this.cacheDir = cacheDir;
+    }
+
+    public Path path() { return csvPath; }
+
+    /** Registra un listener chiamato (sul thread di {@link #poll()}) per ogni giro chiuso. */
+    public void subscribe(Consumer<Lap> onLapCompleted) { subscribers.add(onLapCompleted); }
+
+    public void unsubscribe(Consumer<Lap> onLapCompleted) { subscribers.remove(onLapCompleted); }
+
+    /** Legge i byte nuovi e restituisce quanti giri sono stati chiusi (e pubblicati). */
+    public synchronized int poll() throws IOException {
+        long size = Files.size(csvPath);
+        int closed = 0;
+        if (size < offset) { // troncato/riscritto: la sessione precedente è finita
+            if (flush() != null) closed++;
+            reset();
+        }
+        try (FileChannel fc = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            while (offset < size) {
+                ByteBuffer buf = read(fc, (int) Math.min(size - offset, WINDOW_BYTES));
+                if (skipLf && buf.hasRemaining()) {
+                    skipLf = false;
+                    if (buf.get(0) == '\n') { offset++; continue; }
+                }
+                int end = lastLineEnd(buf) + 1;
+                if (end == 0) break; // nessuna riga completa
+                buf.limit(end);
+
+                long consumed = 0;
+                try (CsvTokenizer tok = new CsvTokenizer(new Latin1Reader(buf))) {
+                    for (;;) {
+                        long start = tok.position();
+                        if (!tok.nextRow()) { consumed = tok.position(); break; }
+                        if (tok.unterminatedQuote()) { consumed = start; break; } // record a cavallo: al prossimo poll
+                        closed += accept(tok);
+                    }
+                }
+                if (consumed == 0) break;
+                skipLf = buf.get((int) consumed - 1) == '\r';
+                offset += consumed;
+            }
+        }
+        return closed;
+    }
+
+    /** Legge fino a {@code len} byte a partire da {@link #offset}. */
+    private ByteBuffer read(FileChannel fc, int len) throws IOException {
+        if (window.capacity() < len) window = ByteBuffer.allocate(len);
+        window.clear().limit(len);
+        while (window.hasRemaining() && fc.read(window, offset + window.position()) >= 0) { /* fino a len */ }
+        return window.flip();
+    }
+
+    /**
+     * Fine sessione: pubblica il giro ancora aperto (se c'è) e lo restituisce. Un giro si pubblica una volta
+     * sola: righe arrivate dopo il flush restano solo in {@link #laps()}.
+     */
+    public synchronized Lap flush() {
+        if (openLap == Integer.MIN_VALUE || published.contains(openLap)) return null;
+        Lap lap = splitter.lap(openLap);
+        publish(openLap, lap);
+        return lap;
+    }
+
+    /** Snapshot di tutti i giri letti finora (incluso quello in corso). */
+    public synchronized List<Lap> laps() { return splitter.laps(); }
+
+    private int accept(CsvTokenizer tok) {
+        if (layout == null) {
+            if (tok.rowIsEmpty()) return 0;
+            String[] row = utf8(tok.fields());
+            if (HeaderDetector.looksLikeChannelHeader(row)) layout = CsvLayout.of(row, userMapping, cacheDir);
+            return 0;
+        }
+        if (!unitsChecked) {
+            unitsChecked = true;
+            if (CsvParsers.looksLikeUnitsRow(utf8(tok.fields()))) return 0;
+        }
+        if (tok.rowIsEmpty()) return 0;
+
+        int lap = splitter.next(layout.lapIdx >= 0 ? tok.lapNumber(layout.lapIdx) : -1,
+                tok.number(layout.distIdx), tok.number(layout.lapTimeIdx));
+        int closed = 0;
+        if (lap != openLap) {
+            if (openLap != Integer.MIN_VALUE && !published.contains(openLap)) {
+                publish(openLap, splitter.lap(openLap));
+                closed = 1;
+            }
+            openLap = lap;
+        }
+        CsvLapBuilder.appendRow(splitter.builder(lap), tok, layout.timeIdx, layout.distIdx, layout.plan);
+        return closed;
+    }
+
+    private void publish(int lapIndex, Lap lap) {
+        published.add(lapIndex);
+        for (Consumer<Lap> s : subscribers) {
+            try { s.accept(lap); }
+            catch (RuntimeException e) { System.err.println("[CSV] subscriber giro " + lapIndex + ": " + e); }
+        }
+    }
+
+    private void reset() {
+        offset = 0;
+        layout = null;
+        unitsChecked = false;
+        splitter = new LapSplitter();
+        openLap = Integer.MIN_VALUE;
+        published.clear();
+        skipLf = false;
+    }
+
+    private static int lastLineEnd(ByteBuffer buf) {
+        for (int i = buf.limit() - 1; i >= 0; i--) {
+            byte b = buf.get(i);
+            if (b == '\n' || b == '\r') return i;
+        }
+        return -1;
+    }
+
+    /** Le righe sono lette come Latin-1 (offset = byte): header/unità vanno ridecodificati in UTF-8. */
+    private static String[] utf8(String[] latin1) {
+        String[] out = new String[latin1.length];
+        for (int i = 0; i < latin1.length; i++) {
+            out[i] = new String(latin1[i].getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,256 @@
+package org.simulator.importCSVFW;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Tokenizer CSV "number-first" su buffer {@code char[]}: nessuna String per cella sulle righe dati.
+ * Ogni record viene copiato (già de-quotato) in un buffer riga riusato; le celle si leggono come
+ * numero ({@link #number(int)}) direttamente dai char, oppure come String solo quando serve
+ * (header, riga unità).
+ *
+ * Regole compatibili con l'import precedente (OpenCSV default): virgolette {@code "} con
+ * {@code ""} come escape, newline dentro le virgolette ammessi, spazi prima della virgoletta
+ * di apertura ignorati, righe terminate da \n, \r\n o \r.
+ */
+final class CsvTokenizer implements AutoCloseable {
+
+    private static final int READ_CHUNK = 1 << 16;
+    /** 10^0..10^22 sono esatti in double (fast path di Clinger). */
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10.0;
+    }
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final Reader in;
+    private final char delimiter;
+
+    // buffer di lettura
+    private final char[] buf = new char[READ_CHUNK];
+    private int pos, lim;
+    private long base; // char letti prima del buffer corrente
+    private boolean eof;
+
+    // record corrente: testo de-quotato + offset celle
+    private char[] row = new char[1024];
+    private int rowLen;
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int fields;
+    private boolean unterminatedQuote;
+
+    CsvTokenizer(Reader in) { this(in, ','); }
+
+    CsvTokenizer(Reader in, char delimiter) {
+        this.in = in;
+        this.delimiter = delimiter;
+    }
+
+    // ----------------- lettura record -----------------
+
+    /** Legge il prossimo record; false a fine file. */
+    boolean nextRow() throws IOException {
+        if (pos >= lim && !fill()) return false;
+        rowLen = 0;
+        fields = 0;
+        int fieldStart = 0;
+        boolean inQuotes = false;
+        boolean atFieldStart = true;
+
+        for (;;) {
+            if (pos >= lim && !fill()) {
+                if (inQuotes) unterminatedQuote = true;
+                endField(fieldStart);
+                return true;
+            }
+            char c = buf[pos++];
+
+            if (inQuotes) {
+                if (c == '"') {
+                    if (pos >= lim) fill();
+                    if (pos < lim && buf[pos] == '"') { append('"'); pos++; }
+                    else inQuotes = false;
+                } else {
+                    append(c);
+                }
+                continue;
+            }
+
+            if (c == delimiter) {
+                endField(fieldStart);
+                fieldStart = rowLen;
+                atFieldStart = true;
+            } else if (c == '\n') {
+                endField(fieldStart);
+                return true;
+            } else if (c == '\r') {
+                if (pos >= lim) fill();
+                if (pos < lim && buf[pos] == '\n') pos++;
+                endField(fieldStart);
+                return true;
+            } else if (c == '"' && atFieldStart) {
+                // spazi iniziali prima della virgoletta vengono scartati
+                rowLen = fieldStart;
+                inQuotes = true;
+                atFieldStart = false;
+            } else {
+                append(c);
+                if (c != ' ' && c != '\t') atFieldStart = false;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        base += lim;
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) { eof = true; pos = lim = 0; return false; }
+        pos = 0;
+        lim = n;
+        return true;
+    }
+
+    private void append(char c) {
+        if (rowLen == row.length) row = Arrays.copyOf(row, row.length * 2);
+        row[rowLen++] = c;
+    }
+
+    private void endField(int start) {
+        if (fields == starts.length) {
+            starts = Arrays.copyOf(starts, fields * 2);
+            ends = Arrays.copyOf(ends, fields * 2);
+        }
+        starts[fields] = start;
+        ends[fields] = rowLen;
+        fields++;
+    }
+
+    /** Char consumati finora (= inizio del prossimo record); con input Latin-1 coincide con l'offset in byte. */
+    long position() { return base + pos; }
+
+    /** Vero se il testo è finito dentro un campo tra virgolette (chunk tagliato a metà di un record). */
+    boolean unterminatedQuote() { return unterminatedQuote; }
+
+    // ----------------- accesso celle -----------------
+
+    int fieldCount() { return fields; }
+
+    /** Cella come String (alloca: usare solo per header/righe speciali). */
+    String field(int i) {
+        if (i < 0 || i >= fields) return null;
+        return new String(row, starts[i], ends[i] - starts[i]);
+    }
+
+    /** Record corrente come String[] (alloca: usare solo per header/righe speciali). */
+    String[] fields() {
+        String[] out = new String[fields];
+        for (int i = 0; i < fields; i++) out[i] = field(i);
+        return out;
+    }
+
+    /** Vero se tutte le celle sono vuote/spazi (equivalente a {@link CsvParsers#rowIsEmpty}). */
+    boolean rowIsEmpty() {
+        for (int i = 0; i < rowLen; i++) if (row[i] > ' ') return false;
+        return true;
+    }
+
+    /**
+     * Valore numerico della cella i con la stessa semantica di {@link CsvParsers#parseNumber}
+     * (trim, virgola decimale, NaN se non numerico). Nessuna allocazione nel caso comune.
+     */
+    double number(int i) {
+        if (i < 0 || i >= fields) return Double.NaN;
+        int s = starts[i], e = ends[i];
+        while (s < e && row[s] <= ' ') s++;
+        while (e > s && row[e - 1] <= ' ') e--;
+        if (s == e) return Double.NaN;
+        double v = parseFast(s, e);
+        if (v == v || isNaNLiteralFree(s, e)) return v;
+        // caso raro (troppe cifre, esponente grande, formato strano): percorso String
+        return CsvParsers.parseNumber(new String(row, s, e - s));
+    }
+
+    /**
+     * Numero di giro come int con la semantica di {@link CsvParsers#getInt} (parte intera del valore),
+     * {@code -1} se la cella è vuota o non numerica.
+     */
+    int lapNumber(int i) {
+        if (i < 0 || i >= fields) return -1;
+        double v = number(i);
+        if (!Double.isNaN(v)) return (int) v;
+        Integer boxed = CsvParsers.getInt(new String[]{ field(i) }, 0);
+        return boxed == null ? -1 : boxed;
+    }
+
+    /**
+     * Parser veloce per [+-]cifre[.|,cifre][e[+-]cifre]. Restituisce NaN se il testo non rientra
+     * nel fast path (il chiamante decide se ricadere su Double.parseDouble).
+     */
+    private double parseFast(int s, int e) {
+        int p = s;
+        boolean neg = false;
+        char c = row[p];
+        if (c == '-' || c == '+') { neg = c == '-'; if (++p == e) return Double.NaN; }
+
+        long mant = 0;
+        int digits = 0, sig = 0, scale = 0;
+        boolean dot = false;
+        for (; p < e; p++) {
+            c = row[p];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mant == 0 && c == '0') { if (dot) scale--; continue; }
+                if (++sig > 18) return Double.NaN;
+                mant = mant * 10 + (c - '0');
+                if (dot) scale--;
+            } else if ((c == '.' || c == ',') && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) return Double.NaN;
+
+        if (p < e) {
+            c = row[p];
+            if (c != 'e' && c != 'E') return Double.NaN;
+            if (++p == e) return Double.NaN;
+            boolean expNeg = false;
+            c = row[p];
+            if (c == '-' || c == '+') { expNeg = c == '-'; if (++p == e) return Double.NaN; }
+            int exp = 0;
+            for (; p < e; p++) {
+                c = row[p];
+                if (c < '0' || c > '9') return Double.NaN;
+                if (exp > 1000) return Double.NaN;
+                exp = exp * 10 + (c - '0');
+            }
+            scale += expNeg ? -exp : exp;
+        }
+
+        if (mant == 0) return neg ? -0.0 : 0.0;
+        if (mant > MAX_EXACT_MANTISSA || scale < -22 || scale > 22) return Double.NaN;
+        double v = (double) mant;
+        v = scale >= 0 ? v * POW10[scale] : v / POW10[-scale];
+        return neg ? -v : v;
+    }
+
+    /**
+     * Il fast path restituisce NaN anche per testo chiaramente non numerico: in quel caso evitiamo
+     * il percorso String se nessun carattere può comparire in un numero (tipico: celle di testo).
+     */
+    private boolean isNaNLiteralFree(int s, int e) {
+        for (int p = s; p < e; p++) {
+            char c = row[p];
+            boolean numeric = (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == ',' || c == 'e' || c == 'E';
+            if (!numeric) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException { in.close(); }
+}
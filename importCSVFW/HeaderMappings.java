@@ -0,0 +1,169 @@
+package org.simulator.importCSVFW;
+
+import org.simulator.canale.Channel;
+import org.simulator.diagnostica.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Mapping colonna→canale (da alias) e colonne chiave già risolti, per firma dell'header: lo stesso
+ * logger esporta sempre lo stesso header, quindi dal secondo import il matching non si rifà.
+ *
+ * Le voci sono tenute per cartella della cache .tcbin dell'importer, salvate lì in {@code header-mappings.bin}
+ * e ricaricate al primo uso; senza cartella (cache disattivata) non c'è memo. Il file è legato
+ * all'impronta di alias e matching ({@link ChannelAliases#FINGERPRINT}, letta a ogni load/save):
+ * se cambiano, si riparte.
+ *
+ * Formato: magic "TCHM" | versione | impronta alias | n voci, per voce
+ * {celle header (UTF), n mapping, {colonna, nome canale}, tempo, distanza, giro, lap time}.
+ */
+final class HeaderMappings {
+
+    /** Risultato del matching, senza gli override dell'utente (applicati da {@link CsvLayout}). */
+    record Resolved(Map<Integer, Channel> aliases, int timeIdx, int distIdx, int lapIdx, int lapTimeIdx) {}
+
+    private record Entry(String[] header, Resolved resolved) {}
+
+    private static final String FILE = "header-mappings.bin";
+    private static final int MAGIC = 0x4D484354; // "TCHM"
+    private static final int VERSION = 1;
+    private static final int MAX_ENTRIES = 256;
+
+    private static final Metrics.Counter HIT  = Metrics.counter("cache.header.hit");
+    private static final Metrics.Counter MISS = Metrics.counter("cache.header.miss");
+
+    /** Voci per cartella di cache (una per importer configurato), caricate al primo uso. */
+    private static final Map<Path, Store> STORES = new HashMap<>();
+
+    private HeaderMappings() {}
+
+    /**
+     * Mapping dell'header dalla cache in {@code dir}, oppure calcolato con {@code compute} e memorizzato.
+     * Con {@code dir} null (cache disattivata) il matching si rifà sempre e non si legge né scrive nulla.
+     */
+    static Resolved resolve(Path dir, String[] header, Function<String[], Resolved> compute) {
+        if (dir == null) return compute.apply(header);
+        String[] cells = cells(header);
+        long key = CacheHash.of(cells);
+        synchronized (HeaderMappings.class) {
+            Entry e = store(dir).entries.get(key);
+            if (e != null && Arrays.equals(e.header, cells)) {
+                HIT.increment();
+                return e.resolved;
+            }
+        }
+        MISS.increment();
+        Resolved r = compute.apply(header);
+        Resolved stored = new Resolved(Map.copyOf(r.aliases()), r.timeIdx(), r.distIdx(), r.lapIdx(), r.lapTimeIdx());
+        synchronized (HeaderMappings.class) {
+            Store st = store(dir);
+            st.entries.put(key, new Entry(cells, stored));
+            for (Iterator<Long> it = st.entries.keySet().iterator(); st.entries.size() > MAX_ENTRIES && it.hasNext(); ) {
+                it.next();
+                it.remove();
+            }
+            st.save();
+        }
+        return stored;
+    }
+
+    /** Celle come vengono salvate su file: null diventa "", così il confronto regge anche dopo il reload. */
+    private static String[] cells(String[] header) {
+        String[] c = header.clone();
+        for (int i = 0; i < c.length; i++) if (c[i] == null) c[i] = "";
+        return c;
+    }
+
+    // ----------------- persistenza -----------------
+
+    private static Store store(Path dir) {
+        return STORES.computeIfAbsent(dir, Store::new);
+    }
+
+    private static final class Store {
+        final Path dir;
+        /** Ordine di accesso: la testa è la voce usata meno di recente. */
+        final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        Store(Path dir) {
+            this.dir = dir;
+            load();
+        }
+
+        private void load() {
+            Path file = dir.resolve(FILE);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != ChannelAliases.FINGERPRINT) return;
+                int n = in.readInt();
+                for (int k = 0; k < n; k++) {
+                    String[] header = new String[in.readInt()];
+                    for (int i = 0; i < header.length; i++) header[i] = in.readUTF();
+                    int m = in.readInt();
+                    Map<Integer, Channel> aliases = new HashMap<>(m * 2);
+                    boolean known = true;
+                    for (int j = 0; j < m; j++) {
+                        int col = in.readInt();
+                        String name = in.readUTF();
+                        try { aliases.put(col, Channel.valueOf(name)); }
+                        catch (IllegalArgumentException unknown) { known = false; } // enum cambiato
+                    }
+                    Resolved r = new Resolved(Map.copyOf(aliases), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                    if (known) entries.put(CacheHash.of(header), new Entry(header, r));
+                }
+            } catch (NoSuchFileException ignored) {
+                // primo avvio
+            } catch (IOException | RuntimeException e) {
+                entries.clear();
+                System.err.println("[CSV] mapping header in cache ignorati: " + e);
+            }
+        }
+
+        private void save() {
+            Path file = dir.resolve(FILE);
+            try {
+                Files.createDirectories(dir);
+                Path tmp = Files.createTempFile(dir, FILE, ".tmp");
+                try {
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                        out.writeInt(MAGIC);
+                        out.writeInt(VERSION);
+                        out.writeLong(ChannelAliases.FINGERPRINT);
+                        out.writeInt(entries.size());
+                        for (Entry e : entries.values()) {
+                            out.writeInt(e.header.length);
+                            for (String cell : e.header) out.writeUTF(cell);
+                            out.writeInt(e.resolved.aliases().size());
+                            for (Map.Entry<Integer, Channel> a : e.resolved.aliases().entrySet()) {
+                                out.writeInt(a.getKey());
+                                out.writeUTF(a.getValue().name());
+                            }
+                            out.writeInt(e.resolved.timeIdx());
+                            out.writeInt(e.resolved.distIdx());
+                            out.writeInt(e.resolved.lapIdx());
+                            out.writeInt(e.resolved.lapTimeIdx());
+                        }
+                    }
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[CSV] impossibile salvare i mapping header: " + e);
+            }
+        }
+    }
+}
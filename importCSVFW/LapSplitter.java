@@ -0,0 +1,58 @@
+package org.simulator.importCSVFW;
+
+import org.simulator.canale.Lap;
+import org.simulator.canale.LapFrame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stato dello split per giro durante l'import: giro corrente, carry-over di distanza e
+ * lap time ({@code prevDist}/{@code prevLapT}) e builder colonnari per giro in ordine di apparizione.
+ */
+final class LapSplitter {
+
+    private int currLap = 1;
+    private double prevDist = Double.NaN;
+    private double prevLapT = Double.NaN;
+
+    private final Map<Integer, LapFrame.Builder> byLap = new LinkedHashMap<>();
+    private LapFrame.Builder current;
+    private int currentLap = Integer.MIN_VALUE;
+
+    /** Applica le regole di {@link CsvLapBuilder#computeLap} alla riga successiva e restituisce il giro. */
+    int next(int lapVal, double dist, double lapTime) {
+        currLap = CsvLapBuilder.computeLap(lapVal, dist, lapTime, currLap, prevDist, prevLapT, false);
+        if (!Double.isNaN(dist))    prevDist = dist;
+        if (!Double.isNaN(lapTime)) prevLapT = lapTime;
+        return currLap;
+    }
+
+    /** Builder del giro (creato alla prima riga del giro). */
+    LapFrame.Builder builder(int lap) {
+        if (lap != currentLap) {
+            current = byLap.computeIfAbsent(lap, k -> new LapFrame.Builder());
+            currentLap = lap;
+        }
+        return current;
+    }
+
+    int currentLap() { return currLap; }
+
+    /** Lap dal builder del giro indicato (snapshot: il builder resta utilizzabile); null se il giro non esiste. */
+    Lap lap(int lap) {
+        LapFrame.Builder b = byLap.get(lap);
+        return b == null ? null : new Lap(lap, b.build());
+    }
+
+    /** Converte in lista ordinata per prima apparizione. */
+    List<Lap> laps() {
+        List<Lap> laps = new ArrayList<>(byLap.size());
+        for (Map.Entry<Integer, LapFrame.Builder> e : byLap.entrySet()) {
+            laps.add(new Lap(e.getKey(), e.getValue().build()));
+        }
+        return laps;
+    }
+}
@@ -0,0 +1,27 @@
+package org.simulator.importCSVFW;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Reader byte→char 1:1 (ISO-8859-1) su un buffer di byte. Le celle numeriche e i delimitatori
+ * sono ASCII, quindi il parsing coincide con la decodifica UTF-8 dell'import sequenziale e
+ * la posizione in char del tokenizer è anche l'offset in byte.
+ */
+final class Latin1Reader extends Reader {
+    private final ByteBuffer bytes;
+    private byte[] scratch = new byte[0];
+
+    Latin1Reader(ByteBuffer bytes) { this.bytes = bytes; }
+
+    @Override public int read(char[] cbuf, int off, int len) {
+        int n = Math.min(len, bytes.remaining());
+        if (n <= 0) return -1;
+        if (scratch.length < n) scratch = new byte[n];
+        bytes.get(scratch, 0, n);
+        for (int i = 0; i < n; i++) cbuf[off + i] = (char) (scratch[i] & 0xFF);
+        return n;
+    }
+
+    @Override public void close() {}
+}
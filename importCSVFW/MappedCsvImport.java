@@ -0,0 +1,257 @@
+package org.simulator.importCSVFW;
+
+import org.simulator.canale.Channel;
+import org.simulator.canale.Lap;
+import org.simulator.canale.LapFrame;
+import org.simulator.diagnostica.Metrics;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Import parallelo di CSV grandi: il file viene mappato in memoria ({@link FileChannel#map}),
+ * la parte dati è divisa in chunk a confine di riga e ogni chunk è parsato in colonne da un worker.
+ * Un passo finale sequenziale applica lo split per giro ({@link LapSplitter}, stesse regole di
+ * carry-over {@code prevDist}/{@code prevLapT}) e copia i tratti contigui nelle colonne dei giri.
+ *
+ * Restituisce null quando il file non si presta (header non trovato in testa, record tra virgolette
+ * spezzati su più righe): il chiamante ricade sull'import sequenziale, che dà lo stesso risultato.
+ */
+final class MappedCsvImport {
+
+    /** Sotto questa dimensione l'import sequenziale è già più rapido dell'avvio dei worker. */
+    static final long PARALLEL_MIN_BYTES = 16L << 20;
+    private static final long MIN_CHUNK_BYTES = 4L << 20;
+    /** Un chunk è una sola mappatura: ben sotto il limite di 2 GB di {@link FileChannel#map}. */
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int HEAD_SCAN_BYTES = 4 << 20;
+
+    /** Parsing di un chunk sul worker (l'allocazione dei worker non rientra in csv.parse). */
+    private static final Metrics.Timer CHUNK = Metrics.timer("csv.parse.chunk");
+
+    private MappedCsvImport() {}
+
+    /** Esito della scansione della testa: header e offset (byte) della prima riga dati. */
+    private record Head(String[] header, long dataStart) {}
+
+    /** Colonne parsate da un chunk + colonne chiave per lo split per giro. */
+    private static final class ChunkResult {
+        final LapFrame frame;
+        final int[] lapVals;
+        final double[] dists;
+        final double[] lapTimes;
+        final boolean broken;
+
+        ChunkResult(LapFrame frame, int[] lapVals, double[] dists, double[] lapTimes, boolean broken) {
+            this.frame = frame; this.lapVals = lapVals; this.dists = dists; this.lapTimes = lapTimes; this.broken = broken;
+        }
+    }
+
+    static List<Lap> tryImport(Path csvPath, Map<String, Channel> userMapping, Path cacheDir, int threads) throws IOException {
+        try (FileChannel ch = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            long size = ch.size();
+            Head head = CsvImporter.HEADER.time(() -> scanHead(ch, size));
+            if (head == null) return null;
+
+            CsvLayout layout = CsvImporter.MAPPING.time(() -> CsvLayout.of(head.header(), userMapping, cacheDir));
+
+            List<ChunkResult> chunks;
+            try (Metrics.Span t = CsvImporter.PARSE.start()) {
+                long[] bounds = splitAtNewlines(ch, head.dataStart(), size, threads);
+                if (bounds == null) return null;
+                chunks = parseChunks(ch, bounds, layout, threads);
+                if (chunks == null) return null;
+                long rows = 0;
+                for (ChunkResult c : chunks) rows += c.frame.size();
+                t.items(rows);
+                CsvImporter.ROWS.add(rows);
+            }
+
+            try (Metrics.Span t = CsvImporter.LAP_SPLIT.start()) {
+                List<Lap> laps = stitch(chunks);
+                t.items(laps.size());
+                CsvImporter.LAPS.add(laps.size());
+                return laps;
+            }
+        }
+    }
+
+    // ----------------- 1) testa: header + riga unità -----------------
+
+    private static Head scanHead(FileChannel ch, long size) throws IOException {
+        int len = (int) Math.min(size, HEAD_SCAN_BYTES);
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, len);
+
+        String[] header = null;
+        int p = 0;
+        while (p < len) {
+            int eol = indexOfNewline(buf, p, len);
+            if (eol < 0) return null; // riga oltre la testa: lascia fare al sequenziale
+            int start = p;
+            String[] row = tokenizeLine(buf, p, eol);
+            if (row == null) return null;
+            p = eol + 1;
+
+            if (header == null) {
+                if (!CsvParsers.rowIsEmpty(row) && HeaderDetector.looksLikeChannelHeader(row)) header = row;
+                continue;
+            }
+            // record subito dopo l'header: se è la riga unità la saltiamo, altrimenti è già un dato
+            return new Head(header, CsvParsers.looksLikeUnitsRow(row) ? p : start);
+        }
+        return (header != null && len == size) ? new Head(header, size) : null;
+    }
+
+    private static int indexOfNewline(MappedByteBuffer buf, int from, int to) {
+        for (int i = from; i < to; i++) if (buf.get(i) == '\n') return i;
+        return -1;
+    }
+
+    /** Tokenizza una singola riga di testa (UTF-8); null se contiene virgolette non chiuse. */
+    private static String[] tokenizeLine(MappedByteBuffer buf, int from, int eol) throws IOException {
+        byte[] bytes = new byte[eol - from];
+        buf.get(from, bytes);
+        try (CsvTokenizer tok = new CsvTokenizer(new StringReader(new String(bytes, StandardCharsets.UTF_8)))) {
+            if (!tok.nextRow()) return new String[]{ "" };
+            if (tok.unterminatedQuote()) return null;
+            return tok.fields();
+        }
+    }
+
+    // ----------------- 2) chunk a confine di riga -----------------
+
+    /** Confini dei chunk; null se un chunk resta oltre {@link Integer#MAX_VALUE} (righe enormi: import sequenziale). */
+    private static long[] splitAtNewlines(FileChannel ch, long start, long end, int threads) throws IOException {
+        long total = end - start;
+        long byThreads = Math.min(threads * 2L, total / MIN_CHUNK_BYTES);
+        int n = (int) Math.max(1, Math.max(byThreads, (total + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES));
+        List<Long> bounds = new ArrayList<>(n + 1);
+        bounds.add(start);
+        for (int k = 1; k < n; k++) {
+            long nominal = start + total * k / n;
+            long cut = nextLineStart(ch, Math.max(nominal, bounds.get(bounds.size() - 1)), end);
+            if (cut > bounds.get(bounds.size() - 1) && cut < end) bounds.add(cut);
+        }
+        bounds.add(end);
+        long[] out = bounds.stream().mapToLong(Long::longValue).toArray();
+        for (int k = 1; k < out.length; k++) if (out[k] - out[k - 1] > Integer.MAX_VALUE) return null;
+        return out;
+    }
+
+    private static long nextLineStart(FileChannel ch, long from, long end) throws IOException {
+        long window = 64 * 1024;
+        while (from < end) {
+            int len = (int) Math.min(window, end - from);
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, from, len);
+            for (int i = 0; i < len; i++) if (buf.get(i) == '\n') return from + i + 1;
+            from += len;
+        }
+        return end;
+    }
+
+    // ----------------- 3) parsing parallelo -----------------
+
+    private static List<ChunkResult> parseChunks(FileChannel ch, long[] bounds, CsvLayout layout, int threads) throws IOException {
+        int n = bounds.length - 1;
+        List<Callable<ChunkResult>> jobs = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            long from = bounds[k], to = bounds[k + 1];
+            jobs.add(() -> parseChunk(ch.map(FileChannel.MapMode.READ_ONLY, from, to - from), layout));
+        }
+
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, n)), r -> {
+            Thread t = new Thread(r, "csv-chunk-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<ChunkResult> out = new ArrayList<>(n);
+            for (Future<ChunkResult> f : pool.invokeAll(jobs)) {
+                ChunkResult r = f.get();
+                if (r.broken) return null;
+                out.add(r);
+            }
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrotto", e);
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof IOException io) throw io;
+            throw new IOException("Errore import chunk: " + c, c);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ChunkResult parseChunk(MappedByteBuffer bytes, CsvLayout layout) throws IOException {
+        try (Metrics.Span t = CHUNK.start()) {
+            ChunkResult r = parseChunkColumns(bytes, layout);
+            t.items(r.frame.size());
+            return r;
+        }
+    }
+
+    private static ChunkResult parseChunkColumns(MappedByteBuffer bytes, CsvLayout layout) throws IOException {
+        int estRows = Math.max(16, bytes.remaining() / Math.max(16, layout.header.length * 6));
+        LapFrame.Builder frame = new LapFrame.Builder(estRows);
+        int[] lapVals = new int[estRows];
+        double[] dists = new double[estRows];
+        double[] lapTimes = new double[estRows];
+        int rows = 0;
+
+        try (CsvTokenizer tok = new CsvTokenizer(new Latin1Reader(bytes))) {
+            while (tok.nextRow()) {
+                if (tok.rowIsEmpty()) continue;
+                if (rows == lapVals.length) {
+                    int cap = rows + (rows >> 1) + 16;
+                    lapVals = Arrays.copyOf(lapVals, cap);
+                    dists = Arrays.copyOf(dists, cap);
+                    lapTimes = Arrays.copyOf(lapTimes, cap);
+                }
+                lapVals[rows]  = tok.lapNumber(layout.lapIdx);
+                dists[rows]    = tok.number(layout.distIdx);
+                lapTimes[rows] = tok.number(layout.lapTimeIdx);
+                rows++;
+                CsvLapBuilder.appendRow(frame, tok, layout.timeIdx, layout.distIdx, layout.plan);
+            }
+            return new ChunkResult(frame.build(), lapVals, dists, lapTimes, tok.unterminatedQuote());
+        }
+    }
+
+    // ----------------- 4) split per giro sequenziale -----------------
+
+    private static List<Lap> stitch(List<ChunkResult> chunks) {
+        LapSplitter splitter = new LapSplitter();
+        for (ChunkResult c : chunks) {
+            int rows = c.frame.size();
+            int runStart = 0, runLap = Integer.MIN_VALUE;
+            for (int r = 0; r < rows; r++) {
+                int lap = splitter.next(c.lapVals[r], c.dists[r], c.lapTimes[r]);
+                if (lap != runLap) {
+                    if (r > runStart) splitter.builder(runLap).addRows(c.frame, runStart, r);
+                    runStart = r;
+                    runLap = lap;
+                }
+            }
+            if (rows > runStart) splitter.builder(runLap).addRows(c.frame, runStart, rows);
+        }
+        return splitter.laps();
+    }
+}
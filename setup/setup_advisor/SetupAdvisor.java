@@ -1,6 +1,7 @@
 package org.simulator.setup.setup_advisor;
 
 import org.simulator.canale.Lap;
+import org.simulator.diagnostica.Metrics;
 
 import java.util.*;
 
@@ -49,12 +50,14 @@ public final class SetupAdvisor {
         return dedup(SetupLapRecommender.forLap(lap, style));
     }
 
+    private static final Metrics.Timer FOR_SESSION = Metrics.timer("analysis.setup.forSession");
+
     public static List<Recommendation> forSession(List<Lap> laps, DriverStyle style){
-        return dedup(SetupSessionRecommender.forSession(laps, style));
+        return FOR_SESSION.time(() -> dedup(SetupSessionRecommender.forSession(laps, style)));
     }
 
     public static List<Recommendation> forSession(List<Lap> laps){
-        return dedup(SetupSessionRecommender.forSession(laps));
+        return FOR_SESSION.time(() -> dedup(SetupSessionRecommender.forSession(laps)));
     }
 
     // ====== Dedup interno (per area/contenuto) ======
@@ -1,8 +1,8 @@
 package org.simulator.setup.setup_advisor;
 
+import org.simulator.analisi_base.lap_analysis.LapMetrics;
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
-import org.simulator.canale.Sample;
 import org.simulator.coach.CoachCore;
 
 import java.util.Locale;
@@ -11,56 +11,61 @@ final class SetupMetrics {
 
     private SetupMetrics(){}
 
+    private static final Object KEY = new Object();
+
+    /** Metriche di stile del giro (record immutabile, memorizzato sul giro e condiviso dai pannelli). */
     static SetupAdvisor.StyleMetrics compute(Lap lap){
         if (lap == null || lap.samples == null || lap.samples.isEmpty()){
             return new SetupAdvisor.StyleMetrics(0,0,false,0,0,0,0,0,Double.NaN,Double.NaN,"n/d");
         }
+        return lap.derived(KEY, SetupMetrics::computeUncached);
+    }
+
+    private static SetupAdvisor.StyleMetrics computeUncached(Lap lap){
+        LapMetrics lm = LapMetrics.of(lap);
 
         // ===== metriche guida di base =====
         double thrOsc     = CoachCore.throttleOscillationPct(lap, CoachCore.THR_OSC_DPS);
         double steerHarsh = CoachCore.steeringHarshPct(lap, CoachCore.STEER_REV_RATE);
         boolean over      = CoachCore.suspectedOversteer(lap);
 
-        double stomp   = brakeStompPct(lap);
-        double overlap = throttleBrakeOverlap(lap);
-        double coast   = coastingPct(lap);
-        double revMin  = steeringReversalsPerMin(lap);
+        double stomp   = lm.brakeStompPct();
+        double overlap = lm.throttleBrakeOverlap();
+        double coast   = lm.coastingPct();
+        double revMin  = lm.steeringReversalsPerMin();
         double clip    = CoachCore.ffbClipFraction(lap);
 
-        double tyres   = avg(CoachCore.avgTyreTemps(lap));
-        double brakes  = avg(CoachCore.avgBrakeTemps(lap));
+        double tyres   = avg(wheelMeans(lm, Channel.TIRE_TEMP_MIDDLE_FL, Channel.TIRE_TEMP_MIDDLE_FR, Channel.TIRE_TEMP_MIDDLE_RL, Channel.TIRE_TEMP_MIDDLE_RR));
+        double brakes  = avg(wheelMeans(lm, Channel.BRAKE_TEMP_FL, Channel.BRAKE_TEMP_FR, Channel.BRAKE_TEMP_RL, Channel.BRAKE_TEMP_RR));
 
         // ===== altri segnali (vanno solo nelle note) =====
-        double slipAngF = meanPair(lap, Channel.TIRE_SLIP_ANGLE_FL, Channel.TIRE_SLIP_ANGLE_FR);
-        double slipAngR = meanPair(lap, Channel.TIRE_SLIP_ANGLE_RL, Channel.TIRE_SLIP_ANGLE_RR);
-        double slipRatF = meanPair(lap, Channel.TIRE_SLIP_RATIO_FL, Channel.TIRE_SLIP_RATIO_FR);
-        double slipRatR = meanPair(lap, Channel.TIRE_SLIP_RATIO_RL, Channel.TIRE_SLIP_RATIO_RR);
+        double slipAngF = meanPair(lm, Channel.TIRE_SLIP_ANGLE_FL, Channel.TIRE_SLIP_ANGLE_FR);
+        double slipAngR = meanPair(lm, Channel.TIRE_SLIP_ANGLE_RL, Channel.TIRE_SLIP_ANGLE_RR);
+        double slipRatF = meanPair(lm, Channel.TIRE_SLIP_RATIO_FL, Channel.TIRE_SLIP_RATIO_FR);
+        double slipRatR = meanPair(lm, Channel.TIRE_SLIP_RATIO_RL, Channel.TIRE_SLIP_RATIO_RR);
 
-        double psiFL = CoachCore.meanChannel(lap, Channel.TIRE_PRESSURE_FL);
-        double psiFR = CoachCore.meanChannel(lap, Channel.TIRE_PRESSURE_FR);
-        double psiRL = CoachCore.meanChannel(lap, Channel.TIRE_PRESSURE_RL);
-        double psiRR = CoachCore.meanChannel(lap, Channel.TIRE_PRESSURE_RR);
+        double psiFL = lm.stats(Channel.TIRE_PRESSURE_FL).mean();
+        double psiFR = lm.stats(Channel.TIRE_PRESSURE_FR).mean();
+        double psiRL = lm.stats(Channel.TIRE_PRESSURE_RL).mean();
+        double psiRR = lm.stats(Channel.TIRE_PRESSURE_RR).mean();
 
         double kerbPct = CoachCore.seatKerbPct(lap);
 
-        double brakeBias = CoachCore.firstNonNaN(lap, Channel.BRAKE_BIAS);
-        double engBrake  = CoachCore.firstNonNaN(lap, Channel.ENGINE_BRAKE_SETTING);
+        double brakeBias = lm.stats(Channel.BRAKE_BIAS).first;
+        double engBrake  = lm.stats(Channel.ENGINE_BRAKE_SETTING).first;
 
-        double rideF = meanPair(lap, Channel.RIDE_HEIGHT_FL, Channel.RIDE_HEIGHT_FR);
-        double rideR = meanPair(lap, Channel.RIDE_HEIGHT_RL, Channel.RIDE_HEIGHT_RR);
+        double rideF = meanPair(lm, Channel.RIDE_HEIGHT_FL, Channel.RIDE_HEIGHT_FR);
+        double rideR = meanPair(lm, Channel.RIDE_HEIGHT_RL, Channel.RIDE_HEIGHT_RR);
 
-        double drsAvail = CoachCore.has(lap, Channel.DRS_AVAILABLE) ? CoachCore.fractionActive(lap, Channel.DRS_AVAILABLE) : 0.0;
-        double drsUsed  = CoachCore.has(lap, Channel.DRS_ACTIVE)    ? CoachCore.fractionActive(lap, Channel.DRS_ACTIVE)    : 0.0;
-        double ersRec   = CoachCore.has(lap, Channel.ERS_IS_CHARGING) ? CoachCore.fractionActive(lap, Channel.ERS_IS_CHARGING) : 0.0;
-        double ersUse   = CoachCore.fraction(lap, s -> {
-            double e = CoachCore.val(s, Channel.KERS_DEPLOYED_ENERGY);
-            return !Double.isNaN(e) && e > 0;
-        });
+        double drsAvail = fractionOn(lm, Channel.DRS_AVAILABLE);
+        double drsUsed  = fractionOn(lm, Channel.DRS_ACTIVE);
+        double ersRec   = fractionOn(lm, Channel.ERS_IS_CHARGING);
+        double ersUse   = lm.samples() > 0 ? (double) Math.max(0, lm.stats(Channel.KERS_DEPLOYED_ENERGY).countAbove(0.0, false)) / lm.samples() : 0.0;
 
-        double roadT = CoachCore.firstNonNaN(lap, Channel.ROAD_TEMP);
-        double airT  = CoachCore.firstNonNaN(lap, Channel.AIR_TEMP);
-        double grip  = CoachCore.firstNonNaN(lap, Channel.SURFACE_GRIP);
-        double wind  = CoachCore.firstNonNaN(lap, Channel.WIND_SPEED);
+        double roadT = lm.stats(Channel.ROAD_TEMP).first;
+        double airT  = lm.stats(Channel.AIR_TEMP).first;
+        double grip  = lm.stats(Channel.SURFACE_GRIP).first;
+        double wind  = lm.stats(Channel.WIND_SPEED).first;
 
         String notes = String.format(Locale.ITALIAN,
                 "thrOsc=%.0f%%, steer=%.0f%%, stomp=%.0f%%, overlap=%.0f%%, coast=%.0f%%, rev=%.1f/min, clip=%.0f%% | " +
@@ -81,72 +86,13 @@ final class SetupMetrics {
     }
 
     // ================== metriche “classiche” (compat) ==================
-    static double brakeStompPct(Lap lap){
-        final double TH = 0.65, WIN_S = 0.20;
-        double tPrev = Double.NaN, bPrev = Double.NaN;
-        int events = 0, base = 0;
-        for (Sample s : lap.samples){
-            Double b = s.values().getOrDefault(Channel.BRAKE, Double.NaN);
-            Double t = s.values().getOrDefault(Channel.TIME,  Double.NaN);
-            if (b==null || b.isNaN()) continue;
-            if (Double.isNaN(t)) {
-                if (!Double.isNaN(bPrev)) {
-                    if (b - bPrev > TH) events++;
-                    base++;
-                }
-            } else {
-                if (!Double.isNaN(tPrev) && (t - tPrev) <= WIN_S) {
-                    if (!Double.isNaN(bPrev) && b - bPrev > TH) events++;
-                }
-                base++;
-                tPrev = t;
-            }
-            bPrev = b;
-        }
-        return base>0 ? (double)events/base : 0.0;
-    }
+    static double brakeStompPct(Lap lap){ return LapMetrics.of(lap).brakeStompPct(); }
 
-    static double throttleBrakeOverlap(Lap lap){
-        int n=0, k=0;
-        for (Sample s: lap.samples){
-            Double th = s.values().getOrDefault(Channel.THROTTLE, Double.NaN);
-            Double br = s.values().getOrDefault(Channel.BRAKE,    Double.NaN);
-            if (th==null || br==null || th.isNaN() || br.isNaN()) continue;
-            n++; if (th>0.06 && br>0.06) k++;
-        }
-        return n>0 ? (double)k/n : 0.0;
-    }
+    static double throttleBrakeOverlap(Lap lap){ return LapMetrics.of(lap).throttleBrakeOverlap(); }
 
-    static double coastingPct(Lap lap){
-        int n=0, k=0;
-        for (Sample s: lap.samples){
-            Double th = s.values().getOrDefault(Channel.THROTTLE, Double.NaN);
-            Double br = s.values().getOrDefault(Channel.BRAKE,    Double.NaN);
-            Double sp = s.values().getOrDefault(Channel.SPEED,    Double.NaN);
-            if (th==null || br==null || th.isNaN() || br.isNaN()) continue;
-            if (sp!=null && !sp.isNaN() && sp < 10) continue; // esclude pit/partenze
-            n++; if (th<0.03 && br<0.03) k++;
-        }
-        return n>0 ? (double)k/n : 0.0;
-    }
+    static double coastingPct(Lap lap){ return LapMetrics.of(lap).coastingPct(); }
 
-    static double steeringReversalsPerMin(Lap lap){
-        Double prev = null;
-        int reversals = 0;
-        double t0 = first(lap, Channel.TIME);
-        double t1 = last(lap, Channel.TIME);
-        for (Sample s: lap.samples){
-            Double st = s.values().getOrDefault(Channel.STEER_ANGLE, Double.NaN);
-            if (st==null || st.isNaN()) continue;
-            if (prev != null){
-                // cross-zero con isteresi minima per evitare rumore
-                if (Math.signum(prev) != Math.signum(st) && Math.abs(prev - st) > 8.0) reversals++;
-            }
-            prev = st;
-        }
-        double durMin = (t1>t0) ? (t1 - t0)/60.0 : Math.max(1.0, lap.samples.size()/60.0);
-        return reversals / Math.max(0.5, durMin);
-    }
+    static double steeringReversalsPerMin(Lap lap){ return LapMetrics.of(lap).steeringReversalsPerMin(); }
 
     // ================== helper locali ==================
     static double avg(double[] a){
@@ -154,26 +100,24 @@ final class SetupMetrics {
         double s=0; int n=0; for(double v: a){ if(!Double.isNaN(v)){ s+=v; n++; } }
         return n>0? s/n : Double.NaN;
     }
-    static double first(Lap lap, Channel ch){
-        for (Sample s: lap.samples){
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v!=null && !v.isNaN()) return v;
-        }
-        return Double.NaN;
+    static double first(Lap lap, Channel ch){ return LapMetrics.of(lap).stats(ch).first; }
+    static double last(Lap lap, Channel ch){ return LapMetrics.of(lap).stats(ch).last; }
+
+    /** medie per ruota FL/FR/RL/RR (null se tutte NaN, come CoachCore.avgTyreTemps). */
+    private static double[] wheelMeans(LapMetrics lm, Channel fl, Channel fr, Channel rl, Channel rr){
+        double[] a = { lm.stats(fl).mean(), lm.stats(fr).mean(), lm.stats(rl).mean(), lm.stats(rr).mean() };
+        return CoachCore.allNaN(a) ? null : a;
     }
-    static double last(Lap lap, Channel ch){
-        double out = Double.NaN;
-        for (Sample s: lap.samples){
-            Double v = s.values().getOrDefault(ch, Double.NaN);
-            if (v!=null && !v.isNaN()) out = v;
-        }
-        return out;
+
+    /** frazione di campioni ON (>=0.5) sul totale del giro, 0 se il canale manca (come CoachCore.fractionActive). */
+    private static double fractionOn(LapMetrics lm, Channel flag){
+        return lm.has(flag) ? (double) lm.stats(flag).activeRaw / lm.samples() : 0.0;
     }
 
     /** media di due canali sullo stesso asse (NaN-safe). */
-    private static double meanPair(Lap lap, Channel a, Channel b){
-        double va = CoachCore.meanChannel(lap, a);
-        double vb = CoachCore.meanChannel(lap, b);
+    private static double meanPair(LapMetrics lm, Channel a, Channel b){
+        double va = lm.stats(a).mean();
+        double vb = lm.stats(b).mean();
         if (Double.isNaN(va) && Double.isNaN(vb)) return Double.NaN;
         if (Double.isNaN(va)) return vb;
         if (Double.isNaN(vb)) return va;
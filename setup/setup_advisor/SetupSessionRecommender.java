@@ -2,6 +2,7 @@ package org.simulator.setup.setup_advisor;
 
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
+import org.simulator.canale.LapTasks;
 import org.simulator.coach.CoachCore;
 
 import java.util.ArrayList;
@@ -315,6 +316,58 @@ final class SetupSessionRecommender {
         double gripAvg, windAvg, roadTAvg, airTAvg;
     }
 
+    /**
+     * Segnali di un giro per {@link #aggregateSessionMetrics} (letture del giro, senza stato condiviso:
+     * calcolabili in parallelo). Gli array/NaN nulli indicano canali assenti, come i vecchi {@code has(...)}.
+     */
+    private record LapSignals(SetupAdvisor.StyleMetrics m, double[] srFR, double[] saFR, double kerb, double bias,
+                              double rideF, double rideR, double[] psi, double[] tyreTemps, double[] brakeTemps,
+                              double[] drs, double[] ers, double lowBoost, double[] absTc, double limiter,
+                              double grip, double wind, double road, double air) {
+
+        static LapSignals of(Lap l){
+            if (l.samples == null || l.samples.isEmpty()) return null;
+
+            double[] drs = null, ers = null, absTc = null;
+            double lowBoost = Double.NaN, limiter = Double.NaN;
+            if (CoachCore.has(l, Channel.DRS_AVAILABLE) || CoachCore.has(l, Channel.DRS_ACTIVE)) {
+                drs = new double[]{ CoachCore.fractionActive(l, Channel.DRS_AVAILABLE), CoachCore.fractionActive(l, Channel.DRS_ACTIVE) };
+            }
+            if (CoachCore.has(l, Channel.ERS_IS_CHARGING) || CoachCore.has(l, Channel.KERS_DEPLOYED_ENERGY)) {
+                double use = CoachCore.fraction(l, s -> {
+                    double e = CoachCore.val(s, Channel.KERS_DEPLOYED_ENERGY);
+                    return !Double.isNaN(e) && e > 0;
+                });
+                ers = new double[]{ CoachCore.fractionActive(l, Channel.ERS_IS_CHARGING), use };
+            }
+            if (CoachCore.has(l, Channel.TURBO_BOOST) && CoachCore.has(l, Channel.THROTTLE)) {
+                lowBoost = CoachCore.fraction(l, s -> (CoachCore.val(s, Channel.THROTTLE) > 80)
+                        && !Double.isNaN(CoachCore.val(s, Channel.TURBO_BOOST))
+                        && CoachCore.val(s, Channel.TURBO_BOOST) < 0.5);
+            }
+            if (CoachCore.has(l, Channel.ABS_ACTIVE) || CoachCore.has(l, Channel.TC_ACTIVE)){
+                absTc = new double[]{ CoachCore.fractionActive(l, Channel.ABS_ACTIVE), CoachCore.fractionActive(l, Channel.TC_ACTIVE) };
+            }
+            if (CoachCore.has(l, Channel.ENGINE_RPM) && CoachCore.has(l, Channel.MAX_RPM)) {
+                limiter = CoachCore.fraction(l, s -> {
+                    double rpm = CoachCore.val(s, Channel.ENGINE_RPM);
+                    double max = CoachCore.val(s, Channel.MAX_RPM);
+                    return !Double.isNaN(rpm) && !Double.isNaN(max) && max > 0 && rpm >= 0.99*max;
+                });
+            }
+
+            return new LapSignals(SetupMetrics.compute(l),
+                    CoachCore.slipRatioFrontRearPct(l), CoachCore.slipAngleFrontRearPct(l),
+                    CoachCore.seatKerbPct(l), CoachCore.firstNonNaN(l, Channel.BRAKE_BIAS),
+                    meanPair(l, Channel.RIDE_HEIGHT_FL, Channel.RIDE_HEIGHT_FR),
+                    meanPair(l, Channel.RIDE_HEIGHT_RL, Channel.RIDE_HEIGHT_RR),
+                    CoachCore.avgTyrePsis(l), CoachCore.avgTyreTemps(l), CoachCore.avgBrakeTemps(l),
+                    drs, ers, lowBoost, absTc, limiter,
+                    CoachCore.firstNonNaN(l, Channel.SURFACE_GRIP), CoachCore.firstNonNaN(l, Channel.WIND_SPEED),
+                    CoachCore.firstNonNaN(l, Channel.ROAD_TEMP), CoachCore.firstNonNaN(l, Channel.AIR_TEMP));
+        }
+    }
+
     private static SessionAgg aggregateSessionMetrics(List<Lap> laps){
         List<Double> tyresAll = new ArrayList<>();
         List<Double> brakesAll= new ArrayList<>();
@@ -341,10 +394,11 @@ final class SetupSessionRecommender {
 
         double gripSum=0, windSum=0, roadTSum=0, airTSum=0, envCnt=0;
 
-        for (Lap l : laps){
-            if (l == null || l.samples == null || l.samples.isEmpty()) continue;
+        // segnali per giro in parallelo; le somme restano nell'ordine dei giri
+        for (LapSignals g : LapTasks.map(laps, LapSignals::of)){
+            if (g == null) continue;
 
-            var m = SetupMetrics.compute(l);
+            var m = g.m();
             thr   += m.thrOscPct();
             st    += m.steerHarshPct();
             stomp += m.brakeStompPct();
@@ -357,8 +411,8 @@ final class SetupSessionRecommender {
             n++;
 
             // slip front/rear (se disponibili)
-            double[] srFR = CoachCore.slipRatioFrontRearPct(l);
-            double[] saFR = CoachCore.slipAngleFrontRearPct(l);
+            double[] srFR = g.srFR();
+            double[] saFR = g.saFR();
             if (srFR != null && saFR != null){
                 boolean rearDom = (srFR[1] > srFR[0]*SLIP_REAR_DOM_FACTOR) || (saFR[1] > saFR[0]*SLIP_REAR_DOM_FACTOR);
                 boolean frontDom= (srFR[0] > srFR[1]*SLIP_FRONT_DOM_FACTOR) || (saFR[0] > saFR[1]*SLIP_FRONT_DOM_FACTOR);
@@ -368,17 +422,17 @@ final class SetupSessionRecommender {
             }
 
             // --- nuovi segnali per sessione ---
-            kerbSum += CoachCore.seatKerbPct(l);
+            kerbSum += g.kerb();
 
-            double bias = CoachCore.firstNonNaN(l, Channel.BRAKE_BIAS);
+            double bias = g.bias();
             if (!Double.isNaN(bias)) { biasSum += bias; biasCnt++; }
 
-            double rf = meanPair(l, Channel.RIDE_HEIGHT_FL, Channel.RIDE_HEIGHT_FR);
-            double rr = meanPair(l, Channel.RIDE_HEIGHT_RL, Channel.RIDE_HEIGHT_RR);
+            double rf = g.rideF();
+            double rr = g.rideR();
             if (!Double.isNaN(rf)) { rideFSum += rf; rideCnt++; }
             if (!Double.isNaN(rr)) { rideRSum += rr; }
 
-            double[] psi = CoachCore.avgTyrePsis(l);
+            double[] psi = g.psi();
             if (psi != null && psi.length == 4){
                 double frontDiff = diffAbs(psi[0], psi[1]);
                 double rearDiff  = diffAbs(psi[2], psi[3]);
@@ -393,7 +447,7 @@ final class SetupSessionRecommender {
             }
 
             // temperature assi
-            double[] t = CoachCore.avgTyreTemps(l);
+            double[] t = g.tyreTemps();
             if (t != null && t.length == 4){
                 double tf = mean(t[0], t[1]);
                 double tr = mean(t[2], t[3]);
@@ -401,7 +455,7 @@ final class SetupSessionRecommender {
                     tyreFrontSum += tf; tyreRearSum += tr; tyreAxleCnt++;
                 }
             }
-            double[] bt = CoachCore.avgBrakeTemps(l);
+            double[] bt = g.brakeTemps();
             if (bt != null && bt.length == 4){
                 double bf = mean(bt[0], bt[1]);
                 double br = mean(bt[2], bt[3]);
@@ -410,49 +464,37 @@ final class SetupSessionRecommender {
                 }
             }
 
-            if (CoachCore.has(l, Channel.DRS_AVAILABLE) || CoachCore.has(l, Channel.DRS_ACTIVE)) {
-                drsAvailSum += CoachCore.fractionActive(l, Channel.DRS_AVAILABLE);
-                drsUsedSum  += CoachCore.fractionActive(l, Channel.DRS_ACTIVE);
+            if (g.drs() != null) {
+                drsAvailSum += g.drs()[0];
+                drsUsedSum  += g.drs()[1];
                 drsCnt++;
             }
-            if (CoachCore.has(l, Channel.ERS_IS_CHARGING) || CoachCore.has(l, Channel.KERS_DEPLOYED_ENERGY)) {
-                ersRecSum += CoachCore.fractionActive(l, Channel.ERS_IS_CHARGING);
-                double use = CoachCore.fraction(l, s -> {
-                    double e = CoachCore.val(s, Channel.KERS_DEPLOYED_ENERGY);
-                    return !Double.isNaN(e) && e > 0;
-                });
-                ersUseSum += use; ersCnt++;
+            if (g.ers() != null) {
+                ersRecSum += g.ers()[0];
+                ersUseSum += g.ers()[1]; ersCnt++;
             }
 
             // quota “gas alto / boost basso”
-            if (CoachCore.has(l, Channel.TURBO_BOOST) && CoachCore.has(l, Channel.THROTTLE)) {
-                double q = CoachCore.fraction(l, s -> (CoachCore.val(s, Channel.THROTTLE) > 80)
-                        && !Double.isNaN(CoachCore.val(s, Channel.TURBO_BOOST))
-                        && CoachCore.val(s, Channel.TURBO_BOOST) < 0.5);
-                lowBoostSum += q; lowBoostCnt++;
+            if (!Double.isNaN(g.lowBoost())) {
+                lowBoostSum += g.lowBoost(); lowBoostCnt++;
             }
 
             // ABS/TC
-            if (CoachCore.has(l, Channel.ABS_ACTIVE) || CoachCore.has(l, Channel.TC_ACTIVE)){
-                absSum += CoachCore.fractionActive(l, Channel.ABS_ACTIVE);
-                tcSum  += CoachCore.fractionActive(l, Channel.TC_ACTIVE);
+            if (g.absTc() != null){
+                absSum += g.absTc()[0];
+                tcSum  += g.absTc()[1];
                 atcCnt++;
             }
 
             // limitatore (rpm > 99% Max RPM)
-            if (CoachCore.has(l, Channel.ENGINE_RPM) && CoachCore.has(l, Channel.MAX_RPM)) {
-                double frac = CoachCore.fraction(l, s -> {
-                    double rpm = CoachCore.val(s, Channel.ENGINE_RPM);
-                    double max = CoachCore.val(s, Channel.MAX_RPM);
-                    return !Double.isNaN(rpm) && !Double.isNaN(max) && max > 0 && rpm >= 0.99*max;
-                });
-                limiterSum += frac; limiterCnt++;
+            if (!Double.isNaN(g.limiter())) {
+                limiterSum += g.limiter(); limiterCnt++;
             }
 
-            double grip = CoachCore.firstNonNaN(l, Channel.SURFACE_GRIP);
-            double wind = CoachCore.firstNonNaN(l, Channel.WIND_SPEED);
-            double road = CoachCore.firstNonNaN(l, Channel.ROAD_TEMP);
-            double air  = CoachCore.firstNonNaN(l, Channel.AIR_TEMP);
+            double grip = g.grip();
+            double wind = g.wind();
+            double road = g.road();
+            double air  = g.air();
             if (!Double.isNaN(grip) || !Double.isNaN(wind) || !Double.isNaN(road) || !Double.isNaN(air)){
                 if (!Double.isNaN(grip)) gripSum += grip;
                 if (!Double.isNaN(wind)) windSum += wind;
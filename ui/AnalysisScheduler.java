@@ -0,0 +1,132 @@
+package org.simulator.ui;
+
+import javafx.application.Platform;
+import org.simulator.canale.Lap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Esegue le analisi pesanti della UI (statistiche, coach, consigli setup, medie di sessione)
+ * su un pool di worker limitato invece che sul thread JavaFX.
+ *
+ * Ogni pannello usa un proprio {@link Slot}: una nuova richiesta sullo stesso slot annulla quella
+ * precedente (non ancora partita o in corso) e solo il risultato dell'ultima richiesta arriva sul
+ * thread FX. I risultati per giro sono memorizzati sul giro ({@link Lap#derived}), quindi tornare
+ * su un giro già visto consegna subito, senza passare dal pool.
+ */
+public final class AnalysisScheduler {
+
+    private static final AnalysisScheduler INSTANCE = new AnalysisScheduler();
+
+    private final ExecutorService pool;
+
+    private AnalysisScheduler() {
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "analysis-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1); // il thread FX ha la precedenza
+            return t;
+        });
+    }
+
+    public static AnalysisScheduler get() { return INSTANCE; }
+
+    /** Nuovo slot di richieste (tipicamente uno per pannello/vista). */
+    public Slot newSlot(String name) { return new Slot(name); }
+
+    /**
+     * Calcolo indipendente (es. prefetch di miniature): nessun annullamento automatico, il risultato
+     * arriva sul thread FX; annullabile dal chiamante con il {@link Future} restituito.
+     */
+    public <T> Future<?> submit(String name, Callable<? extends T> work, Consumer<? super T> onResult) {
+        return submit(name, work, onResult, e -> {});
+    }
+
+    /** Come sopra; se {@code work} fallisce (e non è stato annullato) {@code onError} arriva sul thread FX. */
+    public <T> Future<?> submit(String name, Callable<? extends T> work, Consumer<? super T> onResult,
+                                Consumer<? super Exception> onError) {
+        return pool.submit(() -> {
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    System.err.println("[Analysis] " + name + ": " + e);
+                    Platform.runLater(() -> onError.accept(e));
+                }
+                return;
+            }
+            if (!Thread.currentThread().isInterrupted()) Platform.runLater(() -> onResult.accept(result));
+        });
+    }
+
+    /** Canale di richieste: tiene solo l'ultima, le precedenti vengono annullate. */
+    public final class Slot {
+        private final String name;
+        private int generation;          // letto/scritto solo sul thread FX
+        private Future<?> pending;
+
+        private Slot(String name) { this.name = name; }
+
+        /** Calcola {@code work} su un worker e consegna il risultato sul thread FX se ancora attuale. */
+        public <T> void submit(Callable<? extends T> work, Consumer<? super T> onResult) {
+            submit(work, onResult, e -> {});
+        }
+
+        /** Come sopra; se {@code work} fallisce {@code onError} arriva sul thread FX, se la richiesta è ancora attuale. */
+        public <T> void submit(Callable<? extends T> work, Consumer<? super T> onResult,
+                               Consumer<? super Exception> onError) {
+            final int gen = invalidate();
+            pending = pool.submit(() -> {
+                T result;
+                try {
+                    result = work.call();
+                } catch (Exception e) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        System.err.println("[Analysis] " + name + ": " + e);
+                        Platform.runLater(() -> { if (gen == generation) { pending = null; onError.accept(e); } });
+                    }
+                    return;
+                }
+                Platform.runLater(() -> { if (gen == generation) { pending = null; onResult.accept(result); } });
+            });
+        }
+
+        /**
+         * Come {@link #submit} ma il risultato è memorizzato sul giro con la chiave data:
+         * se già presente viene consegnato subito (sul thread chiamante, che è quello FX).
+         */
+        public <T> void submitForLap(Lap lap, Object key, Function<? super Lap, ? extends T> compute,
+                                     Consumer<? super T> onResult) {
+            submitForLap(lap, key, compute, onResult, e -> {});
+        }
+
+        /** {@link #submitForLap} con {@code onError} come in {@link #submit(Callable, Consumer, Consumer)}. */
+        public <T> void submitForLap(Lap lap, Object key, Function<? super Lap, ? extends T> compute,
+                                     Consumer<? super T> onResult, Consumer<? super Exception> onError) {
+            T cached = lap.derivedIfPresent(key);
+            if (cached != null) {
+                invalidate();
+                onResult.accept(cached);
+                return;
+            }
+            submit(() -> lap.<T>derived(key, compute), onResult, onError);
+        }
+
+        /** Annulla la richiesta in corso (es. vista chiusa o selezione azzerata). */
+        public void cancel() { invalidate(); }
+
+        private int invalidate() {
+            if (pending != null) { pending.cancel(true); pending = null; }
+            return ++generation;
+        }
+    }
+}
@@ -1,42 +1,237 @@
 
 package org.simulator.ui;
 
-import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
+import org.simulator.diagnostica.Metrics;
 import org.simulator.ui.asix_pack.AxisChoice;
 
-import java.lang.ref.SoftReference;
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
-/** Cache leggera per dati XY dei grafici (per velocizzare cambio giro e ridurre ricomputi). */
+/**
+ * Cache delle serie dei grafici per giro, asse e parte (tipo di grafico o canale), per servire il cambio
+ * giro senza ricalcoli. Thread-safe: le serie si possono precalcolare da un worker ({@link #prefetch});
+ * due richieste concorrenti della stessa chiave calcolano una volta sola.
+ *
+ * Limitata in byte ({@link #setBudgetBytes}, default 64 MB) con LRU segmentata: una voce entra nel
+ * segmento di prova e passa a quello protetto (80% del budget) al primo riuso, così una scansione di
+ * giri visti una volta (carosello, prefetch) non scalza le serie usate davvero. Chiavi deboli sul giro.
+ */
 final class ChartDataCache {
     private ChartDataCache(){}
 
-    private static final Map<Lap, Map<Key, SoftReference<double[][]>>> CACHE = new WeakHashMap<>();
+    private static final Metrics.Counter HIT   = Metrics.counter("cache.chart.hit");
+    private static final Metrics.Counter MISS  = Metrics.counter("cache.chart.miss");
+    private static final Metrics.Counter EVICT = Metrics.counter("cache.chart.evict");
+    static { Metrics.gauge("cache.chart.mb", () -> cachedBytes() / (1024.0 * 1024.0)); }
 
-    static double[][] getOrCompute(Lap lap, AxisChoice axis, Channel ch, Supplier<double[][]> supplier){
-        Map<Key, SoftReference<double[][]>> m = CACHE.computeIfAbsent(lap, k -> new HashMap<>());
-        Key key = new Key(axis.useDist, axis.useLapTime, axis.useAbsTime, ch.ordinal());
-        SoftReference<double[][]> ref = m.get(key);
-        double[][] val = ref != null ? ref.get() : null;
-        if (val != null) return val;
-        val = supplier.get();
-        m.put(key, new SoftReference<>(val));
-        return val;
+    private static final double PROTECTED_SHARE = 0.8;
+    private static volatile long budget = 64L << 20;
+
+    private static final Map<Key, Entry> MAP = new ConcurrentHashMap<>();
+    /** Ordine LRU dei due segmenti (la testa è la meno recente); sotto {@link #POLICY}. */
+    private static final LinkedHashMap<Key, Entry> PROBATION = new LinkedHashMap<>();
+    private static final LinkedHashMap<Key, Entry> PROTECTED = new LinkedHashMap<>();
+    private static final ReentrantLock POLICY = new ReentrantLock();
+    private static long probationBytes, protectedBytes;
+
+    /** Serie della chiave: dalla cache, altrimenti calcolate da {@code compute} (non null) e memorizzate. */
+    static List<TelemetryPlot.Series> getOrCompute(Lap lap, AxisChoice axis, Enum<?> part,
+                                                   Supplier<List<TelemetryPlot.Series>> compute) {
+        Key key = new Key(lap, axis, part);
+        Entry e = MAP.get(key);
+        if (e == null) {
+            Entry mine = new Entry(key, compute);
+            e = MAP.putIfAbsent(key, mine);
+            if (e == null) {
+                MISS.increment();
+                mine.task.run();
+                List<TelemetryPlot.Series> v = mine.await();   // rilancia l'errore del calcolo
+                admit(mine);
+                return v;
+            }
+        }
+        HIT.increment();
+        List<TelemetryPlot.Series> v = e.await();   // anche se ancora in calcolo su un altro thread
+        // riordino "lossy": se il lock è conteso si salta, la voce resta comunque valida
+        if (POLICY.tryLock()) {
+            try { touch(e); } finally { POLICY.unlock(); }
+        }
+        return v;
+    }
+
+    /** Calcola su un worker le serie della chiave, se non già presenti. */
+    static void prefetch(Lap lap, AxisChoice axis, Enum<?> part, Supplier<List<TelemetryPlot.Series>> compute) {
+        if (lap == null || MAP.containsKey(new Key(lap, axis, part))) return;
+        AnalysisScheduler.get().submit("chart-prefetch", () -> getOrCompute(lap, axis, part, compute), v -> {});
+    }
+
+    static void clear(Lap lap) {
+        POLICY.lock();
+        try {
+            for (Iterator<Key> it = MAP.keySet().iterator(); it.hasNext(); ) {
+                Key k = it.next();
+                if (k.lap.get() == lap) { it.remove(); unlink(k); }
+            }
+        } finally { POLICY.unlock(); }
+    }
+
+    /** Budget in byte; oltre, escono prima le voci del segmento di prova meno recenti. */
+    static void setBudgetBytes(long bytes) {
+        budget = Math.max(0, bytes);
+        POLICY.lock();
+        try { evict(); } finally { POLICY.unlock(); }
+    }
+
+    static long cachedBytes() {
+        POLICY.lock();
+        try { return probationBytes + protectedBytes; } finally { POLICY.unlock(); }
+    }
+
+    // ===================== politica SLRU (sotto POLICY) =====================
+
+    private static void admit(Entry e) {
+        POLICY.lock();
+        try {
+            if (MAP.get(e.key) != e) return;   // rimossa da clear() nel frattempo
+            PROBATION.put(e.key, e);
+            probationBytes += e.bytes;
+            evict();
+        } finally { POLICY.unlock(); }
+    }
+
+    /** Riuso: dalla prova al protetto, o in coda al protetto. Le voci ancora in calcolo non sono nei segmenti. */
+    private static void touch(Entry e) {
+        if (PROBATION.remove(e.key) != null) {
+            probationBytes -= e.bytes;
+            PROTECTED.put(e.key, e);
+            protectedBytes += e.bytes;
+            demote();
+        } else if (PROTECTED.remove(e.key) != null) {
+            PROTECTED.put(e.key, e);
+        }
+    }
+
+    /** Protetto oltre la sua quota: le voci meno recenti tornano in prova. */
+    private static void demote() {
+        long cap = (long) (budget * PROTECTED_SHARE);
+        for (Iterator<Entry> it = PROTECTED.values().iterator(); protectedBytes > cap && PROTECTED.size() > 1 && it.hasNext(); ) {
+            Entry d = it.next();
+            it.remove();
+            protectedBytes -= d.bytes;
+            PROBATION.put(d.key, d);
+            probationBytes += d.bytes;
+        }
     }
-    static void clear(Lap lap){ CACHE.remove(lap); }
 
+    private static void evict() {
+        purgeCollected(PROBATION, true);
+        purgeCollected(PROTECTED, false);
+        demote();
+        while (probationBytes + protectedBytes > budget && PROBATION.size() + PROTECTED.size() > 1) {
+            boolean fromProbation = !PROBATION.isEmpty();
+            Iterator<Entry> it = (fromProbation ? PROBATION : PROTECTED).values().iterator();
+            Entry d = it.next();
+            it.remove();
+            if (fromProbation) probationBytes -= d.bytes; else protectedBytes -= d.bytes;
+            MAP.remove(d.key, d);
+            EVICT.increment();
+        }
+    }
+
+    /** Voci di giri non più raggiungibili. */
+    private static void purgeCollected(LinkedHashMap<Key, Entry> seg, boolean probation) {
+        for (Iterator<Entry> it = seg.values().iterator(); it.hasNext(); ) {
+            Entry d = it.next();
+            if (d.key.lap.get() != null) continue;
+            it.remove();
+            if (probation) probationBytes -= d.bytes; else protectedBytes -= d.bytes;
+            MAP.remove(d.key, d);
+        }
+    }
+
+    private static void unlink(Key k) {
+        Entry d = PROBATION.remove(k);
+        if (d != null) { probationBytes -= d.bytes; return; }
+        d = PROTECTED.remove(k);
+        if (d != null) protectedBytes -= d.bytes;
+    }
+
+    // ===================== voci e chiavi =====================
+
+    private static final class Entry {
+        final Key key;
+        final FutureTask<List<TelemetryPlot.Series>> task;
+        long bytes;
+
+        Entry(Key key, Supplier<List<TelemetryPlot.Series>> compute) {
+            this.key = key;
+            this.task = new FutureTask<>(() -> {
+                List<TelemetryPlot.Series> v = List.copyOf(compute.get());
+                bytes = bytesOf(v);
+                return v;
+            });
+        }
+
+        List<TelemetryPlot.Series> await() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return task.get();
+                    } catch (InterruptedException ie) {
+                        interrupted = true;   // il calcolo è di un altro thread: si aspetta comunque
+                    } catch (ExecutionException ex) {
+                        MAP.remove(key, this);
+                        Throwable c = ex.getCause();
+                        if (c instanceof RuntimeException re) throw re;
+                        if (c instanceof Error err) throw err;
+                        throw new IllegalStateException(c);
+                    }
+                }
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static long bytesOf(List<TelemetryPlot.Series> v) {
+        long b = 64;
+        for (TelemetryPlot.Series s : v) b += 48 + 8L * (s.x().length + s.y().length);
+        return b;
+    }
+
+    /** Giro (riferimento debole, per identità), asse e parte. */
     private static final class Key {
-        final boolean d, lt, at; final int ch;
-        Key(boolean d, boolean lt, boolean at, int ch){ this.d=d; this.lt=lt; this.at=at; this.ch=ch; }
-        @Override public boolean equals(Object o){
+        final WeakReference<Lap> lap;
+        final boolean d, lt, at;
+        final Enum<?> part;
+        final int hash;
+
+        Key(Lap lap, AxisChoice axis, Enum<?> part) {
+            this.lap = new WeakReference<>(lap);
+            this.d = axis.useDist; this.lt = axis.useLapTime; this.at = axis.useAbsTime;
+            this.part = part;
+            int h = System.identityHashCode(lap);
+            h = 31 * h + (d ? 1 : 0); h = 31 * h + (lt ? 1 : 0); h = 31 * h + (at ? 1 : 0);
+            this.hash = 31 * h + part.hashCode();
+        }
+
+        @Override public int hashCode() { return hash; }
+
+        @Override public boolean equals(Object o) {
             if (this == o) return true;
-            if (o==null || o.getClass()!=Key.class) return false;
-            Key k = (Key) o; return d==k.d && lt==k.lt && at==k.at && ch==k.ch;
+            if (!(o instanceof Key k)) return false;
+            Lap a = lap.get();
+            return a != null && a == k.lap.get() && d == k.d && lt == k.lt && at == k.at && part == k.part;
         }
-        @Override public int hashCode(){ int h=17; h = 31*h + (d?1:0); h = 31*h + (lt?1:0); h = 31*h + (at?1:0); h = 31*h + ch; return h; }
     }
 }
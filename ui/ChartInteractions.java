@@ -51,8 +51,13 @@ public final class ChartInteractions {
         if (flag instanceof Boolean && (Boolean)flag) return;
 
         chart.getData().addListener((ListChangeListener<XYChart.Series<Number,Number>>) c ->
-                Platform.runLater(() -> { computeAndStoreDataBounds(chart); clampViewToData(chart, true); })
+                Platform.runLater(() -> { computeAndStoreDataBounds(chart); clampViewToData(chart, true); SeriesDecimation.refresh(chart); })
         );
+        // zoom/pan/resize → ridecima le serie sul range visibile
+        NumberAxis xAxis = (NumberAxis) chart.getXAxis();
+        xAxis.lowerBoundProperty().addListener((o,ov,nv) -> SeriesDecimation.scheduleRefresh(chart));
+        xAxis.upperBoundProperty().addListener((o,ov,nv) -> SeriesDecimation.scheduleRefresh(chart));
+        chart.widthProperty().addListener((o,ov,nv) -> SeriesDecimation.scheduleRefresh(chart));
         chart.sceneProperty().addListener((o,ov,nv) ->
                 Platform.runLater(() -> { computeAndStoreDataBounds(chart); clampViewToData(chart, true); })
         );
@@ -149,6 +154,11 @@ public final class ChartInteractions {
     private static void computeAndStoreDataBounds(LineChart<Number,Number> chart){
         BoundsXY b = new BoundsXY();
         for (XYChart.Series<Number,Number> s: chart.getData()){
+            double[] ext = SeriesDecimation.extents(s); // serie decimate: limiti dei dati completi, O(1)
+            if (ext != null) {
+                if (ext[0] <= ext[1]) { b.add(ext[0], ext[2]); b.add(ext[1], ext[3]); }
+                continue;
+            }
             for (XYChart.Data<Number,Number> d: s.getData()){
                 if (d.getXValue()==null || d.getYValue()==null) continue;
                 b.add(d.getXValue().doubleValue(), d.getYValue().doubleValue());
@@ -253,6 +263,8 @@ public final class ChartInteractions {
         copy.setTitle(title);
 
         for (XYChart.Series<Number,Number> s : src.getData()){
+            XYChart.Series<Number,Number> full = SeriesDecimation.copyOf(s);
+            if (full != null) { copy.getData().add(full); continue; }
             XYChart.Series<Number,Number> ns = new XYChart.Series<>();
             ns.setName(s.getName());
             for (XYChart.Data<Number,Number> d: s.getData()){
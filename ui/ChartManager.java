@@ -3,11 +3,16 @@ package org.simulator.ui;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
 import org.simulator.ui.asix_pack.AxisChoice;
 import org.simulator.ui.ChartInteractions;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 public class ChartManager {
@@ -36,103 +41,161 @@ public class ChartManager {
 
         if (refLap == null || axis == null) { chart.getData().clear(); return; }
 
+        List<TelemetryPlot.Series> data = seriesFor(pt, refLap, cmpLap, axis);
+
+        if (isForce(pt)) {
+            chart.getData().clear();
+            for (TelemetryPlot.Series s : data) chart.getData().add(SeriesDecimation.series(s.name(), s.x(), s.y()));
+            ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
+            ((NumberAxis) chart.getYAxis()).setLabel(yLabelFor(pt));
+            ChartInteractions.applyDataBoundsFromSeries(chart);
+            ChartStyles.reapply(chart);
+            return;
+        }
+
+        // punti completi tenuti dalla serie, a schermo solo quelli utili per pixel/zoom
+        List<XYChart.Series<Number,Number>> series = new ArrayList<>();
+        for (TelemetryPlot.Series s : data) series.add(SeriesDecimation.series(s.name(), s.x(), s.y()));
+
+        // applica gli stili (palette + ghost + legenda)
+        chart.getData().setAll(series);
+        javafx.application.Platform.runLater(() -> org.simulator.ui.ChartStyles.reapply(chart));
+
+
+        ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
+        ((NumberAxis) chart.getYAxis()).setLabel(yLabelFor(pt));
+
+        MinMax mm = MinMax.of(data);
+        if (mm.valid()){
+            double padX = 0.02 * (mm.xMax - mm.xMin);
+            double padY = 0.02 * (mm.yMax - mm.yMin);
+            ChartInteractions.setDataBounds(chart,
+                    mm.xMin - padX, mm.xMax + padX,
+                    mm.yMin - padY, mm.yMax + padY);
+        } else {
+            ChartInteractions.applyDataBoundsFromSeries(chart);
+        }
+    }
+
+    /** Come {@link #renderChart} ma su {@link TelemetryPlot} (canvas, per serie dense e playback). */
+    public void renderPlot(TelemetryPlot plot,
+                           ChartPane.PlotType pt,
+                           Lap refLap,
+                           Lap cmpLap,
+                           AxisChoice axis) {
+
+        if (refLap == null || axis == null) { plot.clear(); return; }
+
+        List<TelemetryPlot.Series> data = seriesFor(pt, refLap, cmpLap, axis);
+        plot.setAxisLabels(axis.label, yLabelFor(pt));
+
+        MinMax mm = MinMax.of(data);
+        double pad = isForce(pt) ? 0.0 : 0.02; // stessi margini del LineChart
+        double padX = pad * (mm.xMax - mm.xMin);
+        double padY = pad * (mm.yMax - mm.yMin);
+        plot.setSeries(data, mm.xMin - padX, mm.xMax + padX, mm.yMin - padY, mm.yMax + padY);
+    }
+
+    /**
+     * Miniatura w×h del grafico di un giro (solo le linee, sfondo trasparente), senza nodi della scena:
+     * si può chiamare da un worker.
+     */
+    public WritableImage renderThumbnail(ChartPane.PlotType pt, Lap lap, AxisChoice axis, int w, int h) {
+        List<TelemetryPlot.Series> data = (lap == null || axis == null) ? List.of() : seriesFor(pt, lap, null, axis);
+        Color[] colors = new Color[Math.max(1, data.size())];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = ChartStyles.colorFor(i < data.size() ? data.get(i).name() : null, i, 0);
+        }
+        return SeriesRaster.render(data, colors, w, h, isForce(pt) ? 0.0 : 0.02);
+    }
+
+    /**
+     * Serie (array di soli punti finiti) del tipo di grafico, per giro di riferimento e ghost.
+     * Le serie di ogni giro vengono da {@link ChartDataCache}: il ghost riusa gli stessi array col nome "(ghost)".
+     */
+    public List<TelemetryPlot.Series> seriesFor(ChartPane.PlotType pt, Lap refLap, Lap cmpLap, AxisChoice axis) {
         switch (pt) {
-            case PEDAL_FORCE -> {
-                ChartRenderers.renderPedalForce(chart, refLap, cmpLap, axis);
-                ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
-                ((NumberAxis) chart.getYAxis()).setLabel("Force (N)");
-                ChartInteractions.applyDataBoundsFromSeries(chart);
-                ChartStyles.reapply(chart);
-                return;
-            }
-            case SEAT_FORCE -> {
-                ChartRenderers.renderSeatForce(chart, refLap, cmpLap, axis);
-                ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
-                ((NumberAxis) chart.getYAxis()).setLabel("Force (N)");
-                ChartInteractions.applyDataBoundsFromSeries(chart);
-                ChartStyles.reapply(chart);
-                return;
-            }
+            case PEDAL_FORCE -> { return ChartRenderers.pedalForce(refLap, cmpLap, axis); }
+            case SEAT_FORCE  -> { return ChartRenderers.seatForce(refLap, cmpLap, axis); }
             default -> { /* continua sotto */ }
         }
 
-        SeriesBundle ref = SeriesBundle.extract(refLap, axis);
-        SeriesBundle cmp = (cmpLap != null) ? SeriesBundle.extract(cmpLap, axis) : null;
+        List<TelemetryPlot.Series> series = new ArrayList<>(lapSeries(pt, refLap, axis));
+        if (cmpLap != null) {
+            for (TelemetryPlot.Series s : lapSeries(pt, cmpLap, axis)) {
+                series.add(new TelemetryPlot.Series(s.name().replace("(rif)", "(ghost)"), s.x(), s.y()));
+            }
+        }
+        return series;
+    }
 
-        List<XYChart.Series<Number,Number>> series = new ArrayList<>();
-        MinMax mm = new MinMax();
+    /**
+     * Precalcola su un worker le serie dei giri per i tipi di grafico (es. giro precedente/successivo e
+     * ghost probabile), così il cambio giro trova tutto in cache.
+     */
+    public void prefetch(Collection<ChartPane.PlotType> types, Collection<Lap> laps, AxisChoice axis) {
+        if (axis == null) return;
+        for (Lap lap : laps) {
+            if (lap == null) continue;
+            for (ChartPane.PlotType pt : types) {
+                if (isForce(pt)) {
+                    for (Channel ch : ChartRenderers.channelsOf(pt)) {
+                        ChartDataCache.prefetch(lap, axis, ch, () -> ChartRenderers.forceSeries(lap, axis, ch));
+                    }
+                } else {
+                    ChartDataCache.prefetch(lap, axis, pt, () -> computeLapSeries(pt, lap, axis));
+                }
+            }
+        }
+    }
 
-        String yLabel = switch (pt) {
-            case SPEED_DIST     -> "Speed [km/h]";
-            case THR_BRAKE_DIST -> "%";
-            case STEERING_DIST  -> "Angle [deg]";
-            case RPM_TIME       -> "RPM";
-            case FFB_FORCE      -> "FFB (unità CSV)";
+    /** Serie di un giro per il tipo di grafico (nomi "(rif)"), dalla cache. */
+    private static List<TelemetryPlot.Series> lapSeries(ChartPane.PlotType pt, Lap lap, AxisChoice axis) {
+        return ChartDataCache.getOrCompute(lap, axis, pt, () -> computeLapSeries(pt, lap, axis));
+    }
 
-            default             -> "Y";
-        };
+    private static List<TelemetryPlot.Series> computeLapSeries(ChartPane.PlotType pt, Lap lap, AxisChoice axis) {
+        SeriesBundle ref = SeriesBundle.extract(lap, axis);
+
+        List<TelemetryPlot.Series> series = new ArrayList<>();
 
         switch (pt) {
-            case SPEED_DIST -> {
-                addSeries(series, "Speed (rif)", ref.x, ref.speed, mm);
-                if (cmp != null) addSeries(series, "Speed (ghost)", cmp.x, cmp.speed, mm);
-            }
+            case SPEED_DIST -> series.add(TelemetryPlot.Series.of("Speed (rif)", ref.x, ref.speed));
             case THR_BRAKE_DIST -> {
                 List<Double> thR = normalizePercentList(ref.throttle);
                 List<Double> brR = normalizePercentList(ref.brake);
-                addSeries(series, "Throttle (rif)", ref.x, thR, mm);
-                addSeries(series, "Brake (rif)",    ref.x, brR, mm);
+                series.add(TelemetryPlot.Series.of("Throttle (rif)", ref.x, thR));
+                series.add(TelemetryPlot.Series.of("Brake (rif)",    ref.x, brR));
 
                 if (hasAnyFinite(ref.clutch)) {
                     List<Double> clR = invert01List(normalize01List(ref.clutch));
-                    addSeries(series, "Clutch (rif)", ref.x, clR, mm);
-                }
-                if (cmp != null) {
-                    List<Double> thC = normalizePercentList(cmp.throttle);
-                    List<Double> brC = normalizePercentList(cmp.brake);
-                    addSeries(series, "Throttle (ghost)", cmp.x, thC, mm);
-                    addSeries(series, "Brake (ghost)",    cmp.x, brC, mm);
-                    if (hasAnyFinite(cmp.clutch)) {
-                        List<Double> clC = invert01List(normalize01List(cmp.clutch));
-                        addSeries(series, "Clutch (ghost)", cmp.x, clC, mm);
-                    }
+                    series.add(TelemetryPlot.Series.of("Clutch (rif)", ref.x, clR));
                 }
             }
-            case STEERING_DIST -> {
-                addSeries(series, "Steering (rif)", ref.x, ref.steering, mm);
-                if (cmp != null) addSeries(series, "Steering (ghost)", cmp.x, cmp.steering, mm);
-            }
-            case RPM_TIME -> {
-                addSeries(series, "RPM (rif)", ref.x, ref.rpm, mm);
-                if (cmp != null) addSeries(series, "RPM (ghost)", cmp.x, cmp.rpm, mm);
-            }
-            case FFB_FORCE -> {
-                addSeries(series, "FFB (rif)", ref.x, ref.ffb, mm);
-                if (cmp != null) addSeries(series, "FFB (ghost)", cmp.x, cmp.ffb, mm);
-            }
+            case STEERING_DIST -> series.add(TelemetryPlot.Series.of("Steering (rif)", ref.x, ref.steering));
+            case RPM_TIME      -> series.add(TelemetryPlot.Series.of("RPM (rif)", ref.x, ref.rpm));
+            case FFB_FORCE     -> series.add(TelemetryPlot.Series.of("FFB (rif)", ref.x, ref.ffb));
 
             default -> {}
         }
+        return series;
+    }
 
-        chart.getData().setAll(series);
-
-        // applica gli stili (palette + ghost + legenda)
-        chart.getData().setAll(series);
-        javafx.application.Platform.runLater(() -> org.simulator.ui.ChartStyles.reapply(chart));
-
+    private static boolean isForce(ChartPane.PlotType pt) {
+        return pt == ChartPane.PlotType.PEDAL_FORCE || pt == ChartPane.PlotType.SEAT_FORCE;
+    }
 
-        ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
-        ((NumberAxis) chart.getYAxis()).setLabel(yLabel);
+    private static String yLabelFor(ChartPane.PlotType pt) {
+        return switch (pt) {
+            case SPEED_DIST     -> "Speed [km/h]";
+            case THR_BRAKE_DIST -> "%";
+            case STEERING_DIST  -> "Angle [deg]";
+            case RPM_TIME       -> "RPM";
+            case FFB_FORCE      -> "FFB (unità CSV)";
+            case PEDAL_FORCE, SEAT_FORCE -> "Force (N)";
 
-        if (mm.valid()){
-            double padX = 0.02 * (mm.xMax - mm.xMin);
-            double padY = 0.02 * (mm.yMax - mm.yMin);
-            ChartInteractions.setDataBounds(chart,
-                    mm.xMin - padX, mm.xMax + padX,
-                    mm.yMin - padY, mm.yMax + padY);
-        } else {
-            ChartInteractions.applyDataBoundsFromSeries(chart);
-        }
+            default             -> "Y";
+        };
     }
 
     public void renderDelta(LineChart<Number,Number> chart,
@@ -141,14 +204,11 @@ public class ChartManager {
             chart.getData().clear();
             return;
         }
-        var dt = org.simulator.ui.DeltaTimeService.delta(
-                SeriesBundle.extract(refLap, axis),
-                SeriesBundle.extract(cmpLap, axis),
-                axis
-        );
+        DeltaEngine.Curve dt = DeltaEngine.bySpeed(refLap, cmpLap, axis);
 
         List<XYChart.Series<Number,Number>> s = new ArrayList<>();
-        addSeries(s, "Δ Lap Time cumul.", dt.x, dt.deltaTime);
+        s.add(SeriesDecimation.series("Δ Lap Time cumul.",
+                Arrays.copyOf(dt.x(), dt.n()), Arrays.copyOf(dt.dt(), dt.n())));
         chart.getData().setAll(s);
 
         // anche qui aggiorniamo stile/legenda
@@ -162,42 +222,23 @@ public class ChartManager {
     }
 
     // ===== helper interni =====
-    private void addSeries(List<XYChart.Series<Number,Number>> col,
-                           String name, List<Double> x, List<Double> y) {
-        addSeries(col, name, x, y, null);
-    }
-
     private static final class MinMax {
         double xMin = Double.POSITIVE_INFINITY, xMax = Double.NEGATIVE_INFINITY;
         double yMin = Double.POSITIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
-        void add(List<Double> x, List<Double> y){
-            int n = Math.min(x.size(), y.size());
-            for (int i=0;i<n;i++){
-                Double xv = x.get(i), yv = y.get(i);
-                if (xv==null || yv==null || xv.isNaN() || yv.isNaN() || xv.isInfinite() || yv.isInfinite()) continue;
-                double xd = xv, yd = yv;
-                if (xd < xMin) xMin = xd; if (xd > xMax) xMax = xd;
-                if (yd < yMin) yMin = yd; if (yd > yMax) yMax = yd;
+        static MinMax of(List<TelemetryPlot.Series> series){
+            MinMax mm = new MinMax();
+            for (TelemetryPlot.Series s : series) {
+                // limiti dalla piramide della serie (la stessa che userà il primo ridisegno)
+                SeriesPyramid p = SeriesPyramid.of(s.x(), s.y());
+                if (p.size() == 0) continue;
+                mm.xMin = Math.min(mm.xMin, p.xMin()); mm.xMax = Math.max(mm.xMax, p.xMax());
+                mm.yMin = Math.min(mm.yMin, p.yMin()); mm.yMax = Math.max(mm.yMax, p.yMax());
             }
+            return mm;
         }
         boolean valid(){ return (xMax > xMin) && (yMax > yMin); }
     }
 
-    private void addSeries(List<XYChart.Series<Number,Number>> col,
-                           String name, List<Double> x, List<Double> y,
-                           MinMax mm) {
-        XYChart.Series<Number,Number> s = new XYChart.Series<>();
-        s.setName(name);
-        int n = Math.min(x.size(), y.size());
-        for (int i=0;i<n;i++) {
-            Double xv = x.get(i), yv = y.get(i);
-            if (xv == null || yv == null || xv.isNaN() || yv.isNaN()) continue;
-            s.getData().add(new XYChart.Data<>(xv, yv));
-        }
-        col.add(s);
-        if (mm != null) mm.add(x, y);
-    }
-
     private static boolean hasAnyFinite(List<Double> a){
         if (a == null) return false;
         for (Double d : a) if (d != null && !d.isNaN() && !d.isInfinite()) return true;
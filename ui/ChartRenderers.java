@@ -1,8 +1,5 @@
 package org.simulator.ui;
 
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
-import javafx.scene.chart.XYChart;
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
 import org.simulator.ui.asix_pack.AxisChoice;
@@ -14,73 +11,80 @@ final class ChartRenderers {
 
     private ChartRenderers() {}
 
-    static void renderPedalForce(LineChart<Number,Number> chart,
-                                 Lap refLap, Lap cmpLap, AxisChoice axis) {
-        chart.getData().clear();
-        ((NumberAxis) chart.getYAxis()).setLabel("Force (N)");
-        ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
-
+    /** Serie forze pedali (brake/throttle/clutch, fallback PEDAL_FORCE) per rif e ghost. */
+    static List<TelemetryPlot.Series> pedalForce(Lap refLap, Lap cmpLap, AxisChoice axis) {
+        List<TelemetryPlot.Series> out = new ArrayList<>();
         int added = 0;
-        added += addForceSeriesIfPresent(chart, refLap, axis, Channel.BRAKE_FORCE,    "Brake force (rif)");
-        added += addForceSeriesIfPresent(chart, refLap, axis, Channel.THROTTLE_FORCE, "Throttle force (rif)");
-        added += addForceSeriesIfPresent(chart, refLap, axis, Channel.CLUTCH_FORCE,   "Clutch force (rif)");
+        added += addForceSeriesIfPresent(out, refLap, axis, Channel.BRAKE_FORCE,    "Brake force (rif)");
+        added += addForceSeriesIfPresent(out, refLap, axis, Channel.THROTTLE_FORCE, "Throttle force (rif)");
+        added += addForceSeriesIfPresent(out, refLap, axis, Channel.CLUTCH_FORCE,   "Clutch force (rif)");
         if (added == 0) {
-            added += addForceSeriesIfPresent(chart, refLap, axis, Channel.PEDAL_FORCE, "Pedal force (rif)");
+            added += addForceSeriesIfPresent(out, refLap, axis, Channel.PEDAL_FORCE, "Pedal force (rif)");
         }
 
         if (cmpLap != null) {
-            addForceSeriesIfPresent(chart, cmpLap, axis, Channel.BRAKE_FORCE,    "Brake force (ghost)");
-            addForceSeriesIfPresent(chart, cmpLap, axis, Channel.THROTTLE_FORCE, "Throttle force (ghost)");
-            addForceSeriesIfPresent(chart, cmpLap, axis, Channel.CLUTCH_FORCE,   "Clutch force (ghost)");
+            addForceSeriesIfPresent(out, cmpLap, axis, Channel.BRAKE_FORCE,    "Brake force (ghost)");
+            addForceSeriesIfPresent(out, cmpLap, axis, Channel.THROTTLE_FORCE, "Throttle force (ghost)");
+            addForceSeriesIfPresent(out, cmpLap, axis, Channel.CLUTCH_FORCE,   "Clutch force (ghost)");
             if (added == 0) {
-                addForceSeriesIfPresent(chart, cmpLap, axis, Channel.PEDAL_FORCE, "Pedal force (ghost)");
+                addForceSeriesIfPresent(out, cmpLap, axis, Channel.PEDAL_FORCE, "Pedal force (ghost)");
             }
         }
+        return out;
     }
 
-    static void renderSeatForce(LineChart<Number,Number> chart,
-                                Lap refLap, Lap cmpLap, AxisChoice axis) {
-        chart.getData().clear();
-        ((NumberAxis) chart.getYAxis()).setLabel("Force (N)");
-        ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
-
+    /** Serie forze sedile (L/R/POST, fallback SEAT_FORCE) per rif e ghost. */
+    static List<TelemetryPlot.Series> seatForce(Lap refLap, Lap cmpLap, AxisChoice axis) {
+        List<TelemetryPlot.Series> out = new ArrayList<>();
         int added = 0;
-        added += addForceSeriesIfPresent(chart, refLap, axis, Channel.SEAT_FORCE_LEFT,  "Seat L (rif)");
-        added += addForceSeriesIfPresent(chart, refLap, axis, Channel.SEAT_FORCE_RIGHT, "Seat R (rif)");
-        added += addForceSeriesIfPresent(chart, refLap, axis, Channel.SEAT_FORCE_REAR,  "Seat POST (rif)");
+        added += addForceSeriesIfPresent(out, refLap, axis, Channel.SEAT_FORCE_LEFT,  "Seat L (rif)");
+        added += addForceSeriesIfPresent(out, refLap, axis, Channel.SEAT_FORCE_RIGHT, "Seat R (rif)");
+        added += addForceSeriesIfPresent(out, refLap, axis, Channel.SEAT_FORCE_REAR,  "Seat POST (rif)");
         if (added == 0) {
-            added += addForceSeriesIfPresent(chart, refLap, axis, Channel.SEAT_FORCE, "Seat (rif)");
+            added += addForceSeriesIfPresent(out, refLap, axis, Channel.SEAT_FORCE, "Seat (rif)");
         }
 
         if (cmpLap != null) {
-            addForceSeriesIfPresent(chart, cmpLap, axis, Channel.SEAT_FORCE_LEFT,  "Seat L (ghost)");
-            addForceSeriesIfPresent(chart, cmpLap, axis, Channel.SEAT_FORCE_RIGHT, "Seat R (ghost)");
-            addForceSeriesIfPresent(chart, cmpLap, axis, Channel.SEAT_FORCE_REAR,  "Seat POST (ghost)");
+            addForceSeriesIfPresent(out, cmpLap, axis, Channel.SEAT_FORCE_LEFT,  "Seat L (ghost)");
+            addForceSeriesIfPresent(out, cmpLap, axis, Channel.SEAT_FORCE_RIGHT, "Seat R (ghost)");
+            addForceSeriesIfPresent(out, cmpLap, axis, Channel.SEAT_FORCE_REAR,  "Seat POST (ghost)");
             if (added == 0) {
-                addForceSeriesIfPresent(chart, cmpLap, axis, Channel.SEAT_FORCE, "Seat (ghost)");
+                addForceSeriesIfPresent(out, cmpLap, axis, Channel.SEAT_FORCE, "Seat (ghost)");
             }
         }
+        return out;
     }
 
 
+    /** Canali letti dai grafici forze (per il prefetch). */
+    static List<Channel> channelsOf(ChartPane.PlotType pt) {
+        return switch (pt) {
+            case PEDAL_FORCE -> List.of(Channel.BRAKE_FORCE, Channel.THROTTLE_FORCE, Channel.CLUTCH_FORCE, Channel.PEDAL_FORCE);
+            case SEAT_FORCE  -> List.of(Channel.SEAT_FORCE_LEFT, Channel.SEAT_FORCE_RIGHT, Channel.SEAT_FORCE_REAR, Channel.SEAT_FORCE);
+            default -> List.of();
+        };
+    }
+
+    /** Serie (x,y) del canale sul giro, vuota se il canale non ha punti; il nome è quello del canale. */
+    static List<TelemetryPlot.Series> forceSeries(Lap lap, AxisChoice axis, Channel ch) {
+        List<Double> xs = new ArrayList<>();
+        List<Double> ys = new ArrayList<>();
+        ChartDataUtils.extractXY(lap, axis, ch, xs, ys);
+        if (ys.isEmpty()) return List.of();
+        return List.of(TelemetryPlot.Series.of(ch.name(), xs, ys));
+    }
+
     // ---- helper locali ----
-    private static int addForceSeriesIfPresent(LineChart<Number,Number> chart,
+    private static int addForceSeriesIfPresent(List<TelemetryPlot.Series> out,
                                                Lap lap,
                                                AxisChoice axis,
                                                Channel ch,
                                                String name) {
         if (lap == null) return 0;
-        List<Double> xs = new ArrayList<>();
-        List<Double> ys = new ArrayList<>();
-        ChartDataUtils.extractXY(lap, axis, ch, xs, ys);
-        if (ys.isEmpty()) return 0;
+        List<TelemetryPlot.Series> s = ChartDataCache.getOrCompute(lap, axis, ch, () -> forceSeries(lap, axis, ch));
+        if (s.isEmpty()) return 0;
 
-        XYChart.Series<Number,Number> s = new XYChart.Series<>();
-        s.setName(name);
-        for (int i = 0; i < xs.size(); i++) {
-            s.getData().add(new XYChart.Data<>(xs.get(i), ys.get(i)));
-        }
-        chart.getData().add(s);
+        out.add(new TelemetryPlot.Series(name, s.get(0).x(), s.get(0).y()));
         return 1;
     }
 }
@@ -15,6 +15,12 @@ public final class ChartStyles {
     private ChartStyles(){}
 
     private static final List<WeakReference<LineChart<Number,Number>>> REG = new ArrayList<>();
+    private static final List<WeakReference<TelemetryPlot>> PLOTS = new ArrayList<>();
+    /** Palette Modena di default (colori serie 0..7 di LineChart), per i grafici su canvas. */
+    private static final Color[] DEFAULT_SERIES = {
+            Color.web("#f3622d"), Color.web("#fba71b"), Color.web("#57b757"), Color.web("#41a9c9"),
+            Color.web("#4258c9"), Color.web("#9a42c8"), Color.web("#c84164"), Color.web("#888888")
+    };
     private static boolean listenersAttached = false;
 
     // ====== API ======
@@ -29,6 +35,42 @@ public final class ChartStyles {
             LineChart<Number,Number> c = w.get();
             if (c != null) reapply(c);
         }
+        PLOTS.removeIf(w -> w.get() == null);
+        for (WeakReference<TelemetryPlot> w : new ArrayList<>(PLOTS)){
+            TelemetryPlot p = w.get();
+            if (p != null) p.redraw();
+        }
+    }
+
+    /** Grafico su canvas: ridisegnato quando cambiano palette/ghost. */
+    public static void register(TelemetryPlot plot){
+        ensureGlobalListeners();
+        PLOTS.add(new WeakReference<>(plot));
+    }
+
+    /**
+     * Colore di una serie per i grafici su canvas, con le stesse regole di {@link #reapply}:
+     * palette base per metrica (o Modena se "colori di default"), colori ghost A/B/C per le serie ghost.
+     */
+    public static Color colorFor(String seriesName, int seriesIdx, int ghostIdx){
+        UiSettings s = UiSettings.get();
+        Color def = DEFAULT_SERIES[Math.floorMod(seriesIdx, DEFAULT_SERIES.length)];
+        if (s.useDefaultColorsProperty().get()) return def;
+        if (ghostIdx > 0) {
+            return switch (ghostIdx) {
+                case 2 -> s.ghostColorBProperty().get();
+                case 3 -> s.ghostColorCProperty().get();
+                default -> s.ghostColorAProperty().get();
+            };
+        }
+        Color c = pickColorForMetric((seriesName == null ? "" : seriesName).toLowerCase(Locale.ROOT), s, false);
+        return c != null ? c : def;
+    }
+
+    /** Opacità delle serie ghost (1 con i colori di default, come i LineChart senza stile). */
+    public static double ghostOpacity(){
+        UiSettings s = UiSettings.get();
+        return s.useDefaultColorsProperty().get() ? 1.0 : s.ghostOpacityProperty().get();
     }
 
     public static void reapply(LineChart<Number,Number> chart){
@@ -2,6 +2,7 @@ package org.simulator.ui;
 
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
 import org.simulator.importCSVFW.CsvImporter;
 
 import java.nio.file.Path;
@@ -16,17 +17,23 @@ public class DataController {
     private final CsvImporter importer = new CsvImporter();
 
     private List<Lap> laps = Collections.emptyList();
+    private SessionIndex sessionIndex = SessionIndex.of(laps);
     private Path csvPath;
     private final Map<Integer, List<Double>> sectorMarksPerLap = new HashMap<>();
 
     public void load(Path path, Map<String, Channel> mapping) throws Exception {
         this.csvPath = path;
-        this.laps = importer.importFile(path, mapping);
+        // sessioni già aperte (anche da altre viste) riusate dal pool, senza rileggere il CSV
+        SessionPool.Session s = SessionPool.load(path, mapping, p -> importer.importFile(p, mapping));
+        this.laps = (s == null) ? null : s.laps();
+        this.sessionIndex = (s == null) ? SessionIndex.of(laps) : s.index();
         sectorMarksPerLap.clear();
 
     }
 
     public List<Lap> getLaps() { return laps; }
+    /** Validità/mediane della sessione caricata (calcolate una volta al load). */
+    public SessionIndex getSessionIndex() { return sessionIndex; }
     public Path getCsvPath() { return csvPath; }
     public Lap byIndex(int idx) {
         return laps.stream().filter(l -> l.index == idx).findFirst().orElse(null);
@@ -0,0 +1,228 @@
+package org.simulator.ui;
+
+import org.simulator.canale.Channel;
+import org.simulator.canale.Lap;
+import org.simulator.canale.LapFrame;
+import org.simulator.diagnostica.Metrics;
+import org.simulator.ui.asix_pack.AxisChoice;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Delta tempo fra due giri su array primitivi, condiviso da grafico Δ (Analysis), {@code DeltaAligner}
+ * e coach di confronto sessioni.
+ *
+ * Le tracce per giro (ascissa dell'asse scelto + velocità, % giro) sono estratte una volta e memorizzate
+ * sul giro ({@link Lap#derived}); il confronto fra due giri è un merge O(n+m) con puntatori che avanzano,
+ * senza allocazioni per punto.
+ */
+public final class DeltaEngine {
+    private DeltaEngine(){}
+
+    private static final Object KEY_PERCENT = new Object();
+    private static final Metrics.Timer BY_SPEED = Metrics.timer("chart.delta");
+
+    /** Curva Δt: i primi {@code n} elementi di {@code x} (crescente) e {@code dt}. */
+    public record Curve(double[] x, double[] dt, int n) {
+        public static final Curve EMPTY = new Curve(new double[0], new double[0], 0);
+
+        /** Δt interpolato all'ascissa (fuori range → primo/ultimo valore, NaN se vuota). */
+        public double at(double xq) {
+            if (n == 0) return Double.NaN;
+            if (xq <= x[0]) return dt[0];
+            if (xq >= x[n - 1]) return dt[n - 1];
+            int lo = 0, hi = n - 1;
+            while (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                if (x[mid] >= xq) hi = mid; else lo = mid;
+            }
+            double den = x[hi] - x[lo];
+            if (den <= 0) return dt[lo];
+            double u = (xq - x[lo]) / den;
+            return dt[lo] + u * (dt[hi] - dt[lo]);
+        }
+
+        /** Escursione (max-min) dei valori finiti, NaN se nessuno. */
+        public double span() {
+            double mn = Double.POSITIVE_INFINITY, mx = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                double v = dt[i];
+                if (Double.isFinite(v)) { if (v < mn) mn = v; if (v > mx) mx = v; }
+            }
+            return Double.isFinite(mn) ? mx - mn : Double.NaN;
+        }
+    }
+
+    /** Ascissa dell'asse (come {@link SeriesBundle#extract}) e velocità, ordinate per x. */
+    private record SpeedTrace(double[] x, double[] v, double min, double max) {}
+
+    // ===================== Δt integrato dalla velocità (grafico Δ) =====================
+
+    /**
+     * Δt cumulato ref-cmp integrando la velocità su una griglia regolare dell'asse
+     * (1 m sulla distanza, 20 ms sul tempo), nel tratto comune ai due giri.
+     */
+    public static Curve bySpeed(Lap ref, Lap cmp, AxisChoice axis) {
+        try (Metrics.Span t = BY_SPEED.start()) {
+            Curve c = integrate(ref, cmp, axis);
+            t.items(c.n());
+            return c;
+        }
+    }
+
+    private static Curve integrate(Lap ref, Lap cmp, AxisChoice axis) {
+        SpeedTrace a = speedTrace(ref, axis), b = speedTrace(cmp, axis);
+        double step = axis.useDist ? 1.0 : (axis.useLapTime || axis.useAbsTime ? 0.02 : 1.0);
+        double minX = Math.max(a.min, b.min);
+        double maxX = Math.min(a.max, b.max);
+
+        int n = 0;
+        for (double x = minX; x <= maxX; x += step) n++;
+        if (n == 0) return Curve.EMPTY;
+
+        double[] xs = new double[n], out = new double[n];
+        int ja = 0, jb = 0, i = 0;
+        double acc = 0.0;
+        for (double x = minX; x <= maxX && i < n; x += step, i++) {
+            ja = advance(a.x, x, ja);
+            jb = advance(b.x, x, jb);
+            double va = sampleAt(a.x, a.v, x, ja), vb = sampleAt(b.x, b.v, x, jb);
+            if (!(va > 0) || !(vb > 0)) { xs[i] = x; out[i] = acc; continue; }   // NaN o ferma
+            if (axis.useDist) {
+                acc += (1.0 / (va / 3.6) - 1.0 / (vb / 3.6)) * step;
+            } else {
+                acc += (va - vb) / Math.max(va, vb) * step;
+            }
+            xs[i] = x; out[i] = acc;
+        }
+        return new Curve(xs, out, i);
+    }
+
+    private static SpeedTrace speedTrace(Lap lap, AxisChoice axis) {
+        List<Object> key = List.of(SpeedTrace.class, axis.useDist, axis.useLapTime, axis.useAbsTime);
+        return lap.derived(key, l -> buildSpeedTrace(l.frame(), axis));
+    }
+
+    private static SpeedTrace buildSpeedTrace(LapFrame f, AxisChoice axis) {
+        int n = f.size();
+        double[] lt = f.column(Channel.LAP_TIME), tm = f.column(Channel.TIME), sp = f.column(Channel.SPEED);
+        double[] dist = f.distances();
+
+        double d0 = Double.NaN, lt0 = Double.NaN, t0 = Double.NaN;
+        for (int i = 0; i < n; i++) {
+            if (axis.useDist && Double.isNaN(d0) && !Double.isNaN(dist[i])) d0 = dist[i];
+            if (axis.useLapTime && Double.isNaN(lt0) && lt != null && !Double.isNaN(lt[i])) lt0 = lt[i];
+            if (axis.useAbsTime && Double.isNaN(t0) && tm != null && !Double.isNaN(tm[i])) t0 = tm[i];
+        }
+        double[] x = new double[n], v = new double[n];
+        for (int i = 0; i < n; i++) {
+            double xv;
+            if (axis.useDist && !Double.isNaN(dist[i])) xv = dist[i] - (Double.isNaN(d0) ? 0 : d0);
+            else if (axis.useLapTime) {
+                double c = lt == null ? Double.NaN : lt[i];
+                xv = !Double.isNaN(c) ? c - (Double.isNaN(lt0) ? 0 : lt0) : i;
+            } else if (axis.useAbsTime) {
+                double c = tm == null ? Double.NaN : tm[i];
+                xv = !Double.isNaN(c) ? c - (Double.isNaN(t0) ? 0 : t0) : i;
+            } else xv = i;
+            x[i] = xv;
+            v[i] = sp == null ? Double.NaN : sp[i];
+        }
+
+        // ordinamento per x solo se serve (stabile, una volta per giro)
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++) if (Double.compare(x[i - 1], x[i]) > 0) sorted = false;
+        if (!sorted) {
+            int[] order = IntStream.range(0, n).boxed()
+                    .sorted((p, q) -> Double.compare(x[p], x[q]))
+                    .mapToInt(Integer::intValue).toArray();
+            double[] xs = new double[n], vs = new double[n];
+            for (int i = 0; i < n; i++) { xs[i] = x[order[i]]; vs[i] = v[order[i]]; }
+            return trace(xs, vs);
+        }
+        return trace(x, v);
+    }
+
+    private static SpeedTrace trace(double[] x, double[] v) {
+        double mn = Double.POSITIVE_INFINITY, mx = Double.NEGATIVE_INFINITY;
+        for (double d : x) if (!Double.isNaN(d)) { if (d < mn) mn = d; if (d > mx) mx = d; }
+        if (mn > mx) { mn = Double.NaN; mx = Double.NaN; }
+        return new SpeedTrace(x, v, mn, mx);
+    }
+
+    /** Avanza il puntatore finché xs[j+1] < q (griglia crescente: j non torna mai indietro). */
+    private static int advance(double[] xs, double q, int j) {
+        int n = xs.length;
+        while (j < n - 1 && xs[j + 1] < q) j++;
+        return j;
+    }
+
+    /** Interpolazione lineare al segmento j; NaN fuori range o su segmento degenere. */
+    private static double sampleAt(double[] xs, double[] ys, double q, int j) {
+        int n = xs.length;
+        if (n == 0 || q < xs[0] || q > xs[n - 1]) return Double.NaN;
+        int k = Math.min(j + 1, n - 1);
+        double x1 = xs[j], x2 = xs[k];
+        if (x2 == x1) return Double.NaN;
+        double t = (q - x1) / (x2 - x1);
+        return ys[j] + t * (ys[k] - ys[j]);
+    }
+
+    // ===================== Δt per allineamento delle ascisse =====================
+
+    /**
+     * Δt cumulato (tempo cmp − tempo ref) sulle ascisse di ref: per ogni punto di ref (ascissa
+     * non decrescente) il tempo di cmp è interpolato alla stessa ascissa. Punti non finiti saltati.
+     */
+    public static Curve align(double[] ax, double[] at, double[] bx, double[] bt) {
+        int n = Math.min(ax.length, at.length);
+        int m = Math.min(bx.length, bt.length);
+        if (n < 2 || m < 2) return Curve.EMPTY;
+
+        double[] xs = new double[n], out = new double[n];
+        int k = 0, j = 0;
+        double prevAx = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double x = ax[i];
+            if (!Double.isFinite(x)) continue;
+            // richiede x monotono NON decrescente: se non lo è, salta il punto
+            if (x < prevAx) continue;
+            prevAx = x;
+
+            // porta j in modo che bx[j] <= x <= bx[j+1], evitando segmenti piatti
+            while (j + 1 < m && (!Double.isFinite(bx[j + 1]) || bx[j + 1] < x)) j++;
+            if (j >= m - 1) j = m - 2;
+            double x0 = bx[j], x1 = bx[j + 1];
+            if (!Double.isFinite(x0) || !Double.isFinite(x1) || x1 <= x0) continue;
+
+            double tA = at[i];
+            if (!Double.isFinite(tA)) continue;
+            double t0 = bt[j], t1 = bt[j + 1];
+            if (!Double.isFinite(t0) || !Double.isFinite(t1)) continue;
+
+            double u = (x - x0) / (x1 - x0);
+            if (u < 0) u = 0; else if (u > 1) u = 1;
+            double tB = t0 + u * (t1 - t0);
+            if (!Double.isFinite(tB)) continue;
+
+            xs[k] = x; out[k] = tB - tA; k++;
+        }
+        return new Curve(xs, out, k);
+    }
+
+    /** Distanza normalizzata sulla distanza dell'ultimo campione (0..1), memorizzata sul giro. */
+    public static double[] percentOfLap(Lap lap) {
+        return lap.derived(KEY_PERCENT, l -> percentOf(l.frame().distances()));
+    }
+
+    static double[] percentOf(double[] dist) {
+        int n = dist.length;
+        double[] p = new double[n];
+        if (n == 0) return p;
+        double len = dist[n - 1];
+        if (!Double.isFinite(len) || len <= 0) len = 1.0;
+        for (int i = 0; i < n; i++) p[i] = dist[i] / len;
+        return p;
+    }
+}
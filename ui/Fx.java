@@ -3,7 +3,10 @@ package org.simulator.ui;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
+import javafx.geometry.Insets;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 
@@ -48,6 +51,23 @@ public final class Fx {
         return box;
     }
 
+    /** Segnaposto "calcolo in corso" per i pannelli riempiti da {@link AnalysisScheduler}. */
+    public static Node pending() {
+        ProgressIndicator pi = new ProgressIndicator();
+        pi.setPrefSize(16, 16);
+        HBox box = new HBox(8, pi, new Label("Calcolo in corso…"));
+        box.setPadding(new Insets(8));
+        return box;
+    }
+
+    /** Sostituisce {@link #pending()} quando il calcolo sul worker non è riuscito. */
+    public static Node failed() {
+        Label l = new Label("Calcolo non riuscito: n/d");
+        l.setStyle("-fx-text-fill:#8a6d3b;");
+        l.setPadding(new Insets(8));
+        return l;
+    }
+
     private static String formatNumber(Number n) {
         if (n == null) return "-";
         double d = n.doubleValue();
@@ -3,6 +3,7 @@ package org.simulator.ui;
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
 import org.simulator.canale.Sample;
+import org.simulator.diagnostica.Metrics;
 import org.simulator.ui.asix_pack.AxisChoice;
 
 import java.util.ArrayList;
@@ -20,9 +21,17 @@ public final class SeriesBundle {
     public final List<Double> pedalForce = new ArrayList<>();
     public final List<Double> seatForce  = new ArrayList<>();
 
-    private static final int DOWNSAMPLE_THRESHOLD = 50_000;
+    private static final Metrics.Timer EXTRACT = Metrics.timer("chart.extract");
 
     public static SeriesBundle extract(Lap lap, AxisChoice axis) {
+        try (Metrics.Span t = EXTRACT.start()) {
+            SeriesBundle sb = extractSeries(lap, axis);
+            t.items(sb.x.size());
+            return sb;
+        }
+    }
+
+    private static SeriesBundle extractSeries(Lap lap, AxisChoice axis) {
         SeriesBundle sb = new SeriesBundle();
         double d0 = Double.NaN, lt0 = Double.NaN, t0 = Double.NaN;
 
@@ -78,29 +87,9 @@ public final class SeriesBundle {
             idx++;
         }
 
-        if (sb.x.size() > DOWNSAMPLE_THRESHOLD) {
-            int step = (int) Math.ceil(sb.x.size() / (double) DOWNSAMPLE_THRESHOLD);
-            sb = downsample(sb, step);
-        }
+        // nessuna decimazione qui: la fa SeriesDecimation in base a pixel e zoom del grafico
         return sb;
     }
-
-    private static SeriesBundle downsample(SeriesBundle sb, int step) {
-        SeriesBundle o = new SeriesBundle();
-        for (int i = 0; i < sb.x.size(); i += step) {
-            o.x.add(sb.x.get(i));
-            o.speed.add(sb.speed.get(i));
-            o.throttle.add(sb.throttle.get(i));
-            o.brake.add(sb.brake.get(i));
-            o.clutch.add(sb.clutch.get(i));
-            o.steering.add(sb.steering.get(i));
-            o.rpm.add(sb.rpm.get(i));
-            o.ffb.add(sb.ffb.get(i));
-            o.pedalForce.add(sb.pedalForce.get(i));
-            o.seatForce.add(sb.seatForce.get(i));
-        }
-        return o;
-    }
     // ---- helpers percentuali robusti 0..1 ----
     private static double norm01Percent(Double v){
         if (v == null || v.isNaN() || v.isInfinite()) return Double.NaN;
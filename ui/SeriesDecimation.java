@@ -0,0 +1,285 @@
+package org.simulator.ui;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Decimazione delle serie dei grafici: ogni serie tiene i dati completi (punti finiti) e mostra nel
+ * {@link LineChart} solo i punti utili per la larghezza in pixel e il range X correnti.
+ * Su zoom/pan/resize ({@link ChartInteractions}) i punti vengono ricalcolati.
+ *
+ * Modi: {@link Mode#MIN_MAX} (default) tiene min e max di ogni colonna di pixel, quindi picchi freno e
+ * minimi di velocità restano esatti; {@link Mode#LTTB} (Largest-Triangle-Three-Buckets) dà una linea
+ * più fedele alla forma con un numero fisso di punti.
+ *
+ * Con x non decrescente (il caso normale: distanza o tempo) il range visibile si trova per ricerca
+ * binaria e le colonne di pixel del {@link Mode#MIN_MAX} si leggono dalla {@link SeriesPyramid}
+ * della serie: O(pixel·log n) per ridisegno invece di O(punti visibili), a parità di punti scelti.
+ */
+public final class SeriesDecimation {
+    private SeriesDecimation(){}
+
+    public enum Mode { LTTB, MIN_MAX }
+
+    private static final String KEY_MODE    = "tc.decimationMode";
+    private static final String KEY_PENDING = "tc.decimationPending";
+    /** Larghezza ipotizzata prima del primo layout. */
+    private static final int DEFAULT_WIDTH_PX = 1000;
+    /** Punti per pixel: min+max per colonna. */
+    private static final int POINTS_PER_PX = 2;
+
+    private static final Map<XYChart.Series<Number,Number>, Full> FULL = new WeakHashMap<>();
+
+    /** Dati completi di una serie + ultima vista decimata (per non ricalcolare a vuoto). */
+    private static final class Full {
+        final double[] x, y;
+        double lo = Double.NaN, hi = Double.NaN; int px = -1; Mode mode;
+        Full(double[] x, double[] y){ this.x = x; this.y = y; }
+    }
+
+    // ===== API =====
+
+    /** Crea una serie decimata dai punti (x,y); i NaN/infiniti vengono scartati. */
+    public static XYChart.Series<Number,Number> series(String name, List<Double> x, List<Double> y) {
+        TelemetryPlot.Series s = TelemetryPlot.Series.of(name, x, y);
+        return series(name, s.x(), s.y());
+    }
+
+    /** Crea una serie decimata da array già filtrati (solo valori finiti). */
+    public static XYChart.Series<Number,Number> series(String name, double[] x, double[] y) {
+        XYChart.Series<Number,Number> s = new XYChart.Series<>();
+        s.setName(name);
+        Full f = new Full(x, y);
+        FULL.put(s, f);
+        apply(s, f, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, DEFAULT_WIDTH_PX, Mode.MIN_MAX);
+        return s;
+    }
+
+    /** Copia (dati completi) di una serie, per altri grafici (es. schermo intero). */
+    static XYChart.Series<Number,Number> copyOf(XYChart.Series<Number,Number> src) {
+        Full f = FULL.get(src);
+        if (f == null) return null;
+        return series(src.getName(), f.x, f.y);
+    }
+
+    /** Limiti {xMin, xMax, yMin, yMax} dei dati completi (dalla piramide), null se la serie non è decimata. */
+    static double[] extents(XYChart.Series<Number,Number> s) {
+        Full f = FULL.get(s);
+        if (f == null) return null;
+        SeriesPyramid p = SeriesPyramid.of(f.x, f.y);
+        return new double[]{ p.xMin(), p.xMax(), p.yMin(), p.yMax() };
+    }
+
+    public static void setMode(LineChart<Number,Number> chart, Mode mode) {
+        chart.getProperties().put(KEY_MODE, mode);
+        refresh(chart);
+    }
+
+    public static Mode modeOf(LineChart<Number,Number> chart) {
+        Object o = chart.getProperties().get(KEY_MODE);
+        return (o instanceof Mode m) ? m : Mode.MIN_MAX;
+    }
+
+    /** Ricalcola le serie al prossimo pulse (zoom/pan ravvicinati vengono accorpati). */
+    static void scheduleRefresh(LineChart<Number,Number> chart) {
+        if (chart.getProperties().put(KEY_PENDING, Boolean.TRUE) != null) return;
+        Platform.runLater(() -> { chart.getProperties().remove(KEY_PENDING); refresh(chart); });
+    }
+
+    /** Ricalcola i punti visibili di tutte le serie del grafico (range X corrente, larghezza in pixel). */
+    public static void refresh(LineChart<Number,Number> chart) {
+        NumberAxis ax = (NumberAxis) chart.getXAxis();
+        double lo = ax.isAutoRanging() ? Double.NEGATIVE_INFINITY : ax.getLowerBound();
+        double hi = ax.isAutoRanging() ? Double.POSITIVE_INFINITY : ax.getUpperBound();
+        int px = plotWidth(chart);
+        Mode mode = modeOf(chart);
+        for (XYChart.Series<Number,Number> s : chart.getData()) {
+            Full f = FULL.get(s);
+            if (f != null) apply(s, f, lo, hi, px, mode);
+        }
+    }
+
+    // ===== decimazione =====
+
+    /**
+     * Indici dei punti da mostrare per il range [lo,hi] (più un punto oltre ogni bordo, così la linea
+     * arriva ai margini) su {@code px} colonne di pixel.
+     */
+    static int[] select(double[] x, double[] y, double lo, double hi, int px, Mode mode) {
+        int n = x.length;
+        if (n == 0) return new int[0];
+        SeriesPyramid p = SeriesPyramid.of(x, y);
+        int from = 0, to = n;
+        if (lo > Double.NEGATIVE_INFINITY || hi < Double.POSITIVE_INFINITY) {
+            int first = -1, last = -1;
+            if (p.sorted()) {
+                first = lowerBound(x, lo);
+                last = upperBound(x, hi) - 1;
+                if (first > last) first = -1;
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (x[i] >= lo && x[i] <= hi) { if (first < 0) first = i; last = i; }
+                }
+            }
+            if (first < 0) return new int[0];
+            from = Math.max(0, first - 1);
+            to = Math.min(n, last + 2);
+        }
+        px = Math.max(2, px);
+        if (to - from <= px * POINTS_PER_PX) return range(from, to);
+        if (mode == Mode.LTTB) return lttb(x, y, from, to, px * POINTS_PER_PX);
+        boolean byX = x[to - 1] > x[from];
+        // colonne contigue di indici (x ordinata, o per indice): dalla piramide
+        return (p.sorted() || !byX) ? minMaxPyramid(p, x, y, from, to, px) : minMax(x, y, from, to, px);
+    }
+
+    /**
+     * Come {@link #minMax} (stessi indici in uscita) per colonne contigue: i confini di colonna si trovano
+     * per ricerca binaria e min/max di ogni colonna vengono dalla piramide.
+     */
+    private static int[] minMaxPyramid(SeriesPyramid p, double[] x, double[] y, int from, int to, int px) {
+        double x0 = x[from], x1 = x[to - 1];
+        boolean byX = x1 > x0;
+        double scale = byX ? px / (x1 - x0) : px / (double) (to - from);
+
+        int[] out = new int[2 * px + 4];
+        int k = 0;
+        out[k++] = from;
+        for (int i = from + 1; i < to - 1; ) {
+            int b = bucket(x, i, from, x0, scale, byX);
+            // primo indice della colonna successiva (la colonna è monotona nell'indice)
+            int l = i + 1, r = to - 1;
+            while (l < r) {
+                int m = (l + r) >>> 1;
+                if (bucket(x, m, from, x0, scale, byX) > b) r = m; else l = m + 1;
+            }
+            if (k + 3 >= out.length) out = Arrays.copyOf(out, out.length * 2);
+            k = flush(out, k, p.argMin(y, i, l), p.argMax(y, i, l));
+            i = l;
+        }
+        out[k++] = to - 1;
+        return Arrays.copyOf(out, k);
+    }
+
+    private static int bucket(double[] x, int i, int from, double x0, double scale, boolean byX) {
+        return (int) (byX ? (x[i] - x0) * scale : (i - from) * scale);
+    }
+
+    /** Primo indice con x ≥ v (x non decrescente). */
+    private static int lowerBound(double[] x, double v) {
+        int l = 0, r = x.length;
+        while (l < r) { int m = (l + r) >>> 1; if (x[m] < v) l = m + 1; else r = m; }
+        return l;
+    }
+
+    /** Primo indice con x > v (x non decrescente). */
+    private static int upperBound(double[] x, double v) {
+        int l = 0, r = x.length;
+        while (l < r) { int m = (l + r) >>> 1; if (x[m] <= v) l = m + 1; else r = m; }
+        return l;
+    }
+
+    /** Min e max (in ordine di indice) per ogni colonna di pixel; primo e ultimo punto sempre tenuti. */
+    private static int[] minMax(double[] x, double[] y, int from, int to, int px) {
+        double x0 = x[from], x1 = x[to - 1];
+        boolean byX = x1 > x0;
+        double scale = byX ? px / (x1 - x0) : px / (double) (to - from);
+
+        int[] out = new int[2 * px + 4];
+        int k = 0;
+        out[k++] = from;
+        int bucket = Integer.MIN_VALUE, iMin = -1, iMax = -1;
+        for (int i = from + 1; i < to - 1; i++) {
+            int b = (int) (byX ? (x[i] - x0) * scale : (i - from) * scale);
+            if (b != bucket) {
+                if (k + 2 >= out.length) out = Arrays.copyOf(out, out.length * 2); // x non monotona
+                k = flush(out, k, iMin, iMax);
+                bucket = b; iMin = iMax = i;
+            } else {
+                if (y[i] < y[iMin]) iMin = i;
+                if (y[i] > y[iMax]) iMax = i;
+            }
+        }
+        if (k + 3 >= out.length) out = Arrays.copyOf(out, k + 3);
+        k = flush(out, k, iMin, iMax);
+        out[k++] = to - 1;
+        return Arrays.copyOf(out, k);
+    }
+
+    private static int flush(int[] out, int k, int iMin, int iMax) {
+        if (iMin < 0) return k;
+        int a = Math.min(iMin, iMax), b = Math.max(iMin, iMax);
+        out[k++] = a;
+        if (b != a) out[k++] = b;
+        return k;
+    }
+
+    /** Largest-Triangle-Three-Buckets su [from,to) con {@code threshold} punti in uscita. */
+    private static int[] lttb(double[] x, double[] y, int from, int to, int threshold) {
+        int n = to - from;
+        int[] out = new int[threshold];
+        int k = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        out[k++] = a;
+        for (int i = 0; i < threshold - 2; i++) {
+            // media del bucket successivo
+            int avgStart = from + (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) Math.floor((i + 2) * every) + 1, to);
+            double avgX = 0, avgY = 0;
+            int len = avgEnd - avgStart;
+            if (len <= 0) { avgX = x[to - 1]; avgY = y[to - 1]; }
+            else {
+                for (int j = avgStart; j < avgEnd; j++) { avgX += x[j]; avgY += y[j]; }
+                avgX /= len; avgY /= len;
+            }
+
+            // punto del bucket corrente che forma il triangolo più grande con a e la media
+            int rangeStart = from + (int) Math.floor(i * every) + 1;
+            int rangeEnd = Math.min(from + (int) Math.floor((i + 1) * every) + 1, to - 1);
+            double ax = x[a], ay = y[a], maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - x[j]) * (avgY - ay));
+                if (area > maxArea) { maxArea = area; next = j; }
+            }
+            out[k++] = next;
+            a = next;
+        }
+        out[k++] = to - 1;
+        return Arrays.copyOf(out, k);
+    }
+
+    // ===== helper =====
+
+    private static void apply(XYChart.Series<Number,Number> s, Full f, double lo, double hi, int px, Mode mode) {
+        if (lo == f.lo && hi == f.hi && px == f.px && mode == f.mode) return;
+        f.lo = lo; f.hi = hi; f.px = px; f.mode = mode;
+
+        int[] keep = select(f.x, f.y, lo, hi, px, mode);
+        List<XYChart.Data<Number,Number>> pts = new ArrayList<>(keep.length);
+        for (int i : keep) pts.add(new XYChart.Data<>(f.x[i], f.y[i]));
+        s.getData().setAll(pts);
+    }
+
+    private static int plotWidth(LineChart<Number,Number> chart) {
+        Node plot = chart.lookup(".chart-plot-background");
+        double w = (plot != null) ? plot.getBoundsInLocal().getWidth() : chart.getWidth();
+        return (w > 1) ? (int) Math.ceil(w) : DEFAULT_WIDTH_PX;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] r = new int[to - from];
+        for (int i = 0; i < r.length; i++) r[i] = from + i;
+        return r;
+    }
+}
@@ -0,0 +1,126 @@
+package org.simulator.ui;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Piramide min/max di una serie (x,y) per la decimazione dei grafici: al livello k ogni blocco copre
+ * 2^k punti consecutivi e tiene l'indice del minimo e del massimo di y (il primo a parità, come una
+ * scansione da sinistra). Min/max di un intervallo di indici si leggono da O(log n) blocchi allineati,
+ * scegliendo ogni volta il livello più alto che ci sta: il costo del ridisegno dipende dai pixel,
+ * non dai punti visibili.
+ *
+ * Costruita una volta per array alla prima richiesta (memo debole sull'array y); tiene anche i limiti
+ * completi della serie, così i limiti dati dei grafici non ripercorrono i punti.
+ */
+final class SeriesPyramid {
+
+    /** Chiave: l'array y (identità). La piramide non tiene riferimenti forti a x/y. */
+    private static final Map<double[], SeriesPyramid> MEMO = new WeakHashMap<>();
+
+    private final WeakReference<double[]> xRef;
+    private final int n;
+    /** levels[k-1][j] = indice del min/max del blocco j al livello k (blocchi di 2^k punti). */
+    private final int[][] minIdx, maxIdx;
+    private final boolean sorted;
+    private final double xMin, xMax, yMin, yMax;
+
+    private SeriesPyramid(double[] x, double[] y) {
+        this.xRef = new WeakReference<>(x);
+        this.n = Math.min(x.length, y.length);
+
+        int levels = 0;
+        while ((1L << levels) < n) levels++;
+        minIdx = new int[levels][];
+        maxIdx = new int[levels][];
+        int[] pMin = null, pMax = null;
+        for (int k = 1; k <= levels; k++) {
+            int blocks = (int) ((n + (1L << k) - 1) >> k);
+            int[] mn = new int[blocks], mx = new int[blocks];
+            for (int j = 0; j < blocks; j++) {
+                int l = 2 * j, r = 2 * j + 1;
+                if (k == 1) {
+                    // livello 1 dai punti: l, r sono indici diretti
+                    if (r >= n) { mn[j] = mx[j] = l; continue; }
+                    mn[j] = y[r] < y[l] ? r : l;
+                    mx[j] = y[r] > y[l] ? r : l;
+                } else {
+                    if (r >= pMin.length) { mn[j] = pMin[l]; mx[j] = pMax[l]; continue; }
+                    mn[j] = y[pMin[r]] < y[pMin[l]] ? pMin[r] : pMin[l];
+                    mx[j] = y[pMax[r]] > y[pMax[l]] ? pMax[r] : pMax[l];
+                }
+            }
+            minIdx[k - 1] = mn; maxIdx[k - 1] = mx;
+            pMin = mn; pMax = mx;
+        }
+
+        boolean s = true;
+        double x0 = Double.POSITIVE_INFINITY, x1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double v = x[i];
+            if (v < x0) x0 = v;
+            if (v > x1) x1 = v;
+            if (i > 0 && x[i - 1] > v) s = false;
+        }
+        this.sorted = s;
+        this.xMin = x0; this.xMax = x1;
+        if (n == 0) { yMin = Double.POSITIVE_INFINITY; yMax = Double.NEGATIVE_INFINITY; }
+        else if (levels == 0) { yMin = yMax = y[0]; }
+        else { yMin = y[pMin[0]]; yMax = y[pMax[0]]; }
+    }
+
+    /** Piramide della serie (dalla memo, costruita alla prima richiesta). */
+    static SeriesPyramid of(double[] x, double[] y) {
+        synchronized (MEMO) {
+            SeriesPyramid p = MEMO.get(y);
+            if (p != null && p.xRef.get() == x) return p;
+        }
+        SeriesPyramid p = new SeriesPyramid(x, y);
+        synchronized (MEMO) {
+            MEMO.put(y, p);
+        }
+        return p;
+    }
+
+    int size() { return n; }
+
+    /** x non decrescente: intervalli e colonne di pixel per ricerca binaria. */
+    boolean sorted() { return sorted; }
+
+    double xMin() { return xMin; }
+    double xMax() { return xMax; }
+    double yMin() { return yMin; }
+    double yMax() { return yMax; }
+
+    /** Indice del minimo di y in [a,b) (il primo a parità), -1 se vuoto. */
+    int argMin(double[] y, int a, int b) {
+        int best = -1;
+        while (a < b) {
+            int k = level(a, b);
+            int c = (k == 0) ? a : minIdx[k - 1][a >> k];
+            if (best < 0 || y[c] < y[best]) best = c;
+            a += 1 << k;
+        }
+        return best;
+    }
+
+    /** Indice del massimo di y in [a,b) (il primo a parità), -1 se vuoto. */
+    int argMax(double[] y, int a, int b) {
+        int best = -1;
+        while (a < b) {
+            int k = level(a, b);
+            int c = (k == 0) ? a : maxIdx[k - 1][a >> k];
+            if (best < 0 || y[c] > y[best]) best = c;
+            a += 1 << k;
+        }
+        return best;
+    }
+
+    /** Livello più alto con un blocco allineato che parte da a e non supera b. */
+    private int level(int a, int b) {
+        int k = Math.min(Integer.numberOfTrailingZeros(a), minIdx.length);
+        while (k > 0 && a + (1 << k) > b) k--;
+        return k;
+    }
+}
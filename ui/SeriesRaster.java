@@ -0,0 +1,82 @@
+package org.simulator.ui;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.List;
+
+/**
+ * Rasterizza serie (x,y) in una {@link WritableImage} senza nodi della scena: usabile da un worker
+ * (miniature dei giri). Per ogni serie si disegnano solo i punti scelti da {@link SeriesDecimation}
+ * (min/max per colonna di pixel), quindi il costo dipende dalla larghezza dell'immagine.
+ */
+final class SeriesRaster {
+    private SeriesRaster(){}
+
+    /** Immagine w×h a sfondo trasparente; {@code colors[i]} per la serie i, limiti con margine {@code pad}. */
+    static WritableImage render(List<TelemetryPlot.Series> series, Color[] colors, int w, int h, double pad) {
+        w = Math.max(1, w); h = Math.max(1, h);
+        int[] argb = new int[w * h];
+
+        double xMin = Double.POSITIVE_INFINITY, xMax = Double.NEGATIVE_INFINITY;
+        double yMin = Double.POSITIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
+        for (TelemetryPlot.Series s : series) {
+            SeriesPyramid p = SeriesPyramid.of(s.x(), s.y());
+            if (p.size() == 0) continue;
+            xMin = Math.min(xMin, p.xMin()); xMax = Math.max(xMax, p.xMax());
+            yMin = Math.min(yMin, p.yMin()); yMax = Math.max(yMax, p.yMax());
+        }
+        if (xMax >= xMin && yMax >= yMin) {
+            // canale costante o punto singolo: intervallo allargato attorno al valore, come in TelemetryPlot
+            if (xMax == xMin) { double d = TelemetryPlot.flatPad(xMin); xMin -= d; xMax += d; }
+            if (yMax == yMin) { double d = TelemetryPlot.flatPad(yMin); yMin -= d; yMax += d; }
+            double py = pad * (yMax - yMin);
+            yMin -= py; yMax += py;
+            double sx = (w - 1) / (xMax - xMin), sy = (h - 1) / (yMax - yMin);
+            for (int k = 0; k < series.size(); k++) {
+                TelemetryPlot.Series s = series.get(k);
+                int c = toArgb(colors[Math.min(k, colors.length - 1)]);
+                int[] keep = SeriesDecimation.select(s.x(), s.y(), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                        w, SeriesDecimation.Mode.MIN_MAX);
+                int px0 = -1, py0 = -1;
+                for (int i : keep) {
+                    int px1 = (int) Math.round((s.x()[i] - xMin) * sx);
+                    int py1 = (int) Math.round((yMax - s.y()[i]) * sy);
+                    if (px0 >= 0) line(argb, w, h, px0, py0, px1, py1, c);
+                    px0 = px1; py0 = py1;
+                }
+            }
+        }
+
+        WritableImage img = new WritableImage(w, h);
+        img.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbInstance(), argb, 0, w);
+        return img;
+    }
+
+    /** Segmento di Bresenham, spessore 2 px in verticale. */
+    private static void line(int[] argb, int w, int h, int x0, int y0, int x1, int y1, int c) {
+        int dx = Math.abs(x1 - x0), dy = -Math.abs(y1 - y0);
+        int sx = x0 < x1 ? 1 : -1, sy = y0 < y1 ? 1 : -1;
+        int err = dx + dy;
+        while (true) {
+            plot(argb, w, h, x0, y0, c);
+            plot(argb, w, h, x0, y0 + 1, c);
+            if (x0 == x1 && y0 == y1) return;
+            int e2 = 2 * err;
+            if (e2 >= dy) { err += dy; x0 += sx; }
+            if (e2 <= dx) { err += dx; y0 += sy; }
+        }
+    }
+
+    private static void plot(int[] argb, int w, int h, int x, int y, int c) {
+        if (x >= 0 && x < w && y >= 0 && y < h) argb[y * w + x] = c;
+    }
+
+    private static int toArgb(Color c) {
+        return ((int) Math.round(c.getOpacity() * 255) << 24)
+                | ((int) Math.round(c.getRed() * 255) << 16)
+                | ((int) Math.round(c.getGreen() * 255) << 8)
+                | (int) Math.round(c.getBlue() * 255);
+    }
+}
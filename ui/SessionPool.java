@@ -0,0 +1,108 @@
+package org.simulator.ui;
+
+import org.simulator.canale.Channel;
+import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
+import org.simulator.diagnostica.Metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sessioni importate condivise da tutta l'app (vista principale, confronto sessioni): chiave = percorso
+ * canonico + data di modifica del CSV + mapping utente. Ricaricare un CSV già aperto restituisce gli
+ * stessi giri e lo stesso {@link SessionIndex}, senza rileggere il file; anche i risultati memorizzati
+ * sui giri ({@link Lap#derived}) restano validi.
+ *
+ * Ogni sessione pesa la stima delle sue colonne ({@link org.simulator.canale.LapFrame#estimatedBytes});
+ * oltre il budget ({@link #setBudgetBytes}) escono le sessioni usate meno di recente. L'ultima usata resta
+ * sempre, anche se da sola supera il budget.
+ */
+public final class SessionPool {
+    private SessionPool(){}
+
+    /** Sessione caricata: giri (condivisi fra le viste, non modificare la lista), indice e memoria stimata. */
+    public record Session(Path path, List<Lap> laps, SessionIndex index, long bytes) {}
+
+    /** Import del CSV (tipicamente {@code CsvImporter.importFile}); null = file senza giri. */
+    @FunctionalInterface
+    public interface Loader {
+        List<Lap> load(Path csv) throws Exception;
+    }
+
+    private record Key(Path path, long mtime, Map<String, Channel> mapping) {}
+
+    private static final Metrics.Counter HIT  = Metrics.counter("cache.session.hit");
+    private static final Metrics.Counter MISS = Metrics.counter("cache.session.miss");
+    static { Metrics.gauge("cache.session.mb", () -> cachedBytes() / (1024.0 * 1024.0)); }
+
+    /** Default: un quarto dell'heap massimo. */
+    private static volatile long budget = Runtime.getRuntime().maxMemory() / 4;
+    /** Ordine di accesso: la testa è la sessione usata meno di recente. */
+    private static final LinkedHashMap<Key, Session> MAP = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Sessione del CSV: dal pool se il file non è cambiato, altrimenti importata con {@code loader}. */
+    public static Session load(Path csv, Map<String, Channel> mapping, Loader loader) throws Exception {
+        Key key = keyOf(csv, mapping);
+        synchronized (MAP) {
+            Session s = MAP.get(key);
+            if (s != null) { HIT.increment(); return s; }
+        }
+        MISS.increment();
+        List<Lap> laps = loader.load(csv);
+        if (laps == null) return null;
+        Session s = new Session(key.path(), laps, SessionIndex.of(laps), bytesOf(laps));
+        synchronized (MAP) {
+            Session prev = MAP.get(key);
+            if (prev != null) return prev;
+            // versioni precedenti dello stesso file (mtime diversa) non servono più
+            MAP.keySet().removeIf(k -> k.path().equals(key.path()));
+            MAP.put(key, s);
+        }
+        trim();
+        return s;
+    }
+
+    /** Budget in byte; oltre, le sessioni usate meno di recente escono dal pool. */
+    public static void setBudgetBytes(long bytes) {
+        budget = Math.max(0, bytes);
+        trim();
+    }
+
+    /** Byte stimati delle sessioni nel pool. */
+    public static long cachedBytes() {
+        synchronized (MAP) {
+            long t = 0;
+            for (Session s : MAP.values()) t += s.bytes();
+            return t;
+        }
+    }
+
+    private static void trim() {
+        synchronized (MAP) {
+            long total = 0;
+            for (Session s : MAP.values()) total += s.bytes();
+            for (Iterator<Session> it = MAP.values().iterator(); total > budget && MAP.size() > 1 && it.hasNext(); ) {
+                total -= it.next().bytes();
+                it.remove();
+            }
+        }
+    }
+
+    private static Key keyOf(Path csv, Map<String, Channel> mapping) throws IOException {
+        Path p = csv.toRealPath();
+        return new Key(p, Files.getLastModifiedTime(p).toMillis(), mapping == null ? Map.of() : new HashMap<>(mapping));
+    }
+
+    private static long bytesOf(List<Lap> laps) {
+        long b = 0;
+        for (Lap l : laps) b += l.frame().estimatedBytes();
+        return b;
+    }
+}
@@ -0,0 +1,354 @@
+package org.simulator.ui;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Grafico su {@link Canvas} per serie dense (timeline/playback): disegna direttamente array
+ * primitivi, senza un nodo per serie/punto come {@code LineChart}.
+ *
+ * Due layer: il canvas base (assi, griglia, serie) viene ridisegnato solo quando cambiano dati,
+ * range o dimensioni; il canvas overlay contiene cursore e waypoint e su un movimento del cursore
+ * si ripulisce solo la striscia vecchia e si disegna quella nuova.
+ * Interazioni come {@link ChartInteractions}: rotella = zoom, trascina = pan, doppio click = reset.
+ */
+public final class TelemetryPlot extends Region {
+
+    /** Serie già filtrata (solo punti finiti); "ghost" nel nome = stile ghost. */
+    public record Series(String name, double[] x, double[] y) {
+        /** Serie dai valori (x,y) scartando NaN/infiniti. */
+        public static Series of(String name, List<Double> x, List<Double> y) {
+            int n = Math.min(x.size(), y.size());
+            double[] xs = new double[n], ys = new double[n];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                Double xv = x.get(i), yv = y.get(i);
+                if (xv == null || yv == null || !Double.isFinite(xv) || !Double.isFinite(yv)) continue;
+                xs[k] = xv; ys[k] = yv; k++;
+            }
+            return new Series(name, Arrays.copyOf(xs, k), Arrays.copyOf(ys, k));
+        }
+        boolean ghost() { return name != null && name.toLowerCase(Locale.ROOT).contains("ghost"); }
+    }
+
+    private static final double M_LEFT = 58, M_RIGHT = 12, M_TOP = 40, M_BOTTOM = 38;
+    private static final double ZOOM_IN_FACTOR  = 0.85;
+    private static final double ZOOM_OUT_FACTOR = 1.15;
+    private static final double CURSOR_W = 1.3, WAYPOINT_W = 1.5;
+    private static final Color GRID = Color.web("#d8d8d8"), AXIS = Color.web("#555555");
+    private static final Color CURSOR = Color.web("#202020"), WAYPOINT = Color.RED;
+    private static final Font FONT = Font.font(11), TITLE_FONT = Font.font(14);
+
+    private final Canvas base = new Canvas();
+    private final Canvas overlay = new Canvas();
+
+    private String title = "", xLabel = "X", yLabel = "Y";
+    private List<Series> series = List.of();
+    private double xMin = Double.NaN, xMax, yMin, yMax;      // limiti dati
+    private double vx0 = 0, vx1 = 1, vy0 = 0, vy1 = 1;         // vista corrente
+    private double cursorX = Double.NaN;
+    private double cursorPx = Double.NaN;                       // ultima striscia disegnata
+    private double[] waypoints = new double[0];
+    private boolean baseDirty = true;
+    private Runnable onViewChanged;
+
+    public TelemetryPlot() {
+        overlay.setMouseTransparent(true);
+        getChildren().addAll(base, overlay);
+        getStyleClass().add("telemetry-plot");
+        setMinSize(200, 150);
+        setPrefSize(800, 400);
+        installInteractions();
+        ChartStyles.register(this);
+    }
+
+    // ===== API =====
+
+    public void setTitle(String t) { title = t == null ? "" : t; markDirty(); }
+
+    public void setAxisLabels(String x, String y) { xLabel = x == null ? "" : x; yLabel = y == null ? "" : y; markDirty(); }
+
+    public void clear() { series = List.of(); xMin = Double.NaN; markDirty(); }
+
+    /**
+     * Imposta le serie e i limiti dati (la vista viene resettata sui limiti). Un intervallo di ampiezza
+     * zero (canale costante, punto singolo) viene allargato attorno al valore, come faceva l'autorange.
+     */
+    public void setSeries(List<Series> s, double xMin, double xMax, double yMin, double yMax) {
+        series = List.copyOf(s);
+        if (Double.isFinite(xMin) && Double.isFinite(xMax) && Double.isFinite(yMin) && Double.isFinite(yMax)
+                && xMax >= xMin && yMax >= yMin) {
+            if (xMax == xMin) { double d = flatPad(xMin); xMin -= d; xMax += d; }
+            if (yMax == yMin) { double d = flatPad(yMin); yMin -= d; yMax += d; }
+            this.xMin = xMin; this.xMax = xMax; this.yMin = yMin; this.yMax = yMax;
+            resetView();
+        } else {
+            this.xMin = Double.NaN;
+            markDirty();
+        }
+    }
+
+    public List<Series> series() { return series; }
+
+    /** Mezza ampiezza per un intervallo degenere attorno a {@code v}: ±5% del valore, ±1 attorno a zero. */
+    static double flatPad(double v) {
+        return v == 0 ? 1.0 : Math.abs(v) * 0.05;
+    }
+
+    /** Vista = limiti dati. */
+    public void resetView() {
+        if (Double.isNaN(xMin)) return;
+        setView(xMin, xMax, yMin, yMax);
+    }
+
+    public double lowerX() { return vx0; }
+    public double upperX() { return vx1; }
+
+    /** Area del plot in coordinate locali (per allineare slider/overlay esterni). */
+    public Bounds plotArea() {
+        return new BoundingBox(M_LEFT, M_TOP, Math.max(0, getWidth() - M_LEFT - M_RIGHT), Math.max(0, getHeight() - M_TOP - M_BOTTOM));
+    }
+
+    /** Callback su zoom/pan/resize (es. per riposizionare lo slider). */
+    public void setOnViewChanged(Runnable r) { onViewChanged = r; }
+
+    /** Posizione del cursore verticale (NaN = nascosto); ridisegna solo la striscia interessata. */
+    public void setCursor(double x) {
+        cursorX = x;
+        GraphicsContext g = overlay.getGraphicsContext2D();
+        if (!Double.isNaN(cursorPx)) clearStrip(g, cursorPx, CURSOR_W);
+        cursorPx = Double.NaN;
+        if (!Double.isFinite(x) || plotW() <= 0) return;
+        cursorPx = xToPx(x);
+        drawVLine(g, cursorPx, CURSOR, CURSOR_W);
+    }
+
+    public void setWaypoints(List<Double> xs) {
+        waypoints = xs.stream().filter(d -> d != null && Double.isFinite(d)).mapToDouble(Double::doubleValue).toArray();
+        redrawOverlay();
+    }
+
+    /** Ridisegno completo (es. cambio palette). */
+    public void redraw() { markDirty(); }
+
+    // ===== layout/disegno =====
+
+    @Override protected void layoutChildren() {
+        double w = snapSizeX(getWidth()), h = snapSizeY(getHeight());
+        if (base.getWidth() != w || base.getHeight() != h) {
+            base.setWidth(w); base.setHeight(h);
+            overlay.setWidth(w); overlay.setHeight(h);
+            baseDirty = true;
+            if (onViewChanged != null) onViewChanged.run();
+        }
+        if (baseDirty) {
+            baseDirty = false;
+            drawBase();
+            redrawOverlay();
+        }
+    }
+
+    private void markDirty() { baseDirty = true; requestLayout(); }
+
+    private void setView(double x0, double x1, double y0, double y1) {
+        vx0 = x0; vx1 = x1; vy0 = y0; vy1 = y1;
+        markDirty();
+        if (onViewChanged != null) onViewChanged.run();
+    }
+
+    private void drawBase() {
+        GraphicsContext g = base.getGraphicsContext2D();
+        double w = base.getWidth(), h = base.getHeight();
+        g.clearRect(0, 0, w, h);
+        double pw = plotW(), ph = plotH();
+        if (pw <= 0 || ph <= 0) return;
+
+        g.setFont(TITLE_FONT);
+        g.setFill(AXIS);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.TOP);
+        g.fillText(title, w / 2, 4);
+
+        // griglia + tick
+        g.setFont(FONT);
+        g.setLineWidth(1);
+        g.setTextBaseline(VPos.TOP);
+        double sx = niceStep(vx1 - vx0, pw / 90);
+        for (double t = Math.ceil(vx0 / sx) * sx; t <= vx1 + 1e-9 * sx; t += sx) {
+            double px = Math.round(xToPx(t)) + 0.5;
+            g.setStroke(GRID); g.strokeLine(px, M_TOP, px, M_TOP + ph);
+            g.fillText(fmt(t, sx), px, M_TOP + ph + 4);
+        }
+        g.setTextAlign(TextAlignment.RIGHT);
+        g.setTextBaseline(VPos.CENTER);
+        double sy = niceStep(vy1 - vy0, ph / 40);
+        for (double t = Math.ceil(vy0 / sy) * sy; t <= vy1 + 1e-9 * sy; t += sy) {
+            double py = Math.round(yToPx(t)) + 0.5;
+            g.setStroke(GRID); g.strokeLine(M_LEFT, py, M_LEFT + pw, py);
+            g.fillText(fmt(t, sy), M_LEFT - 6, py);
+        }
+        g.setStroke(AXIS);
+        g.strokeRect(M_LEFT + 0.5, M_TOP + 0.5, pw, ph);
+
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.BOTTOM);
+        g.fillText(xLabel, M_LEFT + pw / 2, h - 2);
+        g.save();
+        g.translate(12, M_TOP + ph / 2);
+        g.rotate(-90);
+        g.setTextBaseline(VPos.CENTER);
+        g.fillText(yLabel, 0, 0);
+        g.restore();
+
+        if (Double.isNaN(xMin)) return;
+
+        // serie (clip sull'area del plot, punti decimati per colonna di pixel)
+        g.save();
+        g.beginPath();
+        g.rect(M_LEFT, M_TOP, pw, ph);
+        g.clip();
+        int ghostIdx = 0, idx = 0;
+        List<double[]> legend = new ArrayList<>();
+        for (Series s : series) {
+            boolean ghost = s.ghost();
+            Color c = ChartStyles.colorFor(s.name(), idx++, ghost ? ++ghostIdx : 0);
+            double alpha = ghost ? ChartStyles.ghostOpacity() : 1.0;
+            g.setStroke(c);
+            g.setGlobalAlpha(alpha);
+            g.setLineWidth(ghost ? 1.2 : 1.5);
+            g.setLineDashes(ghost ? new double[]{8, 6} : null);
+            strokeSeries(g, s, (int) Math.ceil(pw));
+            legend.add(new double[]{c.getRed(), c.getGreen(), c.getBlue(), alpha});
+        }
+        g.restore();
+        g.setGlobalAlpha(1);
+        g.setLineDashes(null);
+        drawLegend(g, legend, w);
+    }
+
+    private void strokeSeries(GraphicsContext g, Series s, int px) {
+        int[] keep = SeriesDecimation.select(s.x(), s.y(), vx0, vx1, px, SeriesDecimation.Mode.MIN_MAX);
+        if (keep.length == 0) return;
+        double[] xs = new double[keep.length], ys = new double[keep.length];
+        for (int i = 0; i < keep.length; i++) { xs[i] = xToPx(s.x()[keep[i]]); ys[i] = yToPx(s.y()[keep[i]]); }
+        g.strokePolyline(xs, ys, keep.length);
+    }
+
+    private void drawLegend(GraphicsContext g, List<double[]> colors, double w) {
+        g.setFont(FONT);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.CENTER);
+        double x = M_LEFT, y = M_TOP - 10;
+        for (int i = 0; i < series.size(); i++) {
+            double[] c = colors.get(i);
+            String name = series.get(i).name();
+            double tw = name.length() * 6.2 + 22;
+            if (x + tw > w - M_RIGHT && x > M_LEFT) break; // niente seconda riga: tronca
+            g.setFill(Color.color(c[0], c[1], c[2], c[3]));
+            g.fillRect(x, y - 4, 10, 8);
+            g.setFill(AXIS);
+            g.fillText(name, x + 14, y);
+            x += tw;
+        }
+    }
+
+    private void redrawOverlay() {
+        GraphicsContext g = overlay.getGraphicsContext2D();
+        g.clearRect(0, 0, overlay.getWidth(), overlay.getHeight());
+        cursorPx = Double.NaN;
+        if (plotW() <= 0) return;
+        for (double wx : waypoints) if (wx >= vx0 && wx <= vx1) drawVLine(g, xToPx(wx), WAYPOINT, WAYPOINT_W);
+        setCursor(cursorX);
+    }
+
+    /** Ripulisce la striscia verticale del cursore e ridisegna i waypoint che la toccavano. */
+    private void clearStrip(GraphicsContext g, double px, double lw) {
+        double half = lw + 1;
+        g.clearRect(px - half, 0, 2 * half, overlay.getHeight());
+        for (double wx : waypoints) {
+            if (wx < vx0 || wx > vx1) continue;
+            double wp = xToPx(wx);
+            if (Math.abs(wp - px) <= half + WAYPOINT_W) drawVLine(g, wp, WAYPOINT, WAYPOINT_W);
+        }
+    }
+
+    private void drawVLine(GraphicsContext g, double px, Color c, double lw) {
+        px = Math.max(M_LEFT, Math.min(M_LEFT + plotW(), px));
+        g.setStroke(c);
+        g.setLineWidth(lw);
+        g.strokeLine(px, M_TOP, px, M_TOP + plotH());
+    }
+
+    // ===== interazioni =====
+
+    private void installInteractions() {
+        addEventFilter(ScrollEvent.SCROLL, e -> {
+            if (e.getDeltaY() == 0 || Double.isNaN(xMin)) return;
+            double f = e.getDeltaY() > 0 ? ZOOM_IN_FACTOR : ZOOM_OUT_FACTOR;
+            double cx = (vx0 + vx1) / 2, hx = (vx1 - vx0) * f / 2;
+            double cy = (vy0 + vy1) / 2, hy = (vy1 - vy0) * f / 2;
+            setView(Math.max(xMin, cx - hx), Math.min(xMax, cx + hx), Math.max(yMin, cy - hy), Math.min(yMax, cy + hy));
+            e.consume();
+        });
+        final double[] last = new double[2];
+        setOnMousePressed(ev -> { if (ev.getButton() == MouseButton.PRIMARY) { last[0] = ev.getX(); last[1] = ev.getY(); } });
+        setOnMouseDragged(ev -> {
+            if (ev.getButton() != MouseButton.PRIMARY || Double.isNaN(xMin)) return;
+            double dx = ev.getX() - last[0], dy = ev.getY() - last[1];
+            last[0] = ev.getX(); last[1] = ev.getY();
+            boolean panX = !ev.isShiftDown() || ev.isControlDown();
+            boolean panY = !ev.isControlDown() || ev.isShiftDown();
+            double nx0 = vx0, nx1 = vx1, ny0 = vy0, ny1 = vy1;
+            if (panX) {
+                double shift = -dx / Math.max(1, plotW()) * (vx1 - vx0);
+                nx0 += shift; nx1 += shift;
+                if (nx0 < xMin) { nx1 += xMin - nx0; nx0 = xMin; }
+                if (nx1 > xMax) { nx0 -= nx1 - xMax; nx1 = xMax; }
+            }
+            if (panY) {
+                double shift = dy / Math.max(1, plotH()) * (vy1 - vy0);
+                ny0 += shift; ny1 += shift;
+                if (ny0 < yMin) { ny1 += yMin - ny0; ny0 = yMin; }
+                if (ny1 > yMax) { ny0 -= ny1 - yMax; ny1 = yMax; }
+            }
+            setView(nx0, nx1, ny0, ny1);
+        });
+        setOnMouseClicked(ev -> { if (ev.getClickCount() == 2) resetView(); });
+    }
+
+    // ===== helper =====
+
+    private double plotW() { return base.getWidth() - M_LEFT - M_RIGHT; }
+    private double plotH() { return base.getHeight() - M_TOP - M_BOTTOM; }
+    private double xToPx(double x) { return M_LEFT + (x - vx0) / (vx1 - vx0) * plotW(); }
+    private double yToPx(double y) { return M_TOP + (1 - (y - vy0) / (vy1 - vy0)) * plotH(); }
+
+    /** Passo "tondo" (1/2/5 × 10^k) per avere circa {@code ticks} tacche su {@code range}. */
+    private static double niceStep(double range, double ticks) {
+        if (!(range > 0)) return 1;
+        double raw = range / Math.max(1, ticks);
+        double mag = Math.pow(10, Math.floor(Math.log10(raw)));
+        double r = raw / mag;
+        return (r < 1.5 ? 1 : r < 3.5 ? 2 : r < 7.5 ? 5 : 10) * mag;
+    }
+
+    private static String fmt(double v, double step) {
+        if (Math.abs(v) < step * 1e-6) v = 0;
+        int dec = Math.max(0, (int) -Math.floor(Math.log10(step)));
+        return String.format(Locale.ROOT, "%." + Math.min(dec, 4) + "f", v);
+    }
+}
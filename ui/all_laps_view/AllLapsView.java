@@ -1,15 +1,20 @@
 package org.simulator.ui.all_laps_view;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.chart.LineChart;
 import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
+import javafx.util.Duration;
 import org.simulator.analisi_base.lap_analysis.LapAnalysis;
 import org.simulator.analisi_base.session_analysis.SessionAnalysis;
 import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
+import org.simulator.coach.Coach;
 import org.simulator.ui.all_laps_view.SessionCoachPane;
 import org.simulator.ui.settings.UiSettings;
 import org.simulator.widget.*;
@@ -21,8 +26,16 @@ import org.simulator.ui.ChartPane;
 
 
 import java.util.*;
-
-/** Pagina "Tutti i giri": carosello orizzontale dei mini-grafici + riepilogo sessione (coach + setup). */
+import java.util.function.Consumer;
+
+/**
+ * Pagina "Tutti i giri": carosello orizzontale dei mini-grafici + riepilogo sessione (coach + setup).
+ *
+ * Il carosello è virtualizzato: esistono come nodi solo le card della finestra visibile più
+ * {@link #PREFETCH} per lato (due spaziatori tengono la larghezza totale per lo scroll). Le card visibili
+ * hanno il grafico vero; le altre, e tutte durante uno scroll, mostrano la miniatura rasterizzata su un
+ * worker ({@link LapThumbnails}). Aprire la pagina costa lo stesso con 10 o 200 giri.
+ */
 public class AllLapsView {
 
     private final DataController data;
@@ -45,6 +58,19 @@ public class AllLapsView {
     private final StackPane lapsViewport = new StackPane();
     private static final double CELL_MIN_W = 420;
     private static final double GAP = 12;
+    /** Card per lato oltre quelle visibili (come miniatura). */
+    private static final int PREFETCH = 1;
+    /** Altezza delle miniature prima del primo layout. */
+    private static final int THUMB_H_DEFAULT = 320;
+
+    private final Region padLeft = new Region(), padRight = new Region();
+    private final Map<Integer, LapCard> window = new HashMap<>();   // posizione nel carosello → card montata
+    private final LapThumbnails thumbs;
+    private final PauseTransition settle = new PauseTransition(Duration.millis(150));
+    private List<Lap> carouselLaps = List.of();
+    private AxisChoice carouselAxis;
+    private double cardW = CELL_MIN_W;
+    private int cols = 1;
     private final UiSettings ui = UiSettings.get();
 
 
@@ -52,9 +78,19 @@ public class AllLapsView {
     private final SessionCoachPane coachPane = new SessionCoachPane();
     private final SessionSetupPaneBuilder setupPane = new SessionSetupPaneBuilder();
 
+    // riepilogo sessione calcolato fuori dal thread FX; ultimo risultato riusato finché la sessione non cambia
+    private final AnalysisScheduler.Slot sessionSlot = AnalysisScheduler.get().newSlot("all-laps-session");
+    private SessionPanel sessionMemo;
+
+    /** Contenuto calcolato del riepilogo sessione. */
+    private record SessionPanel(SessionIndex index, Lap best, Map<String, Double> bestStats,
+                                Map<String, Double> avgStats, List<String> notes,
+                                SessionSetupPaneBuilder.Result setup) {}
+
     public AllLapsView(DataController data) {
         this.data = data;
         this.charts = new ChartManager();
+        this.thumbs = new LapThumbnails(charts);
 
         grid.setHgap(12); grid.setVgap(12); grid.setPadding(new Insets(12));
 
@@ -77,6 +113,11 @@ public class AllLapsView {
         btnLeft.setOnAction(e -> pageBy(-1));
         btnRight.setOnAction(e -> pageBy(+1));
         lapsScroll.viewportBoundsProperty().addListener((o, ov, nv) -> sizeCardsToViewport());
+        // durante lo scroll solo miniature; i grafici veri quando si ferma
+        lapsScroll.hvalueProperty().addListener((o, ov, nv) -> { updateWindow(false); settle.playFromStart(); });
+        settle.setOnFinished(e -> updateWindow(true));
+        padLeft.setMinWidth(Region.USE_PREF_SIZE);
+        padRight.setMinWidth(Region.USE_PREF_SIZE);
 
         // Top controls
         plotSelector.getItems().addAll(
@@ -143,29 +184,14 @@ public class AllLapsView {
 
     // ---------- carosello ----------
     private void buildCarousel(List<Lap> laps, AxisChoice axis) {
+        thumbs.reset(data.getSessionIndex());
+        window.clear();
         lapsRow.getChildren().clear();
-
-        for (Lap lap : laps) {
-            String yLabel = yLabelFor(currentType);
-            String status = lap.validityStatus(laps); // ✅ nuovo metodo
-
-            LineChart<Number, Number> c = charts.buildChart(
-                    "Lap " + lap.index + " (" + status + ")",
-                    axis.label,
-                    yLabel
-            );
-
-            charts.renderChart(c, currentType, lap, null, axis);
-
-            VBox card = new VBox(5, c);
-            card.setAlignment(Pos.CENTER);
-            card.setPadding(new Insets(0));
-            card.setMinWidth(Region.USE_PREF_SIZE);
-            card.setMaxWidth(Double.MAX_VALUE);
-            lapsRow.getChildren().add(card);
-        }
+        carouselLaps = laps;
+        carouselAxis = axis;
 
         sizeCardsToViewport();
+        updateWindow(true);
 
         Platform.runLater(() -> {
             double contentW = lapsRow.prefWidth(-1);
@@ -180,18 +206,107 @@ public class AllLapsView {
     // adatta larghezza card al viewport
     private void sizeCardsToViewport() {
         double viewportW = lapsScroll.getViewportBounds() == null ? 0 : lapsScroll.getViewportBounds().getWidth();
-        if (viewportW <= 0 || lapsRow.getChildren().isEmpty()) return;
+        if (viewportW <= 0 || carouselLaps.isEmpty()) return;
 
         int targetCols = Math.max(1, Math.min(5, (int)Math.floor((viewportW + GAP) / (CELL_MIN_W + GAP))));
-        double cardW = (viewportW - (targetCols - 1) * GAP) / targetCols;
-
-        for (Node n : lapsRow.getChildren()) {
-            if (n instanceof VBox v) {
-                v.setPrefWidth(cardW);
-                if (!v.getChildren().isEmpty() && v.getChildren().get(0) instanceof Region r) {
-                    r.setPrefWidth(cardW);
-                }
-            }
+        double w = (viewportW - (targetCols - 1) * GAP) / targetCols;
+        if (targetCols == cols && w == cardW) return;
+        cols = targetCols;
+        cardW = w;
+        for (LapCard c : window.values()) c.resize();
+        updateWindow(true);
+    }
+
+    /**
+     * Monta le card della finestra visibile (± {@link #PREFETCH}) e smonta le altre; con {@code live} le
+     * card visibili passano al grafico vero. Poi chiede in anticipo le miniature della pagina prima e dopo.
+     */
+    private void updateWindow(boolean live) {
+        int n = carouselLaps.size();
+        if (n == 0) return;
+        double stride = cardW + GAP;
+        double viewportW = lapsScroll.getViewportBounds() == null ? 0 : lapsScroll.getViewportBounds().getWidth();
+        if (viewportW <= 0) viewportW = cols * stride - GAP;
+        double contentW = n * stride - GAP;
+        double offset = lapsScroll.getHvalue() * Math.max(0, contentW - viewportW);
+
+        int first = Math.max(0, Math.min(n - 1, (int) Math.floor(offset / stride)));
+        int last = Math.max(first, Math.min(n - 1, (int) Math.ceil((offset + viewportW) / stride) - 1));
+        int w0 = Math.max(0, first - PREFETCH), w1 = Math.min(n - 1, last + PREFETCH);
+
+        window.keySet().removeIf(i -> i < w0 || i > w1);
+        List<Node> row = new ArrayList<>(w1 - w0 + 3);
+        if (w0 > 0) { padLeft.setPrefWidth(w0 * stride - GAP); row.add(padLeft); }
+        for (int i = w0; i <= w1; i++) {
+            LapCard c = window.computeIfAbsent(i, k -> new LapCard(carouselLaps.get(k)));
+            if (live && i >= first && i <= last) c.showLive();
+            else c.showThumbnail();
+            row.add(c);
+        }
+        if (w1 < n - 1) { padRight.setPrefWidth((n - 1 - w1) * stride - GAP); row.add(padRight); }
+        if (!row.equals(lapsRow.getChildren())) lapsRow.getChildren().setAll(row);
+
+        // prefetch: una pagina per lato; le richieste fuori da qui vengono annullate
+        Set<LapThumbnails.Key> wanted = new HashSet<>();
+        for (int i = Math.max(0, w0 - cols); i <= Math.min(n - 1, w1 + cols); i++) {
+            LapThumbnails.Key k = thumbKey(carouselLaps.get(i));
+            wanted.add(k);
+            if (i < w0 || i > w1) thumbs.request(k, carouselAxis, null);
+        }
+        thumbs.retain(wanted);
+    }
+
+    private LapThumbnails.Key thumbKey(Lap lap) {
+        double h = lapsScroll.getViewportBounds() == null ? 0 : lapsScroll.getViewportBounds().getHeight();
+        int th = h > 0 ? (int) Math.round(h) - 40 : THUMB_H_DEFAULT;   // meno il titolo
+        return new LapThumbnails.Key(lap, currentType, carouselAxis.label, (int) Math.round(cardW), Math.max(60, th));
+    }
+
+    /** Card di un giro: miniatura (titolo + immagine) oppure grafico vero. */
+    private final class LapCard extends VBox {
+        private final Lap lap;
+        private final String title;
+        private boolean live, thumb;
+
+        LapCard(Lap lap) {
+            super(5);
+            this.lap = lap;
+            this.title = "Lap " + lap.index + " (" + data.getSessionIndex().status(lap) + ")"; // stato precalcolato al load
+            setAlignment(Pos.CENTER);
+            setPadding(new Insets(0));
+            setMinWidth(Region.USE_PREF_SIZE);
+            setMaxWidth(Double.MAX_VALUE);
+            setPrefWidth(cardW);
+        }
+
+        void showLive() {
+            if (live) return;
+            LineChart<Number, Number> c = charts.buildChart(title, carouselAxis.label, yLabelFor(currentType));
+            charts.renderChart(c, currentType, lap, null, carouselAxis);
+            c.setPrefWidth(cardW);
+            getChildren().setAll(c);
+            live = true;
+        }
+
+        void showThumbnail() {
+            if (live || thumb) return;
+            thumb = true;
+            Label t = new Label(title);
+            t.getStyleClass().add("chart-title");
+            ImageView iv = new ImageView();
+            iv.setPreserveRatio(false);
+            iv.setFitWidth(cardW);
+            LapThumbnails.Key k = thumbKey(lap);
+            iv.setFitHeight(k.h());
+            getChildren().setAll(t, iv);
+            thumbs.request(k, carouselAxis, img -> { if (!live) iv.setImage(img); });
+        }
+
+        void resize() {
+            setPrefWidth(cardW);
+            if (getChildren().isEmpty()) return;
+            if (getChildren().get(0) instanceof LineChart<?, ?> c) c.setPrefWidth(cardW);
+            else if (thumb) { thumb = false; showThumbnail(); }   // miniatura alla nuova larghezza
         }
     }
 
@@ -211,24 +326,61 @@ public class AllLapsView {
         sessionBox.setAlignment(Pos.TOP_LEFT);
         sessionBox.setPadding(new Insets(10));
 
-        Lap best = bestLapOf(laps);
+        // Statistiche + Coach + Setup: segnaposto finché il worker non ha finito
+        StackPane statsHolder = new StackPane(titled("Statistiche (media sessione)", Fx.pending()));
+        StackPane coachHolder = new StackPane(titled("Consigli del coach (sessione)", Fx.pending()));
+        StackPane setupHolder = new StackPane(titled("Consigli setup (sessione)", Fx.pending()));
+        sessionBox.getChildren().addAll(statsHolder, coachHolder, setupHolder);
+
+        // Widget termici/danni/attuatori
+        sessionBox.getChildren().add(buildWidgetsGrid(laps));
+
+        Consumer<SessionPanel> fill = p -> {
+            statsHolder.getChildren().setAll(buildStatsRow(p));
+            coachHolder.getChildren().setAll(coachPane.buildFromNotes(p.notes()));
+            setupHolder.getChildren().setAll(setupPane.build(p.setup()));
+        };
+        SessionIndex session = data.getSessionIndex();
+        if (sessionMemo != null && sessionMemo.index() == session) {
+            sessionSlot.cancel();
+            fill.accept(sessionMemo);
+        } else {
+            sessionSlot.submit(() -> computeSession(laps, session), (SessionPanel p) -> { sessionMemo = p; fill.accept(p); },
+                    e -> {
+                        statsHolder.getChildren().setAll(titled("Statistiche (media sessione)", Fx.failed()));
+                        coachHolder.getChildren().setAll(titled("Consigli del coach (sessione)", Fx.failed()));
+                        setupHolder.getChildren().setAll(titled("Consigli setup (sessione)", Fx.failed()));
+                    });
+        }
+        return sessionBox;
+    }
+
+    /** Calcoli del riepilogo sessione (thread worker). */
+    private static SessionPanel computeSession(List<Lap> laps, SessionIndex session) {
+        Lap best = bestLapOf(laps, session);
+        Map<String, Double> bestStats = (best == null) ? null : LapAnalysis.basicStats(best);
+
+        // media sessione (base) + forze (aggregatore estratto)
+        var merged = new LinkedHashMap<String, Double>();
+        merged.putAll(SessionAnalysis.averageStats(laps));
+        merged.putAll(SessionForceStatsAggregator.build(laps));
+
+        return new SessionPanel(session, best, bestStats, merged,
+                Collections.unmodifiableList(new ArrayList<>(Coach.generateSessionNotes(laps))),
+                SessionSetupPaneBuilder.compute(laps));
+    }
+
+    private static HBox buildStatsRow(SessionPanel p) {
         Node bestNode = null;
+        Lap best = p.best();
         if (best != null) {
-            var bestStats = LapAnalysis.basicStats(best);
             String bestTitle = "Statistiche (miglior giro: #" + best.index
                     + (Double.isNaN(best.lapTime) ? "" : ", " + TimeUtil.formatLapTime(best.lapTime)) + ")";
 
-            bestNode = titled(bestTitle, UiWidgets.buildStatsAccordion(bestStats));
+            bestNode = titled(bestTitle, UiWidgets.buildStatsAccordion(p.bestStats()));
         }
 
-        // media sessione (base) + forze (aggregatore estratto)
-        var avgBase = SessionAnalysis.averageStats(laps);
-        var forceStats = SessionForceStatsAggregator.build(laps);
-        var merged = new LinkedHashMap<String, Double>();
-        merged.putAll(avgBase);
-        merged.putAll(forceStats);
-
-        Node avgAccordion = UiWidgets.buildStatsAccordion(merged);
+        Node avgAccordion = UiWidgets.buildStatsAccordion(p.avgStats());
         VBox mediaContent = new VBox(8, avgAccordion);
         TitledPane mediaPane = titled("Statistiche (media sessione)", mediaContent);
 
@@ -239,25 +391,15 @@ public class AllLapsView {
         for (Node n : statsRow.getChildren()) {
             if (n instanceof Region r) { r.setMaxWidth(Double.MAX_VALUE); HBox.setHgrow(r, Priority.ALWAYS); }
         }
-        sessionBox.getChildren().add(statsRow);
-
-        // Coach + Setup (classi estratte)
-        sessionBox.getChildren().add((TitledPane) coachPane.build(laps));
-        sessionBox.getChildren().add((TitledPane) setupPane.build(laps));
-
-        // Widget termici/danni/attuatori
-        sessionBox.getChildren().add(buildWidgetsGrid(laps));
-
-
-        return sessionBox;
+        return statsRow;
     }
 
-    private static Lap bestLapOf(List<Lap> laps) {
+    private static Lap bestLapOf(List<Lap> laps, SessionIndex session) {
         if (laps == null || laps.isEmpty()) return null;
 
         // ✅ considera solo i giri validi
         Optional<Lap> bestByTime = laps.stream()
-                .filter(l -> l.isComplete(laps))
+                .filter(session::isComplete)
                 .min(Comparator.comparingDouble(l -> l.lapTime));
 
         if (bestByTime.isPresent()) return bestByTime.get();
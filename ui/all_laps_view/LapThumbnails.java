@@ -0,0 +1,94 @@
+package org.simulator.ui.all_laps_view;
+
+import javafx.scene.image.Image;
+import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
+import org.simulator.diagnostica.Metrics;
+import org.simulator.ui.AnalysisScheduler;
+import org.simulator.ui.ChartManager;
+import org.simulator.ui.ChartPane;
+import org.simulator.ui.asix_pack.AxisChoice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Miniature dei giri per il carosello di {@link AllLapsView}: rasterizzate su un worker
+ * ({@link ChartManager#renderThumbnail}) e tenute in una LRU di {@link #MAX_ENTRIES} immagini.
+ * Una sola richiesta in corso per chiave; al cambio di sessione cache e richieste vengono azzerate.
+ * Usata solo dal thread FX.
+ */
+final class LapThumbnails {
+
+    /** Immagini tenute (≈ 0.5 MB l'una a 420×300). */
+    private static final int MAX_ENTRIES = 32;
+
+    private static final Metrics.Counter HIT  = Metrics.counter("cache.thumbnail.hit");
+    private static final Metrics.Counter MISS = Metrics.counter("cache.thumbnail.miss");
+
+    /** Miniatura di un giro per tipo di grafico, asse e dimensione in pixel. */
+    record Key(Lap lap, ChartPane.PlotType type, String axis, int w, int h) {}
+
+    private final ChartManager charts;
+    private final LinkedHashMap<Key, Image> lru = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Key, Image> e) { return size() > MAX_ENTRIES; }
+    };
+    private final Map<Key, Future<?>> running = new HashMap<>();
+    private final Map<Key, List<Consumer<Image>>> waiting = new HashMap<>();
+    private SessionIndex session;
+
+    LapThumbnails(ChartManager charts) {
+        this.charts = charts;
+    }
+
+    /** Nuova sessione: svuota la cache e annulla le richieste in corso. */
+    void reset(SessionIndex s) {
+        if (s == session) return;
+        session = s;
+        lru.clear();
+        retain(Set.of());
+    }
+
+    /** Consegna la miniatura (subito se in cache, altrimenti a rasterizzazione finita); {@code onReady} può essere null (prefetch). */
+    void request(Key k, AxisChoice axis, Consumer<Image> onReady) {
+        Image img = lru.get(k);
+        if (img != null) {
+            HIT.increment();
+            if (onReady != null) onReady.accept(img);
+            return;
+        }
+        if (onReady != null) waiting.computeIfAbsent(k, x -> new ArrayList<>()).add(onReady);
+        if (running.containsKey(k)) return;
+        MISS.increment();
+        running.put(k, AnalysisScheduler.get().submit("thumbnail",
+                () -> charts.renderThumbnail(k.type(), k.lap(), axis, k.w(), k.h()),
+                (Image im) -> {
+                    if (running.remove(k) == null) return; // annullata nel frattempo
+                    lru.put(k, im);
+                    List<Consumer<Image>> cbs = waiting.remove(k);
+                    if (cbs != null) for (Consumer<Image> cb : cbs) cb.accept(im);
+                },
+                e -> {
+                    // niente immagine: la chiave torna libera, una richiesta successiva ritenta
+                    if (running.remove(k) != null) waiting.remove(k);
+                }));
+    }
+
+    /** Annulla le richieste non più utili (fuori dalla finestra del carosello). */
+    void retain(Set<Key> wanted) {
+        for (Iterator<Map.Entry<Key, Future<?>>> it = running.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, Future<?>> e = it.next();
+            if (wanted.contains(e.getKey())) continue;
+            e.getValue().cancel(true);
+            waiting.remove(e.getKey());
+            it.remove();
+        }
+    }
+}
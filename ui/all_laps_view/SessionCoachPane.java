@@ -132,6 +132,11 @@ public final class SessionCoachPane {
     private List<Note> allNotes = List.of();
 
     public Node build(List<Lap> laps){
+        return buildFromNotes(Coach.generateSessionNotes(laps));
+    }
+
+    /** Pannello con note di sessione già calcolate (es. dal worker di analisi). */
+    public Node buildFromNotes(List<String> rawNotes){
         // stato iniziale filtri
         cSess.setSelected(true); cGuida.setSelected(true); cGomme.setSelected(true);
         cFreni.setSelected(true); cFFB.setSelected(true); cTrasm.setSelected(true); cDanni.setSelected(true);
@@ -192,7 +197,7 @@ public final class SessionCoachPane {
         controls.setPadding(new Insets(5,0,5,0));
 
         // carica note e primo refresh
-        allNotes = loadNotes(laps);
+        allNotes = toNotes(rawNotes);
         Runnable refresh = this::refreshList;
         cSess.setOnAction(e -> refresh.run());
         cGuida.setOnAction(e -> refresh.run());
@@ -210,8 +215,7 @@ public final class SessionCoachPane {
         return tp;
     }
 
-    private List<Note> loadNotes(List<Lap> laps){
-        List<String> raw = Coach.generateSessionNotes(laps);
+    private List<Note> toNotes(List<String> raw){
         List<Note> out = new ArrayList<>(raw.size());
         for (String s : raw) out.add(new Note(s));
         return out;
@@ -22,9 +22,22 @@ import java.util.*;
 /** Pannello "Consigli setup (sessione)". */
 final class SessionSetupPaneBuilder {
 
-    Node build(List<Lap> laps) {
+    /** Dati del pannello (calcolabili fuori dal thread FX). */
+    record Result(SetupAdvisor.DriverStyle style, List<SetupAdvisor.Recommendation> recs, TyreCompoundAdvisor.Choice choice) {}
+
+    static Result compute(List<Lap> laps) {
         final List<Lap> session = (laps == null) ? Collections.emptyList() : laps;
+        var assess = SetupAdvisor.analyzeStyleDetailed(session);
+        var style = (assess == null) ? SetupAdvisor.DriverStyle.NEUTRAL : assess.primary();
+        // === Torna all’API breve (Choice) per un’etichetta compatta ===
+        return new Result(style, SetupAdvisor.forSession(session, style), TyreCompoundAdvisor.suggest(session, style));
+    }
+
+    Node build(List<Lap> laps) {
+        return build(compute(laps));
+    }
 
+    Node build(Result res) {
         Label styleLbl = new Label("-");
         Label compoundLbl = new Label("-");
         compoundLbl.setStyle("-fx-font-weight: bold;");
@@ -53,24 +66,13 @@ final class SessionSetupPaneBuilder {
             }
         });
 
-        Runnable refresh = () -> {
-            var assess = SetupAdvisor.analyzeStyleDetailed(session);
-            var style = (assess == null) ? SetupAdvisor.DriverStyle.NEUTRAL : assess.primary();
-
-            styleLbl.setText(switch (style) {
-                case SMOOTH -> "Stile: pulito";
-                case NEUTRAL -> "Stile: neutro";
-                case AGGRESSIVE -> "Stile: aggressivo";
-            });
-
-            var recs = SetupAdvisor.forSession(session, style);
-            list.getItems().setAll(recs);
-
-            // === Torna all’API breve (Choice) per un’etichetta compatta ===
-            TyreCompoundAdvisor.Choice choice = TyreCompoundAdvisor.suggest(session, style);
-            compoundLbl.setText("Compound consigliato: " + choice.compound() + "  (" + choice.reason() + ")");
-        };
-        refresh.run();
+        styleLbl.setText(switch (res.style()) {
+            case SMOOTH -> "Stile: pulito";
+            case NEUTRAL -> "Stile: neutro";
+            case AGGRESSIVE -> "Stile: aggressivo";
+        });
+        list.getItems().setAll(res.recs());
+        compoundLbl.setText("Compound consigliato: " + res.choice().compound() + "  (" + res.choice().reason() + ")");
 
         Region spacer = new Region(); HBox.setHgrow(spacer, Priority.ALWAYS);
         HBox header = new HBox(12, styleLbl, compoundLbl, spacer);
@@ -8,6 +8,7 @@ import javafx.scene.layout.*;
 import org.simulator.analisi_base.force_stats.ForceStats;
 import org.simulator.analisi_base.lap_analysis.LapAnalysis;
 import org.simulator.canale.Lap;
+import org.simulator.coach.Coach;
 import org.simulator.widget.*;
 import org.simulator.ui.*;
 import org.simulator.ui.asix_pack.AxisChoice;
@@ -42,6 +43,13 @@ public class AnalysisView {
     private final LapCoachPane coachPane = new LapCoachPane();
     private final LapSetupPaneBuilder setupPane = new LapSetupPaneBuilder();
 
+    // stats/coach/setup del giro calcolati fuori dal thread FX (solo l'ultima selezione viene mostrata)
+    private static final Object PANEL_KEY = new Object();
+    private final AnalysisScheduler.Slot panelSlot = AnalysisScheduler.get().newSlot("analysis-view");
+
+    /** Contenuto calcolato della colonna destra, memorizzato sul giro. */
+    private record PanelData(Map<String, Double> stats, List<String> notes, LapSetupPaneBuilder.Result setup) {}
+
     public AnalysisView(DataController data) {
         this.data = data;
         this.charts = new ChartManager();
@@ -128,11 +136,32 @@ public class AnalysisView {
 
         deltaChart.getData().clear();
         if (showDelta && ghostLap != null) charts.renderDelta(deltaChart, refLap, ghostLap, axis);
+
+        // giro precedente/successivo e ghost probabile già in cache per il prossimo cambio giro
+        charts.prefetch(List.of(chartA.type(), chartB.type(), chartC.type()), prefetchLaps(), axis);
+    }
+
+    /** Giri adiacenti al riferimento e, senza ghost, il miglior giro valido (il ghost più probabile). */
+    private List<Lap> prefetchLaps() {
+        List<Lap> laps = data.getLaps();
+        if (laps == null) return List.of();
+        List<Lap> out = new ArrayList<>(3);
+        int i = laps.indexOf(refLap);
+        if (i > 0) out.add(laps.get(i - 1));
+        if (i >= 0 && i + 1 < laps.size()) out.add(laps.get(i + 1));
+        if (ghostLap == null) {
+            var session = data.getSessionIndex();
+            session.validLaps().stream()
+                    .min(Comparator.comparingDouble(session::lapTimeSafe))
+                    .filter(l -> l != refLap && !out.contains(l))
+                    .ifPresent(out::add);
+        }
+        return out;
     }
 
     // ============= Colonna destra =============
     private void renderRightPanel() {
-        if (refLap == null) { rightPane.setContent(null); return; }
+        if (refLap == null) { panelSlot.cancel(); rightPane.setContent(null); return; }
 
         GridPane topGrid = new GridPane();
         topGrid.setHgap(12); topGrid.setVgap(12); topGrid.setPadding(new Insets(8));
@@ -140,21 +169,8 @@ public class AnalysisView {
         ColumnConstraints c2 = new ColumnConstraints(); c2.setPercentWidth(56);
         topGrid.getColumnConstraints().setAll(c1, c2);
 
-        Map<String, Double> lapStats = LapAnalysis.basicStats(refLap);
-
-        // Distribuzione sedile (lasciata qui, come nel tuo codice)
-        ForceStats.SeatDistribution dist = ForceStats.distribution(refLap);
-        lapStats.put("Seat dist SX [%]",   dist.left  * 100.0);
-        lapStats.put("Seat dist POST [%]", dist.rear  * 100.0);
-        lapStats.put("Seat dist DX [%]",   dist.right * 100.0);
-
-        // Forze/FFB/Seat roughness aggregate (estratto)
-        Map<String, Double> forceStats = LapForceStatsAggregator.build(refLap);
-
-        // Accordion con statistiche
-        Map<String, Double> merged = new LinkedHashMap<>(lapStats);
-        merged.putAll(forceStats);
-        TitledPane statsPane = titled("Statistiche (giro)", UiWidgets.buildStatsAccordion(merged));
+        // Accordion con statistiche (riempito quando il calcolo è pronto)
+        TitledPane statsPane = titled("Statistiche (giro)", Fx.pending());
         topGrid.add(statsPane, 0, 0);
 
         // Widget switcher
@@ -195,10 +211,10 @@ public class AnalysisView {
         bottomGrid.setHgap(12); bottomGrid.setVgap(12); bottomGrid.setPadding(new Insets(8));
         bottomGrid.getColumnConstraints().setAll(c1, c2);
 
-        TitledPane coach = (TitledPane) new LapCoachPane().build(refLap);
+        StackPane coach = new StackPane(titled("Consigli del coach (giro)", Fx.pending()));
         bottomGrid.add(coach, 0, 0, 2, 1);
 
-        TitledPane setup = (TitledPane) new LapSetupPaneBuilder().build(refLap, data.getLaps());
+        StackPane setup = new StackPane(titled("Consigli setup", Fx.pending()));
         bottomGrid.add(setup, 0, 1, 2, 1);
 
         VBox right = new VBox(10, topGrid, bottomGrid);
@@ -206,6 +222,40 @@ public class AnalysisView {
         right.setFillWidth(true);
 
         rightPane.setContent(right);
+
+        List<Lap> session = data.getLaps();
+        panelSlot.submitForLap(refLap, List.of(PANEL_KEY, data.getSessionIndex()),
+                lap -> computePanel(lap, session),
+                (PanelData p) -> {
+                    statsPane.setContent(UiWidgets.buildStatsAccordion(p.stats()));
+                    coach.getChildren().setAll(new LapCoachPane().build(p.notes()));
+                    setup.getChildren().setAll(setupPane.build(p.setup()));
+                },
+                e -> {
+                    statsPane.setContent(Fx.failed());
+                    coach.getChildren().setAll(titled("Consigli del coach (giro)", Fx.failed()));
+                    setup.getChildren().setAll(titled("Consigli setup", Fx.failed()));
+                });
+    }
+
+    /** Calcoli pesanti della colonna destra (thread worker). */
+    private static PanelData computePanel(Lap lap, List<Lap> session) {
+        Map<String, Double> lapStats = LapAnalysis.basicStats(lap);
+
+        // Distribuzione sedile (lasciata qui, come nel tuo codice)
+        ForceStats.SeatDistribution dist = ForceStats.distribution(lap);
+        lapStats.put("Seat dist SX [%]",   dist.left  * 100.0);
+        lapStats.put("Seat dist POST [%]", dist.rear  * 100.0);
+        lapStats.put("Seat dist DX [%]",   dist.right * 100.0);
+
+        // Forze/FFB/Seat roughness aggregate (estratto)
+        Map<String, Double> forceStats = LapForceStatsAggregator.build(lap);
+
+        Map<String, Double> merged = new LinkedHashMap<>(lapStats);
+        merged.putAll(forceStats);
+        return new PanelData(Collections.unmodifiableMap(merged),
+                Collections.unmodifiableList(new ArrayList<>(Coach.generateNotes(lap))),
+                LapSetupPaneBuilder.compute(lap, session));
     }
 
     private static TitledPane titled(String title, Node content) {
@@ -26,8 +26,11 @@ final class LapCoachPane {
     private ProgressIndicator ttsSpinner;
 
     Node build(Lap lap){
-        List<String> allNotes = org.simulator.coach.Coach.generateNotes(lap);
+        return build(org.simulator.coach.Coach.generateNotes(lap));
+    }
 
+    /** Pannello con note già calcolate (es. dal worker di analisi). */
+    Node build(List<String> allNotes){
         // Filtri
         CheckBox cGuida = new CheckBox("Guida");        cGuida.setSelected(true);
         CheckBox cGomme = new CheckBox("Gomme");        cGomme.setSelected(true);
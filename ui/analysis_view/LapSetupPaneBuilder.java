@@ -16,9 +16,24 @@ import java.util.List;
 
 final class LapSetupPaneBuilder {
 
-    Node build(Lap lap, List<Lap> sessionLaps){
+    /** Dati del pannello (calcolabili fuori dal thread FX). */
+    record Result(SetupAdvisor.DriverStyle style, List<SetupAdvisor.Recommendation> recs, TyreCompoundAdvisor.Choice choice) {}
+
+    static Result compute(Lap lap, List<Lap> sessionLaps){
         final List<Lap> session = (sessionLaps == null) ? Collections.emptyList() : sessionLaps;
+        var style = SetupAdvisor.analyzeStyle(session);
+        var recs = (lap == null)
+                ? Collections.<SetupAdvisor.Recommendation>emptyList()
+                : SetupAdvisor.forLap(lap, style);
+        // === Torna all’API breve (Choice) ===
+        return new Result(style, recs, TyreCompoundAdvisor.suggest(session, style));
+    }
 
+    Node build(Lap lap, List<Lap> sessionLaps){
+        return build(compute(lap, sessionLaps));
+    }
+
+    Node build(Result res){
         Label styleLbl = new Label("-");
         styleLbl.setMinWidth(Region.USE_PREF_SIZE);
 
@@ -54,24 +69,13 @@ final class LapSetupPaneBuilder {
             }
         });
 
-        Runnable refresh = () -> {
-            var style = SetupAdvisor.analyzeStyle(session);
-            styleLbl.setText(switch (style) {
-                case SMOOTH -> "Stile: pulito";
-                case NEUTRAL -> "Stile: neutro";
-                case AGGRESSIVE -> "Stile: aggressivo";
-            });
-
-            var recs = (lap == null)
-                    ? Collections.<SetupAdvisor.Recommendation>emptyList()
-                    : SetupAdvisor.forLap(lap, style);
-            list.getItems().setAll(recs);
-
-            // === Torna all’API breve (Choice) ===
-            TyreCompoundAdvisor.Choice choice = TyreCompoundAdvisor.suggest(session, style);
-            compoundLbl.setText("Compound consigliato: " + choice.compound() + "  (" + choice.reason() + ")");
-        };
-        refresh.run();
+        styleLbl.setText(switch (res.style()) {
+            case SMOOTH -> "Stile: pulito";
+            case NEUTRAL -> "Stile: neutro";
+            case AGGRESSIVE -> "Stile: aggressivo";
+        });
+        list.getItems().setAll(res.recs());
+        compoundLbl.setText("Compound consigliato: " + res.choice().compound() + "  (" + res.choice().reason() + ")");
 
         Region spacer = new Region(); HBox.setHgrow(spacer, Priority.ALWAYS);
         HBox header = new HBox(12, styleLbl, compoundLbl, spacer);
@@ -1,17 +1,21 @@
 package org.simulator.ui.compare_sessions_view;
 
-import org.simulator.analisi_base.lap_analysis.CornerDetector;
 import org.simulator.analisi_base.lap_analysis.CornerKPIs;
 import org.simulator.analisi_base.lap_analysis.LapAnalysis;
+import org.simulator.analisi_base.lap_analysis.TrackCornerMap;
 import org.simulator.canale.Lap;
+import org.simulator.canale.LapGrid;
+import org.simulator.ui.DeltaEngine;
 import org.simulator.ui.analysis_view.LapForceStatsAggregator;
-import org.simulator.ui.time_line_view.DeltaAligner;
 
 import java.util.*;
 
 /** Coach comparativo SX (base) vs DX (comparata). */
 class CompareCoach {
 
+    /** Griglia per il confronto per curva: 0.1% del giro. */
+    private static final LapGrid.Spec CORNER_GRID = LapGrid.Spec.percent(0.001);
+
     static record Item(String name, double sx, double dx, double delta) {}
 
     static class Result {
@@ -33,6 +37,11 @@ class CompareCoach {
     ) {}
 
     Result compare(Lap sx, Lap dx) {
+        return compare(sx, dx, sx == null ? null : TrackCornerMap.of(List.of(sx)));
+    }
+
+    /** Confronto con le curve della mappa di sessione: stessi segmenti (in % giro) e stessa numerazione sui due giri. */
+    Result compare(Lap sx, Lap dx, TrackCornerMap corners) {
         Result r = new Result();
         if (sx == null || dx == null) return r;
 
@@ -79,14 +88,12 @@ class CompareCoach {
 
         // ---- 2) Analisi per curva (Δt e KPIs) ----
         try {
-            var detector = new CornerDetector();
             var kpicalc  = new CornerKPIs();
-            var aligner  = new DeltaAligner();
 
-            // Allineamento robusto: per l'analisi per curva usiamo SEMPRE l'asse %lap
-            List<DeltaAligner.SeriesPoint> deltaSeries =
-                    aligner.compute(sx.samples, dx.samples, DeltaAligner.AlignMode.PERCENT_LAP);
-            if (deltaSeries.size() < 5) { // fallback hard
+            // Allineamento robusto: per l'analisi per curva usiamo SEMPRE l'asse %lap (griglia comune)
+            LapGrid gridSx = LapGrid.of(sx, CORNER_GRID);
+            DeltaEngine.Curve deltaSeries = gridDelta(gridSx, LapGrid.of(dx, CORNER_GRID));
+            if (deltaSeries.n() < 5) { // fallback hard
                 r.cornerFindings = Collections.emptyList();
                 return r;
             }
@@ -97,22 +104,20 @@ class CompareCoach {
                 return r;
             }
 
-            var segments = detector.detect(sx);
+            if (corners == null) corners = TrackCornerMap.of(List.of(sx));
+            List<CornerKPIs.KPIs> kpiSx = kpicalc.computeAll(sx, corners);
+            List<CornerKPIs.KPIs> kpiDx = kpicalc.computeAll(dx, corners);
             List<CornerFinding> findings = new ArrayList<>();
-            double len = sx.samples.get(sx.samples.size()-1).distance();
-            if (!Double.isFinite(len) || len<=0) len = 1.0;
-
-            for (var seg : segments) {
-                var aKpi = kpicalc.compute(sx, seg);
-                var bKpi = kpicalc.compute(dx, seg);
 
-                double p0 = Math.max(0, Math.min(1, seg.xStart/len));
-                double p1 = Math.max(0, Math.min(1, seg.xEnd  /len));
+            for (int k = 0; k < corners.size(); k++) {
+                var c = corners.corners().get(k);
+                var aKpi = kpiSx.get(k);
+                var bKpi = kpiDx.get(k);
 
-                double dt = integrateDeltaInterpolated(deltaSeries, p0, p1);
+                double dt = integrateDeltaInterpolated(deltaSeries, c.start(), c.end());
                 int sev   = severityFrom(dt, aKpi, bKpi);
                 String msg = messageFrom(aKpi, bKpi, dt);
-                findings.add(new CornerFinding(seg.id, dt, aKpi, bKpi, sev, msg));
+                findings.add(new CornerFinding(c.number(), dt, aKpi, bKpi, sev, msg));
             }
             findings.sort(Comparator.comparingInt(CornerFinding::cornerId));
             r.cornerFindings = findings;
@@ -123,11 +128,20 @@ class CompareCoach {
         return r;
     }
 
-    private static boolean isSeriesDegenerate(List<DeltaAligner.SeriesPoint> s){
-        if (s.size()<5) return true;
-        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
-        for (var p : s){ if (Double.isFinite(p.dt)) { if (p.dt<min) min=p.dt; if (p.dt>max) max=p.dt; } }
-        return !Double.isFinite(min) || (max-min) < 0.05; // meno di 0.05s di escursione = informazione insufficiente
+    /** Δt (dx − sx) per frazione di giro: i due giri hanno la stessa griglia, quindi è una differenza di array. */
+    private static DeltaEngine.Curve gridDelta(LapGrid a, LapGrid b){
+        int n = Math.min(a.size(), b.size());
+        if (n < 2) return DeltaEngine.Curve.EMPTY;
+        double[] ta = a.time(), tb = b.time();
+        double[] x = new double[n], dt = new double[n];
+        for (int i = 0; i < n; i++){ x[i] = (double) i / (n - 1); dt[i] = tb[i] - ta[i]; }
+        return new DeltaEngine.Curve(x, dt, n);
+    }
+
+    private static boolean isSeriesDegenerate(DeltaEngine.Curve s){
+        if (s.n()<5) return true;
+        double span = s.span();
+        return !Double.isFinite(span) || span < 0.05; // meno di 0.05s di escursione = informazione insufficiente
     }
 
     private static String findLapTimeKey(Map<String,Double> a, Map<String,Double> b) {
@@ -145,30 +159,14 @@ class CompareCoach {
     }
     private static double safe(Double d) { return d == null ? Double.NaN : d; }
 
-    private static double integrateDeltaInterpolated(List<DeltaAligner.SeriesPoint> s, double x0, double x1) {
-        if (s == null || s.size() < 2) return Double.NaN;
+    private static double integrateDeltaInterpolated(DeltaEngine.Curve s, double x0, double x1) {
+        if (s == null || s.n() < 2) return Double.NaN;
         if (x1 < x0) { double tmp=x0; x0=x1; x1=tmp; }
-        double dt0 = dtAt(s, x0);
-        double dt1 = dtAt(s, x1);
+        double dt0 = s.at(x0);
+        double dt1 = s.at(x1);
         if (!Double.isFinite(dt0) || !Double.isFinite(dt1)) return Double.NaN;
         return dt1 - dt0;
     }
-    private static double dtAt(List<DeltaAligner.SeriesPoint> s, double x){
-        int n = s.size();
-        if (n == 0) return Double.NaN;
-        if (x <= s.get(0).x) return s.get(0).dt;
-        if (x >= s.get(n-1).x) return s.get(n-1).dt;
-        int lo=0, hi=n-1;
-        while (hi-lo>1){
-            int mid=(lo+hi)>>>1;
-            if (s.get(mid).x >= x) hi=mid; else lo=mid;
-        }
-        var a = s.get(lo); var b = s.get(hi);
-        double den = (b.x - a.x);
-        if (den <= 0) return a.dt;
-        double u = (x - a.x)/den;
-        return a.dt + u*(b.dt - a.dt);
-    }
 
     private static int severityFrom(double dt, CornerKPIs.KPIs a, CornerKPIs.KPIs b) {
         double sec = Math.abs(dt);
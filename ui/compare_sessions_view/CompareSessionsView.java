@@ -12,16 +12,23 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import org.simulator.analisi_base.force_stats.ForceStats;
 import org.simulator.analisi_base.lap_analysis.LapAnalysis;
+import org.simulator.analisi_base.lap_analysis.TrackCornerMap;
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
+import org.simulator.canale.SessionIndex;
+import org.simulator.ui.AnalysisScheduler;
 import org.simulator.ui.ChartManager;
 import org.simulator.ui.ChartPane;
 import org.simulator.ui.DataController;
+import org.simulator.ui.Fx;
 import org.simulator.ui.asix_pack.AxisChoice;
 import org.simulator.ui.asix_pack.AxisPicker;
 import org.simulator.ui.analysis_view.LapForceStatsAggregator;
 import org.simulator.widget.UiWidgets;
 import org.simulator.ui.compare_sessions_view.CompareCoach.CornerFinding;
+import org.simulator.tracks.SessionPreamble;
+import org.simulator.tracks.StaticTrackDB;
+import org.simulator.tracks.TrackInfo;
 
 import java.io.File;
 import java.nio.file.Path;
@@ -49,6 +56,13 @@ public class CompareSessionsView {
     private final ScrollPane rightPane = new ScrollPane();
     private Stage stageForChooser;
 
+    private final AnalysisScheduler.Slot coachSlot = AnalysisScheduler.get().newSlot("compare-coach");
+    /** Curve della sessione attuale (preambolo CSV + consenso sui giri): una volta per sessione, solo thread FX. */
+    private TrackCornerMap cornersMemo;
+    private SessionIndex cornersIndex;
+
+    private record CoachResult(SessionIndex index, TrackCornerMap corners, CompareCoach.Result result) {}
+
     public CompareSessionsView(DataController baseData) {
         this.baseData = baseData;
         buildUI();
@@ -195,7 +209,11 @@ public class CompareSessionsView {
         if (rightLap != null) box.getChildren().add(sectionPane("Statistiche – Sessione comparata", buildStatsPane(rightLap), "#f6f0ff"));
 
         if (leftLap != null && rightLap != null) {
-            box.getChildren().add(sectionPane("Coach Comparativo", buildCoachPane(leftLap, rightLap), "#f9fff0"));
+            StackPane coachHolder = new StackPane(Fx.pending());
+            box.getChildren().add(sectionPane("Coach Comparativo", coachHolder, "#f9fff0"));
+            requestCoach(leftLap, rightLap, coachHolder);
+        } else {
+            coachSlot.cancel();
         }
 
         rightPane.setContent(box);
@@ -231,8 +249,24 @@ public class CompareSessionsView {
         return accNode;
     }
 
-    private Node buildCoachPane(Lap sx, Lap dx) {
-        CompareCoach.Result r = new CompareCoach().compare(sx, dx);
+    /** Confronto del coach su un worker: lettura del preambolo, mappa curve e confronto fuori dal thread FX. */
+    private void requestCoach(Lap sx, Lap dx, StackPane holder) {
+        List<Lap> laps = baseData.getLaps();
+        SessionIndex session = baseData.getSessionIndex();
+        Path csv = baseData.getCsvPath();
+        TrackCornerMap known = (cornersMemo != null && cornersIndex == session) ? cornersMemo : null;
+        coachSlot.submit(() -> {
+            // curve della sessione attuale (profilo pista se disponibile): stessa numerazione su tutti i giri
+            TrackCornerMap corners = (known != null) ? known : TrackCornerMap.of(laps, trackOf(csv));
+            return new CoachResult(session, corners, new CompareCoach().compare(sx, dx, corners));
+        }, (CoachResult c) -> {
+            cornersIndex = c.index();
+            cornersMemo = c.corners();
+            holder.getChildren().setAll(buildCoachPane(c.result()));
+        }, e -> holder.getChildren().setAll(Fx.failed()));
+    }
+
+    private Node buildCoachPane(CompareCoach.Result r) {
         DecimalFormat df = new DecimalFormat("0.000");
 
         String deltaStr = (Double.isNaN(r.deltaLapTime)) ? "n/d"
@@ -305,6 +339,11 @@ public class CompareSessionsView {
         return wrap;
     }
 
+    private static TrackInfo trackOf(Path csv){
+        var pre = SessionPreamble.parse(csv);
+        return pre.venue == null ? null : StaticTrackDB.get(pre.venue.toLowerCase(Locale.ROOT));
+    }
+
     private Node listBlock(String title, List<CompareCoach.Item> items, int max,
                            DecimalFormat df, String style) {
         VBox rows = new VBox(4);
@@ -0,0 +1,85 @@
+package org.simulator.ui.settings;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import org.simulator.diagnostica.Metrics;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Pannello diagnostica (nascosto, Ctrl+Shift+D nelle impostazioni): metriche per fase di import,
+ * analisi, grafici e cache, aggiornate una volta al secondo mentre il tab è visibile.
+ */
+final class DiagnosticsPane {
+
+    private final TableView<Metrics.Snapshot> table = new TableView<>();
+    private final Timeline refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+    private final Tab tab;
+
+    DiagnosticsPane() {
+        table.getColumns().add(column("Metrica", 260, Metrics.Snapshot::name));
+        table.getColumns().add(column("Tipo", 80, s -> s.kind().name().toLowerCase(Locale.ROOT)));
+        table.getColumns().add(column("Conteggio", 90, s -> s.kind() == Metrics.Kind.GAUGE ? "" : Long.toString(s.count())));
+        table.getColumns().add(column("Valore / totale ms", 130, s -> s.kind() == Metrics.Kind.COUNTER ? "" : num(s.value())));
+        table.getColumns().add(column("Media ms", 90, s -> num(s.meanMs())));
+        table.getColumns().add(column("Max ms", 90, s -> num(s.maxMs())));
+        table.getColumns().add(column("Ultimo ms", 90, s -> num(s.lastMs())));
+        table.getColumns().add(column("Allocati MB", 100,
+                s -> s.kind() == Metrics.Kind.TIMER ? num(s.allocatedBytes() / (1024.0 * 1024.0)) : ""));
+        table.setPlaceholder(new Label("Nessuna metrica registrata"));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        Button reset = new Button("Azzera");
+        reset.setOnAction(e -> { Metrics.reset(); update(); });
+        Label jfr = new Label("Eventi JFR: categoria \"Telemetry Coach\" (-XX:StartFlightRecording=filename=tc.jfr)");
+        jfr.setStyle("-fx-opacity: .7;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox bar = new HBox(10, jfr, spacer, reset);
+
+        VBox page = new VBox(8, table, bar);
+        page.setPadding(new Insets(10));
+
+        refresh.setCycleCount(Timeline.INDEFINITE);
+        tab = new Tab("Diagnostica", page);
+        tab.setClosable(false);
+        tab.selectedProperty().addListener((o, ov, nv) -> { if (nv) start(); else stop(); });
+    }
+
+    Tab tab() { return tab; }
+
+    void start() {
+        update();
+        refresh.play();
+    }
+
+    void stop() {
+        refresh.stop();
+    }
+
+    private void update() {
+        table.getItems().setAll(Metrics.snapshot());
+    }
+
+    private static TableColumn<Metrics.Snapshot, String> column(String title, double width,
+                                                                 Function<Metrics.Snapshot, String> value) {
+        TableColumn<Metrics.Snapshot, String> c = new TableColumn<>(title);
+        c.setPrefWidth(width);
+        c.setCellValueFactory(cd -> new ReadOnlyStringWrapper(value.apply(cd.getValue())));
+        c.setSortable(false);
+        return c;
+    }
+
+    private static String num(double v) {
+        return Double.isFinite(v) ? String.format(Locale.ROOT, "%.2f", v) : "";
+    }
+}
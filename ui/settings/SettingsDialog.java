@@ -6,6 +6,9 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
 import javafx.stage.Modality;
@@ -232,7 +235,17 @@ public final class SettingsDialog {
         st.initOwner(owner);
         st.initModality(Modality.NONE);
         st.setTitle("Personalizzazione");
-        st.setScene(new Scene(root, 840, 600));
+        Scene scene = new Scene(root, 840, 600);
+
+        // ---------- TAB NASCOSTO: DIAGNOSTICA (Ctrl+Shift+D) ----------
+        DiagnosticsPane diag = new DiagnosticsPane();
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.D, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN), () -> {
+            if (!tp.getTabs().contains(diag.tab())) tp.getTabs().add(diag.tab());
+            tp.getSelectionModel().select(diag.tab());
+        });
+        st.setOnHidden(e -> diag.stop());
+
+        st.setScene(scene);
         st.show();
     }
 
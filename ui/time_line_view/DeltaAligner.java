@@ -1,6 +1,9 @@
 package org.simulator.ui.time_line_view;
 
+import org.simulator.canale.Lap;
 import org.simulator.canale.Sample;
+import org.simulator.ui.DeltaEngine;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,58 +23,39 @@ public final class DeltaAligner {
         if (ref == null || cmp == null) return out;
         if (ref.size() < 2 || cmp.size() < 2) return out;
 
-        var ax = axis(ref, mode);
-        var bx = axis(cmp, mode);
-        int n = Math.min(ax.size(), ref.size());
-        int m = Math.min(bx.size(), cmp.size());
-        if (n < 2 || m < 2) return out;
-
-        // j scorre la serie "cmp" per interpolare al valore x corrente di "ref"
-        int j = 0;
-        double prevAx = Double.NEGATIVE_INFINITY;
-        for (int i=0; i<n; i++) {
-            double x = ax.get(i);
-            if (!Double.isFinite(x)) continue;
-            // richiede x monotono NON decrescente: se non lo è, salta il punto
-            if (x < prevAx) continue;
-            prevAx = x;
-
-            // porta j in modo che bx[j] <= x <= bx[j+1], evitando segmenti piatti
-            while (j + 1 < m && (!Double.isFinite(bx.get(j+1)) || bx.get(j + 1) < x)) j++;
-            if (j >= m - 1) { j = m - 2; }
-            double x0 = bx.get(j),   x1 = bx.get(j + 1);
-            if (!Double.isFinite(x0) || !Double.isFinite(x1) || x1 <= x0) continue;
-
-            double tA = ref.get(i).timestamp();
-            if (!Double.isFinite(tA)) continue;
-
-            double t0 = cmp.get(j).timestamp(), t1 = cmp.get(j + 1).timestamp();
-            if (!Double.isFinite(t0) || !Double.isFinite(t1)) continue;
-
-            double u = (x - x0) / (x1 - x0);
-            if (u < 0) u = 0; else if (u > 1) u = 1;
-
-            double tB = t0 + u * (t1 - t0);
-            if (!Double.isFinite(tB)) continue;
-
-            out.add(new SeriesPoint(x, tB - tA)); // Δt cumulativo
-        }
+        DeltaEngine.Curve c = DeltaEngine.align(axis(ref, mode), times(ref), axis(cmp, mode), times(cmp));
+        for (int i = 0; i < c.n(); i++) out.add(new SeriesPoint(c.x()[i], c.dt()[i])); // Δt cumulativo
         return out;
     }
 
+    /** Come {@link #compute(List, List, AlignMode)} ma su array primitivi: assi e % giro riusati dal giro. */
+    public DeltaEngine.Curve compute(Lap ref, Lap cmp, AlignMode mode) {
+        if (ref == null || cmp == null || ref.size() < 2 || cmp.size() < 2) return DeltaEngine.Curve.EMPTY;
+        return DeltaEngine.align(axis(ref, mode), ref.frame().timestamps(), axis(cmp, mode), cmp.frame().timestamps());
+    }
+
     // helpers
-    private static List<Double> axis(List<Sample> s, AlignMode m){
+    private static double[] axis(Lap lap, AlignMode m){
         return switch (m){
-            case DISTANCE -> s.stream().map(Sample::distance).toList();
-            case TIME     -> s.stream().map(Sample::timestamp).toList();
-            case PERCENT_LAP -> {
-                double len = s.get(s.size()-1).distance();
-                if (!Double.isFinite(len) || len <= 0) len = 1.0;
-                final double flen = len;
-                yield s.stream().map(a -> a.distance()/flen).toList();
-            }
+            case DISTANCE -> lap.frame().distances();
+            case TIME     -> lap.frame().timestamps();
+            case PERCENT_LAP -> DeltaEngine.percentOfLap(lap);
         };
     }
+    private static double[] axis(List<Sample> s, AlignMode m){
+        double[] d = new double[s.size()];
+        for (int i = 0; i < d.length; i++) d[i] = (m == AlignMode.TIME) ? s.get(i).timestamp() : s.get(i).distance();
+        if (m != AlignMode.PERCENT_LAP) return d;
+        double len = d[d.length-1];
+        if (!Double.isFinite(len) || len <= 0) len = 1.0;
+        for (int i = 0; i < d.length; i++) d[i] = d[i] / len;
+        return d;
+    }
+    private static double[] times(List<Sample> s){
+        double[] t = new double[s.size()];
+        for (int i = 0; i < t.length; i++) t[i] = s.get(i).timestamp();
+        return t;
+    }
 
     private static int lowerBound(List<DeltaAligner.SeriesPoint> s, double x){
         int lo=0, hi=s.size()-1;
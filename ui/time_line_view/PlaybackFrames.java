@@ -0,0 +1,163 @@
+package org.simulator.ui.time_line_view;
+
+import org.simulator.canale.Channel;
+import org.simulator.ui.SeriesBundle;
+import org.simulator.ui.time_line_view.widget_TL.CoachTL;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Valori dei widget della timeline precalcolati per giro su una griglia uniforme dell'asse X del grafico
+ * (tempo giro o distanza). Durante il playback ogni frame legge una riga per indice invece di fare
+ * decine di ricerche binarie sulle liste; anche il coach istantaneo è precalcolato sulla stessa griglia.
+ */
+final class PlaybackFrames {
+
+    // ===== colonne di una riga =====
+    static final int LAP_TIME = 0, SPEED = 1, RPM = 2, STEER = 3;
+    static final int THR = 4, BRK = 5, CLU = 6, THR_N = 7, BRK_N = 8, CLU_N = 9, FFB = 10;
+    static final int PEDAL_FORCE = 11, SEAT_FORCE = 12;
+    /** FL, FR, RL, RR. */
+    static final int GRIP = 13;
+    /** FL inner/middle/outer, poi FR, RL, RR. */
+    static final int TEMP_IMO = 17;
+    static final int PRESS = 29, LOAD = 33, BRAKE_T = 37;
+    /** LEFT, RIGHT, REAR. */
+    static final int SEAT = 41;
+    static final int SUSP = 44, RIDE_H = 48;
+    static final int COLS = 52;
+
+    /** Tetto ai frame: una riga per campione basta, oltre è solo memoria. */
+    private static final int MAX_FRAMES = 20_000;
+
+    private static final String[] CORNERS = { "FL", "FR", "RL", "RR" };
+    private static final Channel[] GRIP_CH = { Channel.TIRE_RUBBER_GRIP_FL, Channel.TIRE_RUBBER_GRIP_FR, Channel.TIRE_RUBBER_GRIP_RL, Channel.TIRE_RUBBER_GRIP_RR };
+    private static final Channel[] TEMP_CH = {
+            Channel.TIRE_TEMP_INNER_FL, Channel.TIRE_TEMP_MIDDLE_FL, Channel.TIRE_TEMP_OUTER_FL,
+            Channel.TIRE_TEMP_INNER_FR, Channel.TIRE_TEMP_MIDDLE_FR, Channel.TIRE_TEMP_OUTER_FR,
+            Channel.TIRE_TEMP_INNER_RL, Channel.TIRE_TEMP_MIDDLE_RL, Channel.TIRE_TEMP_OUTER_RL,
+            Channel.TIRE_TEMP_INNER_RR, Channel.TIRE_TEMP_MIDDLE_RR, Channel.TIRE_TEMP_OUTER_RR };
+    private static final Channel[] PRESS_CH = { Channel.TIRE_PRESSURE_FL, Channel.TIRE_PRESSURE_FR, Channel.TIRE_PRESSURE_RL, Channel.TIRE_PRESSURE_RR };
+    private static final Channel[] LOAD_CH = { Channel.TIRE_LOAD_FL, Channel.TIRE_LOAD_FR, Channel.TIRE_LOAD_RL, Channel.TIRE_LOAD_RR };
+    private static final Channel[] SUSP_CH = { Channel.SUSP_TRAVEL_FL, Channel.SUSP_TRAVEL_FR, Channel.SUSP_TRAVEL_RL, Channel.SUSP_TRAVEL_RR };
+    private static final Channel[] SUSP_MAX_CH = { Channel.MAX_SUS_TRAVEL_FL, Channel.MAX_SUS_TRAVEL_FR, Channel.MAX_SUS_TRAVEL_RL, Channel.MAX_SUS_TRAVEL_RR };
+    private static final Channel[] RIDE_H_CH = { Channel.RIDE_HEIGHT_FL, Channel.RIDE_HEIGHT_FR, Channel.RIDE_HEIGHT_RL, Channel.RIDE_HEIGHT_RR };
+    private static final String[] SEATS = { "LEFT", "RIGHT", "REAR" };
+
+    /** Sorgenti di un giro (immutabili dopo la costruzione, quindi leggibili da un worker). */
+    record Inputs(Signals s, SeriesBundle sb,
+                  List<Double> xPF, List<Double> thrForce, List<Double> brkForce, List<Double> cluForce) {
+
+        /** Riga dei valori dei widget all'ascissa x (stesse letture di prima, una volta per frame). */
+        void sample(double x, double[] row) {
+            Double lt = s.lapTimeSec(x);
+            row[LAP_TIME] = lt == null ? Double.NaN : lt;
+            row[SPEED] = interp(sb.x, sb.speed, x);
+            row[RPM] = interp(sb.x, sb.rpm, x);
+            row[STEER] = interp(sb.x, sb.steering, x);
+            row[THR] = s.throttle01(x);
+            row[BRK] = s.brake01(x);
+            row[CLU] = s.clutch01Pedal(x);
+            row[THR_N] = interp(xPF, thrForce, x);
+            row[BRK_N] = interp(xPF, brkForce, x);
+            row[CLU_N] = interp(xPF, cluForce, x);
+            row[FFB] = s.ffb01(x);
+            row[PEDAL_FORCE] = interp(sb.x, sb.pedalForce, x);
+            row[SEAT_FORCE] = interp(sb.x, sb.seatForce, x);
+            for (int c = 0; c < 4; c++) {
+                row[GRIP + c] = s.value(GRIP_CH[c], x);
+                row[PRESS + c] = s.value(PRESS_CH[c], x);
+                row[LOAD + c] = s.value(LOAD_CH[c], x);
+                row[BRAKE_T + c] = s.brakeTemp(CORNERS[c], x);
+                row[SUSP + c] = travelPct(s.value(SUSP_CH[c], x), s.value(SUSP_MAX_CH[c], x));
+                row[RIDE_H + c] = s.value(RIDE_H_CH[c], x);
+            }
+            for (int k = 0; k < TEMP_CH.length; k++) row[TEMP_IMO + k] = s.value(TEMP_CH[k], x);
+            for (int k = 0; k < SEATS.length; k++) row[SEAT + k] = s.seatForce01(SEATS[k], x);
+        }
+    }
+
+    private final double x0, dx;
+    private final int n;
+    private final double[] xs;
+    private final double[] data;   // righe contigue: frame i = data[i*COLS .. i*COLS+COLS)
+    private final CoachTL.Prepared coach;
+
+    private PlaybackFrames(double x0, double dx, double[] xs, double[] data, CoachTL.Prepared coach) {
+        this.x0 = x0; this.dx = dx; this.xs = xs; this.n = xs.length; this.data = data; this.coach = coach;
+    }
+
+    /**
+     * Campiona il giro su una griglia uniforme [x0,x1] con circa un frame per campione.
+     * Pensato per un worker: se il thread viene interrotto (giro cambiato) lancia {@link CancellationException}.
+     */
+    static PlaybackFrames build(Inputs in, double x0, double x1, int samples) {
+        int n = Math.max(2, Math.min(MAX_FRAMES, samples));
+        double dx = (x1 - x0) / (n - 1);
+        double[] xs = new double[n];
+        double[] data = new double[n * COLS];
+        double[] row = new double[COLS];
+        for (int i = 0; i < n; i++) {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+            xs[i] = (i == n - 1) ? x1 : x0 + i * dx;
+            in.sample(xs[i], row);
+            System.arraycopy(row, 0, data, i * COLS, COLS);
+        }
+        return new PlaybackFrames(x0, dx, xs, data, CoachTL.prepare(in.s(), in.sb(), xs));
+    }
+
+    int size() { return n; }
+
+    double x(int i) { return xs[i]; }
+
+    /** Frame più vicino all'ascissa (fuori range → primo/ultimo). */
+    int index(double x) {
+        if (!(dx > 0)) return 0;
+        long i = Math.round((x - x0) / dx);
+        return (int) Math.max(0, Math.min(n - 1, i));
+    }
+
+    /** Copia la riga del frame in {@code out} (lungo almeno {@link #COLS}). */
+    double[] row(int i, double[] out) {
+        System.arraycopy(data, i * COLS, out, 0, COLS);
+        return out;
+    }
+
+    /** Valore della colonna interpolato linearmente fra i due frame vicini (O(1)). */
+    double value(int col, double x) {
+        if (!(dx > 0)) return data[col];
+        double p = (x - x0) / dx;
+        if (p <= 0) return data[col];
+        if (p >= n - 1) return data[(n - 1) * COLS + col];
+        int i = (int) p;
+        double t = p - i;
+        double a = data[i * COLS + col], b = data[(i + 1) * COLS + col];
+        return a + t * (b - a);
+    }
+
+    CoachTL.Prepared coach() { return coach; }
+
+    // ---- helper ----
+    private static double travelPct(Double cur, Double mx){
+        if (cur == null || mx == null || cur.isNaN() || mx.isNaN() || mx == 0.0) return 0.0;
+        return Math.min(1.0, Math.abs(cur) / Math.abs(mx));
+    }
+
+    private static double interp(List<Double> xs, List<Double> ys, double xq) {
+        int n = Math.min(xs.size(), ys.size());
+        if (n == 0) return Double.NaN;
+        if (xq <= xs.get(0)) return ys.get(0);
+        if (xq >= xs.get(n - 1)) return ys.get(n - 1);
+        int lo = 0, hi = n - 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (xs.get(mid) <= xq) lo = mid; else hi = mid;
+        }
+        double x1 = xs.get(lo), x2 = xs.get(hi);
+        double y1 = ys.get(lo), y2 = ys.get(hi);
+        if (x2 == x1) return y1;
+        double t = (xq - x1) / (x2 - x1);
+        return y1 + t * (y2 - y1);
+    }
+}
@@ -2,199 +2,251 @@ package org.simulator.ui.time_line_view;
 
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
-import org.simulator.canale.Sample;
+import org.simulator.canale.LapFrame;
 import org.simulator.ui.asix_pack.AxisChoice;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
-/** Costruisce serie allineate su asse X e fornisce API comode + accesso generico ai Channel. */
+/**
+ * Serie del giro allineate su asse X, con API comode + accesso generico ai Channel.
+ *
+ * Lavora sulle colonne del giro ({@link LapFrame}): l'asse X è costruito una volta, ogni serie derivata
+ * (pedali normalizzati, temperature per angolo, forze sedile) alla prima lettura, e i canali generici
+ * vengono letti direttamente dalla colonna. Aprire un giro costa solo i canali che i widget leggono.
+ * Thread-safe (le serie si leggono anche dal worker di {@link PlaybackFrames}).
+ */
 public final class Signals {
-    final List<Double> x = new ArrayList<>();
-    final List<Double> lapTime = new ArrayList<>();
+    private final LapFrame frame;       // null = nessun giro
+    final double[] x;
+    private final double lt0;
 
-    // API comode (come prima)
-    final List<Double> throttle01 = new ArrayList<>();
-    final List<Double> brake01    = new ArrayList<>();
-    final List<Double> clutch01   = new ArrayList<>(); // posizione normalizzata (0..1) – AC: 1=rilsciata
-
-    final List<Double> steeringDeg= new ArrayList<>();
-    final List<Double> ffbRaw     = new ArrayList<>();
-    double ffbAbsMax = 1.0;
-
-    final List<Double> tyreFL = new ArrayList<>(), tyreFR = new ArrayList<>(),
-            tyreRL = new ArrayList<>(), tyreRR = new ArrayList<>();
-
-    final List<Double> brkFL = new ArrayList<>(), brkFR = new ArrayList<>(),
-            brkRL = new ArrayList<>(), brkRR = new ArrayList<>();
-
-    final List<Double> seatL = new ArrayList<>(), seatR = new ArrayList<>(), seatRear = new ArrayList<>();
-    double seatAbsMax = 1.0;
-
-    // ===== NUOVO: serie generiche per tutti i Channel presenti =====
-    private final Map<Channel, List<Double>> series = new LinkedHashMap<>();
+    /** Serie derivate già calcolate (chiave: nome della serie). */
+    private final Map<String, double[]> derived = new ConcurrentHashMap<>();
+    // normalizzazioni (calcolate con le serie che usano; NaN = non ancora)
+    private volatile double ffbAbsMax = Double.NaN;
+    private volatile double seatAbsMax = Double.NaN;
 
     Signals(Lap lap, AxisChoice axis){
-        if (lap==null) return;
+        this.frame = (lap == null) ? null : lap.frame();
+        int n = (frame == null) ? 0 : frame.size();
+        double[] dist = (frame == null) ? new double[0] : frame.distances();
+        double[] lt = column(Channel.LAP_TIME), tm = column(Channel.TIME);
 
         double d0 = Double.NaN, lt0=Double.NaN, t0=Double.NaN;
-        for (Sample s : lap.samples){
-            if (axis.useDist && Double.isNaN(d0) && !Double.isNaN(s.distance())) d0 = s.distance();
-            Double lt = s.values().get(Channel.LAP_TIME);
-            if (axis.useLapTime   && Double.isNaN(lt0) && lt != null && !lt.isNaN()) lt0 = lt;
-            Double ti = s.values().get(Channel.TIME);
-            if (axis.useAbsTime   && Double.isNaN(t0)  && ti != null && !ti.isNaN())  t0 = ti;
+        for (int i = 0; i < n; i++){
+            if (axis.useDist && Double.isNaN(d0) && !Double.isNaN(dist[i])) d0 = dist[i];
+            if (axis.useLapTime && Double.isNaN(lt0) && lt != null && !Double.isNaN(lt[i])) lt0 = lt[i];
+            if (axis.useAbsTime && Double.isNaN(t0)  && tm != null && !Double.isNaN(tm[i])) t0 = tm[i];
         }
+        this.lt0 = lt0;
 
-        for (Sample smp : lap.samples){
+        x = new double[n];
+        for (int i = 0; i < n; i++){
             double xVal;
-            if (axis.useDist && !Double.isNaN(smp.distance())) xVal = smp.distance() - (Double.isNaN(d0)?0:d0);
+            if (axis.useDist && !Double.isNaN(dist[i])) xVal = dist[i] - (Double.isNaN(d0)?0:d0);
             else if (axis.useLapTime){
-                Double v = smp.values().get(Channel.LAP_TIME);
-                xVal = (v!=null && !v.isNaN()) ? (v - (Double.isNaN(lt0)?0:lt0)) : x.size();
+                double v = (lt == null) ? Double.NaN : lt[i];
+                xVal = !Double.isNaN(v) ? (v - (Double.isNaN(lt0)?0:lt0)) : i;
             } else if (axis.useAbsTime){
-                Double v = smp.values().get(Channel.TIME);
-                xVal = (v!=null && !v.isNaN()) ? (v - (Double.isNaN(t0)?0:t0)) : x.size();
-            } else xVal = x.size();
-            x.add(xVal);
+                double v = (tm == null) ? Double.NaN : tm[i];
+                xVal = !Double.isNaN(v) ? (v - (Double.isNaN(t0)?0:t0)) : i;
+            } else xVal = i;
+            x[i] = xVal;
+        }
+    }
 
-            // Lap time allineato a X
-            Double lt = smp.values().get(Channel.LAP_TIME);
-            lapTime.add((lt!=null && !lt.isNaN()) ? (lt - (Double.isNaN(lt0)?0:lt0)) : Double.NaN);
+    // ===== serie derivate (alla prima lettura) ==============================
 
-            // API comode (come prima)
-            throttle01.add(norm01Percent(smp.values().get(Channel.THROTTLE)));
-            brake01.add(norm01Percent(smp.values().get(Channel.BRAKE)));
+    private double[] series(String key, Supplier<double[]> build){
+        double[] ys = derived.get(key);
+        return (ys != null) ? ys : derived.computeIfAbsent(key, k -> build.get());
+    }
 
-            Double cl = firstNonNaN(
-                    smp.values().get(Channel.CLUTCH),
-                    readByName(smp, "CLUTCH_POS", "CLUTCH_POSITION", "CLUTCH_INPUT"),
-                    percentIfLooksLikePercent(smp.values().get(Channel.CLUTCH_FORCE))
-            );
-            clutch01.add(norm01Percent(cl)); // AC: 1 = rilasciata
+    /** Lap time allineato a X. */
+    private double[] lapTime(){
+        return series("lapTime", () -> {
+            double[] lt = column(Channel.LAP_TIME);
+            double off = Double.isNaN(lt0) ? 0 : lt0;
+            double[] out = new double[x.length];
+            for (int i = 0; i < out.length; i++){
+                double v = (lt == null) ? Double.NaN : lt[i];
+                out[i] = !Double.isNaN(v) ? v - off : Double.NaN;
+            }
+            return out;
+        });
+    }
 
-            steeringDeg.add(smp.values().getOrDefault(Channel.STEER_ANGLE, Double.NaN));
-            Double ffb = smp.values().getOrDefault(Channel.FFB, Double.NaN);
-            ffbRaw.add(ffb);
-            if (ffb!=null && !ffb.isNaN()) ffbAbsMax = Math.max(ffbAbsMax, Math.abs(ffb));
+    private double[] pedal01(String key, Channel ch){
+        return series(key, () -> {
+            double[] c = column(ch);
+            double[] out = new double[x.length];
+            for (int i = 0; i < out.length; i++) out[i] = norm01Percent(c == null ? Double.NaN : c[i]);
+            return out;
+        });
+    }
 
-            tyreFL.add(readTemp(smp, "FL"));
-            tyreFR.add(readTemp(smp, "FR"));
-            tyreRL.add(readTemp(smp, "RL"));
-            tyreRR.add(readTemp(smp, "RR"));
+    /** Posizione frizione normalizzata (0..1) – AC: 1=rilasciata. */
+    private double[] clutch01(){
+        return series("clutch01", () -> {
+            double[] cl = column(Channel.CLUTCH), force = column(Channel.CLUTCH_FORCE);
+            double[][] byName = matching(nm -> containsAll(nm, "CLUTCH_POS", "CLUTCH_POSITION", "CLUTCH_INPUT"));
+            double[] out = new double[x.length];
+            for (int i = 0; i < out.length; i++){
+                double v = firstNonNaN(
+                        cl == null ? Double.NaN : cl[i],
+                        first(byName, i),
+                        percentIfLooksLikePercent(force == null ? Double.NaN : force[i]));
+                out[i] = norm01Percent(v);
+            }
+            return out;
+        });
+    }
 
-            brkFL.add(readBrakeTemp(smp, "FL"));
-            brkFR.add(readBrakeTemp(smp, "FR"));
-            brkRL.add(readBrakeTemp(smp, "RL"));
-            brkRR.add(readBrakeTemp(smp, "RR"));
+    private double[] ffbRaw(){
+        return series("ffbRaw", () -> {
+            double[] c = column(Channel.FFB);
+            double[] out = new double[x.length];
+            double max = 1.0;
+            for (int i = 0; i < out.length; i++){
+                double v = (c == null) ? Double.NaN : c[i];
+                out[i] = v;
+                if (!Double.isNaN(v)) max = Math.max(max, Math.abs(v));
+            }
+            ffbAbsMax = (max <= 0) ? 1.0 : max;
+            return out;
+        });
+    }
 
-            Double sl = firstNonNaN(smp.values().get(Channel.SEAT_FORCE_LEFT),  readByName(smp, "SEAT", "LEFT", "FORCE"));
-            Double sr = firstNonNaN(smp.values().get(Channel.SEAT_FORCE_RIGHT), readByName(smp, "SEAT", "RIGHT","FORCE"));
-            Double sp = firstNonNaN(smp.values().get(Channel.SEAT_FORCE_REAR),  readByName(smp, "SEAT", "REAR","POST","FORCE"));
-            seatL.add(sl); seatR.add(sr); seatRear.add(sp);
-            if (sl!=null && !sl.isNaN()) seatAbsMax = Math.max(seatAbsMax, Math.abs(sl));
-            if (sr!=null && !sr.isNaN()) seatAbsMax = Math.max(seatAbsMax, Math.abs(sr));
-            if (sp!=null && !sp.isNaN()) seatAbsMax = Math.max(seatAbsMax, Math.abs(sp));
+    private double[] tyre(String corner){
+        return series("tyre" + corner, () -> byTokens(
+                new String[]{"TYRE","TIRE"}, new String[]{"TEMP"}, new String[]{corner}));
+    }
 
-            // ===== NUOVO: popolamento serie generiche allineate a X =====
-            Set<Channel> present = smp.values().keySet();
-            // backfill NaN su serie già viste
-            for (Map.Entry<Channel, List<Double>> e : series.entrySet()){
-                if (!present.contains(e.getKey())) e.getValue().add(Double.NaN);
-            }
-            // append per i canali presenti (creando la lista se nuova e backfill iniziale)
-            for (Map.Entry<Channel, Double> e : smp.values().entrySet()){
-                Channel ch = e.getKey();
-                Double v   = e.getValue();
-                List<Double> ys = series.get(ch);
-                if (ys == null){
-                    ys = new ArrayList<>();
-                    for (int k=0; k<x.size()-1; k++) ys.add(Double.NaN);
-                    series.put(ch, ys);
-                }
-                ys.add(v);
-            }
-        }
+    private double[] brake(String corner){
+        return series("brk" + corner, () -> byTokens(
+                new String[]{"BRAKE"}, new String[]{"TEMP"}, new String[]{corner}));
+    }
 
-        if (ffbAbsMax<=0) ffbAbsMax = 1.0;
-        if (seatAbsMax<=0) seatAbsMax = 1.0;
+    /** Forza sedile: canale dedicato, altrimenti il primo canale con SEAT + lato + FORCE nel nome. */
+    private double[] seat(String which){
+        return series("seat" + which, () -> {
+            Channel ch = switch (which){
+                case "LEFT"  -> Channel.SEAT_FORCE_LEFT;
+                case "RIGHT" -> Channel.SEAT_FORCE_RIGHT;
+                default      -> Channel.SEAT_FORCE_REAR;
+            };
+            String[] tokens = which.equals("REAR")
+                    ? new String[]{"SEAT", "REAR", "POST", "FORCE"} : new String[]{"SEAT", which, "FORCE"};
+            double[] c = column(ch);
+            double[][] byName = matching(nm -> containsAll(nm, tokens));
+            double[] out = new double[x.length];
+            for (int i = 0; i < out.length; i++) out[i] = firstNonNaN(c == null ? Double.NaN : c[i], first(byName, i));
+            return out;
+        });
+    }
+
+    private double seatAbsMax(){
+        double m = seatAbsMax;
+        if (!Double.isNaN(m)) return m;
+        m = 1.0;
+        for (String w : new String[]{"LEFT", "RIGHT", "REAR"}){
+            for (double v : seat(w)) if (!Double.isNaN(v)) m = Math.max(m, Math.abs(v));
+        }
+        seatAbsMax = (m <= 0) ? 1.0 : m;
+        return seatAbsMax;
     }
 
     // ===== API comode (invariato) ===========================================
-    public double throttle01(double xq){ return clamp01(interp(x, throttle01, xq)); }
-    public double brake01(double xq){    return clamp01(interp(x, brake01, xq)); }
+    public double throttle01(double xq){ return clamp01(interp(x, pedal01("throttle01", Channel.THROTTLE), xq)); }
+    public double brake01(double xq){    return clamp01(interp(x, pedal01("brake01", Channel.BRAKE), xq)); }
     public double clutch01Pedal(double xq){
-        return clamp01(1.0 - clamp01(interp(x, clutch01, xq)));
+        return clamp01(1.0 - clamp01(interp(x, clutch01(), xq)));
     }
     public double ffb01(double xq){
-        double v = Math.abs(interp(x, ffbRaw, xq));
+        double v = Math.abs(interp(x, ffbRaw(), xq));
         return clamp01(v / ffbAbsMax);
     }
     Double lapTimeSec(double xq){
-        return interp(x, lapTime, xq);
+        return interp(x, lapTime(), xq);
     }
 
     public Double tyreTemp(String corner, double xq){
         return switch (corner){
-            case "FL" -> interp(x, tyreFL, xq);
-            case "FR" -> interp(x, tyreFR, xq);
-            case "RL" -> interp(x, tyreRL, xq);
-            case "RR" -> interp(x, tyreRR, xq);
+            case "FL", "FR", "RL", "RR" -> interp(x, tyre(corner), xq);
             default -> Double.NaN;
         };
     }
     public Double brakeTemp(String corner, double xq){
         return switch (corner){
-            case "FL" -> interp(x, brkFL, xq);
-            case "FR" -> interp(x, brkFR, xq);
-            case "RL" -> interp(x, brkRL, xq);
-            case "RR" -> interp(x, brkRR, xq);
+            case "FL", "FR", "RL", "RR" -> interp(x, brake(corner), xq);
             default -> Double.NaN;
         };
     }
     public double seatForce01(String which, double xq){
         double v = switch (which){
-            case "LEFT"  -> Math.abs(interp(x, seatL, xq));
-            case "RIGHT" -> Math.abs(interp(x, seatR, xq));
-            case "REAR"  -> Math.abs(interp(x, seatRear, xq));
+            case "LEFT", "RIGHT", "REAR" -> Math.abs(interp(x, seat(which), xq));
             default -> 0.0;
         };
-        return clamp01(v / seatAbsMax);
+        return clamp01(v / seatAbsMax());
     }
 
-    // ===== NUOVO: accesso generico ai Channel ===============================
+    // ===== accesso generico ai Channel (direttamente sulla colonna) =========
     /** Ritorna il valore del canale interpolato sull'asse X, o NaN se assente. */
     public Double value(Channel ch, double xq){
-        List<Double> ys = series.get(ch);
+        double[] ys = column(ch);
         if (ys == null) return Double.NaN;
         return interp(x, ys, xq);
     }
     /** true se il canale esiste ed ha almeno un valore finito. */
     public boolean has(Channel ch){
-        List<Double> ys = series.get(ch);
-        return ys != null && hasAnyFinite(ys);
+        return hasAnyFinite(column(ch));
+    }
+
+    // ===== helper interni ===================================================
+    /** Colonna del canale, null se assente nel giro. Non modificare l'array. */
+    private double[] column(Channel ch){
+        return (frame == null || !frame.has(ch)) ? null : frame.column(ch);
     }
 
-    // ===== helper interni (come prima) ======================================
-    private static Double readByName(Sample s, String... tokens){
-        for (Map.Entry<Channel, Double> e : s.values().entrySet()){
-            String nm = e.getKey().name().toUpperCase(Locale.ROOT);
-            boolean ok = true;
-            for (String t : tokens) if (!nm.contains(t.toUpperCase(Locale.ROOT))) { ok=false; break; }
-            if (ok) return e.getValue();
+    /** Colonne dei canali presenti il cui nome soddisfa il test, in ordine di canale. */
+    private double[][] matching(java.util.function.Predicate<String> nameTest){
+        List<double[]> out = new ArrayList<>();
+        for (Channel ch : Channel.values()){
+            if (frame != null && frame.has(ch) && nameTest.test(ch.name().toUpperCase(Locale.ROOT))) out.add(frame.column(ch));
         }
+        return out.toArray(new double[0][]);
+    }
+
+    /** Primo valore non-NaN al campione i fra le colonne (come la prima voce del campione che corrisponde). */
+    private static double first(double[][] cols, int i){
+        for (double[] c : cols) if (!Double.isNaN(c[i])) return c[i];
         return Double.NaN;
     }
-    private static Double firstNonNaN(Double... vv){
-        for (Double d : vv) if (d!=null && !d.isNaN() && !d.isInfinite()) return d;
+
+    private double[] byTokens(String[] group1, String[] group2, String[] group3){
+        double[][] cols = matching(nm -> containsAny(nm, group1) && containsAny(nm, group2) && containsAny(nm, group3));
+        double[] out = new double[x.length];
+        for (int i = 0; i < out.length; i++) out[i] = first(cols, i);
+        return out;
+    }
+
+    private static boolean containsAll(String name, String... tokens){
+        for (String t : tokens) if (!name.contains(t.toUpperCase(Locale.ROOT))) return false;
+        return true;
+    }
+    private static double firstNonNaN(double... vv){
+        for (double d : vv) if (!Double.isNaN(d) && !Double.isInfinite(d)) return d;
         return Double.NaN;
     }
-    private static Double percentIfLooksLikePercent(Double v){
-        if (v==null || v.isNaN()) return Double.NaN;
+    private static double percentIfLooksLikePercent(double v){
+        if (Double.isNaN(v)) return Double.NaN;
         if (v>=0 && v<=10000) return v;
         return Double.NaN;
     }
-    private static double norm01Percent(Double v){
-        if (v==null || v.isNaN()) return 0.0;
+    private static double norm01Percent(double v){
+        if (Double.isNaN(v)) return 0.0;
         if (v<=1.0001) return clamp01(v);
         if (v<=100.0+1e-6) return clamp01(v/100.0);
         if (v>100.0 && v<=10000.0) return clamp01(v/100.0/100.0);
@@ -202,53 +254,34 @@ public final class Signals {
     }
     private static double clamp01(double v){ return (Double.isNaN(v)?0.0: Math.max(0.0, Math.min(1.0, v))); }
 
-    private static Double readTemp(Sample s, String corner){
-        return readByTokens(s,
-                new String[]{"TYRE","TIRE"}, new String[]{"TEMP"}, new String[]{corner});
-    }
-    private static Double readBrakeTemp(Sample s, String corner){
-        return readByTokens(s,
-                new String[]{"BRAKE"}, new String[]{"TEMP"}, new String[]{corner});
-    }
-    private static Double readByTokens(Sample s, String[] group1, String[] group2, String[] group3){
-        for (Map.Entry<Channel, Double> e : s.values().entrySet()){
-            String nm = e.getKey().name().toUpperCase(Locale.ROOT);
-            if (containsAny(nm, group1) && containsAny(nm, group2) && containsAny(nm, group3)) {
-                return e.getValue();
-            }
-        }
-        return Double.NaN;
-    }
     private static boolean containsAny(String name, String[] tokens){
         for (String t : tokens) if (name.contains(t)) return true;
         return false;
     }
 
     boolean hasAnyBrakeTemp() {
-        return hasAnyFinite(brkFL) || hasAnyFinite(brkFR) || hasAnyFinite(brkRL) || hasAnyFinite(brkRR);
+        return hasAnyFinite(brake("FL")) || hasAnyFinite(brake("FR")) || hasAnyFinite(brake("RL")) || hasAnyFinite(brake("RR"));
     }
-    private static boolean hasAnyFinite(java.util.List<Double> list) {
-        if (list == null || list.isEmpty()) return false;
-        for (Double d : list) {
-            if (d != null && !d.isNaN() && !d.isInfinite()) return true;
-        }
+    private static boolean hasAnyFinite(double[] ys) {
+        if (ys == null) return false;
+        for (double d : ys) if (!Double.isNaN(d) && !Double.isInfinite(d)) return true;
         return false;
     }
 
-    // ---- interp locale (identico) ----
-    private static double interp(java.util.List<Double> xs, java.util.List<Double> ys, double xq){
-        int n = Math.min(xs.size(), ys.size());
+    // ---- interp locale (identico, su array) ----
+    private static double interp(double[] xs, double[] ys, double xq){
+        int n = Math.min(xs.length, ys.length);
         if (n==0) return Double.NaN;
-        if (xq <= xs.get(0)) return ys.get(0);
-        if (xq >= xs.get(n-1)) return ys.get(n-1);
+        if (xq <= xs[0]) return ys[0];
+        if (xq >= xs[n-1]) return ys[n-1];
         int lo=0, hi=n-1;
         while (hi - lo > 1){
             int mid = (lo+hi)/2;
-            double xm = xs.get(mid);
+            double xm = xs[mid];
             if (xm <= xq) lo = mid; else hi = mid;
         }
-        double x1 = xs.get(lo), x2 = xs.get(hi);
-        double y1 = ys.get(lo), y2 = ys.get(hi);
+        double x1 = xs[lo], x2 = xs[hi];
+        double y1 = ys[lo], y2 = ys[hi];
         if (x2==x1) return y1;
         double t = (xq - x1)/(x2 - x1);
         return y1 + t*(y2 - y1);
@@ -6,23 +6,18 @@ import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
-import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
-import javafx.scene.Group;
 import javafx.scene.Node;
-import javafx.scene.chart.LineChart;
-import javafx.scene.chart.NumberAxis;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
 import org.simulator.canale.Channel;
 import org.simulator.canale.Lap;
 import org.simulator.canale.Sample;
-import org.simulator.ui.ChartInteractions;
+import org.simulator.ui.AnalysisScheduler;
 import org.simulator.ui.ChartManager;
 import org.simulator.ui.ChartPane;
 import org.simulator.ui.SeriesBundle;
+import org.simulator.ui.TelemetryPlot;
 import org.simulator.ui.asix_pack.AxisChoice;
 import org.simulator.ui.asix_pack.AxisPicker;
 import org.simulator.ui.settings.UiSettings;
@@ -44,10 +39,8 @@ public final class TimeLineView {
     private final ChartManager charts = new ChartManager();
     private final BorderPane root = new BorderPane();
     private final ComboBox<ChartPane.PlotType> plotSelector = new ComboBox<>();
-    private final LineChart<Number, Number> chart;
-    private final StackPane chartStack = new StackPane();
-    private final Pane overlay = new Pane();
-    private final Line vline = new Line();
+    // grafico su canvas: cursore e waypoint stanno sul layer overlay (niente relayout a 60 Hz)
+    private final TelemetryPlot chart = new TelemetryPlot();
     private final UiSettings ui = UiSettings.get();
 
     // Slider (allineato al plot)
@@ -61,7 +54,6 @@ public final class TimeLineView {
     private final Button speedBtn = new Button("×1");
 
     // Waypoint
-    private final Group wpGroup = new Group();
     private final Button addWpBtn     = new Button("🏁");
     private final Button delLastWpBtn = new Button("⌫");
     private final Button clearWpBtn   = new Button("🗑");
@@ -110,11 +102,18 @@ public final class TimeLineView {
     private SeriesBundle sb;
     private Signals signals;
 
-    // Forze pedali (stesso asse X del grafico)
-    private final List<Double> xPF = new ArrayList<>();
-    private final List<Double> thrForce = new ArrayList<>();
-    private final List<Double> brkForce = new ArrayList<>();
-    private final List<Double> cluForce = new ArrayList<>();
+    // Forze pedali (stesso asse X del grafico); liste nuove per giro, lette anche dal worker dei frame
+    private List<Double> xPF = new ArrayList<>();
+    private List<Double> thrForce = new ArrayList<>();
+    private List<Double> brkForce = new ArrayList<>();
+    private List<Double> cluForce = new ArrayList<>();
+
+    // Frame di playback del giro corrente (null finché il worker non li ha pronti: si legge dal vivo)
+    private final AnalysisScheduler.Slot framesSlot = AnalysisScheduler.get().newSlot("timeline-frames");
+    private PlaybackFrames.Inputs frameInputs;
+    private PlaybackFrames frames;
+    private int shownFrame = -1;
+    private final double[] row = new double[PlaybackFrames.COLS];
 
     private static final double WIDGETS_H = 260;
 
@@ -148,14 +147,7 @@ public final class TimeLineView {
         top.setPadding(new Insets(8));
 
         // CHART
-        chart = charts.buildChart("Timeline", "X", "Y");
-        overlay.setMouseTransparent(true);
-        vline.setStrokeWidth(1.3);
-        vline.getStyleClass().add("timeline-vline");
-        overlay.getChildren().addAll(wpGroup, vline);
-        chartStack.getChildren().addAll(chart, overlay);
-        StackPane.setAlignment(overlay, Pos.CENTER);
-        ChartInteractions.applyDataBoundsFromSeries(chart);
+        chart.setTitle("Timeline");
 
         // SLIDER
         xSlider.setBlockIncrement(0.02);
@@ -265,23 +257,17 @@ public final class TimeLineView {
 
         // LAYOUT
         root.setTop(top);
-        BorderPane center = new BorderPane(chartStack);
+        BorderPane center = new BorderPane(chart);
         center.setRight(readout.getRoot());
         VBox bottom = new VBox(controls, sliderPane, widgetsScroll);
         root.setCenter(center);
         root.setBottom(bottom);
 
         // LISTENERS
-        chart.widthProperty().addListener((a, b, c) -> { updateCursorVisual(); updateSliderGeometry(); updateWaypointVisual(); });
-        chart.heightProperty().addListener((a, b, c) -> { updateCursorVisual(); updateSliderGeometry(); updateWaypointVisual(); });
-        NumberAxis xa = (NumberAxis) chart.getXAxis();
-        NumberAxis ya = (NumberAxis) chart.getYAxis();
-        xa.lowerBoundProperty().addListener((a, b, c) -> { updateCursorVisual(); updateSliderGeometry(); updateWaypointVisual(); });
-        xa.upperBoundProperty().addListener((a, b, c) -> { updateCursorVisual(); updateSliderGeometry(); updateWaypointVisual(); });
-        ya.lowerBoundProperty().addListener((a, b, c) -> { updateCursorVisual(); updateSliderGeometry(); updateWaypointVisual(); });
-        ya.upperBoundProperty().addListener((a, b, c) -> { updateCursorVisual(); updateSliderGeometry(); updateWaypointVisual(); });
-        root.widthProperty().addListener((a, b, c) -> Platform.runLater(() -> { updateSliderGeometry(); updateWaypointVisual(); }));
-        root.heightProperty().addListener((a, b, c) -> Platform.runLater(() -> { updateSliderGeometry(); updateWaypointVisual(); }));
+        // zoom/pan/resize: cursore e waypoint li riposiziona il grafico stesso
+        chart.setOnViewChanged(this::updateSliderGeometry);
+        root.widthProperty().addListener((a, b, c) -> Platform.runLater(this::updateSliderGeometry));
+        root.heightProperty().addListener((a, b, c) -> Platform.runLater(this::updateSliderGeometry));
 
         // bindings impostazioni
         wheel.setImageFrom(ui.wheelImagePathProperty().get());
@@ -336,7 +322,7 @@ public final class TimeLineView {
         double x0 = cursorX.get();
         if (!Double.isFinite(x0) || max <= min) return;
 
-        Double tl0 = signals.lapTimeSec(x0);
+        Double tl0 = lapTimeAt(x0);
         boolean tlOk = (tl0 != null && !tl0.isNaN() && !tl0.isInfinite());
 
         double xNext;
@@ -365,18 +351,18 @@ public final class TimeLineView {
     }
 
     private double invertLapTime(double targetTL, double xStart, double min, double max) {
-        Double tlMin = signals.lapTimeSec(min);
-        Double tlMax = signals.lapTimeSec(max);
+        Double tlMin = lapTimeAt(min);
+        Double tlMax = lapTimeAt(max);
         if (tlMin == null || tlMin.isNaN() || tlMax == null || tlMax.isNaN()) return Double.NaN;
         if (targetTL <= tlMin) return min;
         if (targetTL >= tlMax) return max;
 
         double lo = min, hi = max;
-        Double tlStart = signals.lapTimeSec(xStart);
+        Double tlStart = lapTimeAt(xStart);
         if (tlStart != null && !tlStart.isNaN()) { if (targetTL >= tlStart) lo = xStart; else hi = xStart; }
         for (int it = 0; it < 50; it++) {
             double mid = 0.5 * (lo + hi);
-            Double tl = signals.lapTimeSec(mid);
+            Double tl = lapTimeAt(mid);
             if (tl == null || tl.isNaN()) break;
             if (Math.abs(tl - targetTL) < 1e-4) return mid;
             if (tl < targetTL) lo = mid; else hi = mid;
@@ -384,16 +370,17 @@ public final class TimeLineView {
         return 0.5 * (lo + hi);
     }
 
+    /** Tempo giro all'ascissa: dai frame precalcolati (O(1)) se pronti, altrimenti dalle serie. */
+    private Double lapTimeAt(double x) {
+        return (frames != null) ? frames.value(PlaybackFrames.LAP_TIME, x) : signals.lapTimeSec(x);
+    }
+
     // -------------------- render grafico --------------------
     private void renderChart() {
-        chart.getData().clear();
-        if (currentLap == null) return;
+        if (currentLap == null) { chart.clear(); return; }
 
         axis = AxisPicker.pick(currentLap);
-        ((NumberAxis) chart.getXAxis()).setLabel(axis.label);
-        ((NumberAxis) chart.getYAxis()).setLabel(yLabelFor(plotSelector.getValue()));
-
-        charts.renderChart(chart, plotSelector.getValue(), currentLap, null, axis);
+        charts.renderPlot(chart, plotSelector.getValue(), currentLap, null, axis);
 
         sb = SeriesBundle.extract(currentLap, axis);
         signals = new Signals(currentLap, axis);
@@ -407,24 +394,36 @@ public final class TimeLineView {
         // liste forze pedali
         buildPedalForces(currentLap, axis);
 
+        // frame di playback: calcolati sul worker, intanto i widget leggono dal vivo
+        frames = null;
+        shownFrame = -1;
+        frameInputs = new PlaybackFrames.Inputs(signals, sb, xPF, thrForce, brkForce, cluForce);
+
         // slider range
         double xmin = min(sb.x), xmax = max(sb.x);
         if (Double.isFinite(xmin) && Double.isFinite(xmax) && xmax > xmin) {
+            final PlaybackFrames.Inputs in = frameInputs;
+            final int n = sb.x.size();
+            framesSlot.submit(() -> PlaybackFrames.build(in, xmin, xmax, n), f -> {
+                frames = f;
+                shownFrame = -1;
+                updateCursorAndWidgets(cursorX.get());
+            });
+
             xSlider.setMin(xmin);
             xSlider.setMax(xmax);
             Double saved = cursorPosByLap.get(currentLap);
             double start = (saved != null && saved >= xmin && saved <= xmax) ? saved : xmin;
             cursorX.set(start);
+        } else {
+            framesSlot.cancel();
         }
 
         Platform.runLater(() -> {
-            ChartInteractions.applyDataBoundsFromSeries(chart);
             updateCursorAndWidgets(cursorX.get());
             refreshWidgetsVisibility();
             updateSliderGeometry();
             refreshWaypointNodes();
-            updateWaypointCombo();
-            updateWaypointVisual();
         });
     }
     // --- Scorciatoie da tastiera (Play/Pause e step frame) ---
@@ -452,7 +451,7 @@ public final class TimeLineView {
 
 
     private void buildPedalForces(Lap lap, AxisChoice axis) {
-        xPF.clear(); thrForce.clear(); brkForce.clear(); cluForce.clear();
+        xPF = new ArrayList<>(); thrForce = new ArrayList<>(); brkForce = new ArrayList<>(); cluForce = new ArrayList<>();
         if (lap == null || lap.samples == null || lap.samples.isEmpty()) return;
 
         double d0 = Double.NaN, lt0 = Double.NaN, t0 = Double.NaN;
@@ -481,147 +480,95 @@ public final class TimeLineView {
         }
     }
 
-    private static String yLabelFor(ChartPane.PlotType t) {
-        return switch (t) {
-            case SPEED_DIST -> "Speed [km/h]";
-            case THR_BRAKE_DIST -> "%";
-            case STEERING_DIST -> "Angle [deg]";
-            case RPM_TIME -> "RPM";
-            case FFB_FORCE -> "FFB";
-            case PEDAL_FORCE, SEAT_FORCE -> "Force (N)";
-            default -> "Y";
-        };
-    }
-
     // -------------------- aggiornamento cursore + widget --------------------
     private void updateCursorAndWidgets(double xVal) {
         if (sb == null || signals == null) return;
 
         // Readout
         readout.setX(formatX(xVal, axis));
-        readout.setTimeLap(signals.lapTimeSec(xVal));
+
+        // Riga dei valori: frame precalcolato (stesso frame = widget già aggiornati) o lettura dal vivo
+        int f = -1;
+        if (frames != null) {
+            f = frames.index(xVal);
+            if (f == shownFrame) { updateCursorVisual(); return; }
+            frames.row(f, row);
+        } else {
+            frameInputs.sample(xVal, row);
+        }
+        shownFrame = f;
+
+        readout.setTimeLap(row[PlaybackFrames.LAP_TIME]);
 
         ChartPane.PlotType t = plotSelector.getValue();
         switch (t) {
             case SPEED_DIST -> {
-                double s = interp(sb.x, sb.speed, xVal);
-                readout.set1("Speed", String.format(Locale.ITALIAN, "%.1f km/h", s));
+                readout.set1("Speed", String.format(Locale.ITALIAN, "%.1f km/h", row[PlaybackFrames.SPEED]));
                 readout.set2("", ""); readout.set3("", "");
             }
             case THR_BRAKE_DIST -> {
-                double th = signals.throttle01(xVal);
-                double br = signals.brake01(xVal);
-                double cl = signals.clutch01Pedal(xVal);
-                readout.set1("Throttle", String.format(Locale.ITALIAN, "%.0f %%", th * 100.0));
-                readout.set2("Brake", String.format(Locale.ITALIAN, "%.0f %%", br * 100.0));
-                readout.set3("Clutch", String.format(Locale.ITALIAN, "%.0f %%", cl * 100.0));
+                readout.set1("Throttle", String.format(Locale.ITALIAN, "%.0f %%", row[PlaybackFrames.THR] * 100.0));
+                readout.set2("Brake", String.format(Locale.ITALIAN, "%.0f %%", row[PlaybackFrames.BRK] * 100.0));
+                readout.set3("Clutch", String.format(Locale.ITALIAN, "%.0f %%", row[PlaybackFrames.CLU] * 100.0));
             }
             case STEERING_DIST -> {
-                double st = interp(sb.x, sb.steering, xVal);
-                readout.set1("Steer", String.format(Locale.ITALIAN, "%.1f °", st));
+                readout.set1("Steer", String.format(Locale.ITALIAN, "%.1f °", row[PlaybackFrames.STEER]));
                 readout.set2("", ""); readout.set3("", "");
             }
             case RPM_TIME -> {
-                double rpm = interp(sb.x, sb.rpm, xVal);
-                readout.set1("RPM", String.format(Locale.ITALIAN, "%.0f", rpm));
+                readout.set1("RPM", String.format(Locale.ITALIAN, "%.0f", row[PlaybackFrames.RPM]));
                 readout.set2("", ""); readout.set3("", "");
             }
             case FFB_FORCE -> {
-                double f = signals.ffb01(xVal);
-                readout.set1("FFB", String.format(Locale.ITALIAN, "%.0f %%", f * 100.0));
+                readout.set1("FFB", String.format(Locale.ITALIAN, "%.0f %%", row[PlaybackFrames.FFB] * 100.0));
                 readout.set2("", ""); readout.set3("", "");
             }
             case PEDAL_FORCE -> {
-                double pf = interp(sb.x, sb.pedalForce, xVal);
-                readout.set1("Pedal force", String.format(Locale.ITALIAN, "%.0f N", pf));
+                readout.set1("Pedal force", String.format(Locale.ITALIAN, "%.0f N", row[PlaybackFrames.PEDAL_FORCE]));
                 readout.set2("", ""); readout.set3("", "");
             }
             case SEAT_FORCE -> {
-                double sf = interp(sb.x, sb.seatForce, xVal);
-                readout.set1("Seat", String.format(Locale.ITALIAN, "%.0f N", sf));
+                readout.set1("Seat", String.format(Locale.ITALIAN, "%.0f N", row[PlaybackFrames.SEAT_FORCE]));
                 readout.set2("", ""); readout.set3("", "");
             }
             default -> { readout.set1("",""); readout.set2("",""); readout.set3("",""); }
         }
 
         // Widget dinamici
-        double speedNow = interp(sb.x, sb.speed, xVal);
-        double rpmNow   = interp(sb.x, sb.rpm,   xVal);
-        double steerNow = interp(sb.x, sb.steering, xVal);
-
-        speedGauge.update(speedNow);
-        rpmGauge.update(rpmNow);
-        wheel.setAngleDeg(steerNow);
+        speedGauge.update(row[PlaybackFrames.SPEED]);
+        rpmGauge.update(row[PlaybackFrames.RPM]);
+        wheel.setAngleDeg(row[PlaybackFrames.STEER]);
 
         // Pedali
-        Double thrN = interpOrNaN(xPF, thrForce, xVal);
-        Double brkN = interpOrNaN(xPF, brkForce, xVal);
-        Double cluN = interpOrNaN(xPF, cluForce, xVal);
         pedals.update(
-                signals.throttle01(xVal), signals.brake01(xVal), signals.clutch01Pedal(xVal),
-                thrN, brkN, cluN
+                row[PlaybackFrames.THR], row[PlaybackFrames.BRK], row[PlaybackFrames.CLU],
+                row[PlaybackFrames.THR_N], row[PlaybackFrames.BRK_N], row[PlaybackFrames.CLU_N]
         );
 
-        ffbBar.update(signals.ffb01(xVal));
-// Consumo (preferisci RubberGrip se disponibile: consumo = 1 - grip)
-// === Consumo gomme (colore pieno in base al consumo = 100 - rubber grip) ===
-        tyreWear.updateWear(
-                signals.value(Channel.TIRE_RUBBER_GRIP_FL, xVal),
-                signals.value(Channel.TIRE_RUBBER_GRIP_FR, xVal),
-                signals.value(Channel.TIRE_RUBBER_GRIP_RL, xVal),
-                signals.value(Channel.TIRE_RUBBER_GRIP_RR, xVal)
-        );
+        ffbBar.update(row[PlaybackFrames.FFB]);
 
-// Temperature I/M/O (numeri sotto le gomme)
+        // Gomme: consumo (100 - rubber grip), temperature I/M/O, pressioni (psi), carichi (N)
+        final int g = PlaybackFrames.GRIP, tm = PlaybackFrames.TEMP_IMO, pr = PlaybackFrames.PRESS, ld = PlaybackFrames.LOAD;
+        tyreWear.updateWear(row[g], row[g + 1], row[g + 2], row[g + 3]);
         tyreWear.updateTempIMO(
-                signals.value(Channel.TIRE_TEMP_INNER_FL, xVal),  signals.value(Channel.TIRE_TEMP_MIDDLE_FL, xVal),  signals.value(Channel.TIRE_TEMP_OUTER_FL, xVal),
-                signals.value(Channel.TIRE_TEMP_INNER_FR, xVal),  signals.value(Channel.TIRE_TEMP_MIDDLE_FR, xVal),  signals.value(Channel.TIRE_TEMP_OUTER_FR, xVal),
-                signals.value(Channel.TIRE_TEMP_INNER_RL, xVal),  signals.value(Channel.TIRE_TEMP_MIDDLE_RL, xVal),  signals.value(Channel.TIRE_TEMP_OUTER_RL, xVal),
-                signals.value(Channel.TIRE_TEMP_INNER_RR, xVal),  signals.value(Channel.TIRE_TEMP_MIDDLE_RR, xVal),  signals.value(Channel.TIRE_TEMP_OUTER_RR, xVal)
+                row[tm],     row[tm + 1],  row[tm + 2],
+                row[tm + 3], row[tm + 4],  row[tm + 5],
+                row[tm + 6], row[tm + 7],  row[tm + 8],
+                row[tm + 9], row[tm + 10], row[tm + 11]
         );
+        tyreWear.updatePress(row[pr], row[pr + 1], row[pr + 2], row[pr + 3]);
+        tyreWear.updateLoad(row[ld], row[ld + 1], row[ld + 2], row[ld + 3]);
 
-// Pressioni (psi) e Carichi (N)
-        tyreWear.updatePress(
-                signals.value(Channel.TIRE_PRESSURE_FL, xVal),
-                signals.value(Channel.TIRE_PRESSURE_FR, xVal),
-                signals.value(Channel.TIRE_PRESSURE_RL, xVal),
-                signals.value(Channel.TIRE_PRESSURE_RR, xVal)
-        );
-        tyreWear.updateLoad(
-                signals.value(Channel.TIRE_LOAD_FL, xVal),
-                signals.value(Channel.TIRE_LOAD_FR, xVal),
-                signals.value(Channel.TIRE_LOAD_RL, xVal),
-                signals.value(Channel.TIRE_LOAD_RR, xVal)
-        );
+        final int bt = PlaybackFrames.BRAKE_T, st = PlaybackFrames.SEAT;
+        brakesTL.update(row[bt], row[bt + 1], row[bt + 2], row[bt + 3]);
+        seatTL.update(row[st], row[st + 1], row[st + 2]);
 
+        final int su = PlaybackFrames.SUSP, rh = PlaybackFrames.RIDE_H;
+        suspTL.update(row[su], row[su + 1], row[su + 2], row[su + 3],
+                row[rh], row[rh + 1], row[rh + 2], row[rh + 3]);
 
-        brakesTL.update(
-                signals.brakeTemp("FL", xVal),
-                signals.brakeTemp("FR", xVal),
-                signals.brakeTemp("RL", xVal),
-                signals.brakeTemp("RR", xVal)
-        );
-        seatTL.update(
-                signals.seatForce01("LEFT", xVal),
-                signals.seatForce01("RIGHT", xVal),
-                signals.seatForce01("REAR", xVal)
-        );
-        double pFL = travelPct(signals.value(org.simulator.canale.Channel.SUSP_TRAVEL_FL, xVal),
-                signals.value(org.simulator.canale.Channel.MAX_SUS_TRAVEL_FL, xVal));
-        double pFR = travelPct(signals.value(org.simulator.canale.Channel.SUSP_TRAVEL_FR, xVal),
-                signals.value(org.simulator.canale.Channel.MAX_SUS_TRAVEL_FR, xVal));
-        double pRL = travelPct(signals.value(org.simulator.canale.Channel.SUSP_TRAVEL_RL, xVal),
-                signals.value(org.simulator.canale.Channel.MAX_SUS_TRAVEL_RL, xVal));
-        double pRR = travelPct(signals.value(org.simulator.canale.Channel.SUSP_TRAVEL_RR, xVal),
-                signals.value(org.simulator.canale.Channel.MAX_SUS_TRAVEL_RR, xVal));
-
-        Double rhFL = signals.value(org.simulator.canale.Channel.RIDE_HEIGHT_FL, xVal);
-        Double rhFR = signals.value(org.simulator.canale.Channel.RIDE_HEIGHT_FR, xVal);
-        Double rhRL = signals.value(org.simulator.canale.Channel.RIDE_HEIGHT_RL, xVal);
-        Double rhRR = signals.value(org.simulator.canale.Channel.RIDE_HEIGHT_RR, xVal);
-
-        suspTL.update(pFL, pFR, pRL, pRR, rhFL, rhFR, rhRL, rhRR);
-        coach.update(xVal, signals, sb);
+        if (frames != null) coach.update(frames.coach(), f, frames.x(f), signals, sb);
+        else coach.update(xVal, signals, sb);
         updateCursorVisual();
     }
 
@@ -674,28 +621,12 @@ public final class TimeLineView {
     private static void setVis(Node n, boolean v) { if (n == null) return; n.setVisible(v); n.setManaged(v); }
 
     private void updateCursorVisual() {
-        Node plot = chart.lookup(".chart-plot-background");
-        if (plot == null) return;
-        double xVal = cursorX.get();
-        NumberAxis xa = (NumberAxis) chart.getXAxis();
-        Bounds pbScene = plot.localToScene(plot.getBoundsInLocal());
-        Point2D topLeft = overlay.sceneToLocal(pbScene.getMinX(), pbScene.getMinY());
-        Point2D botRight = overlay.sceneToLocal(pbScene.getMaxX(), pbScene.getMaxY());
-        double plotW = botRight.getX() - topLeft.getX();
-        double plotH = botRight.getY() - topLeft.getY();
-        double x0 = xa.getLowerBound(), x1 = xa.getUpperBound();
-        if (x1 <= x0) return;
-        double frac = (xVal - x0) / (x1 - x0);
-        frac = Math.max(0, Math.min(1, frac));
-        double xPixel = topLeft.getX() + frac * plotW;
-        vline.setStartX(xPixel); vline.setEndX(xPixel);
-        vline.setStartY(topLeft.getY()); vline.setEndY(topLeft.getY() + plotH);
+        chart.setCursor(cursorX.get());
     }
 
     private void updateSliderGeometry() {
-        Node plot = chart.lookup(".chart-plot-background");
-        if (plot == null || chart.getScene() == null) return;
-        Bounds pbScene = plot.localToScene(plot.getBoundsInLocal());
+        if (chart.getScene() == null) return;
+        Bounds pbScene = chart.localToScene(chart.plotArea());
         Bounds spScene = sliderPane.localToScene(sliderPane.getBoundsInLocal());
         if (pbScene == null || spScene == null) return;
         double startX = pbScene.getMinX() - spScene.getMinX();
@@ -725,39 +656,10 @@ public final class TimeLineView {
         var list = waypointsByLap.get(currentLap); if (list == null) return; list.clear(); refreshWaypointNodes(); }
 
     private void refreshWaypointNodes(){
-        wpGroup.getChildren().clear();
-        var list = waypointsByLap.getOrDefault(currentLap, List.of());
-        for (Double x : list){
-            Line l = new Line();
-            l.setStroke(Color.RED); l.setStrokeWidth(1.5); l.setOpacity(0.9);
-            l.setUserData(x);
-            wpGroup.getChildren().add(l);
-        }
+        chart.setWaypoints(waypointsByLap.getOrDefault(currentLap, List.of()));
         updateWaypointCombo();
-        updateWaypointVisual();
     }
 
-    private void updateWaypointVisual(){
-        Node plot = chart.lookup(".chart-plot-background");
-        if (plot == null) return;
-        Bounds pbScene = plot.localToScene(plot.getBoundsInLocal());
-        Point2D topLeft  = overlay.sceneToLocal(pbScene.getMinX(), pbScene.getMinY());
-        Point2D botRight = overlay.sceneToLocal(pbScene.getMaxX(), pbScene.getMaxY());
-        double plotW = botRight.getX() - topLeft.getX();
-        double plotH = botRight.getY() - topLeft.getY();
-        NumberAxis xa = (NumberAxis) chart.getXAxis();
-        double x0 = xa.getLowerBound(), x1 = xa.getUpperBound();
-        if (x1 <= x0) return;
-        for (Node n : wpGroup.getChildren()){
-            Double xVal = (Double) n.getUserData();
-            if (xVal == null) continue;
-            double frac = (xVal - x0) / (x1 - x0);
-            double xPixel = topLeft.getX() + Math.max(0, Math.min(1, frac)) * plotW;
-            Line l = (Line) n;
-            l.setStartX(xPixel); l.setEndX(xPixel);
-            l.setStartY(topLeft.getY()); l.setEndY(topLeft.getY() + plotH);
-        }
-    }
     private void updateWaypointCombo() {
         var list = waypointsByLap.getOrDefault(currentLap, List.of());
         wpCombo.getItems().setAll(list);
@@ -766,27 +668,6 @@ public final class TimeLineView {
     }
 
     // -------------------- numerica --------------------
-    private static double interp(List<Double> xs, List<Double> ys, double xq) {
-        int n = Math.min(xs.size(), ys.size());
-        if (n == 0) return Double.NaN;
-        if (xq <= xs.get(0)) return ys.get(0);
-        if (xq >= xs.get(n - 1)) return ys.get(n - 1);
-        int lo = 0, hi = n - 1;
-        while (hi - lo > 1) {
-            int mid = (lo + hi) / 2;
-            double xm = xs.get(mid);
-            if (xm <= xq) lo = mid; else hi = mid;
-        }
-        double x1 = xs.get(lo), x2 = xs.get(hi);
-        double y1 = ys.get(lo), y2 = ys.get(hi);
-        if (x2 == x1) return y1;
-        double t = (xq - x1) / (x2 - x1);
-        return y1 + t * (y2 - y1);
-    }
-    private static Double interpOrNaN(List<Double> xs, List<Double> ys, double xq) {
-        double v = interp(xs, ys, xq);
-        return Double.isNaN(v) ? Double.NaN : v;
-    }
     private static double min(List<Double> a) { double m = Double.POSITIVE_INFINITY; for (Double v : a) if (v != null && !v.isNaN()) m = Math.min(m, v); return m; }
     private static double max(List<Double> a) { double m = Double.NEGATIVE_INFINITY; for (Double v : a) if (v != null && !v.isNaN()) m = Math.max(m, v); return m; }
     private static double finiteMax(List<Double> list, double def) {
@@ -864,11 +745,6 @@ public final class TimeLineView {
         }
         refreshWaypointNodes(); // aggiorna linee + combo
     }
-    private static double travelPct(Double cur, Double mx){
-        if (cur == null || mx == null || cur.isNaN() || mx.isNaN() || mx == 0.0) return 0.0;
-        return Math.min(1.0, Math.abs(cur) / Math.abs(mx));
-    }
-
 
     private interface DataControllerLike { java.util.List<Lap> getLaps(); }
 }
@@ -15,8 +15,11 @@ import org.simulator.ui.time_line_view.Signals;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import static java.lang.Math.*;
 
@@ -61,6 +64,18 @@ public final class CoachTL {
     private double lastX = Double.NaN;
     private Signals lastS = null;
     private SeriesBundle lastSB = null;
+    private Tips lastTips = null;
+    private VehicleProfile lastVp = null;
+
+    // profilo veicolo del giro corrente (il rilevamento ordina tutti gli RPM: una volta per giro)
+    private Signals profS = null;
+    private VehicleProfile profile = null;
+    private double profRpmMax = Double.NaN;
+
+    // nodi mostrati: i suggerimenti si ricostruiscono solo se cambiano, le statistiche aggiornano il testo
+    private Tips shownTips = null;
+    private int shownFilters = -1;
+    private final List<Label> statLabels = new ArrayList<>();
 
     // ===== Profilo veicolo (come nel codice originale) =====
     private enum Category { FORMULA, PROTOTYPE, GT, ROAD, OTHER }
@@ -68,6 +83,18 @@ public final class CoachTL {
     private enum Powertrain { NA, TURBO, HYBRID, UNKNOWN }
     private record VehicleProfile(Category cat, Drivetrain dt, Powertrain pt) {}
     private static record Range(double min, double max) {}
+    /** Suggerimenti di un istante, per sezione. */
+    private record Tips(List<String> guida, List<String> setup, List<String> meteo) {}
+
+    /**
+     * Coach precalcolato per un giro su una griglia di ascisse: profilo veicolo rilevato una volta e
+     * suggerimenti per frame (frame con gli stessi suggerimenti condividono la stessa istanza).
+     */
+    public static final class Prepared {
+        private final VehicleProfile vp;
+        private final Tips[] tips;
+        private Prepared(VehicleProfile vp, Tips[] tips){ this.vp = vp; this.tips = tips; }
+    }
 
     public CoachTL(){
         title.setStyle("-fx-text-fill:#e5e7eb; -fx-font-weight:bold;");
@@ -121,23 +148,61 @@ public final class CoachTL {
     // ========================================================================
     public void update(double xVal, Signals s, SeriesBundle sb){
         if (s == null || sb == null) return;
+        VehicleProfile vp = profileFor(s, sb);
+        show(xVal, s, sb, tipsAt(xVal, s, sb, vp, profRpmMax), vp);
+    }
+
+    /** Come {@link #update(double, Signals, SeriesBundle)} ma con i suggerimenti già calcolati per il frame. */
+    public void update(Prepared p, int frame, double xVal, Signals s, SeriesBundle sb){
+        if (p == null || s == null || sb == null || frame < 0 || frame >= p.tips.length) return;
+        show(xVal, s, sb, p.tips[frame], p.vp);
+    }
+
+    /**
+     * Precalcola profilo veicolo e suggerimenti per ogni ascissa di {@code xs} (da un worker).
+     * Se il thread viene interrotto lancia {@link CancellationException}.
+     */
+    public static Prepared prepare(Signals s, SeriesBundle sb, double[] xs){
+        VehicleProfile vp = VehicleProfileDetector.detect(s, sb);
+        double rpmMax = Numx.maxFinite(sb.rpm);
+        Map<Tips, Tips> pool = new HashMap<>();
+        Tips[] out = new Tips[xs.length];
+        for (int i = 0; i < xs.length; i++){
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException();
+            Tips t = tipsAt(xs[i], s, sb, vp, rpmMax);
+            Tips shared = pool.putIfAbsent(t, t);
+            out[i] = (shared != null) ? shared : t;
+        }
+        return new Prepared(vp, out);
+    }
+
+    private void show(double xVal, Signals s, SeriesBundle sb, Tips tips, VehicleProfile vp){
         this.lastX = xVal; this.lastS = s; this.lastSB = sb;
-        rebuild(xVal, s, sb);
+        this.lastTips = tips; this.lastVp = vp;
+        render();
     }
 
     private void refresh(){
-        if (lastS != null && lastSB != null && Double.isFinite(lastX)){
-            rebuild(lastX, lastS, lastSB);
+        if (lastS != null && lastSB != null && lastTips != null && Double.isFinite(lastX)){
+            render();
+        }
+    }
+
+    private VehicleProfile profileFor(Signals s, SeriesBundle sb){
+        if (s != profS || profile == null){
+            profS = s;
+            profile = VehicleProfileDetector.detect(s, sb);
+            profRpmMax = Numx.maxFinite(sb.rpm);
         }
+        return profile;
     }
 
-    private void rebuild(double xVal, Signals s, SeriesBundle sb){
+    private static Tips tipsAt(double xVal, Signals s, SeriesBundle sb, VehicleProfile vp, double rpmMax){
         List<String> tipsGuida = new ArrayList<>();
         List<String> tipsSetup = new ArrayList<>();
         List<String> tipsMeteo = new ArrayList<>();
 
-        // —— Profilo veicolo & target dinamici ——
-        VehicleProfile vp = VehicleProfileDetector.detect(s, sb);
+        // —— Target dinamici dal profilo veicolo ——
         Range tyreTarget  = Targets.tyreTargetFor(vp.cat());
         Range brakeTarget = Targets.brakeTargetFor(vp.cat());
 
@@ -150,7 +215,6 @@ public final class CoachTL {
         double steer  = rd(s, sb, Channel.STEER_ANGLE,  xVal);
         double speed  = rd(s, sb, Channel.SPEED,        xVal);
         double rpm    = rd(s, sb, Channel.ENGINE_RPM,   xVal);
-        double rpmMax = Numx.maxFinite(sb.rpm);
 
         // gomme core/freni
         Double tFL = s.tyreTemp("FL", xVal), tFR = s.tyreTemp("FR", xVal),
@@ -202,29 +266,47 @@ public final class CoachTL {
         TipBuilder.positiveFeedback(tipsGuida, thr01, brk01, thrL, thrR, stL, stR, ffb01);
 
 
-        // ===== Render UI =====================================================
+        return new Tips(tipsGuida, tipsSetup, tipsMeteo);
+    }
+
+    // ===== Render UI =====================================================
+    private void render(){
+        int filters = (cbGuida.isSelected() ? 1 : 0) | (cbSetup.isSelected() ? 2 : 0)
+                | (cbMeteo.isSelected() ? 4 : 0) | (cbStats.isSelected() ? 8 : 0);
+        List<String> stats = cbStats.isSelected() ? statLines(lastX, lastS, lastSB, lastVp) : List.of();
+
+        // stessi suggerimenti e stesse righe: aggiorna solo i testi delle statistiche
+        if (lastTips.equals(shownTips) && filters == shownFilters && stats.size() == statLabels.size()){
+            for (int i = 0; i < stats.size(); i++) statLabels.get(i).setText(stats.get(i));
+            return;
+        }
+        shownTips = lastTips;
+        shownFilters = filters;
+
+        Tips tips = lastTips;
         List<Node> nodes = new ArrayList<>();
-        if (cbGuida.isSelected() && !tipsGuida.isEmpty()){
+        if (cbGuida.isSelected() && !tips.guida().isEmpty()){
             nodes.add(UIx.sectionHeader("Guida"));
-            tipsGuida.forEach(t -> nodes.add(UIx.bullet(t, CARD_W)));
+            tips.guida().forEach(t -> nodes.add(UIx.bullet(t, CARD_W)));
         }
-        if (cbSetup.isSelected() && !tipsSetup.isEmpty()){
+        if (cbSetup.isSelected() && !tips.setup().isEmpty()){
             nodes.add(UIx.sectionHeader("Setup"));
-            tipsSetup.forEach(t -> nodes.add(UIx.bullet(t, CARD_W)));
+            tips.setup().forEach(t -> nodes.add(UIx.bullet(t, CARD_W)));
         }
-        if (cbMeteo.isSelected() && !tipsMeteo.isEmpty()){
+        if (cbMeteo.isSelected() && !tips.meteo().isEmpty()){
             nodes.add(UIx.sectionHeader("Meteo"));
-            tipsMeteo.forEach(t -> nodes.add(UIx.bullet(t, CARD_W)));
+            tips.meteo().forEach(t -> nodes.add(UIx.bullet(t, CARD_W)));
         }
         if (nodes.isEmpty()) nodes.add(UIx.bullet("Tutto regolare in questo istante.", CARD_W));
 
+        statLabels.clear();
         if (cbStats.isSelected()){
             nodes.add(UIx.sectionHeader("Statistiche (istantanee)"));
-            // profilo veicolo + target attivi
-            nodes.add(UIx.stat("Vehicle: " + vp.cat() + " / " + vp.dt() + " / " + vp.pt(), CARD_W));
-            nodes.add(UIx.stat(String.format(Locale.ROOT, "Tyre target: %.0f–%.0f °C | Brake target: %.0f–%.0f °C",
-                    tyreTarget.min, tyreTarget.max, brakeTarget.min, brakeTarget.max), CARD_W));
-            nodes.addAll(statLines(xVal, s, sb));
+            for (String line : stats){
+                Label l = UIx.stat(line, CARD_W);
+                statLabels.add(l);
+                nodes.add(l);
+            }
         }
 
         list.getChildren().setAll(nodes);
@@ -233,23 +315,29 @@ public final class CoachTL {
     // ========================================================================
     // Statistiche (come originale, con util estratte)
     // ========================================================================
-    private List<Node> statLines(double x, Signals s, SeriesBundle sb){
-        List<Node> out = new ArrayList<>();
+    private static List<String> statLines(double x, Signals s, SeriesBundle sb, VehicleProfile vp){
+        List<String> out = new ArrayList<>();
+        // profilo veicolo + target attivi
+        Range tyreTarget  = Targets.tyreTargetFor(vp.cat());
+        Range brakeTarget = Targets.brakeTargetFor(vp.cat());
+        out.add("Vehicle: " + vp.cat() + " / " + vp.dt() + " / " + vp.pt());
+        out.add(String.format(Locale.ROOT, "Tyre target: %.0f–%.0f °C | Brake target: %.0f–%.0f °C",
+                tyreTarget.min, tyreTarget.max, brakeTarget.min, brakeTarget.max));
         // base
         double speed  = rd(s, sb, Channel.SPEED, x);
         double rpm    = rd(s, sb, Channel.ENGINE_RPM, x);
         double steer  = rd(s, sb, Channel.STEER_ANGLE, x);
 
-        out.add(UIx.stat("Speed: " + (Double.isFinite(speed) ? (int) round(speed) + " km/h" : "n/d"), CARD_W));
-        out.add(UIx.stat("RPM: " + (Double.isFinite(rpm) ? (int) round(rpm) : "n/d"), CARD_W));
+        out.add("Speed: " + (Double.isFinite(speed) ? (int) round(speed) + " km/h" : "n/d"));
+        out.add("RPM: " + (Double.isFinite(rpm) ? (int) round(rpm) : "n/d"));
         Double gear = s.value(Channel.GEAR, x);
-        out.add(UIx.stat("Gear: " + (Numx.isFinite(gear) ? (gear%1==0 ? Integer.toString((int) Math.round(gear)) : Numx.fmt(gear,0)) : "n/d"), CARD_W));
+        out.add("Gear: " + (Numx.isFinite(gear) ? (gear%1==0 ? Integer.toString((int) Math.round(gear)) : Numx.fmt(gear,0)) : "n/d"));
 
-        out.add(UIx.stat("Throttle: " + Numx.pct(s.throttle01(x)), CARD_W));
-        out.add(UIx.stat("Brake: "    + Numx.pct(s.brake01(x)), CARD_W));
-        out.add(UIx.stat("Clutch: "   + Numx.pct(s.clutch01Pedal(x)), CARD_W));
-        out.add(UIx.stat("Steer: "    + (Double.isFinite(steer) ? Numx.fmt(steer,0) + " °" : "n/d"), CARD_W));
-        out.add(UIx.stat("FFB: "      + Numx.pct(s.ffb01(x)), CARD_W));
+        out.add("Throttle: " + Numx.pct(s.throttle01(x)));
+        out.add("Brake: "    + Numx.pct(s.brake01(x)));
+        out.add("Clutch: "   + Numx.pct(s.clutch01Pedal(x)));
+        out.add("Steer: "    + (Double.isFinite(steer) ? Numx.fmt(steer,0) + " °" : "n/d"));
+        out.add("FFB: "      + Numx.pct(s.ffb01(x)));
 
         // g-forces / chassis
         addStat(out, "g Long",  s.value(Channel.CG_ACCEL_LONGITUDINAL, x), v -> Numx.fmt(v,2) + " g");
@@ -299,8 +387,8 @@ public final class CoachTL {
         return out;
     }
 
-    private static void addStat(List<Node> out, String name, Double v, java.util.function.Function<Double,String> fmtFun){
-        if (Numx.isFinite(v)) out.add(UIx.stat(name + ": " + fmtFun.apply(v), CARD_W));
+    private static void addStat(List<String> out, String name, Double v, java.util.function.Function<Double,String> fmtFun){
+        if (Numx.isFinite(v)) out.add(name + ": " + fmtFun.apply(v));
     }
 
     // ========================================================================
@@ -319,7 +407,7 @@ public final class CoachTL {
             lab.setPrefWidth(cardW - 20);
             return lab;
         }
-        static Node stat(String s, double cardW){
+        static Label stat(String s, double cardW){
             Label lab = new Label(s);
             lab.setStyle("-fx-text-fill:#e5e7eb; -fx-opacity:.85;");
             lab.setWrapText(true);